@@ -0,0 +1,339 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// A CompletableFuture API over a PartitionedContactService for callers that shouldn't block,
+// such as event loops or many lightweight threads
+// Each call is put on its contact's shard queue and returns at once. A small pool of worker
+// threads drains the queues: a worker takes everything waiting for one shard, runs it as one
+// batch under a single acquisition of that shard's lock (the read lock when the batch only reads),
+// and completes the futures after the lock is released. Under heavy load the lock is taken once
+// per batch instead of once per call. Reads of the same contactId in a batch share one lookup,
+// unless a write to that contact comes between them.
+//
+// Futures complete on a worker thread, so long-running work chained onto them should use the
+// async variants (thenApplyAsync and so on) to keep the workers free. Failures complete the
+// future exceptionally with the same IllegalArgumentException the synchronous methods throw.
+public class AsyncContactService implements AutoCloseable {
+
+    // Most calls one worker runs for a shard before letting the other shards have a turn
+    private static final int MAX_BATCH = 256;
+
+    private final PartitionedContactService service;
+    private final ExecutorService workers;
+    private final ConcurrentLinkedQueue<Request>[] queues;
+    private final AtomicIntegerArray scheduled;    // 1 while a drain of that shard is queued or running
+    private volatile boolean closed;
+
+    // Statistics
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalescedReads = new LongAdder();
+
+    // Create an async service over a new PartitionedContactService with two worker threads
+    public AsyncContactService() {
+        this(new PartitionedContactService(), 2);
+    }
+
+    // Create an async service over an existing partitioned service
+    // The partitioned service can still be used directly - both go through the same shard locks
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public AsyncContactService(PartitionedContactService service, int workerThreads) {
+        if (service == null || workerThreads < 1) {
+            throw new IllegalArgumentException("Service can't be null and worker threads must be at least 1.");
+        }
+        this.service = service;
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "contact-async");
+            thread.setDaemon(true);
+            return thread;
+        });
+        queues = new ConcurrentLinkedQueue[service.getShardCount()];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ConcurrentLinkedQueue<>();
+        }
+        scheduled = new AtomicIntegerArray(queues.length);
+    }
+
+    // Operations - each one checks what it can without the shard, then queues the call
+
+    public CompletableFuture<Void> addContact(Contact contact) {
+        if (contact == null) {
+            return failed("Contact is null or already exists.");
+        }
+        return submit(new Request(Request.ADD, contact.getContactId(), contact, null, null, null));
+    }
+
+    public CompletableFuture<Void> deleteContact(String contactId) {
+        if (contactId == null) {
+            return failed("Contact ID not found.");
+        }
+        return submit(new Request(Request.DELETE, contactId, null, null, null, null));
+    }
+
+    public CompletableFuture<Void> updateFirstName(String contactId, String newFirstName) {
+        return update(contactId, ContactField.FIRST_NAME, newFirstName);
+    }
+
+    public CompletableFuture<Void> updateLastName(String contactId, String newLastName) {
+        return update(contactId, ContactField.LAST_NAME, newLastName);
+    }
+
+    public CompletableFuture<Void> updatePhone(String contactId, String newPhone) {
+        return update(contactId, ContactField.PHONE, newPhone);
+    }
+
+    public CompletableFuture<Void> updateAddress(String contactId, String newAddress) {
+        return update(contactId, ContactField.ADDRESS, newAddress);
+    }
+
+    // Change several fields of a contact at once (see ContactService.applyPatch)
+    public CompletableFuture<Void> applyPatch(String contactId, ContactPatch patch) {
+        if (patch == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Patch is null."));
+        }
+        if (contactId == null) {
+            return failed("Contact not found.");
+        }
+        return submit(new Request(Request.PATCH, contactId, null, null, null, patch));
+    }
+
+    // Find a contact by their ID
+    // The future fails with "Contact not found." if the contact doesn't exist
+    public CompletableFuture<Contact> getContactById(String contactId) {
+        if (contactId == null) {
+            return failed("Contact not found.");
+        }
+        return submit(new Request(Request.GET, contactId, null, null, null, null));
+    }
+
+    // The service the calls run against
+    public PartitionedContactService getService() {
+        return service;
+    }
+
+    // Statistics
+
+    // Number of batches run - requests / batches is the average batch size
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    // Reads answered from an earlier read of the same contact in the same batch
+    public long getCoalescedReadCount() {
+        return coalescedReads.sum();
+    }
+
+    // Stop taking calls, finish every call already queued, then stop the workers
+    @Override
+    public void close() {
+        closed = true;
+        workers.shutdown();
+        try {
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // A call queued after its shard's last drain started never got a worker
+        for (ConcurrentLinkedQueue<Request> queue : queues) {
+            for (Request request; (request = queue.poll()) != null; ) {
+                request.future.completeExceptionally(new IllegalStateException("Service is closed."));
+            }
+        }
+    }
+
+    // Queueing
+
+    private CompletableFuture<Void> update(String contactId, ContactField field, String value) {
+        if (!field.isValid(value)) {
+            return CompletableFuture.failedFuture(new ContactValidationException(field));
+        }
+        if (contactId == null) {
+            return failed("Contact not found.");
+        }
+        return submit(new Request(Request.UPDATE, contactId, null, field, value, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> submit(Request request) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Service is closed."));
+        }
+        int shard = service.shardFor(request.contactId);
+        queues[shard].add(request);
+        // close() may have emptied the queues between the check above and the add. Whoever takes
+        // the call off the queue completes it, so fail it here only if it is still there.
+        if (closed && queues[shard].remove(request)) {
+            request.future.completeExceptionally(new IllegalStateException("Service is closed."));
+        } else {
+            schedule(shard);
+        }
+        return (CompletableFuture<T>) request.future;
+    }
+
+    // Start a drain of this shard unless one is already queued or running
+    private void schedule(int shard) {
+        if (scheduled.compareAndSet(shard, 0, 1)) {
+            try {
+                workers.execute(() -> drain(shard));
+            } catch (RejectedExecutionException e) {
+                scheduled.set(shard, 0);   // Closed - close() fails whatever is left
+            }
+        }
+    }
+
+    // Run up to MAX_BATCH queued calls for one shard as a single batch
+    private void drain(int shard) {
+        ConcurrentLinkedQueue<Request> queue = queues[shard];
+        List<Request> batch = new ArrayList<>();
+        try {
+            boolean readOnly = true;
+            for (Request request; batch.size() < MAX_BATCH && (request = queue.poll()) != null; ) {
+                batch.add(request);
+                readOnly &= request.type == Request.GET;
+            }
+            if (!batch.isEmpty()) {
+                service.runOnShard(shard, readOnly, contacts -> execute(contacts, batch));
+            }
+        } catch (Throwable e) {
+            for (Request request : batch) {     // Don't leave any caller waiting forever, even after an Error
+                request.error = e;
+            }
+        } finally {
+            if (!batch.isEmpty()) {
+                batches.increment();
+                requests.add(batch.size());
+                for (Request request : batch) {
+                    request.complete();
+                }
+            }
+            // Let another drain start, then make sure a call queued just before that isn't stranded
+            scheduled.set(shard, 0);
+            if (!queue.isEmpty()) {
+                schedule(shard);
+            }
+        }
+    }
+
+    // Run a batch in order on its shard - the caller holds the shard's lock
+    // Results are only recorded here, so no caller code runs under the lock
+    private void execute(ContactService contacts, List<Request> batch) {
+        Map<String, Request> lastRead = null;
+        for (Request request : batch) {
+            switch (request.type) {
+                case Request.GET:
+                    Request earlier = lastRead == null ? null : lastRead.get(request.contactId);
+                    if (earlier != null) {
+                        request.result = earlier.result;
+                        request.error = earlier.error;
+                        coalescedReads.increment();
+                        break;
+                    }
+                    try {
+                        request.result = contacts.getContactById(request.contactId);
+                    } catch (IllegalArgumentException e) {
+                        request.error = e;
+                    }
+                    if (lastRead == null) {
+                        lastRead = new HashMap<>();
+                    }
+                    lastRead.put(request.contactId, request);
+                    break;
+                case Request.ADD:
+                    request.fail(contacts.tryAdd(request.contact), "Contact is null or already exists.");
+                    break;
+                case Request.DELETE:
+                    request.fail(contacts.tryDelete(request.contactId), "Contact ID not found.");
+                    break;
+                case Request.UPDATE:
+                    request.fail(contacts.tryUpdate(request.contactId, request.field, request.value),
+                            "Contact not found.");
+                    break;
+                default:
+                    try {
+                        contacts.applyPatch(request.contactId, request.patch);
+                    } catch (IllegalArgumentException e) {
+                        request.error = e;
+                    }
+                    break;
+            }
+            if (request.type != Request.GET && lastRead != null) {
+                lastRead.remove(request.contactId);    // Later reads must see this write
+            }
+        }
+    }
+
+    private static <T> CompletableFuture<T> failed(String message) {
+        return CompletableFuture.failedFuture(new IllegalArgumentException(message));
+    }
+
+    // One queued call and, once its batch has run, its result
+    private static final class Request {
+
+        static final int GET = 0;
+        static final int ADD = 1;
+        static final int DELETE = 2;
+        static final int UPDATE = 3;
+        static final int PATCH = 4;
+
+        final int type;
+        final String contactId;
+        final Contact contact;
+        final ContactField field;
+        final String value;
+        final ContactPatch patch;
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        Object result;
+        Throwable error;
+        ContactStatus status = ContactStatus.OK;
+        String notFoundMessage;
+
+        Request(int type, String contactId, Contact contact, ContactField field, String value, ContactPatch patch) {
+            this.type = type;
+            this.contactId = contactId;
+            this.contact = contact;
+            this.field = field;
+            this.value = value;
+            this.patch = patch;
+        }
+
+        // Keep a non-throwing call's status - the exception is only built once the lock is released
+        void fail(ContactStatus status, String notFoundMessage) {
+            this.status = status;
+            this.notFoundMessage = notFoundMessage;
+        }
+
+        // Complete the future, turning a failed status into the exception the synchronous method
+        // would have thrown
+        void complete() {
+            if (error == null && status.getField() != null) {
+                error = new ContactValidationException(status.getField());
+            } else if (error == null && !status.isOk()) {
+                error = new IllegalArgumentException(
+                        status == ContactStatus.NOT_FOUND ? notFoundMessage : status.getMessage());
+            }
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+
+// Throughput of AsyncContactService against calling the same PartitionedContactService directly,
+// with many caller threads. Each operation below is a window of WINDOW calls - 90% reads by ID and
+// 10% phone updates - so per-call times are ns/op divided by WINDOW. The async callers submit the
+// whole window and then wait for it, like a caller that doesn't block per call.
+// Two key patterns: uniform over every contact, and hot, where every call goes to 1,000 contacts,
+// so reads of the same contact often meet in one batch and are coalesced.
+// Usage: java ContactService.AsyncContactServiceBenchmark [threads] [contacts] [workers] [seconds]
+public class AsyncContactServiceBenchmark {
+
+    private static final int WINDOW = 16;
+
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        double seconds = args.length > 3 ? Double.parseDouble(args[3]) : 2;
+
+        PartitionedContactService partitioned = new PartitionedContactService();
+        String[] ids = new String[count];
+        String[] phones = new String[count];
+        for (int i = 0; i < count; i++) {
+            Contact contact = ContactStoreFootprint.newContact(i);
+            partitioned.addContact(contact);
+            ids[i] = contact.getContactId();
+            phones[i] = contact.getPhone();
+        }
+        ContactBenchmarkHarness harness = new ContactBenchmarkHarness(seconds, seconds);
+        ContactBenchmarkHarness.printHeader();
+        for (int keys : new int[] {count, Math.min(count, 1000)}) {
+            String pattern = keys == count ? " uniform" : " hot";
+            harness.run("partitioned x" + WINDOW + pattern, threads, () -> window(keys, (id, phone, read) -> {
+                if (read) {
+                    ContactBenchmarkHarness.consume(partitioned.getContactById(id));
+                } else {
+                    partitioned.updatePhone(id, phone);
+                }
+                return null;
+            }, ids, phones));
+            try (AsyncContactService async = new AsyncContactService(partitioned, workers)) {
+                harness.run("async(" + workers + ") x" + WINDOW + pattern, threads,
+                        () -> window(keys, (id, phone, read) -> read ? async.getContactById(id)
+                                : async.updatePhone(id, phone), ids, phones));
+                System.out.printf("%-40s %.1f calls per batch, %.1f%% of reads coalesced%n", "",
+                        async.getRequestCount() / (double) Math.max(1, async.getBatchCount()),
+                        100.0 * async.getCoalescedReadCount() / Math.max(1, async.getRequestCount() * 0.9));
+            }
+        }
+    }
+
+    private interface Call {
+        CompletableFuture<?> run(String id, String phone, boolean read);
+    }
+
+    // One window of calls on random contacts among the first keys, waiting for all of them at the end
+    private static IntConsumer window(int keys, Call call, String[] ids, String[] phones) {
+        CompletableFuture<?>[] pending = new CompletableFuture<?>[WINDOW];
+        return i -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int w = 0; w < WINDOW; w++) {
+                int contact = random.nextInt(keys);
+                // Write each contact's own phone back, so the phone index doesn't change shape
+                pending[w] = call.run(ids[contact], phones[contact], random.nextInt(10) != 0);
+            }
+            for (CompletableFuture<?> future : pending) {
+                if (future != null) {
+                    ContactBenchmarkHarness.consume(future.join());
+                }
+            }
+        };
+    }
+}
\ No newline at end of file
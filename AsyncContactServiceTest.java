@@ -0,0 +1,218 @@
+// Roger Fisher 8/8/2025
+
+package ContactService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// This class tests AsyncContactService
+// It checks results and errors come back through the futures, and that batches coalesce reads
+public class AsyncContactServiceTest {
+
+    private PartitionedContactService partitioned;
+    private AsyncContactService service;        // The service we're testing
+
+    @BeforeEach
+    public void setUp() {
+        partitioned = new PartitionedContactService(4);
+        service = new AsyncContactService(partitioned, 1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.close();
+    }
+
+    // The exception a failed future was completed with
+    private static Throwable failure(CompletableFuture<?> future) {
+        CompletionException e = assertThrows(CompletionException.class, future::join);
+        return e.getCause();
+    }
+
+    // The exception a failed future was completed with, failing the test instead of hanging if
+    // the future is never completed
+    private static Throwable failureWithin(CompletableFuture<?> future) throws Exception {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(30, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    // Test each operation and that failures carry the synchronous methods' errors
+    @Test
+    public void testOperations() {
+        Contact contact = new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St");
+        service.addContact(contact).join();
+        assertSame(contact, service.getContactById("001").join());
+        assertEquals("Contact is null or already exists.", failure(service.addContact(contact)).getMessage());
+
+        service.updateFirstName("001", "Janet").join();
+        service.updateLastName("001", "Smith").join();
+        service.updatePhone("001", "9999999999").join();
+        service.updateAddress("001", "789 Oak Rd").join();
+        service.applyPatch("001", new ContactPatch().setFirstName("Jan")).join();
+        assertEquals("Jan", contact.getFirstName());
+        assertEquals(1, partitioned.findByPhone("9999999999").size());
+
+        Throwable invalid = failure(service.updatePhone("001", "555"));
+        assertEquals(ContactField.PHONE, ((ContactValidationException) invalid).getField());
+        assertEquals("Contact not found.", failure(service.updateAddress("999", "1 Main St")).getMessage());
+        assertEquals("Contact not found.", failure(service.getContactById("999")).getMessage());
+        assertEquals("Contact not found.", failure(service.getContactById(null)).getMessage());
+
+        service.deleteContact("001").join();
+        assertEquals("Contact ID not found.", failure(service.deleteContact("001")).getMessage());
+        assertEquals(0, partitioned.size());
+    }
+
+    // Test that calls from many threads all complete and all land in the service
+    @Test
+    public void testManyCallers() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int base = t * 500;
+            threads.add(new Thread(() -> {
+                List<CompletableFuture<Void>> pending = new ArrayList<>();
+                for (int i = base; i < base + 500; i++) {
+                    pending.add(service.addContact(
+                            new Contact("ID" + i, "Jane", "Doe", "5551234567", "456 Elm St")));
+                }
+                CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4000, partitioned.size());
+        assertEquals(4000, service.getRequestCount());
+        assertTrue(service.getBatchCount() <= 4000);
+    }
+
+    // Test that repeated reads in one batch share a lookup, but not across a write to the contact
+    @Test
+    public void testReadsCoalescedWithinBatch() throws InterruptedException {
+        // Two IDs on different shards
+        String id = "A";
+        String other = "B";
+        for (char c = 'B'; partitioned.shardFor(other) == partitioned.shardFor(id); c++) {
+            other = String.valueOf(c);
+        }
+        Contact contact = new Contact(id, "Jane", "Doe", "5551234567", "456 Elm St");
+        partitioned.addContact(contact);
+
+        // Hold the other shard's lock so the only worker is stuck on it while our calls queue up
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int blockedShard = partitioned.shardFor(other);
+        Thread holder = new Thread(() -> partitioned.runOnShard(blockedShard, false, shard -> {
+            held.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        holder.start();
+        held.await();
+        CompletableFuture<Contact> blocked = service.getContactById(other);
+
+        List<CompletableFuture<Contact>> reads = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            reads.add(service.getContactById(id));
+        }
+        CompletableFuture<Void> update = service.updateFirstName(id, "Ann");
+        CompletableFuture<Contact> after = service.getContactById(id);
+        release.countDown();
+
+        assertEquals("Contact not found.", failure(blocked).getMessage());
+        for (CompletableFuture<Contact> read : reads) {
+            assertSame(contact, read.join());
+        }
+        update.join();
+        assertEquals("Ann", after.join().getFirstName());
+        assertEquals(2, service.getCoalescedReadCount());
+        assertEquals(2, service.getBatchCount());
+        holder.join();
+    }
+
+    // Test that calls after close fail instead of waiting forever
+    @Test
+    public void testClosedServiceRejectsCalls() {
+        service.close();
+        assertTrue(failure(service.getContactById("001")) instanceof IllegalStateException);
+    }
+
+    // Test that an Error thrown inside a batch still completes its futures and frees the shard
+    @Test
+    public void testErrorInBatchCompletesFutures() throws Exception {
+        Error boom = new Error("boom");
+        Contact broken = new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St") {
+            @Override
+            public String getPhone() {
+                throw boom;
+            }
+
+            @Override
+            public String getLastName() {
+                throw boom;
+            }
+        };
+        assertSame(boom, failureWithin(service.addContact(broken)));
+        String sameShard = "002";
+        while (partitioned.shardFor(sameShard) != partitioned.shardFor("001")) {
+            sameShard += "2";
+        }
+        Contact contact = new Contact(sameShard, "Jane", "Doe", "5551234567", "456 Elm St");
+        service.addContact(contact).get(30, TimeUnit.SECONDS);     // The shard must still drain
+        assertSame(contact, service.getContactById(sameShard).get(30, TimeUnit.SECONDS));
+    }
+
+    // Test that calls racing with close all complete, one way or the other
+    @Test
+    public void testCallsRacingCloseAllComplete() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            AsyncContactService racing = new AsyncContactService(new PartitionedContactService(4), 1);
+            List<CompletableFuture<Contact>> futures = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> callers = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                Thread caller = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < 2000; i++) {
+                        futures.add(racing.getContactById(Integer.toString(i)));
+                    }
+                });
+                caller.start();
+                callers.add(caller);
+            }
+            start.countDown();
+            racing.close();
+            for (Thread caller : callers) {
+                caller.join();
+            }
+            synchronized (futures) {
+                for (CompletableFuture<Contact> future : futures) {
+                    Throwable cause = failureWithin(future);
+                    assertTrue(cause instanceof IllegalArgumentException || cause instanceof IllegalStateException);
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
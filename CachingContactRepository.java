@@ -0,0 +1,286 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Consumer;
+
+// A size-bounded cache of Contact objects in front of another repository, usually a
+// FileContactRepository. The contacts in use stay on the heap and the rest stay in the backing
+// repository. Every write goes straight through to the backing repository, so evicting a
+// contact never has to write anything.
+//
+// Two eviction policies:
+//   LRU         - evict the contact used least recently
+//   W_TINY_LFU  - new contacts go into a small LRU window. A contact leaving the window only
+//                 replaces a contact in the main cache if it has been used more often lately
+//                 (see FrequencySketch). So one pass over many rarely used contacts - an
+//                 export, a report - can't push out the contacts used every day.
+//
+// Hit, miss and eviction counts show how well the cache size fits the working set.
+public class CachingContactRepository implements ContactRepository {
+
+    public enum EvictionPolicy {
+        LRU,
+        W_TINY_LFU
+    }
+
+    private final ContactRepository backing;
+    private final int maximumSize;
+    private final EvictionPolicy evictionPolicy;
+    private final HashMap<String, Contact> cached = new HashMap<>();
+    private final Policy policy;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    // Cache up to maximumSize contacts of the backing repository
+    public CachingContactRepository(ContactRepository backing, int maximumSize, EvictionPolicy evictionPolicy) {
+        if (backing == null || evictionPolicy == null) {
+            throw new IllegalArgumentException("Repository and eviction policy must not be null.");
+        }
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1.");
+        }
+        this.backing = backing;
+        this.maximumSize = maximumSize;
+        this.evictionPolicy = evictionPolicy;
+        this.policy = evictionPolicy == EvictionPolicy.LRU ? new LruPolicy(maximumSize) : new TinyLfuPolicy(maximumSize);
+    }
+
+    @Override
+    public Contact get(String contactId) {
+        Contact contact = cached.get(contactId);
+        if (contact != null) {
+            hits++;
+            policy.touched(contactId);
+            return contact;
+        }
+        misses++;
+        contact = backing.get(contactId);
+        if (contact != null) {
+            admit(contact);
+        }
+        return contact;
+    }
+
+    @Override
+    public boolean contains(String contactId) {
+        return cached.containsKey(contactId) || backing.contains(contactId);
+    }
+
+    @Override
+    public void insert(Contact contact) {
+        backing.insert(contact);
+        admit(contact);
+    }
+
+    @Override
+    public void update(Contact contact) {
+        backing.update(contact);
+    }
+
+    @Override
+    public Contact remove(String contactId) {
+        Contact contact = cached.remove(contactId);
+        if (contact != null) {
+            policy.removed(contactId);
+        }
+        Contact stored = backing.remove(contactId);
+        return contact != null ? contact : stored;
+    }
+
+    @Override
+    public int size() {
+        return backing.size();
+    }
+
+    // Visits the cached object for every contact that is cached, without counting hits
+    @Override
+    public void forEach(Consumer<Contact> action) {
+        backing.forEach(contact -> {
+            Contact live = cached.get(contact.getContactId());
+            action.accept(live != null ? live : contact);
+        });
+    }
+
+    @Override
+    public boolean holdsAllInMemory() {
+        return backing.holdsAllInMemory();
+    }
+
+    // Statistics
+
+    public long getHitCount() {
+        return hits;
+    }
+
+    public long getMissCount() {
+        return misses;
+    }
+
+    // Number of contacts pushed out of the cache to make room
+    public long getEvictionCount() {
+        return evictions;
+    }
+
+    // Share of reads served from the cache, or 0 before the first read
+    public double getHitRate() {
+        long reads = hits + misses;
+        return reads == 0 ? 0 : hits / (double) reads;
+    }
+
+    // Number of contacts in the cache right now
+    public int getCachedCount() {
+        return cached.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    public void resetStatistics() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "CachingContactRepository[" + evictionPolicy + ", cached=" + cached.size() + "/" + maximumSize
+                + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "]";
+    }
+
+    // Put a contact in the cache and drop whichever contact the policy picks to make room
+    private void admit(Contact contact) {
+        String contactId = contact.getContactId();
+        cached.put(contactId, contact);
+        String evicted = policy.added(contactId);
+        if (evicted != null) {
+            cached.remove(evicted);
+            evictions++;
+        }
+    }
+
+    // Eviction policies - they track IDs only, the cached map holds the contacts
+
+    private interface Policy {
+
+        // A cached ID was read
+        void touched(String contactId);
+
+        // An ID was added - returns the ID to evict (possibly this one), or null when there is room
+        String added(String contactId);
+
+        // A cached ID was removed
+        void removed(String contactId);
+    }
+
+    private static final class LruPolicy implements Policy {
+
+        private final LinkedHashMap<String, Boolean> order = new LinkedHashMap<>(16, 0.75f, true);
+        private final int maximumSize;
+
+        LruPolicy(int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        public void touched(String contactId) {
+            order.get(contactId);
+        }
+
+        @Override
+        public String added(String contactId) {
+            order.put(contactId, Boolean.TRUE);
+            return order.size() > maximumSize ? removeEldest(order) : null;
+        }
+
+        @Override
+        public void removed(String contactId) {
+            order.remove(contactId);
+        }
+    }
+
+    // Window TinyLFU - a 1% LRU window in front of a segmented LRU main cache
+    // The main cache is split into probation (20%) and protected (80%). Contacts enter on
+    // probation and move to protected when they are read again.
+    private static final class TinyLfuPolicy implements Policy {
+
+        private final LinkedHashMap<String, Boolean> window = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<String, Boolean> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<String, Boolean> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+        private final FrequencySketch sketch;
+        private final int maximumSize;
+        private final int windowSize;
+        private final int protectedSize;
+
+        TinyLfuPolicy(int maximumSize) {
+            this.maximumSize = maximumSize;
+            this.windowSize = Math.max(1, maximumSize / 100);
+            this.protectedSize = (maximumSize - windowSize) * 8 / 10;
+            this.sketch = new FrequencySketch(maximumSize);
+        }
+
+        @Override
+        public void touched(String contactId) {
+            sketch.increment(contactId.hashCode());
+            if (window.get(contactId) != null || protectedSegment.get(contactId) != null) {
+                return;
+            }
+            if (probation.remove(contactId) != null) {
+                protectedSegment.put(contactId, Boolean.TRUE);
+                if (protectedSegment.size() > protectedSize) {
+                    probation.put(removeEldest(protectedSegment), Boolean.TRUE);
+                }
+            }
+        }
+
+        @Override
+        public String added(String contactId) {
+            sketch.increment(contactId.hashCode());
+            window.put(contactId, Boolean.TRUE);
+            if (window.size() <= windowSize) {
+                return null;
+            }
+            String candidate = removeEldest(window);
+            if (window.size() + probation.size() + protectedSegment.size() < maximumSize) {
+                probation.put(candidate, Boolean.TRUE);
+                return null;
+            }
+            // Full - the window's oldest contact competes with the main cache's next victim
+            LinkedHashMap<String, Boolean> victims = probation.isEmpty() ? protectedSegment : probation;
+            if (victims.isEmpty()) {
+                return candidate;
+            }
+            String victim = victims.keySet().iterator().next();
+            if (sketch.frequency(candidate.hashCode()) <= sketch.frequency(victim.hashCode())) {
+                return candidate;
+            }
+            victims.remove(victim);
+            probation.put(candidate, Boolean.TRUE);
+            return victim;
+        }
+
+        @Override
+        public void removed(String contactId) {
+            if (window.remove(contactId) == null && probation.remove(contactId) == null) {
+                protectedSegment.remove(contactId);
+            }
+        }
+    }
+
+    // Remove and return the least recently used key of an access-ordered map
+    private static String removeEldest(LinkedHashMap<String, Boolean> order) {
+        Iterator<String> eldest = order.keySet().iterator();
+        String contactId = eldest.next();
+        eldest.remove();
+        return contactId;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,129 @@
+// Roger Fisher 8/8/2025
+
+package ContactService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// This class tests CachingContactRepository and a ContactService running on top of it
+public class CachingContactRepositoryTest {
+
+    @TempDir
+    Path tempDir;                          // JUnit gives every test its own empty folder
+
+    private FileContactRepository file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        file = new FileContactRepository(tempDir.resolve("contacts.dat"));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        file.close();
+    }
+
+    private static Contact newContact(int i) {
+        return new Contact("ID" + i, "F" + i, "L" + (i % 10), String.format("%010d", i % 50), i + " Road");
+    }
+
+    // Test that LRU evicts the contact read least recently and counts hits and misses
+    @Test
+    public void testLruEvictsLeastRecentlyUsed() {
+        CachingContactRepository cache = new CachingContactRepository(file, 2, CachingContactRepository.EvictionPolicy.LRU);
+        Contact first = newContact(1);
+        cache.insert(first);
+        cache.insert(newContact(2));
+        assertSame(first, cache.get("ID1"));        // ID2 is now least recently used
+        cache.insert(newContact(3));
+
+        assertEquals(2, cache.getCachedCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertSame(first, cache.get("ID1"));
+        Contact second = cache.get("ID2");          // Read back from the file
+        assertEquals("F2", second.getFirstName());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2 / 3.0, cache.getHitRate(), 1e-9);
+        assertEquals(3, cache.size());
+    }
+
+    // Test that with W-TinyLFU a scan of contacts read once doesn't push out the ones read often
+    @Test
+    public void testTinyLfuKeepsFrequentContactsThroughAScan() {
+        CachingContactRepository cache = new CachingContactRepository(file, 100,
+                CachingContactRepository.EvictionPolicy.W_TINY_LFU);
+        for (int i = 0; i < 1000; i++) {
+            cache.insert(newContact(i));
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.get("ID" + i);
+            }
+        }
+        for (int i = 100; i < 1000; i++) {          // One pass over the long tail
+            cache.get("ID" + i);
+        }
+        cache.resetStatistics();
+        for (int i = 0; i < 50; i++) {
+            cache.get("ID" + i);
+        }
+        assertTrue(cache.getHitCount() >= 45, cache.toString());
+        assertTrue(cache.getCachedCount() <= 100);
+    }
+
+    // Test that the service contract is the same over a small cache in front of a file
+    @Test
+    public void testServiceOverCacheAndFile() {
+        CachingContactRepository cache = new CachingContactRepository(file, 10, CachingContactRepository.EvictionPolicy.LRU);
+        ContactService service = new ContactService(cache);
+        ContactService reference = new ContactService();
+        for (int i = 0; i < 200; i++) {
+            service.addContact(newContact(i));
+            reference.addContact(newContact(i));
+        }
+        assertThrows(IllegalArgumentException.class, () -> service.addContact(newContact(5)));
+        assertThrows(IllegalArgumentException.class, () -> service.deleteContact("ID999"));
+        assertThrows(IllegalArgumentException.class, () -> service.updatePhone("ID999", "5551234567"));
+
+        // ID0 was evicted long ago, so its version comes from the file
+        long version = service.getContactById("ID0").getVersion();
+        service.updateFirstName("ID0", "Zed");
+        assertFalse(service.compareAndUpdate("ID0", version, new ContactPatch().setLastName("Stale")));
+        assertTrue(service.compareAndUpdate("ID0", version + 1, new ContactPatch().setLastName("Young")));
+        for (int i = 100; i < 200; i++) {
+            service.getContactById("ID" + i);         // Push ID0 out of the cache
+        }
+        assertEquals("Zed", service.getContactById("ID0").getFirstName());
+        assertEquals("Young", service.getContactById("ID0").getLastName());
+        reference.updateFirstName("ID0", "Zed");
+        reference.updateLastName("ID0", "Young");
+
+        service.deleteContact("ID7");
+        reference.deleteContact("ID7");
+        assertEquals(199, service.size());
+
+        // Queries scan the repository but find the same contacts as the indexes
+        assertEquals(ids(reference.searchByNamePrefix("f1", 15)), ids(service.searchByNamePrefix("f1", 15)));
+        assertEquals(ids(reference.searchByLastNamePrefix("l", 7)), ids(service.searchByLastNamePrefix("l", 7)));
+        assertEquals(reference.findByLastName("L3").size(), service.findByLastName("L3").size());
+        assertEquals(reference.countByPhone(7), service.countByPhone(7));
+        assertTrue(service.isPhoneInUse("0000000049"));
+        assertNull(service.findFirstByPhone(51));
+        assertEquals(ids(reference.listContacts("ID15", 9).getContacts()),
+                ids(service.listContacts("ID15", 9).getContacts()));
+        assertEquals(reference.listContacts("ID15", 9).getNextCursor(), service.listContacts("ID15", 9).getNextCursor());
+    }
+
+    private static List<String> ids(List<Contact> contacts) {
+        return contacts.stream().map(Contact::getContactId).collect(java.util.stream.Collectors.toList());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,302 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// This class is a thread-safe version of ContactService
+// Many request threads can add, delete, update and read contacts at the same time
+public class ConcurrentContactService {
+
+    // Default number of update locks - a power of two so we can pick one with a bit mask
+    private static final int DEFAULT_STRIPES = 64;
+
+    // ConcurrentHashMap stores all contacts - contactId is the key, Contact object is the value
+    // Reads need no locking; add and delete take the contact's stripe lock like the updates do
+    private final ConcurrentHashMap<String, Contact> contacts = new ConcurrentHashMap<>();
+
+    // Striped locks for the update methods
+    // Two updates on the same contact always share a lock, updates on different contacts usually don't
+    private final Object[] stripes;
+
+    // Above every version a deleted contact reached - each added contact starts at least here
+    // so a stale compare-and-set from before a delete can't land on a contact added later under
+    // the same ID. Adds and deletes of one ID hold its stripe lock, so the two never interleave.
+    private final AtomicLong versionFloor = new AtomicLong();
+
+    // Create a service with the default number of update locks
+    public ConcurrentContactService() {
+        this(DEFAULT_STRIPES);
+    }
+
+    // Create a service with a chosen number of update locks (rounded up to a power of two)
+    public ConcurrentContactService(int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count must be at least 1.");
+        }
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) {
+            size <<= 1;
+        }
+        stripes = new Object[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    // Add a new contact to the service
+    // Throws error if contact is null or ID already exists
+    public void addContact(Contact contact) {
+        if (contact == null) {
+            throw new IllegalArgumentException("Contact is null or already exists.");
+        }
+        String contactId = contact.getContactId();
+        synchronized (lockFor(contactId)) {
+            if (contacts.containsKey(contactId)) {
+                throw new IllegalArgumentException("Contact is null or already exists.");
+            }
+            contact.raiseVersionTo(versionFloor.get());
+            contacts.put(contactId, contact);
+        }
+    }
+
+    // Remove a contact from the service using their ID
+    // Throws error if the contact ID doesn't exist
+    public void deleteContact(String contactId) {
+        if (contactId == null) {
+            throw new IllegalArgumentException("Contact ID not found.");
+        }
+        synchronized (lockFor(contactId)) {
+            Contact removed = contacts.remove(contactId);
+            if (removed == null) {
+                throw new IllegalArgumentException("Contact ID not found.");
+            }
+            raiseVersionFloor(removed);
+        }
+    }
+
+    // Update Methods - these find the contact and change specific information under its stripe lock
+    // The lookup happens under the lock too, so an update can't land on a contact a delete just
+    // removed - it throws "Contact not found." like ContactService does
+
+    // Update a contact's first name
+    public void updateFirstName(String contactId, String newFirstName) {
+        synchronized (lockFor(checkId(contactId))) {
+            getContactById(contactId).setFirstName(newFirstName);
+        }
+    }
+
+    // Update a contact's last name
+    public void updateLastName(String contactId, String newLastName) {
+        synchronized (lockFor(checkId(contactId))) {
+            getContactById(contactId).setLastName(newLastName);
+        }
+    }
+
+    // Update a contact's phone number
+    public void updatePhone(String contactId, String newPhone) {
+        synchronized (lockFor(checkId(contactId))) {
+            getContactById(contactId).setPhone(newPhone);
+        }
+    }
+
+    // Update a contact's address
+    public void updateAddress(String contactId, String newAddress) {
+        synchronized (lockFor(checkId(contactId))) {
+            getContactById(contactId).setAddress(newAddress);
+        }
+    }
+
+    // Change several fields of a contact with one lookup and one lock
+    // The patch was validated when it was built, so either every field changes or none does, and
+    // no other write to the contact can come between them. Readers take no lock, though, and
+    // read the fields one at a time, so a read running alongside may see some of the new fields
+    // and some of the old. Use VersionedContactService when reads must see whole patches.
+    public void applyPatch(String contactId, ContactPatch patch) {
+        ContactPatch.check(patch);
+        synchronized (lockFor(checkId(contactId))) {
+            patch.applyTo(getContactById(contactId));
+        }
+    }
+
+    // Compare-and-set Methods - these only make the change if nobody else changed the contact
+    // since the caller read it. Pass the getVersion() value the caller's edit was based on.
+    // The check and the change happen under the contact's stripe lock, which is only held for
+    // that moment - nothing is locked while the caller is editing.
+
+    // Apply a patch only if the contact is still at the expected version
+    // Returns false, changing nothing, when the version is stale
+    // Throws error if the contact doesn't exist
+    public boolean compareAndUpdate(String contactId, long expectedVersion, ContactPatch patch) {
+        ContactPatch.check(patch);
+        synchronized (lockFor(checkId(contactId))) {
+            // Looked up under the lock - a contact deleted before we got here must not take the patch
+            Contact contact = getContactById(contactId);
+            if (contact.getVersion() != expectedVersion) {
+                return false;
+            }
+            patch.applyTo(contact);
+            return true;
+        }
+    }
+
+    // Delete a contact only if it is still at the expected version
+    // Returns false, deleting nothing, when the version is stale
+    // Throws error if the contact ID doesn't exist
+    public boolean compareAndDelete(String contactId, long expectedVersion) {
+        Contact contact = getContactById(contactId);
+        synchronized (lockFor(contactId)) {
+            if (contact.getVersion() != expectedVersion) {
+                return false;
+            }
+            // Only remove the object we checked - a plain delete may have raced us
+            if (!contacts.remove(contactId, contact)) {
+                throw new IllegalArgumentException("Contact ID not found.");
+            }
+            raiseVersionFloor(contact);
+            return true;
+        }
+    }
+
+    // Apply a group of changes all together (see ContactService.applyBatch)
+    // Every stripe lock the batch touches is taken in stripe order, so two batches can't deadlock,
+    // and held while the items are checked and applied. Other mutations of those contacts wait for
+    // the whole batch. Reads never lock, so a reader may see a batch half applied.
+    // Throws ContactBatchException naming the first failing item - nothing is applied
+    public void applyBatch(ContactBatch batch) {
+        List<ContactBatch.Item> items = ContactBatch.check(batch).items();
+        if (!items.isEmpty()) {
+            withStripes(stripesOf(items), 0, () -> {
+                checkBatch(items);
+                for (ContactBatch.Item item : items) {
+                    applyBatchItem(item);
+                }
+            });
+        }
+    }
+
+    // Find a contact by their ID - reads never take a lock
+    // Throws error if the contact doesn't exist
+    public Contact getContactById(String contactId) {
+        Contact contact = contactId == null ? null : contacts.get(contactId);
+        if (contact == null) {
+            throw new IllegalArgumentException("Contact not found.");
+        }
+        return contact;
+    }
+
+    // Check if a contact with this ID is stored - also lock free
+    public boolean containsContact(String contactId) {
+        return contactId != null && contacts.containsKey(contactId);
+    }
+
+    // Number of contacts currently stored
+    public int size() {
+        return contacts.size();
+    }
+
+    // Throw for the first item of a batch that can't be applied - the caller holds its stripe locks
+    // The values were validated when the items were added, so only whether each ID exists matters
+    private void checkBatch(List<ContactBatch.Item> items) {
+        Map<String, Boolean> exists = new HashMap<>();   // IDs the batch has already added or deleted
+        for (ContactBatch.Item item : items) {
+            Boolean known = exists.get(item.contactId);
+            boolean present = known != null ? known : contacts.containsKey(item.contactId);
+            if (item.type == ContactBatch.Item.ADD) {
+                if (present) {
+                    throw new ContactBatchException(item.index, ContactStatus.ALREADY_EXISTS);
+                }
+                exists.put(item.contactId, Boolean.TRUE);
+            } else {
+                if (!present) {
+                    throw new ContactBatchException(item.index, ContactStatus.NOT_FOUND);
+                }
+                if (item.type == ContactBatch.Item.DELETE) {
+                    exists.put(item.contactId, Boolean.FALSE);
+                }
+            }
+        }
+    }
+
+    // Apply one checked batch item - the caller holds its stripe lock
+    private void applyBatchItem(ContactBatch.Item item) {
+        switch (item.type) {
+            case ContactBatch.Item.ADD:
+                item.contact.raiseVersionTo(versionFloor.get());
+                contacts.put(item.contactId, item.contact);
+                break;
+            case ContactBatch.Item.DELETE:
+                raiseVersionFloor(contacts.remove(item.contactId));
+                break;
+            case ContactBatch.Item.UPDATE:
+                Contact contact = contacts.get(item.contactId);
+                switch (item.field) {
+                    case FIRST_NAME:
+                        contact.setFirstName(item.value);
+                        break;
+                    case LAST_NAME:
+                        contact.setLastName(item.value);
+                        break;
+                    case PHONE:
+                        contact.setPhone(item.value);
+                        break;
+                    default:
+                        contact.setAddress(item.value);
+                        break;
+                }
+                break;
+            default:
+                item.patch.applyTo(contacts.get(item.contactId));
+                break;
+        }
+    }
+
+    // A null ID has no lock to take, so it fails the same way as an unknown one
+    private static String checkId(String contactId) {
+        if (contactId == null) {
+            throw new IllegalArgumentException("Contact not found.");
+        }
+        return contactId;
+    }
+
+    private void raiseVersionFloor(Contact deleted) {
+        versionFloor.accumulateAndGet(deleted.getVersion() + 1, Math::max);
+    }
+
+    // Pick the update lock for a contact ID
+    // The hash is spread so IDs that differ only in their high bits still land on different locks
+    Object lockFor(String contactId) {
+        return stripes[stripeFor(contactId)];
+    }
+
+    // Position of a contact ID's update lock - lets a caller that needs several locks take them in order
+    int stripeFor(String contactId) {
+        int h = contactId.hashCode();
+        h ^= (h >>> 16);
+        return h & (stripes.length - 1);
+    }
+
+    Object stripe(int index) {
+        return stripes[index];
+    }
+
+    // Positions of the stripe locks a batch touches, in the order to take them
+    int[] stripesOf(List<ContactBatch.Item> items) {
+        return items.stream().mapToInt(item -> stripeFor(item.contactId)).distinct().sorted().toArray();
+    }
+
+    // Hold the stripe locks from position next onwards, then run the action
+    void withStripes(int[] stripes, int next, Runnable action) {
+        if (next == stripes.length) {
+            action.run();
+            return;
+        }
+        synchronized (stripe(stripes[next])) {
+            withStripes(stripes, next + 1, action);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Contention benchmark for ConcurrentContactService
+// Runs a mixed read/update/add/delete workload and prints throughput as threads scale from 1 to N
+// Usage: java ContactService.ConcurrentContactServiceBenchmark [maxThreads] [contacts] [seconds]
+public class ConcurrentContactServiceBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int contactCount = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        // One unmeasured pass first, so JIT compilation doesn't slow the 1-thread baseline and
+        // inflate every speedup after it
+        run(1, contactCount, seconds);
+
+        System.out.printf("%-8s %15s %12s%n", "threads", "ops/sec", "speedup");
+        double baseline = 0;
+        // Doubling, with the last row exactly maxThreads even when it isn't a power of two
+        for (int threads = 1; threads <= maxThreads; threads = threads < maxThreads && threads * 2 > maxThreads ? maxThreads : threads * 2) {
+            double opsPerSecond = run(threads, contactCount, seconds);
+            if (threads == 1) {
+                baseline = opsPerSecond;
+            }
+            System.out.printf("%-8d %15.0f %11.2fx%n", threads, opsPerSecond, opsPerSecond / baseline);
+        }
+    }
+
+    // Run one measurement with a fresh, pre-filled service and return operations per second
+    static double run(int threads, int contactCount, int seconds) throws InterruptedException {
+        ConcurrentContactService service = new ConcurrentContactService();
+        for (int i = 0; i < contactCount; i++) {
+            service.addContact(newContact(i));
+        }
+
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long done = 0;
+                while ((done & 1023) != 0 || System.nanoTime() < deadline) {
+                    doOperation(service, random, contactCount);
+                    done++;
+                }
+                operations.add(done);
+            });
+            workers[t].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+        return operations.sum() / elapsed;
+    }
+
+    // 80% reads, 15% updates, 5% delete followed by re-add of the same ID
+    private static void doOperation(ConcurrentContactService service, ThreadLocalRandom random, int contactCount) {
+        int index = random.nextInt(contactCount);
+        String id = Integer.toString(index);
+        int roll = random.nextInt(100);
+        try {
+            if (roll < 80) {
+                service.getContactById(id);
+            } else if (roll < 85) {
+                service.updateFirstName(id, "First" + (roll % 10));
+            } else if (roll < 90) {
+                service.updatePhone(id, "555000" + (1000 + roll));
+            } else if (roll < 95) {
+                service.updateAddress(id, roll + " Main St");
+            } else {
+                service.deleteContact(id);
+                service.addContact(newContact(index));
+            }
+        } catch (IllegalArgumentException e) {
+            // Another thread deleted this contact between our steps - expected under contention
+        }
+    }
+
+    static Contact newContact(int index) {
+        String phone = String.format("%010d", index);
+        return new Contact(Integer.toString(index), "First", "Last", phone, index + " Main St");
+    }
+}
\ No newline at end of file
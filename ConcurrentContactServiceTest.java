@@ -0,0 +1,308 @@
+// Roger Fisher 8/8/2025
+
+package ContactService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// This class tests ConcurrentContactService
+// It repeats the main ContactService checks and adds tests with several threads racing each other
+public class ConcurrentContactServiceTest {
+
+    private ConcurrentContactService service;  // The service we're testing
+    private Contact contact;                   // A sample contact for testing
+
+    @BeforeEach
+    public void setUp() {
+        service = new ConcurrentContactService();
+        contact = new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St");
+    }
+
+    // Test that a contact can be added and read back
+    @Test
+    public void testAddAndGetContact() {
+        service.addContact(contact);
+        assertSame(contact, service.getContactById("001"));
+        assertEquals(1, service.size());
+    }
+
+    // Test that adding a null contact or a duplicate ID throws an exception
+    @Test
+    public void testAddNullOrDuplicateFails() {
+        assertThrows(IllegalArgumentException.class, () -> service.addContact(null));
+        service.addContact(contact);
+        Contact duplicateId = new Contact("001", "John", "Smith", "5559876543", "789 Oak Rd");
+        assertThrows(IllegalArgumentException.class, () -> service.addContact(duplicateId));
+    }
+
+    // Test that deleting works once and then fails
+    @Test
+    public void testDeleteContact() {
+        service.addContact(contact);
+        service.deleteContact("001");
+        assertFalse(service.containsContact("001"));
+        assertThrows(IllegalArgumentException.class, () -> service.deleteContact("001"));
+        assertThrows(IllegalArgumentException.class, () -> service.deleteContact(null));
+    }
+
+    // Test that each update method changes the stored contact
+    @Test
+    public void testUpdateMethods() {
+        service.addContact(contact);
+        service.updateFirstName("001", "Janet");
+        service.updateLastName("001", "Smith");
+        service.updatePhone("001", "9999999999");
+        service.updateAddress("001", "789 Oak Rd");
+        assertEquals("Janet", contact.getFirstName());
+        assertEquals("Smith", contact.getLastName());
+        assertEquals("9999999999", contact.getPhone());
+        assertEquals("789 Oak Rd", contact.getAddress());
+    }
+
+    // Test that updates still validate and fail for missing contacts
+    @Test
+    public void testUpdateValidation() {
+        service.addContact(contact);
+        assertThrows(IllegalArgumentException.class, () -> service.updatePhone("001", "123"));
+        assertThrows(IllegalArgumentException.class, () -> service.updateFirstName("001", null));
+        assertThrows(IllegalArgumentException.class, () -> service.updateAddress("999", "Nowhere"));
+        assertThrows(IllegalArgumentException.class, () -> service.getContactById("999"));
+    }
+
+    // Test that the stripe count must be positive
+    @Test
+    public void testInvalidStripeCount() {
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentContactService(0));
+    }
+
+    // Test that when many threads add the same ID at once, exactly one of them wins
+    @Test
+    public void testConcurrentAddSameIdOnlyOneWins() throws InterruptedException {
+        int threads = 8;
+        AtomicInteger wins = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int n = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    service.addContact(new Contact("RACE", "T" + n, "Doe", "5551234567", "1 Race Way"));
+                    wins.incrementAndGet();
+                } catch (IllegalArgumentException | InterruptedException e) {
+                    // Lost the race
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(1, wins.get());
+        assertEquals(1, service.size());
+    }
+
+    // Test that many threads adding and deleting different contacts leaves the expected count
+    @Test
+    public void testConcurrentAddAndDelete() throws InterruptedException {
+        int threads = 4;
+        int perThread = 1000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int base = t * perThread;
+            workers[t] = new Thread(() -> {
+                for (int i = base; i < base + perThread; i++) {
+                    service.addContact(ConcurrentContactServiceBenchmark.newContact(i));
+                }
+                // Delete every other contact this thread added
+                for (int i = base; i < base + perThread; i += 2) {
+                    service.deleteContact(Integer.toString(i));
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(threads * perThread / 2, service.size());
+    }
+
+    // Test that a patch changes all of its fields under one lock
+    @Test
+    public void testApplyPatch() {
+        service.addContact(contact);
+        service.applyPatch("001", new ContactPatch().setPhone("9999999999").setAddress("789 Oak Rd"));
+        assertEquals("9999999999", contact.getPhone());
+        assertEquals("789 Oak Rd", contact.getAddress());
+        assertEquals("Jane", contact.getFirstName());
+        assertThrows(IllegalArgumentException.class, () -> service.applyPatch("002", new ContactPatch()));
+    }
+
+    // Test that when threads race to edit from the same version, exactly one wins
+    @Test
+    public void testCompareAndUpdateOnlyOneWins() throws InterruptedException {
+        service.addContact(contact);
+        long version = contact.getVersion();
+        int threads = 8;
+        AtomicInteger wins = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            String phone = "555000000" + t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (service.compareAndUpdate("001", version, new ContactPatch().setPhone(phone))) {
+                    wins.incrementAndGet();
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(1, wins.get());
+        assertEquals(version + 1, contact.getVersion());
+        assertFalse(service.compareAndDelete("001", version));
+        assertTrue(service.compareAndDelete("001", version + 1));
+        assertFalse(service.containsContact("001"));
+    }
+
+    // Test that a stale compare-and-set from before a delete can't land on a contact added again under the same ID
+    @Test
+    public void testStaleVersionAfterDeleteAndReAdd() {
+        service.addContact(contact);
+        long stale = contact.getVersion();
+        service.deleteContact("001");
+        Contact again = new Contact("001", "Ann", "Lee", "5551112222", "1 Road");
+        service.addContact(again);
+        assertFalse(service.compareAndUpdate("001", stale, new ContactPatch().setLastName("Smith")));
+        assertFalse(service.compareAndDelete("001", stale));
+        assertEquals("Lee", again.getLastName());
+        assertTrue(service.compareAndDelete("001", again.getVersion()));
+    }
+
+    // Test that an update waiting for the stripe lock while the contact is deleted fails instead
+    // of changing the removed contact
+    @Test
+    public void testUpdateRacingDeleteFails() throws InterruptedException {
+        service.addContact(contact);
+        Throwable thrown = deletedWhileWaiting(() -> service.updateLastName("001", "Smith"));
+        assertTrue(thrown instanceof IllegalArgumentException);
+        assertEquals("Contact not found.", thrown.getMessage());
+        assertEquals("Doe", contact.getLastName());
+        assertThrows(IllegalArgumentException.class, () -> service.updatePhone(null, "5551234567"));
+    }
+
+    // Test that a patch waiting for the stripe lock while the contact is deleted fails
+    @Test
+    public void testApplyPatchRacingDeleteFails() throws InterruptedException {
+        service.addContact(contact);
+        Throwable thrown = deletedWhileWaiting(
+                () -> service.applyPatch("001", new ContactPatch().setLastName("Smith").setPhone("9999999999")));
+        assertTrue(thrown instanceof IllegalArgumentException);
+        assertEquals("Contact not found.", thrown.getMessage());
+        assertEquals("Doe", contact.getLastName());
+        assertEquals("5551234567", contact.getPhone());
+    }
+
+    // Test that a compare-and-set at the right version fails, instead of reporting success, when
+    // the contact is deleted between its lookup and the check
+    @Test
+    public void testCompareAndUpdateRacingDeleteFails() throws InterruptedException {
+        service.addContact(contact);
+        long version = contact.getVersion();
+        Throwable thrown = deletedWhileWaiting(
+                () -> service.compareAndUpdate("001", version, new ContactPatch().setLastName("Smith")));
+        assertTrue(thrown instanceof IllegalArgumentException);
+        assertEquals("Contact not found.", thrown.getMessage());
+        assertEquals("Doe", contact.getLastName());
+        assertEquals(version, contact.getVersion());
+    }
+
+    // Test that a batch is applied whole, and that a failing item leaves everything unchanged
+    @Test
+    public void testApplyBatch() {
+        service.addContact(contact);
+        Contact added = new Contact("002", "Ann", "Lee", "5551112222", "1 Road");
+        service.applyBatch(new ContactBatch().add(added).updatePhone("001", "9999999999")
+                .applyPatch("002", new ContactPatch().setLastName("Smith")));
+        assertSame(added, service.getContactById("002"));
+        assertEquals("Smith", added.getLastName());
+        assertEquals("9999999999", contact.getPhone());
+
+        ContactBatchException failure = assertThrows(ContactBatchException.class, () -> service.applyBatch(
+                new ContactBatch().delete("001").updateAddress("001", "2 Road")));
+        assertEquals(1, failure.getItemIndex());
+        assertTrue(service.containsContact("001"));
+        assertEquals("456 Elm St", contact.getAddress());
+
+        // A delete and a new add of the same ID in one batch
+        Contact again = new Contact("001", "Bo", "Ray", "5553334444", "3 Road");
+        service.applyBatch(new ContactBatch().delete("001").add(again));
+        assertSame(again, service.getContactById("001"));
+        assertTrue(again.getVersion() > contact.getVersion());
+        assertThrows(IllegalArgumentException.class, () -> service.applyBatch(null));
+    }
+
+    // Test that batches touching the same contacts in opposite orders don't deadlock
+    @Test
+    public void testConcurrentBatchesDontDeadlock() throws InterruptedException {
+        for (int i = 0; i < 20; i++) {
+            service.addContact(new Contact("B" + i, "Jane", "Doe", "5551234567", "456 Elm St"));
+        }
+        Thread[] workers = new Thread[4];
+        for (int t = 0; t < workers.length; t++) {
+            boolean reversed = t % 2 == 1;
+            workers[t] = new Thread(() -> {
+                for (int round = 0; round < 2000; round++) {
+                    ContactBatch batch = new ContactBatch();
+                    for (int i = 0; i < 20; i++) {
+                        batch.updatePhone("B" + (reversed ? 19 - i : i), String.format("%010d", round));
+                    }
+                    service.applyBatch(batch);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join(60_000);
+            assertFalse(worker.isAlive());
+        }
+        assertEquals(20, service.size());
+    }
+
+    // Run the call on another thread, and delete contact 001 while it waits for the stripe lock
+    // Returns what the call threw, or null
+    private Throwable deletedWhileWaiting(Runnable call) throws InterruptedException {
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try {
+                call.run();
+            } catch (Throwable e) {
+                thrown.set(e);
+            }
+        });
+        synchronized (service.lockFor("001")) {
+            caller.start();
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (caller.getState() != Thread.State.BLOCKED && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            service.deleteContact("001");
+        }
+        caller.join();
+        return thrown.get();
+    }
+}
\ No newline at end of file
@@ -2,44 +2,37 @@
 
 package ContactService;
 
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
 // This class represents a contact person with their basic information
 // The contact ID cannot be changed once the contact is created
 public class Contact {
     
     // Fields to store contact information
-    private final String contactId; // Unique ID - cannot be changed after creation
-    private String firstName;       // Person's first name
-    private String lastName;        // Person's last name
-    private String phone;          // 10-digit phone number
-    private String address;        // Home or business address
+    // The changeable fields are volatile so a reader on another thread always sees the latest value
+    private final String contactId;    // Unique ID - cannot be changed after creation
+    private volatile String firstName; // Person's first name
+    private volatile String lastName;  // Person's last name
+    private volatile String phone;     // 10-digit phone number
+    private volatile String address;   // Home or business address
+    private volatile long version;     // Goes up every time the contact changes - starts at 0,
+                                       // or higher if its ID was used by a deleted contact
+
+    // Bumps the version atomically without an AtomicLong object per contact
+    private static final AtomicLongFieldUpdater<Contact> VERSION =
+            AtomicLongFieldUpdater.newUpdater(Contact.class, "version");
 
     // Constructor - creates a new contact with all required information
     public Contact(String contactId, String firstName, String lastName, String phone, String address) {
         
-        // Validate contact ID - must exist and be 10 characters or less
-        if (contactId == null || contactId.length() > 10) {
-            throw new IllegalArgumentException("Contact ID must not be null or longer than 10 characters.");
-        }
-        
-        // Validate first name - must exist and be 10 characters or less
-        if (firstName == null || firstName.length() > 10) {
-            throw new IllegalArgumentException("First name must not be null or longer than 10 characters.");
-        }
-        
-        // Validate last name - must exist and be 10 characters or less
-        if (lastName == null || lastName.length() > 10) {
-            throw new IllegalArgumentException("Last name must not be null or longer than 10 characters.");
-        }
-        
-        // Validate phone - must be exactly 10 digits (numbers only, no letters or symbols)
-        if (phone == null || !phone.matches("\\d{10}")) {
-            throw new IllegalArgumentException("Phone number must be exactly 10 digits.");
-        }
-        
-        // Validate address - must exist and be 30 characters or less
-        if (address == null || address.length() > 30) {
-            throw new IllegalArgumentException("Address must not be null or longer than 30 characters.");
-        }
+        // Validate every field with the shared rules in ContactField
+        // ID, first and last name must exist and be 10 characters or less, phone must be
+        // exactly 10 digits, and address must exist and be 30 characters or less
+        ContactField.CONTACT_ID.check(contactId);
+        ContactField.FIRST_NAME.check(firstName);
+        ContactField.LAST_NAME.check(lastName);
+        ContactField.PHONE.check(phone);
+        ContactField.ADDRESS.check(address);
 
         // All validation passed - set the contact information
         this.contactId = contactId;
@@ -49,6 +42,12 @@ public class Contact {
         this.address = address;
     }
 
+    // Rebuild a stored contact with the version it had - used by FileContactRepository
+    Contact(String contactId, String firstName, String lastName, String phone, String address, long version) {
+        this(contactId, firstName, lastName, phone, address);
+        this.version = version;
+    }
+
     // Getter methods - these let you read the contact information
     public String getContactId() {
         return contactId;
@@ -66,41 +65,82 @@ public class Contact {
         return phone;
     }
 
+    // The phone number packed into a long (see PhoneNumbers) - no String or object is created
+    public long getPackedPhone() {
+        return PhoneNumbers.pack(phone);
+    }
+
     public String getAddress() {
         return address;
     }
 
+    // Version number - compare it before and after to tell if anyone changed the contact
+    // Used by the compareAndUpdate and compareAndDelete methods of the services
+    public long getVersion() {
+        return version;
+    }
+
     // Setter methods - these let you update the contact information (except ID)
     
     // Update the first name (with validation)
     public void setFirstName(String firstName) {
-        if (firstName == null || firstName.length() > 10) {
-            throw new IllegalArgumentException("First name must not be null or longer than 10 characters.");
-        }
-        this.firstName = firstName;
+        this.firstName = ContactField.FIRST_NAME.check(firstName);
+        VERSION.incrementAndGet(this);
     }
 
     // Update the last name (with validation)
     public void setLastName(String lastName) {
-        if (lastName == null || lastName.length() > 10) {
-            throw new IllegalArgumentException("Last name must not be null or longer than 10 characters.");
-        }
-        this.lastName = lastName;
+        this.lastName = ContactField.LAST_NAME.check(lastName);
+        VERSION.incrementAndGet(this);
     }
 
     // Update the phone number (with validation)
     public void setPhone(String phone) {
-        if (phone == null || !phone.matches("\\d{10}")) {
-            throw new IllegalArgumentException("Phone number must be exactly 10 digits.");
-        }
-        this.phone = phone;
+        this.phone = ContactField.PHONE.check(phone);
+        VERSION.incrementAndGet(this);
     }
 
     // Update the address (with validation)
     public void setAddress(String address) {
-        if (address == null || address.length() > 30) {
-            throw new IllegalArgumentException("Address must not be null or longer than 30 characters.");
+        this.address = ContactField.ADDRESS.check(address);
+        VERSION.incrementAndGet(this);
+    }
+
+    // Change several already validated fields as one change, so the version goes up only once
+    // A null value leaves that field unchanged - used by ContactPatch
+    void apply(String firstName, String lastName, String phone, String address) {
+        if (firstName != null) {
+            this.firstName = firstName;
+        }
+        if (lastName != null) {
+            this.lastName = lastName;
+        }
+        if (phone != null) {
+            this.phone = phone;
+        }
+        if (address != null) {
+            this.address = address;
+        }
+        VERSION.incrementAndGet(this);
+    }
+
+    // Move the version up to at least this value - a service does this when it stores a contact,
+    // so the new contact's versions start above those of any contact it deleted under the same ID
+    void raiseVersionTo(long floor) {
+        VERSION.accumulateAndGet(this, floor, Math::max);
+    }
+
+    // Swap in shared copies of equal strings from a StringDictionary - a null leaves that field alone
+    // The values don't change, so the version doesn't either
+    void useShared(String firstName, String lastName, String address) {
+        if (firstName != null) {
+            this.firstName = firstName;
+        }
+        if (lastName != null) {
+            this.lastName = lastName;
+        }
+        if (address != null) {
+            this.address = address;
         }
-        this.address = address;
     }
 }
\ No newline at end of file
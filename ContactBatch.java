@@ -0,0 +1,131 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// A group of adds, deletes and updates applied together with one applyBatch call
+// Every value is checked against its ContactField rule as soon as it is added to the batch, like
+// ContactPatch. applyBatch then checks that each item can be applied - adds to new IDs, deletes
+// and updates to IDs that exist, counting the batch's own earlier items - and only if every item
+// passes does it apply them, in order. When one fails nothing is changed and a
+// ContactBatchException names the first failing item.
+// Example: service.applyBatch(new ContactBatch().add(contact).delete("002").updatePhone("003", "5559876543"));
+public final class ContactBatch {
+
+    // One change in the batch
+    static final class Item {
+
+        static final int ADD = 0;
+        static final int DELETE = 1;
+        static final int UPDATE = 2;
+        static final int PATCH = 3;
+
+        final int index;              // Position in the batch, for error messages
+        final int type;
+        final String contactId;
+        final Contact contact;        // ADD only
+        final ContactField field;     // UPDATE only
+        final String value;           // UPDATE only
+        final ContactPatch patch;     // PATCH only
+
+        Item(int index, int type, String contactId, Contact contact, ContactField field, String value,
+                ContactPatch patch) {
+            this.index = index;
+            this.type = type;
+            this.contactId = contactId;
+            this.contact = contact;
+            this.field = field;
+            this.value = value;
+            this.patch = patch;
+        }
+    }
+
+    private final List<Item> items = new ArrayList<>();
+
+    // Add a new contact
+    public ContactBatch add(Contact contact) {
+        if (contact == null) {
+            throw new IllegalArgumentException("Contact is null or already exists.");
+        }
+        return item(Item.ADD, contact.getContactId(), contact, null, null, null);
+    }
+
+    // Delete a contact
+    public ContactBatch delete(String contactId) {
+        if (contactId == null) {
+            throw new IllegalArgumentException("Contact ID not found.");
+        }
+        return item(Item.DELETE, contactId, null, null, null, null);
+    }
+
+    // Update one field of a contact (with validation)
+    public ContactBatch updateFirstName(String contactId, String newFirstName) {
+        return update(contactId, ContactField.FIRST_NAME, newFirstName);
+    }
+
+    public ContactBatch updateLastName(String contactId, String newLastName) {
+        return update(contactId, ContactField.LAST_NAME, newLastName);
+    }
+
+    public ContactBatch updatePhone(String contactId, String newPhone) {
+        return update(contactId, ContactField.PHONE, newPhone);
+    }
+
+    public ContactBatch updateAddress(String contactId, String newAddress) {
+        return update(contactId, ContactField.ADDRESS, newAddress);
+    }
+
+    // Change several fields of a contact at once
+    public ContactBatch applyPatch(String contactId, ContactPatch patch) {
+        ContactPatch.check(patch);
+        return item(Item.PATCH, checkId(contactId), null, null, null, patch);
+    }
+
+    // Number of items in the batch
+    public int size() {
+        return items.size();
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    // The items in batch order
+    List<Item> items() {
+        return Collections.unmodifiableList(items);
+    }
+
+    // Throws the shared error for a missing batch
+    static ContactBatch check(ContactBatch batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Batch is null.");
+        }
+        return batch;
+    }
+
+    private ContactBatch update(String contactId, ContactField field, String value) {
+        field.check(value);
+        return item(Item.UPDATE, checkId(contactId), null, field, value, null);
+    }
+
+    private ContactBatch item(int type, String contactId, Contact contact, ContactField field, String value,
+            ContactPatch patch) {
+        items.add(new Item(items.size(), type, contactId, contact, field, value, patch));
+        return this;
+    }
+
+    private static String checkId(String contactId) {
+        if (contactId == null) {
+            throw new IllegalArgumentException("Contact not found.");
+        }
+        return contactId;
+    }
+
+    @Override
+    public String toString() {
+        return "ContactBatch[items=" + items.size() + "]";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,112 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Time per group of ten changes - five adds, three phone updates and two deletes - made as ten
+// separate calls against one applyBatch call, on a PartitionedContactService and on a
+// DurableContactService with each durability policy
+// Usage: java ContactService.ContactBatchBenchmark [contacts] [seconds]
+public class ContactBatchBenchmark {
+
+    private interface Service {
+        void addContact(Contact contact);
+        void deleteContact(String contactId);
+        void updatePhone(String contactId, String phone);
+        void applyBatch(ContactBatch batch);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+        ContactBenchmarkHarness harness = new ContactBenchmarkHarness(seconds, seconds);
+        ContactBenchmarkHarness.printHeader();
+
+        PartitionedContactService partitioned = new PartitionedContactService();
+        run(harness, "partitioned", count, new Service() {
+            @Override
+            public void addContact(Contact contact) {
+                partitioned.addContact(contact);
+            }
+            @Override
+            public void deleteContact(String contactId) {
+                partitioned.deleteContact(contactId);
+            }
+            @Override
+            public void updatePhone(String contactId, String phone) {
+                partitioned.updatePhone(contactId, phone);
+            }
+            @Override
+            public void applyBatch(ContactBatch batch) {
+                partitioned.applyBatch(batch);
+            }
+        });
+
+        for (DurabilityPolicy policy : DurabilityPolicy.values()) {
+            Path log = Files.createTempFile("contacts", ".wal");
+            try (DurableContactService durable = DurableContactService.open(log, policy, 10)) {
+                run(harness, "durable " + policy, count, new Service() {
+                    @Override
+                    public void addContact(Contact contact) {
+                        durable.addContact(contact);
+                    }
+                    @Override
+                    public void deleteContact(String contactId) {
+                        durable.deleteContact(contactId);
+                    }
+                    @Override
+                    public void updatePhone(String contactId, String phone) {
+                        durable.updatePhone(contactId, phone);
+                    }
+                    @Override
+                    public void applyBatch(ContactBatch batch) {
+                        durable.applyBatch(batch);
+                    }
+                });
+            }
+            Files.delete(log);
+        }
+    }
+
+    private static void run(ContactBenchmarkHarness harness, String name, int count, Service service) {
+        String[] ids = new String[count];
+        String[] phones = new String[count];
+        for (int i = 0; i < count; i++) {
+            Contact contact = ContactStoreFootprint.newContact(i);
+            service.addContact(contact);
+            ids[i] = contact.getContactId();
+            phones[i] = contact.getPhone();
+        }
+        // Each group adds five new contacts (IDs "C" + number, see ContactStoreFootprint.newContact),
+        // deletes two of them and writes three phones back
+        int[] next = {0};
+        harness.run(name + " 10 calls", 1, () -> i -> {
+            int group = next[0]++;
+            for (int k = 0; k < 5; k++) {
+                service.addContact(ContactStoreFootprint.newContact(count + group * 5 + k));
+            }
+            for (int k = 0; k < 3; k++) {
+                int contact = (group * 3 + k) % count;
+                service.updatePhone(ids[contact], phones[contact]);
+            }
+            service.deleteContact("C" + (count + group * 5));
+            service.deleteContact("C" + (count + group * 5 + 1));
+        });
+        harness.run(name + " 1 batch of 10", 1, () -> i -> {
+            int group = next[0]++;
+            ContactBatch batch = new ContactBatch();
+            for (int k = 0; k < 5; k++) {
+                batch.add(ContactStoreFootprint.newContact(count + group * 5 + k));
+            }
+            for (int k = 0; k < 3; k++) {
+                int contact = (group * 3 + k) % count;
+                batch.updatePhone(ids[contact], phones[contact]);
+            }
+            service.applyBatch(batch.delete("C" + (count + group * 5)).delete("C" + (count + group * 5 + 1)));
+        });
+        System.out.println();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+// Thrown by applyBatch when an item of a ContactBatch can't be applied
+// It is an IllegalArgumentException like every other service error, and it records which item
+// failed and why. Nothing in the batch was applied.
+public class ContactBatchException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int itemIndex;
+    private final ContactStatus status;
+
+    public ContactBatchException(int itemIndex, ContactStatus status) {
+        super("Batch item " + itemIndex + ": " + status.getMessage());
+        this.itemIndex = itemIndex;
+        this.status = status;
+    }
+
+    // Position of the first failing item in the batch
+    public int getItemIndex() {
+        return itemIndex;
+    }
+
+    // Why it failed - ALREADY_EXISTS for an add, NOT_FOUND for a delete or update
+    public ContactStatus getStatus() {
+        return status;
+    }
+}
\ No newline at end of file
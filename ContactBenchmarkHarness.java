@@ -0,0 +1,95 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CyclicBarrier;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+// Small timing harness shared by ContactBenchmarkSuite
+// Each benchmark runs for a warm-up period so the JIT settles, then for a measured period.
+// Every thread counts its own operations and the bytes it allocated, so the report shows
+// throughput, average latency and allocation per operation side by side.
+final class ContactBenchmarkHarness {
+
+    // Results are written here so the JIT can't drop work whose result is never used
+    static Object sink;
+
+    private final long warmupNanos;
+    private final long measureNanos;
+
+    ContactBenchmarkHarness(double warmupSeconds, double measureSeconds) {
+        this.warmupNanos = (long) (warmupSeconds * 1e9);
+        this.measureNanos = (long) (measureSeconds * 1e9);
+    }
+
+    // Keep a result alive
+    static void consume(Object value) {
+        sink = value;
+    }
+
+    static void printHeader() {
+        System.out.printf("%-40s %7s %14s %12s %12s%n", "benchmark", "threads", "ops/sec", "ns/op", "bytes/op");
+    }
+
+    // Run one benchmark and print its row
+    // The supplier is called once per thread, so each thread can set up its own state.
+    // The operation is given a running counter it can use to pick keys.
+    double run(String name, int threads, Supplier<IntConsumer> operationPerThread) {
+        long[] operations = new long[threads];
+        long[] bytes = new long[threads];
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int slot = t;
+            IntConsumer operation = operationPerThread.get();
+            workers[t] = new Thread(() -> {
+                try {
+                    loop(operation, 0, warmupNanos);
+                    barrier.await();
+                    com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+                    long threadId = Thread.currentThread().getId();
+                    long bytesBefore = mx.getThreadAllocatedBytes(threadId);
+                    operations[slot] = loop(operation, 0, measureNanos);
+                    bytes[slot] = mx.getThreadAllocatedBytes(threadId) - bytesBefore;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }, "bench-" + t);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return 0;
+            }
+        }
+
+        long totalOperations = 0;
+        long totalBytes = 0;
+        for (int t = 0; t < threads; t++) {
+            totalOperations += operations[t];
+            totalBytes += bytes[t];
+        }
+        double opsPerSecond = totalOperations / (measureNanos / 1e9);
+        System.out.printf("%-40s %7d %14.0f %12.1f %12.1f%n", name, threads, opsPerSecond,
+                (double) measureNanos * threads / totalOperations, (double) totalBytes / totalOperations);
+        return opsPerSecond;
+    }
+
+    // Call the operation until the time runs out, checking the clock every 256 calls
+    private static long loop(IntConsumer operation, int counter, long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        long done = 0;
+        do {
+            for (int i = 0; i < 256; i++) {
+                operation.accept(counter++);
+            }
+            done += 256;
+        } while (System.nanoTime() < deadline);
+        return done;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,244 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+// Benchmark suite for the Contact and ContactService hot paths
+// Covers Contact construction and validation, every ContactService method, a mixed read/write
+// workload at several store sizes, and contention with several threads. Each row shows
+// ops/sec, ns/op and bytes allocated per op (see ContactBenchmarkHarness).
+// Run it before and after a performance change and put both tables in the commit message.
+// Usage: java ContactService.ContactBenchmarkSuite [filter] [seconds] [sizes]
+//   filter  - only run benchmarks whose name contains this text ("all" runs everything)
+//   seconds - measured time per benchmark, warm-up is the same length (default 1)
+//   sizes   - comma separated store sizes (default 10000,100000,1000000)
+public class ContactBenchmarkSuite {
+
+    // Pre-built values so update benchmarks don't measure string building
+    private static final int VALUES = 16;
+    private static final String[] NAMES = new String[VALUES];
+    private static final String[] PHONES = new String[VALUES];
+    private static final String[] ADDRESSES = new String[VALUES];
+
+    static {
+        for (int i = 0; i < VALUES; i++) {
+            NAMES[i] = "Name" + i;
+            PHONES[i] = String.format("%010d", 5_550_000_000L + i);
+            ADDRESSES[i] = i + " Benchmark Ave";
+        }
+    }
+
+    private final String filter;
+    private final ContactBenchmarkHarness harness;
+
+    private ContactBenchmarkSuite(String filter, double seconds) {
+        this.filter = filter;
+        this.harness = new ContactBenchmarkHarness(seconds, seconds);
+    }
+
+    public static void main(String[] args) {
+        String filter = args.length > 0 && !args[0].equals("all") ? args[0] : "";
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+        int[] sizes = {10_000, 100_000, 1_000_000};
+        if (args.length > 2) {
+            String[] parts = args[2].split(",");
+            sizes = new int[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                sizes[i] = Integer.parseInt(parts[i].trim());
+            }
+        }
+
+        ContactBenchmarkSuite suite = new ContactBenchmarkSuite(filter, seconds);
+        ContactBenchmarkHarness.printHeader();
+        suite.contactBenchmarks();
+        for (int size : sizes) {
+            suite.serviceBenchmarks(size);
+        }
+        suite.contentionBenchmarks(sizes[sizes.length > 1 ? 1 : 0]);
+    }
+
+    // Contact construction and setter validation
+    private void contactBenchmarks() {
+        run("contact.new", 1, () -> i -> ContactBenchmarkHarness.consume(
+                new Contact("ID", NAMES[i & 15], "Doe", PHONES[i & 15], ADDRESSES[i & 15])));
+        run("contact.new.invalidPhone", 1, () -> i -> {
+            try {
+                ContactBenchmarkHarness.consume(new Contact("ID", "Jane", "Doe", "555-0100", "1 Main St"));
+            } catch (IllegalArgumentException e) {
+                ContactBenchmarkHarness.consume(e);
+            }
+        });
+        run("contact.setPhone", 1, () -> {
+            Contact contact = newContact(0);
+            return i -> contact.setPhone(PHONES[i & 15]);
+        });
+        run("contact.setAddress", 1, () -> {
+            Contact contact = newContact(0);
+            return i -> contact.setAddress(ADDRESSES[i & 15]);
+        });
+    }
+
+    // Every ContactService method against a store of the given size
+    // ContactService isn't thread safe, so these all run on one thread
+    private void serviceBenchmarks(int size) {
+        String prefix = "service[" + size + "].";
+        if (!groupWanted(prefix)) {
+            return;
+        }
+        ContactService service = new ContactService();
+        Contact[] stored = new Contact[size];
+        String[] ids = new String[size];
+        for (int i = 0; i < size; i++) {
+            stored[i] = newContact(i);
+            ids[i] = stored[i].getContactId();
+            service.addContact(stored[i]);
+        }
+        // A power of two no bigger than the store, so keys can be picked with a mask
+        int mask = Integer.highestOneBit(size) - 1;
+
+        run(prefix + "getContactById", 1, () -> i -> ContactBenchmarkHarness.consume(service.getContactById(ids[mix(i) & mask])));
+        run(prefix + "addContact+deleteContact", 1, () -> i -> {
+            Contact contact = new Contact("N" + (i & 0xFFFF), "New", "Person", PHONES[i & 15], ADDRESSES[i & 15]);
+            service.addContact(contact);
+            service.deleteContact(contact.getContactId());
+        });
+        // Updates write back each contact's own value, so the indexes keep their real shape
+        // instead of piling every contact onto a handful of shared values
+        run(prefix + "updateFirstName", 1, () -> i -> {
+            int k = mix(i) & mask;
+            service.updateFirstName(ids[k], stored[k].getFirstName());
+        });
+        run(prefix + "updateLastName", 1, () -> i -> {
+            int k = mix(i) & mask;
+            service.updateLastName(ids[k], stored[k].getLastName());
+        });
+        run(prefix + "updatePhone", 1, () -> i -> {
+            int k = mix(i) & mask;
+            service.updatePhone(ids[k], stored[k].getPhone());
+        });
+        run(prefix + "updateAddress", 1, () -> i -> service.updateAddress(ids[mix(i) & mask], ADDRESSES[i & 15]));
+        run(prefix + "update x4 (edit profile)", 1, () -> i -> {
+            int k = mix(i) & mask;
+            service.updateFirstName(ids[k], stored[k].getFirstName());
+            service.updateLastName(ids[k], stored[k].getLastName());
+            service.updatePhone(ids[k], stored[k].getPhone());
+            service.updateAddress(ids[k], ADDRESSES[i & 15]);
+        });
+        run(prefix + "applyPatch (edit profile)", 1, () -> i -> {
+            int k = mix(i) & mask;
+            service.applyPatch(ids[k], new ContactPatch().setFirstName(stored[k].getFirstName())
+                    .setLastName(stored[k].getLastName()).setPhone(stored[k].getPhone())
+                    .setAddress(ADDRESSES[i & 15]));
+        });
+        run(prefix + "findByPhone", 1, () -> i -> ContactBenchmarkHarness.consume(service.findByPhone(phoneOf(mix(i) & mask))));
+        run(prefix + "isPhoneInUse", 1, () -> i -> ContactBenchmarkHarness.consume(service.isPhoneInUse(phoneOf(mix(i) & mask))));
+        run(prefix + "findByLastName", 1, () -> i -> ContactBenchmarkHarness.consume(service.findByLastName(stored[mix(i) & mask].getLastName())));
+        run(prefix + "searchByNamePrefix", 1, () -> i -> ContactBenchmarkHarness.consume(service.searchByNamePrefix("first" + (i & 7), 10)));
+        run(prefix + "importContacts(1000)", 1, () -> {
+            List<String[]> batch = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                batch.add(new String[] {"B" + i, "Batch", "Import", PHONES[i & 15], ADDRESSES[i & 15]});
+            }
+            return i -> {
+                ContactBenchmarkHarness.consume(service.importContacts(batch));
+                for (String[] record : batch) {
+                    service.deleteContact(record[0]);
+                }
+            };
+        });
+        run(prefix + "mixed(90read/10write)", 1, () -> i -> mixedOperation(service, stored, mask, i));
+    }
+
+    // Mixed workload with several threads - ConcurrentContactService against one lock around ContactService
+    private void contentionBenchmarks(int size) {
+        if (!groupWanted("contention[")) {
+            return;
+        }
+        ContactService locked = new ContactService();
+        ConcurrentContactService concurrent = new ConcurrentContactService();
+        Contact[] stored = new Contact[size];
+        for (int i = 0; i < size; i++) {
+            stored[i] = newContact(i);
+            locked.addContact(stored[i]);
+            concurrent.addContact(newContact(i));
+        }
+        int mask = Integer.highestOneBit(size) - 1;
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= maxThreads; threads = threads < maxThreads && threads * 2 > maxThreads ? maxThreads : threads * 2) {
+            run("contention[" + size + "].synchronized", threads, () -> i -> {
+                synchronized (locked) {
+                    mixedOperation(locked, stored, mask, i);
+                }
+            });
+            run("contention[" + size + "].concurrent", threads, () -> {
+                int offset = (int) Thread.currentThread().getId() * 7919;
+                return i -> {
+                    int roll = i % 10;
+                    Contact contact = stored[mix(i + offset) & mask];
+                    if (roll == 0) {
+                        concurrent.updatePhone(contact.getContactId(), contact.getPhone());
+                    } else {
+                        ContactBenchmarkHarness.consume(concurrent.getContactById(contact.getContactId()));
+                    }
+                };
+            });
+        }
+    }
+
+    // 90% reads by ID, phone or name prefix, 10% updates
+    private static void mixedOperation(ContactService service, Contact[] stored, int mask, int i) {
+        int index = mix(i) & mask;
+        Contact contact = stored[index];
+        switch (i % 10) {
+            case 0:
+                service.updatePhone(contact.getContactId(), contact.getPhone());
+                break;
+            case 1:
+                ContactBenchmarkHarness.consume(service.findByPhone(phoneOf(index)));
+                break;
+            case 2:
+                ContactBenchmarkHarness.consume(service.searchByNamePrefix("first" + (i & 7), 10));
+                break;
+            default:
+                ContactBenchmarkHarness.consume(service.getContactById(contact.getContactId()));
+                break;
+        }
+    }
+
+    private void run(String name, int threads, Supplier<IntConsumer> operation) {
+        if (wanted(name)) {
+            harness.run(name, threads, operation);
+        }
+    }
+
+    private boolean wanted(String name) {
+        return name.contains(filter);
+    }
+
+    // Skip building a group's store when the filter names a different group
+    private boolean groupWanted(String prefix) {
+        String group = prefix.substring(0, prefix.indexOf('['));
+        boolean namesAGroup = filter.startsWith("contact.") || filter.startsWith("service")
+                || filter.startsWith("contention");
+        return !namesAGroup || filter.startsWith(group) && (filter.length() <= group.length()
+                || prefix.startsWith(filter) || filter.startsWith(prefix));
+    }
+
+    // Spread a counter over the key space so reads don't walk the store in insertion order
+    private static int mix(int i) {
+        return i * 0x9E3779B9 >>> 1;
+    }
+
+    private static long phoneOf(int index) {
+        return index * 7_919L;
+    }
+
+    static Contact newContact(int index) {
+        return new Contact(Integer.toString(index), "First" + (index % 1000), "Last" + (index % 5000),
+                String.format("%010d", phoneOf(index)), index + " Main St");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+// One change published to a ContactChangeFeed
+// Before and after are immutable copies of the contact around the change: an add has no before,
+// a delete has no after. The copies carry the contact's getVersion() number; their commit
+// sequence is 0 because ContactService has no commit clock - use getSequence() for ordering.
+public final class ContactChange {
+
+    // Kind of change
+    public enum Type {
+        ADDED,
+        UPDATED,
+        DELETED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final ContactVersion before;
+    private final ContactVersion after;
+
+    ContactChange(long sequence, Type type, ContactVersion before, ContactVersion after) {
+        this.sequence = sequence;
+        this.type = type;
+        this.before = before;
+        this.after = after;
+    }
+
+    // Position of this change in the feed - starts at 1 and goes up by one per change
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getContactId() {
+        return after != null ? after.getContactId() : before.getContactId();
+    }
+
+    // The contact before the change, or null for an add
+    public ContactVersion getBefore() {
+        return before;
+    }
+
+    // The contact after the change, or null for a delete
+    public ContactVersion getAfter() {
+        return after;
+    }
+
+    // Immutable copy of a contact's current values, for use as a before or after value
+    static ContactVersion copyOf(Contact contact) {
+        return new ContactVersion(contact.getContactId(), contact.getFirstName(), contact.getLastName(),
+                contact.getPhone(), contact.getAddress(), 0, contact.getVersion(), false, null);
+    }
+
+    @Override
+    public String toString() {
+        return "ContactChange[" + sequence + " " + type + " " + getContactId() + "]";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,259 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Change-data-capture feed for ContactService, as a java.util.concurrent.Flow publisher
+// Every successful add, delete and update becomes a ContactChange with a sequence number.
+// Subscribers get the changes in order, in batches (one List per onNext), and only as many
+// batches as they have requested.
+//
+// Writers never wait for subscribers. A change is stored in a fixed-size ring buffer and the
+// writer moves on; a dispatcher thread wakes the subscriptions, which deliver on the executor.
+// The ring keeps the most recent changes, so a subscriber can resume from a sequence number it
+// saw earlier. A subscriber that falls more than the ring's capacity behind can't be served any
+// more and gets onError - it can subscribe again from the last sequence number it handled,
+// if that is still in the ring, or rebuild from the service.
+public class ContactChangeFeed implements Flow.Publisher<List<ContactChange>>, AutoCloseable {
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int DEFAULT_MAX_BATCH = 256;
+
+    // Ring of the most recent changes - change n is in slot (n & mask)
+    private final ContactChange[] ring;
+    private final int mask;
+    private final int maxBatch;
+    private final Executor executor;
+
+    // Sequence number of the newest change in the ring - read without a lock by subscriptions
+    private volatile long lastSequence;
+
+    private final CopyOnWriteArrayList<FeedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Thread dispatcher;
+    private volatile boolean dispatcherParked;
+    private volatile boolean closed;
+
+    // Create a feed that keeps the last 65536 changes and delivers up to 256 per batch
+    public ContactChangeFeed() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_BATCH, ForkJoinPool.commonPool());
+    }
+
+    // Create a feed with a chosen ring capacity (rounded up to a power of two), batch size and
+    // executor for delivering to subscribers
+    public ContactChangeFeed(int capacity, int maxBatch, Executor executor) {
+        if (capacity < 1 || maxBatch < 1 || executor == null) {
+            throw new IllegalArgumentException("Capacity and batch size must be at least 1 and executor can't be null.");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.ring = new ContactChange[size];
+        this.mask = size - 1;
+        this.maxBatch = maxBatch;
+        this.executor = executor;
+        this.dispatcher = new Thread(this::dispatch, "contact-change-feed");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    // Subscribe from the next change published
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<ContactChange>> subscriber) {
+        subscribe(subscriber, lastSequence + 1);
+    }
+
+    // Subscribe starting at a sequence number - the first change delivered has this number
+    // Use the last sequence number handled plus one to resume after a restart or an error.
+    // If that change has already left the ring the subscriber gets onError straight away.
+    public void subscribe(Flow.Subscriber<? super List<ContactChange>> subscriber, long fromSequence) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber can't be null.");
+        }
+        FeedSubscription subscription = new FeedSubscription(subscriber, Math.max(1, fromSequence));
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+        subscription.signal();
+    }
+
+    // Sequence number of the newest change, or 0 when nothing has been published
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    // Oldest sequence number still held in the ring, so still available to resume from
+    public long getOldestSequence() {
+        return Math.max(1, lastSequence - ring.length + 1);
+    }
+
+    // Record a change - called by the service after the change has been made
+    // Takes a short lock only so changes from several writer threads get distinct slots;
+    // it never waits for a subscriber
+    void publish(ContactChange.Type type, ContactVersion before, ContactVersion after) {
+        if (closed) {
+            return;
+        }
+        synchronized (ring) {
+            long sequence = lastSequence + 1;
+            ring[(int) sequence & mask] = new ContactChange(sequence, type, before, after);
+            lastSequence = sequence;
+        }
+        if (dispatcherParked) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    // Stop taking changes and complete every subscriber once it has been sent what is in the ring
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(dispatcher);
+    }
+
+    // Dispatcher thread - wakes every subscription when changes arrive, so writers don't have to
+    private void dispatch() {
+        long seen = 0;
+        while (true) {
+            long last = lastSequence;
+            boolean closing = closed;
+            if (last != seen || closing) {
+                seen = last;
+                for (FeedSubscription subscription : subscriptions) {
+                    subscription.signal();
+                }
+            }
+            if (closing) {
+                return;
+            }
+            dispatcherParked = true;
+            // Check again after announcing we will park, so a change published meanwhile isn't missed
+            if (lastSequence == seen && !closed) {
+                LockSupport.park(this);
+            }
+            dispatcherParked = false;
+        }
+    }
+
+    // Read up to max changes starting at sequence, or null when the oldest of them was overwritten
+    private ContactChange[] read(long sequence, int max) {
+        long last = lastSequence;
+        int count = (int) Math.min(max, last - sequence + 1);
+        ContactChange[] batch = new ContactChange[count];
+        for (int i = 0; i < count; i++) {
+            ContactChange change = ring[(int) (sequence + i) & mask];
+            if (change == null || change.getSequence() != sequence + i) {
+                return null;
+            }
+            batch[i] = change;
+        }
+        return batch;
+    }
+
+    // One subscriber's position in the feed
+    // Delivery runs on the executor, one drain at a time per subscription (wip counts the
+    // signals that arrived while draining, so none are lost)
+    private final class FeedSubscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super List<ContactChange>> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private long cursor;           // Next sequence number to deliver - only used while draining
+        private volatile boolean cancelled;
+        private volatile Throwable badRequest;
+
+        FeedSubscription(Flow.Subscriber<? super List<ContactChange>> subscriber, long fromSequence) {
+            this.subscriber = subscriber;
+            this.cursor = fromSequence;
+        }
+
+        // Ask for n more batches
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException("Request must be positive.");
+            } else {
+                demand.accumulateAndGet(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        void signal() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            while (true) {
+                drain();
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void drain() {
+            while (!cancelled) {
+                if (badRequest != null) {
+                    finish(badRequest);
+                    return;
+                }
+                if (cursor < getOldestSequence()) {
+                    finish(new IllegalStateException("Change " + cursor + " is no longer in the change feed."));
+                    return;
+                }
+                if (cursor > lastSequence) {
+                    if (closed) {
+                        finish(null);
+                    }
+                    return;
+                }
+                if (demand.get() == 0) {
+                    return;
+                }
+                ContactChange[] batch = read(cursor, maxBatch);
+                if (batch == null) {
+                    continue; // The writer lapped us mid-read - the check at the top reports it
+                }
+                cursor += batch.length;
+                demand.decrementAndGet();
+                try {
+                    subscriber.onNext(Collections.unmodifiableList(Arrays.asList(batch)));
+                } catch (RuntimeException e) {
+                    // A subscriber that throws is treated as cancelled
+                    cancel();
+                    return;
+                }
+            }
+        }
+
+        // Send onComplete (error is null) or onError, then stop
+        private void finish(Throwable error) {
+            cancel();
+            if (error == null) {
+                subscriber.onComplete();
+            } else {
+                subscriber.onError(error);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.LongAdder;
+
+// Measures what a change feed costs the writer: updatePhone throughput with no feed, with a feed
+// and a fast subscriber, and with a feed and a subscriber that stalls on every batch
+// Usage: java ContactService.ContactChangeFeedBenchmark [contacts] [seconds]
+public class ContactChangeFeedBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int contactCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+
+        for (int round = 0; round < 2; round++) { // The first round is JIT warm-up
+            run("no feed", contactCount, seconds, -1);
+            run("fast subscriber", contactCount, seconds, 0);
+            run("slow subscriber", contactCount, seconds, 5);
+        }
+    }
+
+    // stallMillis < 0 means no feed at all
+    private static void run(String name, int contactCount, double seconds, long stallMillis) throws InterruptedException {
+        ContactService service = new ContactService();
+        String[] ids = new String[contactCount];
+        String[] phones = new String[contactCount];
+        for (int i = 0; i < contactCount; i++) {
+            Contact contact = ConcurrentContactServiceBenchmark.newContact(i);
+            ids[i] = contact.getContactId();
+            phones[i] = contact.getPhone();
+            service.addContact(contact);
+        }
+        ContactChangeFeed feed = null;
+        LongAdder delivered = new LongAdder();
+        if (stallMillis >= 0) {
+            feed = new ContactChangeFeed();
+            feed.subscribe(new Flow.Subscriber<List<ContactChange>>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(List<ContactChange> batch) {
+                    delivered.add(batch.size());
+                    if (stallMillis > 0) {
+                        try {
+                            Thread.sleep(stallMillis);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    // The slow subscriber is expected to fall off the ring
+                }
+
+                @Override
+                public void onComplete() {
+                }
+            });
+            service.setChangeFeed(feed);
+        }
+
+        long updates = 0;
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < 1024; i++) {
+                int k = (int) (updates++ % contactCount);
+                service.updatePhone(ids[k], phones[k]);
+            }
+        }
+        if (feed != null) {
+            feed.close();
+        }
+        System.out.printf("%-16s %12.0f updates/sec %12d changes delivered%n", name, updates / seconds, delivered.sum());
+    }
+}
\ No newline at end of file
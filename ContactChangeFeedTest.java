@@ -0,0 +1,184 @@
+// Roger Fisher 8/8/2025
+
+package ContactService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// This class tests ContactChangeFeed and how ContactService publishes to it
+public class ContactChangeFeedTest {
+
+    private ContactChangeFeed feed;       // The feed we're testing
+    private ContactService service;       // A service publishing to the feed
+
+    @BeforeEach
+    public void setUp() {
+        feed = new ContactChangeFeed(8, 3, Runnable::run);
+        service = new ContactService();
+        service.setChangeFeed(feed);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        feed.close();
+    }
+
+    // Subscriber that records every signal and requests batches only when told to
+    private static class Recorder implements Flow.Subscriber<List<ContactChange>> {
+        final LinkedBlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+        Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(List<ContactChange> batch) {
+            signals.add(batch);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            signals.add(error);
+        }
+
+        @Override
+        public void onComplete() {
+            signals.add("complete");
+        }
+
+        Object next() throws InterruptedException {
+            Object signal = signals.poll(5, TimeUnit.SECONDS);
+            assertNotNull(signal, "no signal within 5 seconds");
+            return signal;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<ContactChange> nextBatch() throws InterruptedException {
+            Object signal = next();
+            assertTrue(signal instanceof List, "expected a batch but got " + signal);
+            return (List<ContactChange>) signal;
+        }
+    }
+
+    // Test that adds, updates and deletes arrive in order with before and after values
+    @Test
+    public void testChangesCarryBeforeAndAfter() throws InterruptedException {
+        Recorder recorder = new Recorder();
+        feed.subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+
+        service.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+        service.updatePhone("001", "9999999999");
+        service.deleteContact("001");
+
+        List<ContactChange> changes = new ArrayList<>();
+        while (changes.size() < 3) {
+            changes.addAll(recorder.nextBatch());
+        }
+        assertEquals(ContactChange.Type.ADDED, changes.get(0).getType());
+        assertNull(changes.get(0).getBefore());
+        assertEquals("5551234567", changes.get(0).getAfter().getPhone());
+
+        ContactChange update = changes.get(1);
+        assertEquals(ContactChange.Type.UPDATED, update.getType());
+        assertEquals("5551234567", update.getBefore().getPhone());
+        assertEquals("9999999999", update.getAfter().getPhone());
+        assertEquals(update.getBefore().getVersion() + 1, update.getAfter().getVersion());
+
+        assertEquals(ContactChange.Type.DELETED, changes.get(2).getType());
+        assertNull(changes.get(2).getAfter());
+        assertEquals("001", changes.get(2).getContactId());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i + 1, changes.get(i).getSequence());
+        }
+    }
+
+    // Test that failed operations publish nothing
+    @Test
+    public void testFailuresArentPublished() {
+        assertThrows(IllegalArgumentException.class, () -> service.deleteContact("001"));
+        service.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+        assertThrows(IllegalArgumentException.class, () -> service.updatePhone("001", "1"));
+        assertEquals(1, feed.getLastSequence());
+    }
+
+    // Test that a subscriber only gets the batches it asked for, each at most maxBatch long
+    @Test
+    public void testBatchingAndBackpressure() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            service.addContact(new Contact("ID" + i, "F", "L", "5550000000", "Road"));
+        }
+        Recorder recorder = new Recorder();
+        feed.subscribe(recorder, 1);
+        assertNull(recorder.signals.poll(100, TimeUnit.MILLISECONDS));
+
+        recorder.subscription.request(1);
+        List<ContactChange> first = recorder.nextBatch();
+        assertEquals(3, first.size());
+        assertEquals(1, first.get(0).getSequence());
+        assertNull(recorder.signals.poll(100, TimeUnit.MILLISECONDS));
+
+        recorder.subscription.request(1);
+        List<ContactChange> second = recorder.nextBatch();
+        assertEquals(2, second.size());
+        assertEquals(4, second.get(0).getSequence());
+    }
+
+    // Test resuming from a sequence number, and the error once it has left the ring
+    @Test
+    public void testResumeAndOverrun() throws InterruptedException {
+        for (int i = 0; i < 6; i++) {
+            service.addContact(new Contact("ID" + i, "F", "L", "5550000000", "Road"));
+        }
+        Recorder resumed = new Recorder();
+        feed.subscribe(resumed, 5);
+        resumed.subscription.request(10);
+        assertEquals(5, resumed.nextBatch().get(0).getSequence());
+
+        // A slow subscriber with no demand doesn't hold the writer back - it falls off the ring
+        Recorder slow = new Recorder();
+        feed.subscribe(slow, 1);
+        for (int i = 6; i < 20; i++) {
+            service.addContact(new Contact("ID" + i, "F", "L", "5550000000", "Road"));
+        }
+        assertEquals(20, feed.getLastSequence());
+        slow.subscription.request(1);
+        assertTrue(slow.next() instanceof IllegalStateException);
+
+        Recorder tooOld = new Recorder();
+        feed.subscribe(tooOld, 2);
+        assertTrue(tooOld.next() instanceof IllegalStateException);
+    }
+
+    // Test that closing completes subscribers after they have the remaining changes
+    @Test
+    public void testCloseCompletes() throws InterruptedException {
+        Recorder recorder = new Recorder();
+        feed.subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+        service.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+        feed.close();
+        assertEquals(1, recorder.nextBatch().size());
+        assertEquals("complete", recorder.next());
+    }
+
+    // Test that a request for zero batches is an error, as Flow requires
+    @Test
+    public void testBadRequest() throws InterruptedException {
+        Recorder recorder = new Recorder();
+        feed.subscribe(recorder);
+        recorder.subscription.request(0);
+        assertTrue(recorder.next() instanceof IllegalArgumentException);
+    }
+}
\ No newline at end of file
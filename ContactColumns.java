@@ -0,0 +1,326 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// A column-by-column copy of every contact, for analytics that look at one or two fields of
+// every contact - "how many contacts per area code", "which addresses contain X"
+// Instead of one Contact object and five Strings per contact, each field is one array: phones
+// are packed longs (see PhoneNumbers), and each text field is one byte[] with a fixed-width cell
+// per contact - a length byte and then one byte per character, the same encoding ContactSlots
+// uses. A scan reads a single array from start to end, with no object per contact and no pointers
+// to follow, and the rows are split into chunks that are scanned in parallel on every core.
+//
+// Columns are a point-in-time copy built by ContactService.toColumns or
+// PartitionedContactService.toColumns - later changes to the service aren't seen, so build new
+// columns when fresh numbers are needed. Text with a character above 0xFF can't be stored one byte
+// per character, so those few contacts keep a copy of their five Strings, checked as Strings.
+public final class ContactColumns {
+
+    // Rows per parallel chunk - big enough that splitting costs nothing next to the scan
+    private static final int CHUNK = 1 << 16;
+
+    private static final ContactField[] FIELDS = ContactField.values();
+
+    private final int size;
+    private final long[] phones;
+    private final byte[][] text = new byte[FIELDS.length][];    // By ContactField ordinal, none for PHONE
+    private Map<Integer, String[]> wideRows;                     // Text of rows that aren't Latin-1, by ordinal
+
+    // A test of one row, used by count, findIds and countByAreaCode
+    // Build one with the static methods below and combine them with and, or and negate
+    @FunctionalInterface
+    public interface Filter {
+
+        boolean test(ContactColumns columns, int row);
+
+        default Filter and(Filter other) {
+            return (columns, row) -> test(columns, row) && other.test(columns, row);
+        }
+
+        default Filter or(Filter other) {
+            return (columns, row) -> test(columns, row) || other.test(columns, row);
+        }
+
+        default Filter negate() {
+            return (columns, row) -> !test(columns, row);
+        }
+    }
+
+    private ContactColumns(int capacity) {
+        phones = new long[capacity];
+        for (ContactField field : FIELDS) {
+            if (field != ContactField.PHONE) {
+                text[field.ordinal()] = new byte[capacity * width(field)];
+            }
+        }
+        size = capacity;
+    }
+
+    // Copy every contact the action hands over - the action must hand over exactly count contacts
+    static ContactColumns copyOf(int count, Consumer<Consumer<Contact>> contacts) {
+        ContactColumns columns = new ContactColumns(count);
+        int[] row = {0};
+        contacts.accept(contact -> columns.set(row[0]++, contact));
+        if (row[0] != count) {
+            throw new IllegalStateException("Expected " + count + " contacts but got " + row[0] + ".");
+        }
+        return columns;
+    }
+
+    private void set(int row, Contact contact) {
+        phones[row] = contact.getPackedPhone();
+        if (!ContactSlots.fits(contact)) {
+            if (wideRows == null) {
+                wideRows = new HashMap<>();
+            }
+            // The field values, not the Contact - a later update must not reach into the copy
+            String[] fields = new String[FIELDS.length];
+            for (ContactField field : FIELDS) {
+                fields[field.ordinal()] = textOf(contact, field);
+            }
+            wideRows.put(row, fields);
+            return;
+        }
+        setText(ContactField.CONTACT_ID, row, contact.getContactId());
+        setText(ContactField.FIRST_NAME, row, contact.getFirstName());
+        setText(ContactField.LAST_NAME, row, contact.getLastName());
+        setText(ContactField.ADDRESS, row, contact.getAddress());
+    }
+
+    private void setText(ContactField field, int row, String value) {
+        byte[] column = text[field.ordinal()];
+        int cell = row * width(field);
+        column[cell] = (byte) value.length();
+        for (int i = 0; i < value.length(); i++) {
+            column[cell + 1 + i] = (byte) value.charAt(i);
+        }
+    }
+
+    // Number of contacts copied
+    public int size() {
+        return size;
+    }
+
+    // Packed phone of one row
+    public long getPackedPhone(int row) {
+        return phones[checkRow(row)];
+    }
+
+    // One text field of one row, decoded back into a String
+    public String getText(ContactField field, int row) {
+        checkRow(row);
+        if (field == ContactField.PHONE) {
+            return PhoneNumbers.unpack(phones[row]);
+        }
+        String[] wide = wideRow(row);
+        if (wide != null) {
+            return wide[field.ordinal()];
+        }
+        byte[] column = text[field.ordinal()];
+        int cell = row * width(field);
+        char[] chars = new char[column[cell]];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (column[cell + 1 + i] & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    // Queries - every one scans the columns in parallel chunks
+
+    // Number of contacts the filter matches
+    public int count(Filter filter) {
+        return IntStream.range(0, chunkCount()).parallel().map(chunk -> {
+            int matches = 0;
+            for (int row = chunkStart(chunk), end = chunkEnd(chunk); row < end; row++) {
+                if (filter.test(this, row)) {
+                    matches++;
+                }
+            }
+            return matches;
+        }).sum();
+    }
+
+    // IDs of the contacts the filter matches, in row order
+    public List<String> findIds(Filter filter) {
+        return IntStream.range(0, chunkCount()).parallel().mapToObj(chunk -> {
+            List<String> ids = new ArrayList<>();
+            for (int row = chunkStart(chunk), end = chunkEnd(chunk); row < end; row++) {
+                if (filter.test(this, row)) {
+                    ids.add(getText(ContactField.CONTACT_ID, row));
+                }
+            }
+            return ids;
+        }).flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    // Number of matching contacts per area code - the first three phone digits, 000 to 999
+    // Element i of the result is the count for area code i
+    public int[] countByAreaCode(Filter filter) {
+        return IntStream.range(0, chunkCount()).parallel().mapToObj(chunk -> {
+            int[] counts = new int[1000];
+            for (int row = chunkStart(chunk), end = chunkEnd(chunk); row < end; row++) {
+                if (filter.test(this, row)) {
+                    counts[(int) (phones[row] / 10_000_000L)]++;
+                }
+            }
+            return counts;
+        }).reduce(new int[1000], (left, right) -> {
+            int[] sum = Arrays.copyOf(left, 1000);
+            for (int i = 0; i < 1000; i++) {
+                sum[i] += right[i];
+            }
+            return sum;
+        });
+    }
+
+    // Filters
+
+    // Every contact
+    public static Filter all() {
+        return (columns, row) -> true;
+    }
+
+    // Contacts whose phone starts with this three digit area code
+    public static Filter areaCode(int areaCode) {
+        return (columns, row) -> columns.phones[row] / 10_000_000L == areaCode;
+    }
+
+    // Contacts whose field equals the value - for PHONE the value is the 10 digit phone
+    public static Filter equalTo(ContactField field, String value) {
+        if (field == ContactField.PHONE) {
+            long packed = PhoneNumbers.tryPack(value);
+            return (columns, row) -> columns.phones[row] == packed;
+        }
+        return text(field, value, (column, cell, needle) -> column[cell] == needle.length
+                && regionMatches(column, cell, needle, 0), String::equals);
+    }
+
+    // Contacts whose field starts with the prefix (case-sensitive)
+    public static Filter startsWith(ContactField field, String prefix) {
+        if (field == ContactField.PHONE) {
+            return (columns, row) -> PhoneNumbers.unpack(columns.phones[row]).startsWith(prefix);
+        }
+        return text(field, prefix, (column, cell, needle) -> column[cell] >= needle.length
+                && regionMatches(column, cell, needle, 0), String::startsWith);
+    }
+
+    // Contacts whose field contains the text anywhere (case-sensitive)
+    public static Filter contains(ContactField field, String part) {
+        if (field == ContactField.PHONE) {
+            return (columns, row) -> PhoneNumbers.unpack(columns.phones[row]).contains(part);
+        }
+        return text(field, part, (column, cell, needle) -> {
+            for (int at = 0, last = column[cell] - needle.length; at <= last; at++) {
+                if (regionMatches(column, cell, needle, at)) {
+                    return true;
+                }
+            }
+            return false;
+        }, String::contains);
+    }
+
+    // Text filter helpers
+
+    // Test of one cell's bytes against the needle's - cell is the offset of the length byte
+    private interface CellTest {
+        boolean test(byte[] column, int cell, byte[] needle);
+    }
+
+    // The same test on Strings, for the rows kept as Contact objects
+    private interface StringTest {
+        boolean test(String value, String needle);
+    }
+
+    private static Filter text(ContactField field, String needle, CellTest cellTest, StringTest stringTest) {
+        if (field == null || needle == null) {
+            throw new IllegalArgumentException("Field and value must not be null.");
+        }
+        int ordinal = field.ordinal();
+        int width = width(field);
+        // A needle with a character above 0xFF can only match the wide rows
+        byte[] bytes = ContactSlots.isLatin1(needle) ? latin1(needle) : null;
+        return (columns, row) -> {
+            if (columns.wideRows != null) {
+                String[] wide = columns.wideRows.get(row);
+                if (wide != null) {
+                    return stringTest.test(wide[ordinal], needle);
+                }
+            }
+            if (bytes == null) {
+                return false;
+            }
+            return cellTest.test(columns.text[ordinal], row * width, bytes);
+        };
+    }
+
+    // Check if the needle's bytes are in the cell starting at character at
+    private static boolean regionMatches(byte[] column, int cell, byte[] needle, int at) {
+        int start = cell + 1 + at;
+        for (int i = 0; i < needle.length; i++) {
+            if (column[start + i] != needle[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] latin1(String value) {
+        byte[] bytes = new byte[value.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) value.charAt(i);
+        }
+        return bytes;
+    }
+
+    private static String textOf(Contact contact, ContactField field) {
+        switch (field) {
+            case CONTACT_ID:
+                return contact.getContactId();
+            case FIRST_NAME:
+                return contact.getFirstName();
+            case LAST_NAME:
+                return contact.getLastName();
+            case PHONE:
+                return contact.getPhone();
+            default:
+                return contact.getAddress();
+        }
+    }
+
+    // Bytes per cell of a text column - the length byte and the longest value
+    private static int width(ContactField field) {
+        return field.getMaxLength() + 1;
+    }
+
+    private String[] wideRow(int row) {
+        return wideRows == null ? null : wideRows.get(row);
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IllegalArgumentException("Row must be between 0 and " + (size - 1) + ".");
+        }
+        return row;
+    }
+
+    private int chunkCount() {
+        return (size + CHUNK - 1) / CHUNK;
+    }
+
+    private static int chunkStart(int chunk) {
+        return chunk * CHUNK;
+    }
+
+    private int chunkEnd(int chunk) {
+        return Math.min(size, (chunk + 1) * CHUNK);
+    }
+}
\ No newline at end of file
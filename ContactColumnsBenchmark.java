@@ -0,0 +1,80 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+// Times full scans over a ContactColumns snapshot against the same scans as loops over the
+// Contact objects: contacts per area code, addresses containing a string, and first names
+// equal to a value. Also prints how long toColumns takes and the heap the snapshot uses.
+// Usage: java ContactService.ContactColumnsBenchmark [contacts] [rounds]
+public class ContactColumnsBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        ContactService service = new ContactService();
+        List<Contact> all = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Contact contact = ContactStoreFootprint.newContact(i);
+            service.addContact(contact);
+            all.add(contact);
+        }
+
+        long before = ContactStoreFootprint.usedHeap();
+        long start = System.nanoTime();
+        ContactColumns columns = service.toColumns();
+        long buildNanos = System.nanoTime() - start;
+        long columnBytes = ContactStoreFootprint.usedHeap() - before;
+        System.out.printf("%,d contacts, %d cores%n", count, Runtime.getRuntime().availableProcessors());
+        System.out.printf("toColumns: %.1f ms, %,d bytes (%.1f per contact)%n%n", buildNanos / 1e6,
+                columnBytes, columnBytes / (double) count);
+
+        ContactColumns.Filter street = ContactColumns.contains(ContactField.ADDRESS, "99 Main");
+        ContactColumns.Filter first = ContactColumns.equalTo(ContactField.FIRST_NAME, "First7");
+        for (int round = 0; round < 3; round++) { // The first rounds are JIT warm-up
+            measure("objects areaCode", rounds, all, list -> {
+                int[] counts = new int[1000];
+                for (Contact contact : list) {
+                    counts[Integer.parseInt(contact.getPhone().substring(0, 3))]++;
+                }
+                return counts[555];
+            });
+            measure("columns areaCode", rounds, all, list -> columns.countByAreaCode(ContactColumns.all())[555]);
+            measure("objects contains", rounds, all, list -> {
+                int matches = 0;
+                for (Contact contact : list) {
+                    if (contact.getAddress().contains("99 Main")) {
+                        matches++;
+                    }
+                }
+                return matches;
+            });
+            measure("columns contains", rounds, all, list -> columns.count(street));
+            measure("objects equalTo", rounds, all, list -> {
+                int matches = 0;
+                for (Contact contact : list) {
+                    if (contact.getFirstName().equals("First7")) {
+                        matches++;
+                    }
+                }
+                return matches;
+            });
+            measure("columns equalTo", rounds, all, list -> columns.count(first));
+            System.out.println();
+        }
+    }
+
+    private static void measure(String name, int rounds, List<Contact> all, ToIntFunction<List<Contact>> scan) {
+        long start = System.nanoTime();
+        int result = 0;
+        for (int i = 0; i < rounds; i++) {
+            result = scan.applyAsInt(all);
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / rounds;
+        System.out.printf("%-18s %8.2f ms/scan %6.1f ns/contact (%d matches)%n", name, millis,
+                millis * 1e6 / all.size(), result);
+    }
+}
\ No newline at end of file
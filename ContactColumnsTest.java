@@ -0,0 +1,128 @@
+// Roger Fisher 8/8/2025
+
+package ContactService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// This class tests ContactColumns - its filters and aggregates must agree with the Contact objects
+public class ContactColumnsTest {
+
+    private ContactService service;
+
+    @BeforeEach
+    public void setUp() {
+        service = new ContactService();
+        // Area codes 555 and 312, addresses on Elm St or Oak Rd
+        for (int i = 0; i < 200_000; i++) {
+            String phone = (i % 4 == 0 ? "312" : "555") + String.format("%07d", i);
+            String address = i + (i % 3 == 0 ? " Elm St" : " Oak Rd");
+            service.addContact(new Contact("ID" + i, "F" + (i % 100), "L" + (i % 7), phone, address));
+        }
+    }
+
+    // Test counts and area code totals over several parallel chunks
+    @Test
+    public void testCountsAndAreaCodes() {
+        ContactColumns columns = service.toColumns();
+        assertEquals(200_000, columns.size());
+        assertEquals(200_000, columns.count(ContactColumns.all()));
+        assertEquals(50_000, columns.count(ContactColumns.areaCode(312)));
+
+        int[] byAreaCode = columns.countByAreaCode(ContactColumns.all());
+        assertEquals(50_000, byAreaCode[312]);
+        assertEquals(150_000, byAreaCode[555]);
+        assertEquals(0, byAreaCode[0]);
+
+        int elm = columns.count(ContactColumns.contains(ContactField.ADDRESS, "Elm"));
+        assertEquals(66_667, elm);
+        int[] elmByAreaCode = columns.countByAreaCode(ContactColumns.contains(ContactField.ADDRESS, "Elm"));
+        assertEquals(elm, elmByAreaCode[312] + elmByAreaCode[555]);
+    }
+
+    // Test each text filter and combining filters
+    @Test
+    public void testTextFilters() {
+        ContactColumns columns = service.toColumns();
+        assertEquals(2000, columns.count(ContactColumns.equalTo(ContactField.FIRST_NAME, "F7")));
+        assertEquals(22_000, columns.count(ContactColumns.startsWith(ContactField.FIRST_NAME, "F7")));
+        assertEquals(1, columns.count(ContactColumns.equalTo(ContactField.PHONE, "5550000001")));
+        assertEquals(0, columns.count(ContactColumns.contains(ContactField.ADDRESS, "Elm St and more than 30 chars")));
+
+        ContactColumns.Filter filter = ContactColumns.equalTo(ContactField.LAST_NAME, "L3")
+                .and(ContactColumns.areaCode(312))
+                .and(ContactColumns.contains(ContactField.ADDRESS, "Oak").negate());
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            if (i % 7 == 3 && i % 4 == 0 && i % 3 == 0) {
+                expected.add("ID" + i);
+            }
+        }
+        List<String> ids = columns.findIds(filter);
+        assertEquals(expected.size(), ids.size());
+        assertEquals(expected, new HashSet<>(ids));
+        assertEquals(columns.count(ContactColumns.areaCode(312)) + columns.count(ContactColumns.areaCode(555)),
+                columns.count(ContactColumns.areaCode(312).or(ContactColumns.areaCode(555))));
+    }
+
+    // Test that contacts with text above Latin-1 are read and matched through their Strings
+    @Test
+    public void testWideText() {
+        service.addContact(new Contact("W1", "\u4e2d\u6587", "Doe", "5551234567", "1 \u00e9l\u00e8ve St"));
+        service.addContact(new Contact("W2", "Ann", "Lee", "5551234568", "2 \u4e2d Rd"));
+        ContactColumns columns = service.toColumns();
+        assertEquals(1, columns.count(ContactColumns.equalTo(ContactField.FIRST_NAME, "\u4e2d\u6587")));
+        assertEquals(1, columns.count(ContactColumns.contains(ContactField.ADDRESS, "\u4e2d")));
+        assertEquals(1, columns.count(ContactColumns.contains(ContactField.ADDRESS, "\u00e9l\u00e8ve")));
+        assertEquals(List.of("W2"), columns.findIds(ContactColumns.startsWith(ContactField.FIRST_NAME, "An")));
+    }
+
+    // Test that rows decode back to the same values and later changes aren't seen
+    @Test
+    public void testColumnsAreACopy() {
+        ContactColumns columns = service.toColumns();
+        int row = columns.findIds(ContactColumns.all()).indexOf("ID42");
+        assertEquals("F42", columns.getText(ContactField.FIRST_NAME, row));
+        assertEquals("42 Elm St", columns.getText(ContactField.ADDRESS, row));
+        assertEquals("5550000042", columns.getText(ContactField.PHONE, row));
+
+        service.updateFirstName("ID42", "Changed");
+        assertEquals("F42", columns.getText(ContactField.FIRST_NAME, row));
+        assertEquals(0, columns.count(ContactColumns.equalTo(ContactField.FIRST_NAME, "Changed")));
+        assertThrows(IllegalArgumentException.class, () -> columns.getText(ContactField.ADDRESS, -1));
+    }
+
+    // Test that wide rows are copied too, so later changes reach no row of the columns
+    @Test
+    public void testWideRowsAreACopy() {
+        service.addContact(new Contact("W1", "\u4e2d\u6587", "Doe", "5551234567", "1 Elm St"));
+        ContactColumns columns = service.toColumns();
+        int wideRow = columns.findIds(ContactColumns.all()).indexOf("W1");
+        int row = columns.findIds(ContactColumns.all()).indexOf("ID1");
+
+        service.updateLastName("W1", "Smith");
+        service.updateLastName("ID1", "Smith");
+        assertEquals("Doe", columns.getText(ContactField.LAST_NAME, wideRow));
+        assertEquals("L1", columns.getText(ContactField.LAST_NAME, row));
+        assertEquals(0, columns.count(ContactColumns.equalTo(ContactField.LAST_NAME, "Smith")));
+        assertEquals("\u4e2d\u6587", columns.getText(ContactField.FIRST_NAME, wideRow));
+    }
+
+    // Test that a partitioned service copies every shard
+    @Test
+    public void testPartitionedColumns() {
+        PartitionedContactService partitioned = new PartitionedContactService(8);
+        for (int i = 0; i < 1000; i++) {
+            partitioned.addContact(new Contact("ID" + i, "F", "L", String.format("%03d", i % 10) + "0000000", "Road"));
+        }
+        ContactColumns columns = partitioned.toColumns();
+        assertEquals(1000, columns.size());
+        assertEquals(100, columns.countByAreaCode(ContactColumns.all())[7]);
+    }
+}
\ No newline at end of file
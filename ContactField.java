@@ -0,0 +1,68 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+// The validation rules for every Contact field, defined once
+// Contact's constructor and setters, the batch validator and the services all check fields
+// through these constants. A check is a null test, a length test and, for the phone, a digit
+// loop - no regex Pattern or Matcher is created and nothing is allocated unless the value fails.
+//
+// The constants are in the same order as the columns of a raw contact record
+// (ID, first name, last name, phone, address), so field.ordinal() is the column index.
+public enum ContactField {
+
+    CONTACT_ID(10, false, "Contact ID must not be null or longer than 10 characters."),
+    FIRST_NAME(10, false, "First name must not be null or longer than 10 characters."),
+    LAST_NAME(10, false, "Last name must not be null or longer than 10 characters."),
+    PHONE(10, true, "Phone number must be exactly 10 digits."),
+    ADDRESS(30, false, "Address must not be null or longer than 30 characters.");
+
+    private final int maxLength;       // Longest allowed value (exact length for digit fields)
+    private final boolean digitsOnly;  // Must be exactly maxLength ASCII digits
+    private final String message;      // Error message when the rule is broken
+
+    ContactField(int maxLength, boolean digitsOnly, String message) {
+        this.maxLength = maxLength;
+        this.digitsOnly = digitsOnly;
+        this.message = message;
+    }
+
+    // Check a value against this field's rule without throwing or allocating
+    public boolean isValid(String value) {
+        if (value == null) {
+            return false;
+        }
+        if (!digitsOnly) {
+            return value.length() <= maxLength;
+        }
+        if (value.length() != maxLength) {
+            return false;
+        }
+        for (int i = 0; i < maxLength; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Check a value and hand it back, so callers can write field = FIELD.check(value)
+    // Throws ContactValidationException (an IllegalArgumentException) if the value breaks the rule
+    public String check(String value) {
+        if (!isValid(value)) {
+            throw new ContactValidationException(this);
+        }
+        return value;
+    }
+
+    // Longest allowed value for this field
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    // The error message used when a value breaks this field's rule
+    public String getMessage() {
+        return message;
+    }
+}
\ No newline at end of file
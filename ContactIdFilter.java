@@ -0,0 +1,107 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+// Counting Bloom filter over contact IDs, used by FilteredContactRepository
+// mightContain never says no for an ID that was added and not removed, so a "no" is a definite
+// miss and the real lookup can be skipped. A "yes" is wrong for roughly the configured share of
+// IDs that were never added.
+//
+// Each position is a 4-bit counter rather than a bit, so IDs can be removed again. A counter
+// that reaches 15 stays there, which can only cause extra false positives, never a wrong "no".
+// The filter is blocked: all of an ID's counters sit in one 64 byte block (8 longs of 16
+// counters), so a check touches one cache line instead of k random ones. Blocking costs a
+// little accuracy, so the filter is sized with a quarter more counters than a classic one.
+final class ContactIdFilter {
+
+    private static final int BLOCK_LONGS = 8;
+    private static final int BLOCK_COUNTERS = BLOCK_LONGS * 16;
+
+    private final long[] counters;
+    private final int blocks;
+    private final int hashCount;
+
+    // Sized for this many IDs at this false positive rate
+    ContactIdFilter(int expectedIds, double falsePositiveRate) {
+        if (expectedIds < 1 || !(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("Expected IDs must be at least 1 and the false positive rate between 0 and 1.");
+        }
+        double classic = -expectedIds * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long wanted = (long) Math.ceil(classic * 1.25);
+        this.blocks = (int) Math.min(Integer.MAX_VALUE / BLOCK_LONGS, Math.max(1, (wanted + BLOCK_COUNTERS - 1) / BLOCK_COUNTERS));
+        this.hashCount = (int) Math.max(1, Math.min(16, Math.round(classic / expectedIds * Math.log(2))));
+        this.counters = new long[blocks * BLOCK_LONGS];
+    }
+
+    void add(String contactId) {
+        long hash = hash(contactId);
+        int base = block(hash);
+        int step = (int) (hash >>> 48) | 1;
+        for (int i = 0, position = (int) (hash >>> 32); i < hashCount; i++, position += step) {
+            int index = base + (position >>> 4 & (BLOCK_LONGS - 1));
+            int shift = (position & 15) << 2;
+            if ((counters[index] >>> shift & 15) < 15) {
+                counters[index] += 1L << shift;
+            }
+        }
+    }
+
+    // Undo one add of the ID - only call this for an ID that was added
+    void remove(String contactId) {
+        long hash = hash(contactId);
+        int base = block(hash);
+        int step = (int) (hash >>> 48) | 1;
+        for (int i = 0, position = (int) (hash >>> 32); i < hashCount; i++, position += step) {
+            int index = base + (position >>> 4 & (BLOCK_LONGS - 1));
+            int shift = (position & 15) << 2;
+            long count = counters[index] >>> shift & 15;
+            if (count > 0 && count < 15) {
+                counters[index] -= 1L << shift;
+            }
+        }
+    }
+
+    // False means the ID was definitely never added (or was removed)
+    boolean mightContain(String contactId) {
+        long hash = hash(contactId);
+        int base = block(hash);
+        int step = (int) (hash >>> 48) | 1;
+        for (int i = 0, position = (int) (hash >>> 32); i < hashCount; i++, position += step) {
+            int index = base + (position >>> 4 & (BLOCK_LONGS - 1));
+            if ((counters[index] >>> ((position & 15) << 2) & 15) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Size of the counters in bytes
+    long sizeInBytes() {
+        return counters.length * 8L;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    // First long of the ID's block - the low 32 hash bits scaled to the block count, no modulo
+    // The high bits pick the counters inside the block
+    private int block(long hash) {
+        return (int) (((hash & 0xffffffffL) * blocks) >>> 32) * BLOCK_LONGS;
+    }
+
+    // 64-bit hash of the ID's characters (FNV-1a, then the murmur3 finalizer)
+    // String.hashCode has only 32 bits, too few to keep IDs apart in a filter over millions of them
+    private static long hash(String contactId) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < contactId.length(); i++) {
+            h = (h ^ contactId.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
\ No newline at end of file
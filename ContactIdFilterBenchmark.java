@@ -0,0 +1,79 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Time per repository lookup of a missing ID, deleteContact of a missing ID and addContact of a
+// new ID, on a ContactService over a FileContactRepository and over a CachingContactRepository in
+// front of it, each with and without a FilteredContactRepository in between. Also prints the
+// filter's size and its observed false positive rate.
+// Usage: java ContactService.ContactIdFilterBenchmark [contacts] [falsePositiveRate] [seconds]
+public class ContactIdFilterBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        double rate = args.length > 1 ? Double.parseDouble(args[1]) : 0.01;
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 2;
+        String[] missing = new String[1 << 20];
+        for (int i = 0; i < missing.length; i++) {
+            missing[i] = "M" + i;
+        }
+        ContactBenchmarkHarness harness = new ContactBenchmarkHarness(seconds, seconds);
+        Path folder = Files.createTempDirectory("contact-filter");
+
+        for (boolean cached : new boolean[] {false, true}) {
+            for (boolean filtered : new boolean[] {false, true}) {
+                String name = (cached ? "cache+file" : "file") + (filtered ? " filtered" : "");
+                try (FileContactRepository file = new FileContactRepository(folder.resolve("contacts.dat"))) {
+                    ContactRepository repository = cached
+                            ? new CachingContactRepository(file, Math.max(1, count / 20),
+                                    CachingContactRepository.EvictionPolicy.W_TINY_LFU)
+                            : file;
+                    FilteredContactRepository filter = filtered
+                            ? new FilteredContactRepository(repository, count * 2, rate)
+                            : null;
+                    ContactRepository front = filter == null ? repository : filter;
+                    ContactService service = new ContactService(front);
+                    for (int i = 0; i < count; i++) {
+                        service.addContact(ContactStoreFootprint.newContact(i));
+                    }
+                    run(harness, name, front, service, missing, count);
+                    if (filter != null) {
+                        System.out.printf("%-40s filter %,d bytes, observed false positive rate %.3f%%%n", "",
+                                filter.getFilterBytes(), 100 * filter.getObservedFalsePositiveRate());
+                    }
+                }
+            }
+        }
+        Files.delete(folder);
+    }
+
+    private static void run(ContactBenchmarkHarness harness, String name, ContactRepository repository,
+            ContactService service, String[] missing, int count) {
+        int mask = missing.length - 1;
+        ContactBenchmarkHarness.printHeader();
+        // The service throws for a missing ID, which would hide the lookup, so these go to the repository
+        harness.run(name + " contains missing", 1, () -> i -> ContactBenchmarkHarness.consume(
+                repository.contains(missing[i & mask])));
+        harness.run(name + " get missing", 1, () -> i -> ContactBenchmarkHarness.consume(
+                repository.get(missing[i & mask])));
+        harness.run(name + " delete missing", 1, () -> i -> {
+            try {
+                service.deleteContact(missing[i & mask]);
+            } catch (IllegalArgumentException e) {
+                ContactBenchmarkHarness.consume(e);
+            }
+        });
+        // Add a new contact then delete it again, so the store stays the same size
+        int[] next = {count};
+        harness.run(name + " add+delete new", 1, () -> i -> {
+            Contact contact = ContactStoreFootprint.newContact(next[0]++);
+            service.addContact(contact);
+            service.deleteContact(contact.getContactId());
+        });
+        System.out.println();
+    }
+}
\ No newline at end of file
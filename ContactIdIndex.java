@@ -0,0 +1,106 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+// Primary index from contact ID to an object - the contact itself in InMemoryContactRepository
+// The IDs are packed into primitive keys by ContactIdTable, so adding an ID allocates nothing
+// unless the table has to grow. FileContactRepository keeps int record numbers in the same
+// kind of table without boxing them (ContactIdIntIndex).
+//
+// IDs with a character above 0xFF can't be packed and go in a plain HashMap instead,
+// which is only created once such an ID shows up.
+final class ContactIdIndex<V> extends ContactIdTable {
+
+    // Slot i's value - null when the slot is empty
+    private Object[] values = new Object[capacity()];
+
+    // IDs that don't pack
+    private HashMap<String, V> others;
+
+    // Value stored under this ID, or null if there is none
+    @SuppressWarnings("unchecked")
+    V get(String contactId) {
+        int slot = slotOf(contactId);
+        if (slot == UNPACKED) {
+            return others == null ? null : others.get(contactId);
+        }
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    boolean containsKey(String contactId) {
+        return get(contactId) != null;
+    }
+
+    // Store a value under an ID, replacing any value the ID had
+    void put(String contactId, V value) {
+        int slot = slotOf(contactId);
+        if (slot == UNPACKED) {
+            if (others == null) {
+                others = new HashMap<>();
+            }
+            others.put(contactId, value);
+            return;
+        }
+        if (slot < 0) {
+            slot = addKey(contactId);
+        }
+        values[slot] = value;
+    }
+
+    // Remove and return the value stored under this ID, or null if there is none
+    @SuppressWarnings("unchecked")
+    V remove(String contactId) {
+        int slot = slotOf(contactId);
+        if (slot == UNPACKED) {
+            return others == null ? null : others.remove(contactId);
+        }
+        if (slot < 0) {
+            return null;
+        }
+        V value = (V) values[slot];
+        removeSlot(slot);
+        return value;
+    }
+
+    // Number of IDs in the index
+    int size() {
+        return packedSize() + (others == null ? 0 : others.size());
+    }
+
+    // Visit every value - packed IDs in table order, then the others
+    @SuppressWarnings("unchecked")
+    void forEach(Consumer<? super V> action) {
+        for (Object value : values) {
+            if (value != null) {
+                action.accept((V) value);
+            }
+        }
+        if (others != null) {
+            others.values().forEach(action);
+        }
+    }
+
+    @Override
+    void moveValues(int[] newSlots, int newCapacity) {
+        Object[] moved = new Object[newCapacity];
+        for (int i = 0; i < newSlots.length; i++) {
+            if (newSlots[i] >= 0) {
+                moved[newSlots[i]] = values[i];
+            }
+        }
+        values = moved;
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    void clearValue(int slot) {
+        values[slot] = null;     // Don't keep a deleted value reachable
+    }
+}
\ No newline at end of file
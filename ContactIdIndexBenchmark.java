@@ -0,0 +1,74 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.HashMap;
+import java.util.Random;
+
+// Compares ContactIdIndex with the HashMap<String, Contact> it replaced in ContactService
+// For each store size it prints the heap each index adds on top of the contacts themselves, then
+// times lookups of random IDs, and a delete and re-add of random contacts, where HashMap has to
+// allocate a new node every time. The lookup IDs are separate String objects from the stored
+// ones, as if they came from a request, but they are reused, so their hash codes are cached.
+// Usage: java ContactService.ContactIdIndexBenchmark [sizes] [seconds]
+//   sizes is a comma separated list, for example 10000,1000000
+public class ContactIdIndexBenchmark {
+
+    public static void main(String[] args) {
+        String sizes = args.length > 0 ? args[0] : "10000,1000000";
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+        ContactBenchmarkHarness harness = new ContactBenchmarkHarness(seconds, seconds);
+
+        for (String size : sizes.split(",")) {
+            int count = Integer.parseInt(size.trim());
+            Contact[] stored = new Contact[count];
+            String[] lookups = new String[count];
+            for (int i = 0; i < count; i++) {
+                stored[i] = ContactStoreFootprint.newContact(i);
+                lookups[i] = new String(stored[i].getContactId());
+            }
+            // Visit the IDs in random order so each lookup lands somewhere new in the table
+            int mask = Integer.highestOneBit(count) - 1;
+            int[] order = new int[mask + 1];
+            Random random = new Random(42);
+            for (int i = 0; i < order.length; i++) {
+                order[i] = random.nextInt(count);
+            }
+
+            long before = ContactStoreFootprint.usedHeap();
+            HashMap<String, Contact> map = new HashMap<>();
+            for (Contact contact : stored) {
+                map.put(contact.getContactId(), contact);
+            }
+            long mapBytes = ContactStoreFootprint.usedHeap() - before;
+
+            before = ContactStoreFootprint.usedHeap();
+            ContactIdIndex<Contact> index = new ContactIdIndex<>();
+            for (Contact contact : stored) {
+                index.put(contact.getContactId(), contact);
+            }
+            long indexBytes = ContactStoreFootprint.usedHeap() - before;
+
+            System.out.printf("%,d contacts%n", count);
+            System.out.printf("%-40s heap %,14d bytes (%6.1f per contact)%n", "HashMap<String, Contact>", mapBytes,
+                    mapBytes / (double) count);
+            System.out.printf("%-40s heap %,14d bytes (%6.1f per contact)%n", "ContactIdIndex", indexBytes,
+                    indexBytes / (double) count);
+            ContactBenchmarkHarness.printHeader();
+            for (int round = 0; round < 2; round++) { // The first round is JIT warm-up for both
+                harness.run("HashMap.get", 1, () -> i -> ContactBenchmarkHarness.consume(map.get(lookups[order[i & mask]])));
+                harness.run("ContactIdIndex.get", 1,
+                        () -> i -> ContactBenchmarkHarness.consume(index.get(lookups[order[i & mask]])));
+                harness.run("HashMap remove+put", 1, () -> i -> {
+                    Contact contact = map.remove(lookups[order[i & mask]]);
+                    map.put(contact.getContactId(), contact);
+                });
+                harness.run("ContactIdIndex remove+put", 1, () -> i -> {
+                    Contact contact = index.remove(lookups[order[i & mask]]);
+                    index.put(contact.getContactId(), contact);
+                });
+            }
+            System.out.println();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.HashMap;
+
+// Index from contact ID to an int - the record number of the contact in FileContactRepository
+// Same packed table as ContactIdIndex, but the values are a plain int[], so a record number
+// costs 4 bytes in the table instead of a boxed Integer per contact.
+// IDs with a character above 0xFF go in a HashMap, boxing only those rare record numbers.
+final class ContactIdIntIndex extends ContactIdTable {
+
+    // Returned for an ID that isn't in the index - stored values must not be negative
+    static final int MISSING = -1;
+
+    private int[] values = new int[capacity()];
+
+    // IDs that don't pack
+    private HashMap<String, Integer> others;
+
+    // Value stored under this ID, or MISSING
+    int get(String contactId) {
+        int slot = slotOf(contactId);
+        if (slot == UNPACKED) {
+            Integer value = others == null ? null : others.get(contactId);
+            return value == null ? MISSING : value;
+        }
+        return slot < 0 ? MISSING : values[slot];
+    }
+
+    boolean containsKey(String contactId) {
+        return get(contactId) != MISSING;
+    }
+
+    // Store a value under an ID, replacing any value the ID had
+    void put(String contactId, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must not be negative.");
+        }
+        int slot = slotOf(contactId);
+        if (slot == UNPACKED) {
+            if (others == null) {
+                others = new HashMap<>();
+            }
+            others.put(contactId, value);
+            return;
+        }
+        if (slot < 0) {
+            slot = addKey(contactId);
+        }
+        values[slot] = value;
+    }
+
+    // Remove and return the value stored under this ID, or MISSING
+    int remove(String contactId) {
+        int slot = slotOf(contactId);
+        if (slot == UNPACKED) {
+            Integer value = others == null ? null : others.remove(contactId);
+            return value == null ? MISSING : value;
+        }
+        if (slot < 0) {
+            return MISSING;
+        }
+        int value = values[slot];
+        removeSlot(slot);
+        return value;
+    }
+
+    // Number of IDs in the index
+    int size() {
+        return packedSize() + (others == null ? 0 : others.size());
+    }
+
+    @Override
+    void moveValues(int[] newSlots, int newCapacity) {
+        int[] moved = new int[newCapacity];
+        for (int i = 0; i < newSlots.length; i++) {
+            if (newSlots[i] >= 0) {
+                moved[newSlots[i]] = values[i];
+            }
+        }
+        values = moved;
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    void clearValue(int slot) {
+        values[slot] = 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,127 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+
+// Every contact in contactId order, for listContacts and streamContacts
+// A TreeMap over every contact would cost about 40 bytes per contact on top of the ID index, so
+// most contacts sit in one sorted array instead, at one reference each. Contacts added since the
+// array was built wait in a small TreeMap. A deleted contact's slot is overwritten with its ID
+// String, so the Contact can be collected while binary search over the array still works. Once
+// the additions and deletions reach an eighth of the array, both are merged into a new array -
+// an O(n) copy of references at most once per n/8 changes.
+//
+// Paging never changes anything here, so several readers may page at once (as they do under
+// PartitionedContactService's read locks) as long as add and remove run alone.
+final class ContactIdOrder {
+
+    private static final int MIN_PENDING = 64;
+
+    private Object[] sorted = new Object[0];   // A Contact, or the ID String of a deleted one
+    private int deleted;
+    private final TreeMap<String, Contact> added = new TreeMap<>();
+
+    // Add a contact whose ID isn't stored yet
+    void add(Contact contact) {
+        added.put(contact.getContactId(), contact);
+        compactIfNeeded();
+    }
+
+    // Remove a stored contact
+    void remove(Contact contact) {
+        String contactId = contact.getContactId();
+        if (added.remove(contactId) == null) {
+            int index = indexAfter(contactId) - 1;
+            if (index >= 0 && sorted[index] instanceof Contact && idAt(index).equals(contactId)) {
+                sorted[index] = contactId;
+                deleted++;
+            }
+        }
+        compactIfNeeded();
+    }
+
+    // The first limit contacts whose ID comes after the cursor (null for the first page)
+    ContactPage page(String afterCursor, int limit) {
+        List<Contact> page = new ArrayList<>(Math.min(limit, 1024));
+        int index = skipDeleted(afterCursor == null ? 0 : indexAfter(afterCursor));
+        Iterator<Contact> extra = (afterCursor == null ? added : added.tailMap(afterCursor, false)).values().iterator();
+        Contact next = extra.hasNext() ? extra.next() : null;
+        while (page.size() < limit && (index < sorted.length || next != null)) {
+            if (next == null || index < sorted.length && idAt(index).compareTo(next.getContactId()) < 0) {
+                page.add((Contact) sorted[index]);
+                index = skipDeleted(index + 1);
+            } else {
+                page.add(next);
+                next = extra.hasNext() ? extra.next() : null;
+            }
+        }
+        return new ContactPage(page, index < sorted.length || next != null);
+    }
+
+    // Number of contacts held
+    int size() {
+        return sorted.length - deleted + added.size();
+    }
+
+    private String idAt(int index) {
+        Object entry = sorted[index];
+        return entry instanceof Contact ? ((Contact) entry).getContactId() : (String) entry;
+    }
+
+    // First array index whose ID comes after the given one
+    private int indexAfter(String contactId) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (idAt(middle).compareTo(contactId) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int skipDeleted(int index) {
+        while (index < sorted.length && !(sorted[index] instanceof Contact)) {
+            index++;
+        }
+        return index;
+    }
+
+    private void compactIfNeeded() {
+        if (added.size() + deleted > Math.max(MIN_PENDING, sorted.length >>> 3)) {
+            compact();
+        }
+    }
+
+    // Merge the additions into the array and drop the deleted slots
+    private void compact() {
+        Object[] merged = new Object[size()];
+        int count = 0;
+        Iterator<Contact> extra = added.values().iterator();
+        Contact next = extra.hasNext() ? extra.next() : null;
+        for (Object entry : sorted) {
+            if (entry instanceof Contact) {
+                Contact contact = (Contact) entry;
+                while (next != null && next.getContactId().compareTo(contact.getContactId()) < 0) {
+                    merged[count++] = next;
+                    next = extra.hasNext() ? extra.next() : null;
+                }
+                merged[count++] = contact;
+            }
+        }
+        while (next != null) {
+            merged[count++] = next;
+            next = extra.hasNext() ? extra.next() : null;
+        }
+        sorted = merged;
+        deleted = 0;
+        added.clear();
+    }
+}
\ No newline at end of file
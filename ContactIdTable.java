@@ -0,0 +1,176 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+// Open-addressing hash table of packed contact IDs, shared by ContactIdIndex (object values)
+// and ContactIdIntIndex (int values) - the subclass keeps the values in a parallel array
+// A contact ID is at most 10 characters, so when every character fits in one byte (always true
+// for ASCII IDs) the whole ID packs into two longs: characters 0-7 in the first, and characters
+// 8-9, the length and the ID's hash in the second. Those keys sit side by side in one long[],
+// so a lookup packs the ID and compares two longs in place - no String.equals, no node object
+// per entry, and no pointer chasing until the matching slot's value is read.
+//
+// IDs with a character above 0xFF can't be packed - each subclass keeps those in a plain map.
+abstract class ContactIdTable {
+
+    static final long EMPTY = 0L;   // The second key word always holds the length + 1
+    private static final double MAX_LOAD = 0.75;
+    static final int UNPACKED = -2; // slotOf result for an ID that doesn't pack
+
+    // Slot i has its key in keys[2i] and keys[2i + 1]
+    private long[] keys = new long[32];
+    private int packedSize;
+
+    // Value storage - the subclass keeps one value per slot
+
+    // Replace the value array with one of newCapacity slots, moving the value in old slot i to
+    // newSlots[i] (slots that were empty have -1)
+    abstract void moveValues(int[] newSlots, int newCapacity);
+
+    // Move a value from one slot to another during a removal, leaving from to be overwritten
+    abstract void moveValue(int from, int to);
+
+    // Drop a slot's value so a removed value isn't kept reachable
+    abstract void clearValue(int slot);
+
+    // Number of slots - a power of two
+    final int capacity() {
+        return keys.length / 2;
+    }
+
+    final int packedSize() {
+        return packedSize;
+    }
+
+    // Packing
+
+    // Characters 0-7, one byte each
+    static long low(String contactId) {
+        long word = 0;
+        int end = Math.min(contactId.length(), 8);
+        for (int i = 0; i < end; i++) {
+            word |= (long) contactId.charAt(i) << (8 * i);
+        }
+        return word;
+    }
+
+    // Characters 8-9 in bits 0-15, the length + 1 in bits 16-19 and the hash in bits 32-63
+    // The length tells "A" apart from "A\0" and keeps the word from ever being EMPTY
+    static long high(String contactId) {
+        int length = contactId.length();
+        long word = (long) hash(contactId) << 32 | (long) (length + 1) << 16;
+        for (int i = 8; i < length; i++) {
+            word |= (long) contactId.charAt(i) << (8 * (i - 8));
+        }
+        return word;
+    }
+
+    // Table position of an ID - its own String hash code, which String caches, spread with the
+    // murmur3 finalizer because linear probing needs the low bits to vary
+    private static int hash(String contactId) {
+        int h = contactId.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    // Pack the ID and find its slot in one pass over the characters
+    // Returns the slot, -1 when the ID isn't there (or is null), or UNPACKED when it doesn't pack
+    final int slotOf(String contactId) {
+        if (contactId == null) {
+            return -1;
+        }
+        int length = contactId.length();
+        if (length > 10) {
+            return UNPACKED;
+        }
+        int hash = hash(contactId);
+        long low = 0;
+        long high = (long) hash << 32 | (long) (length + 1) << 16;
+        int bits = 0;
+        int split = Math.min(length, 8);
+        for (int i = 0; i < split; i++) {
+            int c = contactId.charAt(i);
+            bits |= c;
+            low |= (long) c << (8 * i);
+        }
+        for (int i = split; i < length; i++) {
+            int c = contactId.charAt(i);
+            bits |= c;
+            high |= (long) c << (8 * (i - 8));
+        }
+        if (bits > 0xFF) {
+            return UNPACKED;
+        }
+
+        long[] table = keys;
+        int mask = capacity() - 1;
+        int slot = hash & mask;
+        while (table[2 * slot + 1] != EMPTY) {
+            if (table[2 * slot + 1] == high && table[2 * slot] == low) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Add a packable ID that slotOf just reported missing and return its new slot
+    final int addKey(String contactId) {
+        if (packedSize + 1 > capacity() * MAX_LOAD) {
+            grow();
+        }
+        packedSize++;
+        return insertKey(keys, low(contactId), high(contactId));
+    }
+
+    // Empty one slot and shift later keys back so no probe chain is broken
+    final void removeSlot(int slot) {
+        int mask = capacity() - 1;
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (keys[2 * next + 1] == EMPTY) {
+                break;
+            }
+            int home = (int) (keys[2 * next + 1] >>> 32) & mask;
+            boolean homeBetween = hole <= next ? (home > hole && home <= next) : (home > hole || home <= next);
+            if (!homeBetween) {
+                keys[2 * hole] = keys[2 * next];
+                keys[2 * hole + 1] = keys[2 * next + 1];
+                moveValue(next, hole);
+                hole = next;
+            }
+        }
+        keys[2 * hole] = 0;
+        keys[2 * hole + 1] = EMPTY;
+        clearValue(hole);
+        packedSize--;
+    }
+
+    private static int insertKey(long[] table, long low, long high) {
+        int mask = table.length / 2 - 1;
+        int slot = (int) (high >>> 32) & mask;
+        while (table[2 * slot + 1] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[2 * slot] = low;
+        table[2 * slot + 1] = high;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int oldCapacity = oldKeys.length / 2;
+        keys = new long[oldKeys.length * 2];
+        int[] newSlots = new int[oldCapacity];
+        for (int i = 0; i < oldCapacity; i++) {
+            newSlots[i] = oldKeys[2 * i + 1] == EMPTY ? -1 : insertKey(keys, oldKeys[2 * i], oldKeys[2 * i + 1]);
+        }
+        moveValues(newSlots, capacity());
+    }
+}
\ No newline at end of file
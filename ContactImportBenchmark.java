@@ -0,0 +1,46 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Compares loading a feed with addContact in a try/catch loop against one importContacts call
+// About 1 record in 20 is invalid and 1 in 50 repeats an earlier ID
+// Usage: java ContactService.ContactImportBenchmark [records]
+public class ContactImportBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<String[]> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = i % 50 == 49 ? i - 1 : i;
+            String phone = i % 20 == 7 ? "555-0100" : String.format("%010d", i * 7_919L);
+            records.add(new String[] {"ID" + id, "First" + (i % 1000), "Last" + (i % 5000), phone, i + " Main St"});
+        }
+
+        for (int round = 0; round < 3; round++) { // The first rounds are JIT warm-up
+            long start = System.nanoTime();
+            ContactService looped = new ContactService();
+            int added = 0;
+            for (String[] r : records) {
+                try {
+                    looped.addContact(new Contact(r[0], r[1], r[2], r[3], r[4]));
+                    added++;
+                } catch (IllegalArgumentException e) {
+                    // Skip the bad record
+                }
+            }
+            report("addContact loop", count, added, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            ContactImportReport result = new ContactService().importContacts(records);
+            report("importContacts", count, result.getAddedCount(), System.nanoTime() - start);
+        }
+    }
+
+    private static void report(String name, int count, int added, long nanos) {
+        System.out.printf("%-16s %8.1f ms %10.0f records/s (%d added)%n",
+                name, nanos / 1e6, count / (nanos / 1e9), added);
+    }
+}
\ No newline at end of file
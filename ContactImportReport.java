@@ -0,0 +1,62 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+// Outcome of ContactService.importContacts - one status per input record, in input order
+public class ContactImportReport {
+
+    // What happened to one record
+    public enum Status {
+        ADDED,               // The contact was added
+        INVALID,             // A field broke its rule, or the record wasn't 5 fields
+        DUPLICATE_IN_BATCH,  // An earlier record in the same batch has the same ID
+        ALREADY_EXISTS       // The service already had a contact with this ID
+    }
+
+    private final Status[] statuses;
+    private final ContactField[] invalidFields;
+
+    ContactImportReport(Status[] statuses, ContactField[] invalidFields) {
+        this.statuses = statuses;
+        this.invalidFields = invalidFields;
+    }
+
+    // Number of records in the batch
+    public int size() {
+        return statuses.length;
+    }
+
+    // Outcome of the record at this position
+    public Status getStatus(int index) {
+        return statuses[index];
+    }
+
+    // For an INVALID record, the first field that broke its rule
+    // Null for valid records and for records that didn't have exactly 5 fields
+    public ContactField getInvalidField(int index) {
+        return invalidFields[index];
+    }
+
+    // Number of records with this outcome
+    public int count(Status status) {
+        int count = 0;
+        for (Status s : statuses) {
+            if (s == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Number of contacts added
+    public int getAddedCount() {
+        return count(Status.ADDED);
+    }
+
+    @Override
+    public String toString() {
+        return "ContactImportReport[added=" + count(Status.ADDED) + ", invalid=" + count(Status.INVALID)
+                + ", duplicateInBatch=" + count(Status.DUPLICATE_IN_BATCH)
+                + ", alreadyExists=" + count(Status.ALREADY_EXISTS) + "]";
+    }
+}
\ No newline at end of file
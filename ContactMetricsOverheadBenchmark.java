@@ -0,0 +1,42 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+// Measures what ContactServiceMetrics costs: getContactById and updatePhone on a service with no
+// metrics attached, then with metrics at the default timing sample, then timing every call
+// Usage: java ContactService.ContactMetricsOverheadBenchmark [contacts] [seconds]
+public class ContactMetricsOverheadBenchmark {
+
+    public static void main(String[] args) {
+        int contactCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+
+        ContactService service = new ContactService();
+        String[] ids = new String[contactCount];
+        String[] phones = new String[contactCount];
+        for (int i = 0; i < contactCount; i++) {
+            Contact contact = ConcurrentContactServiceBenchmark.newContact(i);
+            ids[i] = contact.getContactId();
+            phones[i] = contact.getPhone();
+            service.addContact(contact);
+        }
+        int mask = Integer.highestOneBit(contactCount) - 1;
+        ContactBenchmarkHarness harness = new ContactBenchmarkHarness(seconds, seconds);
+
+        ContactBenchmarkHarness.printHeader();
+        for (int round = 0; round < 2; round++) { // The first round is JIT warm-up for both paths
+            for (int sampleInterval : new int[] {0, 64, 1}) {
+                ContactServiceMetrics metrics = null;
+                if (sampleInterval > 0) {
+                    metrics = new ContactServiceMetrics();
+                    metrics.setTimingSampleInterval(sampleInterval);
+                }
+                service.setMetrics(metrics);
+                String suffix = sampleInterval == 0 ? " (metrics off)" : " (timing 1/" + sampleInterval + ")";
+                harness.run("getContactById" + suffix, 1,
+                        () -> i -> ContactBenchmarkHarness.consume(service.getContactById(ids[i & mask])));
+                harness.run("updatePhone" + suffix, 1, () -> i -> service.updatePhone(ids[i & mask], phones[i & mask]));
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// One page of contacts in contactId order, from listContacts
+// Pages are keyset based - the cursor is the last ID on the page, and the next page starts just
+// after it - so contacts added or deleted between pages never make a later page skip or repeat a
+// contact that was there the whole time. When the service keeps its contactId order index (an
+// in-memory repository), reading page 1,000 costs the same as reading page 1. Over a repository
+// on disk every page is a full scan, so there a deep page costs as much as the first one, but
+// both cost a pass over the whole store.
+// Example:
+//   for (ContactPage page = service.listContacts(null, 100); ; page = service.listContacts(page.getNextCursor(), 100)) {
+//       ... page.getContacts() ...
+//       if (!page.hasNext()) break;
+//   }
+public final class ContactPage {
+
+    private final List<Contact> contacts;
+    private final String nextCursor;
+
+    ContactPage(List<Contact> contacts, boolean more) {
+        this.contacts = Collections.unmodifiableList(contacts);
+        this.nextCursor = more ? contacts.get(contacts.size() - 1).getContactId() : null;
+    }
+
+    // The contacts on this page, in contactId order
+    public List<Contact> getContacts() {
+        return contacts;
+    }
+
+    // Cursor to pass to listContacts for the next page, or null when this is the last page
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return "ContactPage[size=" + contacts.size() + ", nextCursor=" + nextCursor + "]";
+    }
+
+    // Throws the shared error for a bad page size
+    static int checkLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1.");
+        }
+        return limit;
+    }
+
+    // A lazy stream over every contact in contactId order, fetched one page at a time
+    // Only one page is held at once, and each page is read afresh, so writes between pages are
+    // seen (or not) exactly as they would be by a caller paging by hand
+    static Stream<Contact> stream(BiFunction<String, Integer, ContactPage> pages, int pageSize) {
+        checkLimit(pageSize);
+        Spliterator<Contact> spliterator = new Spliterators.AbstractSpliterator<Contact>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL) {
+
+            private Iterator<Contact> current = Collections.emptyIterator();
+            private String cursor;
+            private boolean done;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Contact> action) {
+                while (!current.hasNext()) {
+                    if (done) {
+                        return false;
+                    }
+                    ContactPage page = pages.apply(cursor, pageSize);
+                    current = page.getContacts().iterator();
+                    cursor = page.getNextCursor();
+                    done = !page.hasNext();
+                }
+                action.accept(current.next());
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,62 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+
+// Time per page of 100 contacts read with a listContacts cursor, near the start and deep into
+// the store, against copying every contact, sorting and skipping to the offset. Also times a
+// full streamContacts pass and prints the heap taken by the contactId order index.
+// Usage: java ContactService.ContactPagingBenchmark [contacts] [seconds]
+public class ContactPagingBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+        ContactService service = new ContactService();
+        List<Contact> all = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Contact contact = ContactStoreFootprint.newContact(i);
+            service.addContact(contact);
+            all.add(contact);
+        }
+
+        // Build one more index over the same contacts to see its size, next to a TreeMap
+        long before = ContactStoreFootprint.usedHeap();
+        ContactIdOrder order = new ContactIdOrder();
+        for (Contact contact : all) {
+            order.add(contact);
+        }
+        long indexBytes = ContactStoreFootprint.usedHeap() - before;
+        System.out.printf("contactId order index: %,d bytes (%.1f per contact)%n", indexBytes,
+                indexBytes / (double) count);
+        order = null;
+        before = ContactStoreFootprint.usedHeap();
+        TreeMap<String, Contact> treeOrder = new TreeMap<>();
+        for (Contact contact : all) {
+            treeOrder.put(contact.getContactId(), contact);
+        }
+        long treeBytes = ContactStoreFootprint.usedHeap() - before;
+        System.out.printf("TreeMap in the same order: %,d bytes (%.1f per contact)%n%n", treeBytes,
+                treeBytes / (double) count);
+        treeOrder = null;
+
+        // Cursors at the start and at the middle of the ID order
+        String start = null;
+        String middle = service.listContacts(null, count / 2).getNextCursor();
+        ContactBenchmarkHarness harness = new ContactBenchmarkHarness(seconds, seconds);
+        ContactBenchmarkHarness.printHeader();
+        harness.run("cursor page, start", 1, () -> i -> ContactBenchmarkHarness.consume(service.listContacts(start, 100)));
+        harness.run("cursor page, middle", 1, () -> i -> ContactBenchmarkHarness.consume(service.listContacts(middle, 100)));
+        harness.run("copy+sort+offset page, middle", 1, () -> i -> {
+            List<Contact> copy = new ArrayList<>(all);
+            copy.sort(Comparator.comparing(Contact::getContactId));
+            ContactBenchmarkHarness.consume(new ArrayList<>(copy.subList(count / 2, count / 2 + 100)));
+        });
+        harness.run("streamContacts full pass", 1, () -> i -> ContactBenchmarkHarness.consume(
+                service.streamContacts().count()));
+    }
+}
\ No newline at end of file
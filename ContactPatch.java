@@ -0,0 +1,85 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+// A set of field changes for one contact, applied with a single applyPatch call
+// Each value is checked against its ContactField rule as soon as it is set, so a patch that
+// reaches applyPatch is already known to be valid and is applied all at once.
+// Fields that are never set are left unchanged.
+// Example: service.applyPatch("001", new ContactPatch().setPhone("5559876543").setAddress("1 Oak St"));
+public final class ContactPatch {
+
+    // Null means the field is not changed - null is never a valid value for any field
+    private String firstName;
+    private String lastName;
+    private String phone;
+    private String address;
+
+    // Change the first name (with validation)
+    public ContactPatch setFirstName(String firstName) {
+        this.firstName = ContactField.FIRST_NAME.check(firstName);
+        return this;
+    }
+
+    // Change the last name (with validation)
+    public ContactPatch setLastName(String lastName) {
+        this.lastName = ContactField.LAST_NAME.check(lastName);
+        return this;
+    }
+
+    // Change the phone number (with validation)
+    public ContactPatch setPhone(String phone) {
+        this.phone = ContactField.PHONE.check(phone);
+        return this;
+    }
+
+    // Change the address (with validation)
+    public ContactPatch setAddress(String address) {
+        this.address = ContactField.ADDRESS.check(address);
+        return this;
+    }
+
+    // Getter methods - each returns null when that field is not changed
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    // Check if the patch changes nothing
+    public boolean isEmpty() {
+        return firstName == null && lastName == null && phone == null && address == null;
+    }
+
+    // Write every changed field into a contact as one change
+    // The values were validated when they were set, so this can't throw
+    void applyTo(Contact contact) {
+        if (!isEmpty()) {
+            contact.apply(firstName, lastName, phone, address);
+        }
+    }
+
+    // Throws the shared error for a missing patch
+    static ContactPatch check(ContactPatch patch) {
+        if (patch == null) {
+            throw new IllegalArgumentException("Patch is null.");
+        }
+        return patch;
+    }
+
+    @Override
+    public String toString() {
+        return "ContactPatch[firstName=" + firstName + ", lastName=" + lastName + ", phone=" + phone
+                + ", address=" + address + "]";
+    }
+}
\ No newline at end of file
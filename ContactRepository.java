@@ -0,0 +1,43 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.function.Consumer;
+
+// Where a ContactService keeps its contacts
+// ContactService does all the checking (duplicate IDs, missing contacts, field rules) and then
+// calls these methods, so a repository only stores and finds contacts. Implementations:
+//   InMemoryContactRepository  - every contact on the heap (the default)
+//   FileContactRepository      - every contact in a file, decoded on each read
+//   CachingContactRepository   - a size-bounded cache in front of another repository
+// Like ContactService, a repository is not thread-safe, except that contains must work when
+// called from several threads at once while nothing is changing the repository.
+public interface ContactRepository {
+
+    // Contact with this ID, or null if there is none
+    Contact get(String contactId);
+
+    // Check if there is a contact with this ID
+    boolean contains(String contactId);
+
+    // Store a contact whose ID isn't in the repository yet
+    void insert(Contact contact);
+
+    // Store the new values of a contact the service just changed
+    // The contact is the object get or insert handed to the service
+    void update(Contact contact);
+
+    // Remove and return the contact with this ID, or null if there is none
+    Contact remove(String contactId);
+
+    // Number of contacts stored
+    int size();
+
+    // Visit every contact, in no particular order
+    void forEach(Consumer<Contact> action);
+
+    // True when every contact stays on the heap as the same object
+    // ContactService only builds its phone, last name and prefix indexes over such a repository,
+    // because the indexes hold every contact - with any other repository, queries scan instead
+    boolean holdsAllInMemory();
+}
\ No newline at end of file
@@ -0,0 +1,116 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+// Heap use, throughput and hit rate of a ContactService over a CachingContactRepository in front
+// of a FileContactRepository, with each eviction policy, against the all-in-memory default.
+// Two workloads, 90% getContactById and 10% updatePhone:
+//   zipf       - contacts are picked with a Zipf-like skew, so a small working set gets most use
+//   zipf+scan  - every fourth operation instead reads the next contact of a pass over all of them,
+//                like an export running next to normal traffic
+// Hit rates cover the warm-up and the measured period.
+// Usage: java ContactService.ContactRepositoryBenchmark [contacts] [cachePercent] [seconds]
+public class ContactRepositoryBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        double cachePercent = args.length > 1 ? Double.parseDouble(args[1]) : 5;
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 2;
+        int cacheSize = Math.max(1, (int) (count * cachePercent / 100));
+        int[] picks = zipfPicks(count, 1 << 20);
+        String[] ids = new String[count];
+        String[] phones = new String[count];
+        for (int i = 0; i < count; i++) {
+            Contact contact = ContactStoreFootprint.newContact(i);
+            ids[i] = contact.getContactId();
+            phones[i] = contact.getPhone();
+        }
+        ContactBenchmarkHarness harness = new ContactBenchmarkHarness(seconds, seconds);
+        Path folder = Files.createTempDirectory("contact-repository");
+
+        long before = ContactStoreFootprint.usedHeap();
+        ContactService memory = fill(new ContactService(), count);
+        report("in memory", count, ContactStoreFootprint.usedHeap() - before, null);
+        run(harness, "in memory", memory, ids, phones, picks, null);
+        memory = null;
+
+        for (CachingContactRepository.EvictionPolicy policy : CachingContactRepository.EvictionPolicy.values()) {
+            try (FileContactRepository file = new FileContactRepository(folder.resolve(policy + ".dat"))) {
+                before = ContactStoreFootprint.usedHeap();
+                CachingContactRepository cache = new CachingContactRepository(file, cacheSize, policy);
+                ContactService service = fill(new ContactService(cache), count);
+                String name = policy + " cache " + cachePercent + "%";
+                report(name, count, ContactStoreFootprint.usedHeap() - before, file);
+                run(harness, name, service, ids, phones, picks, cache);
+            }
+        }
+        Files.delete(folder);
+    }
+
+    private static ContactService fill(ContactService service, int count) {
+        for (int i = 0; i < count; i++) {
+            service.addContact(ContactStoreFootprint.newContact(i));
+        }
+        return service;
+    }
+
+    private static void run(ContactBenchmarkHarness harness, String name, ContactService service, String[] ids,
+            String[] phones, int[] picks, CachingContactRepository cache) {
+        int mask = picks.length - 1;
+        ContactBenchmarkHarness.printHeader();
+        for (boolean scan : new boolean[] {false, true}) {
+            if (cache != null) {
+                cache.resetStatistics();
+            }
+            int[] scanPosition = new int[1];
+            harness.run(name + (scan ? " zipf+scan" : " zipf"), 1, () -> i -> {
+                int contact = scan && (i & 3) == 3 ? scanPosition[0]++ % ids.length : picks[i & mask];
+                if (i % 10 == 9) {
+                    service.updatePhone(ids[contact], phones[contact]); // Write the same phone back
+                } else {
+                    ContactBenchmarkHarness.consume(service.getContactById(ids[contact]));
+                }
+            });
+            if (cache != null) {
+                System.out.printf("%-40s hit rate %.1f%% (%,d evictions)%n", "", 100 * cache.getHitRate(),
+                        cache.getEvictionCount());
+            }
+        }
+        System.out.println();
+    }
+
+    private static void report(String name, int count, long heapBytes, FileContactRepository file) {
+        System.out.printf("%-40s heap %,14d bytes (%6.1f per contact)   file %,14d bytes%n", name, heapBytes,
+                heapBytes / (double) count, file == null ? 0 : file.fileSize());
+    }
+
+    // Contact numbers drawn with a Zipf-like skew (weight 1/rank), with ranks shuffled over the IDs
+    // so the popular contacts aren't all next to each other
+    private static int[] zipfPicks(int count, int samples) {
+        Random random = new Random(42);
+        double[] cumulative = new double[count];
+        double total = 0;
+        for (int rank = 0; rank < count; rank++) {
+            total += 1.0 / (rank + 1);
+            cumulative[rank] = total;
+        }
+        int[] contactForRank = new int[count];
+        for (int i = 0; i < count; i++) {
+            int j = random.nextInt(i + 1);
+            contactForRank[i] = contactForRank[j];
+            contactForRank[j] = i;
+        }
+        int[] picks = new int[samples];
+        for (int i = 0; i < samples; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            picks[i] = contactForRank[rank < 0 ? -rank - 1 : rank];
+        }
+        return picks;
+    }
+}
\ No newline at end of file
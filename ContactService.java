@@ -2,72 +2,930 @@
 
 package ContactService;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 // This class manages a collection of contacts
 // It handles adding, deleting, and updating contact information
 public class ContactService {
 
-    // HashMap stores all contacts - contactId is the key, Contact object is the value
-    // This allows fast lookup, addition, and removal of contacts
-    private HashMap<String, Contact> contacts = new HashMap<>();
+    // Repository stores all contacts - contactId is the key, Contact object is the value
+    // By default every contact stays on the heap in an InMemoryContactRepository, which packs
+    // IDs into primitive keys, so it needs no node object per contact (see ContactIdIndex).
+    // See ContactRepository for the repositories that keep contacts on disk.
+    private final ContactRepository contacts;
+
+    // True when the repository holds every contact in memory - only then are the indexes below kept
+    private final boolean indexed;
+
+    // Secondary indexes - phone number or last name to every contact that has it
+    // They are kept up to date by addContact, deleteContact, updatePhone and updateLastName,
+    // so finding contacts by phone or last name is a single hash lookup instead of a scan.
+    // The phone index is keyed by the packed long phone, so phone lookups don't allocate.
+    // Changes made by calling a Contact's setters directly bypass the service and the indexes.
+    private PhoneIndex contactsByPhone = new PhoneIndex();
+    private HashMap<String, LinkedHashSet<Contact>> contactsByLastName = new HashMap<>();
+
+    // Sorted prefix indexes over first and last names for type-ahead search
+    // Kept up to date by addContact, deleteContact, updateFirstName and updateLastName
+    private NamePrefixIndex firstNamePrefixes = new NamePrefixIndex();
+    private NamePrefixIndex lastNamePrefixes = new NamePrefixIndex();
+
+    // Above every version a deleted contact reached - each added contact starts at least here
+    // so a stale compareAndUpdate or compareAndDelete from before a delete can't land on a contact
+    // added later under the same ID. One number covers every ID, so deletes leave nothing behind.
+    private long versionFloor;
+
+    // Every contact in contactId order, for listContacts and streamContacts
+    // Kept up to date by addContact and deleteContact - a sorted array of references plus the
+    // recent changes, not a second map (see ContactIdOrder)
+    private final ContactIdOrder contactsInIdOrder = new ContactIdOrder();
+
+    // Create a service that keeps every contact in memory
+    public ContactService() {
+        this(new InMemoryContactRepository());
+    }
+
+    // Create a service over another repository, such as a CachingContactRepository in front of
+    // a FileContactRepository. Adding, updating and deleting work exactly the same. But unless
+    // the repository holds every contact in memory, the phone, last name and prefix queries scan
+    // the repository instead of using indexes, and a contact read back from disk is a new object,
+    // so only a cached contact object sees later updates.
+    public ContactService(ContactRepository repository) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repository must not be null.");
+        }
+        this.contacts = repository;
+        this.indexed = repository.holdsAllInMemory();
+    }
+
+    // Metrics operation for updating each field, by ContactField ordinal
+    private static final ContactServiceMetrics.Operation[] UPDATE_OPERATIONS = {
+        null,
+        ContactServiceMetrics.Operation.UPDATE_FIRST_NAME,
+        ContactServiceMetrics.Operation.UPDATE_LAST_NAME,
+        ContactServiceMetrics.Operation.UPDATE_PHONE,
+        ContactServiceMetrics.Operation.UPDATE_ADDRESS
+    };
+
+    // Optional change feed - every successful add, delete and update is published to it
+    // Null means no feed, and then nothing extra is done on any change
+    private ContactChangeFeed changeFeed;
+
+    // Publish every change made through this service to a feed, or stop with null
+    public void setChangeFeed(ContactChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    // Optional metrics - see ContactServiceMetrics
+    // Null means no metrics, and then each call only pays a null check
+    private ContactServiceMetrics metrics;
+
+    // Measure every call to this service, or stop with null
+    public void setMetrics(ContactServiceMetrics metrics) {
+        this.metrics = metrics;
+        if (metrics != null) {
+            metrics.setStoreSize(contacts::size);
+        }
+    }
+
+    // Optional compact storage - see StringDictionary
+    // When set, every stored contact's first name, last name and address point at one shared
+    // String per distinct value, and each value is released again when the last contact using it
+    // is deleted or updated away. Null means every contact keeps its own strings.
+    // Like the indexes, this only follows changes made through the service.
+    private StringDictionary dictionary;
+
+    // Share name and address strings through a dictionary, or stop with null
+    // Contacts already stored are moved from the old dictionary to the new one
+    public void setStringDictionary(StringDictionary dictionary) {
+        if (dictionary == this.dictionary) {
+            return;
+        }
+        contacts.forEach(contact -> {
+            release(contact);
+            if (dictionary != null) {
+                contact.useShared(dictionary.acquire(contact.getFirstName()),
+                        dictionary.acquire(contact.getLastName()), dictionary.acquire(contact.getAddress()));
+            }
+        });
+        this.dictionary = dictionary;
+    }
 
     // Add a new contact to the service
     // Throws error if contact is null or ID already exists
     public void addContact(Contact contact) {
-        // Check if the contact is null or already exists
-        if (contact == null || contacts.containsKey(contact.getContactId())) {
-            throw new IllegalArgumentException("Contact is null or already exists.");
+        long start = startTimer();
+        try {
+            // Check if the contact is null or already exists
+            if (contact == null || contacts.contains(contact.getContactId())) {
+                throw new IllegalArgumentException("Contact is null or already exists.");
+            }
+            // Add the contact to the repository using the contactId as the key, and to every index
+            insert(contact);
+        } catch (RuntimeException e) {
+            recordFailure(ContactServiceMetrics.Operation.ADD_CONTACT, start, contact == null ? null : contact.getContactId(), e);
+            throw e;
+        }
+        recordSuccess(ContactServiceMetrics.Operation.ADD_CONTACT, start, contact == null ? null : contact.getContactId());
+    }
+
+    // Bulk import - add a whole feed of raw records in one call
+    // Each record is a String[] of {contactId, firstName, lastName, phone, address}.
+    // Records are validated and checked for duplicates in parallel across all cores, then every
+    // good record is added in one pass. Nothing is thrown for bad records - the returned report
+    // gives each record's outcome, in the same order as the input.
+    public ContactImportReport importContacts(Collection<String[]> records) {
+        String[][] rows = records.toArray(new String[0][]);
+        int count = rows.length;
+        ContactField[] invalidFields = new ContactField[count];
+        ContactImportReport.Status[] statuses = new ContactImportReport.Status[count];
+        Contact[] parsed = new Contact[count];
+
+        // Pass 1 (parallel) - validate every record and note the first position of each ID
+        ConcurrentHashMap<String, Integer> firstPosition = new ConcurrentHashMap<>();
+        IntStream.range(0, count).parallel().forEach(i -> {
+            String[] row = rows[i];
+            if (row == null || row.length != 5) {
+                statuses[i] = ContactImportReport.Status.INVALID;
+                return;
+            }
+            ContactField invalid = ContactValidator.firstInvalidField(row);
+            if (invalid != null) {
+                statuses[i] = ContactImportReport.Status.INVALID;
+                invalidFields[i] = invalid;
+                return;
+            }
+            firstPosition.merge(row[0], i, Math::min);
+        });
+
+        // Pass 2 (parallel) - only the first record with an ID can be added, and only if the
+        // service doesn't have it yet. The repository is only read here, which is safe across threads.
+        IntStream.range(0, count).parallel().forEach(i -> {
+            if (statuses[i] != null) {
+                return;
+            }
+            String[] row = rows[i];
+            if (firstPosition.get(row[0]) != i) {
+                statuses[i] = ContactImportReport.Status.DUPLICATE_IN_BATCH;
+            } else if (contacts.contains(row[0])) {
+                statuses[i] = ContactImportReport.Status.ALREADY_EXISTS;
+            } else {
+                statuses[i] = ContactImportReport.Status.ADDED;
+                parsed[i] = new Contact(row[0], row[1], row[2], row[3], row[4]);
+            }
+        });
+
+        // Pass 3 (one thread) - commit every accepted contact in input order
+        for (int i = 0; i < count; i++) {
+            if (parsed[i] != null) {
+                insert(parsed[i]);
+            }
         }
-        // Add the contact to our HashMap using the contactId as the key
-        contacts.put(contact.getContactId(), contact);
+        return new ContactImportReport(statuses, invalidFields);
+    }
+
+    // Bulk import from a stream of raw records - see importContacts(Collection)
+    public ContactImportReport importContacts(Stream<String[]> records) {
+        return importContacts(records.collect(Collectors.toList()));
     }
 
     // Remove a contact from the service using their ID
     // Throws error if the contact ID doesn't exist
     public void deleteContact(String contactId) {
-        // Check if contact exists before trying to delete
-        if (!contacts.containsKey(contactId)) {
-            throw new IllegalArgumentException("Contact ID not found.");
+        long start = startTimer();
+        try {
+            // Check if contact exists before trying to delete
+            if (!contacts.contains(contactId)) {
+                throw new IllegalArgumentException("Contact ID not found.");
+            }
+            // Remove the contact from the repository and from every index
+            removed(contacts.remove(contactId));
+        } catch (RuntimeException e) {
+            recordFailure(ContactServiceMetrics.Operation.DELETE_CONTACT, start, contactId, e);
+            throw e;
         }
-        // Remove the contact from our HashMap
-        contacts.remove(contactId);
+        recordSuccess(ContactServiceMetrics.Operation.DELETE_CONTACT, start, contactId);
     }
 
     // Update Methods - these find the contact and change specific information
 
     // Update a contact's first name
     public void updateFirstName(String contactId, String newFirstName) {
-        Contact contact = getContactById(contactId); // Find the contact first
-        contact.setFirstName(newFirstName);          // Update their first name
+        long start = startTimer();
+        try {
+            changeFirstName(find(contactId), newFirstName); // Find the contact first
+        } catch (RuntimeException e) {
+            recordFailure(ContactServiceMetrics.Operation.UPDATE_FIRST_NAME, start, contactId, e);
+            throw e;
+        }
+        recordSuccess(ContactServiceMetrics.Operation.UPDATE_FIRST_NAME, start, contactId);
     }
 
     // Update a contact's last name
     public void updateLastName(String contactId, String newLastName) {
-        Contact contact = getContactById(contactId); // Find the contact first
-        contact.setLastName(newLastName);            // Update their last name
+        long start = startTimer();
+        try {
+            changeLastName(find(contactId), newLastName);   // Find the contact first
+        } catch (RuntimeException e) {
+            recordFailure(ContactServiceMetrics.Operation.UPDATE_LAST_NAME, start, contactId, e);
+            throw e;
+        }
+        recordSuccess(ContactServiceMetrics.Operation.UPDATE_LAST_NAME, start, contactId);
     }
 
     // Update a contact's phone number
     public void updatePhone(String contactId, String newPhone) {
-        Contact contact = getContactById(contactId); // Find the contact first
-        contact.setPhone(newPhone);                  // Update their phone number
+        long start = startTimer();
+        try {
+            changePhone(find(contactId), newPhone);         // Find the contact first
+        } catch (RuntimeException e) {
+            recordFailure(ContactServiceMetrics.Operation.UPDATE_PHONE, start, contactId, e);
+            throw e;
+        }
+        recordSuccess(ContactServiceMetrics.Operation.UPDATE_PHONE, start, contactId);
     }
 
     // Update a contact's address
     public void updateAddress(String contactId, String newAddress) {
-        Contact contact = getContactById(contactId); // Find the contact first
-        contact.setAddress(newAddress);              // Update their address
+        long start = startTimer();
+        try {
+            changeAddress(find(contactId), newAddress);     // Find the contact first
+        } catch (RuntimeException e) {
+            recordFailure(ContactServiceMetrics.Operation.UPDATE_ADDRESS, start, contactId, e);
+            throw e;
+        }
+        recordSuccess(ContactServiceMetrics.Operation.UPDATE_ADDRESS, start, contactId);
+    }
+
+    // Change several fields of a contact with one lookup
+    // Every value in the patch was validated when it was set, so either all changes are made or,
+    // when the contact doesn't exist, none are
+    public void applyPatch(String contactId, ContactPatch patch) {
+        long start = startTimer();
+        try {
+            ContactPatch.check(patch);
+            patch(find(contactId), patch); // Find the contact once
+        } catch (RuntimeException e) {
+            recordFailure(ContactServiceMetrics.Operation.APPLY_PATCH, start, contactId, e);
+            throw e;
+        }
+        recordSuccess(ContactServiceMetrics.Operation.APPLY_PATCH, start, contactId);
+    }
+
+    // Apply a group of adds, deletes and updates all together (see ContactBatch)
+    // Every item is checked first - against the stored contacts and the batch's own earlier items -
+    // so either the whole batch is applied in order or, when any item fails, nothing is changed
+    // Throws ContactBatchException naming the first item that can't be applied
+    public void applyBatch(ContactBatch batch) {
+        List<ContactBatch.Item> items = ContactBatch.check(batch).items();
+        ContactBatchException failure = checkBatch(items);
+        if (failure != null) {
+            throw failure;
+        }
+        applyCheckedBatch(items);
+    }
+
+    // Find the first item of a batch that can't be applied, or return null when they all can
+    // The values were validated when the items were added, so only whether each ID exists matters
+    ContactBatchException checkBatch(List<ContactBatch.Item> items) {
+        Map<String, Boolean> exists = new HashMap<>();   // IDs the batch has already added or deleted
+        for (ContactBatch.Item item : items) {
+            Boolean known = exists.get(item.contactId);
+            boolean present = known != null ? known : contacts.contains(item.contactId);
+            if (item.type == ContactBatch.Item.ADD) {
+                if (present) {
+                    return new ContactBatchException(item.index, ContactStatus.ALREADY_EXISTS);
+                }
+                exists.put(item.contactId, Boolean.TRUE);
+            } else {
+                if (!present) {
+                    return new ContactBatchException(item.index, ContactStatus.NOT_FOUND);
+                }
+                if (item.type == ContactBatch.Item.DELETE) {
+                    exists.put(item.contactId, Boolean.FALSE);
+                }
+            }
+        }
+        return null;
+    }
+
+    // Apply every item of a batch that checkBatch passed
+    void applyCheckedBatch(List<ContactBatch.Item> items) {
+        for (ContactBatch.Item item : items) {
+            switch (item.type) {
+                case ContactBatch.Item.ADD:
+                    insert(item.contact);
+                    break;
+                case ContactBatch.Item.DELETE:
+                    removed(contacts.remove(item.contactId));
+                    break;
+                case ContactBatch.Item.UPDATE:
+                    change(find(item.contactId), item.field, item.value);
+                    break;
+                default:
+                    patch(find(item.contactId), item.patch);
+                    break;
+            }
+        }
+    }
+
+    // Non-throwing Methods - the same operations as addContact, deleteContact and the update
+    // methods, for callers that expect many of them to be rejected. Every outcome, including an
+    // invalid value, a duplicate ID or a missing contact, is returned as a ContactStatus constant
+    // instead of being thrown, so a rejected call builds no exception and no stack trace, and
+    // allocates nothing. A call that succeeds allocates only what the throwing method would -
+    // nothing for a delete or a phone or address update without a change feed, while name changes
+    // build their prefix index keys and an add stores the new contact.
+
+    // Add a new contact, or report why it wasn't added
+    public ContactStatus tryAdd(Contact contact) {
+        long start = startTimer();
+        ContactStatus status = contact == null ? ContactStatus.NULL_CONTACT
+                : contacts.contains(contact.getContactId()) ? ContactStatus.ALREADY_EXISTS
+                : ContactStatus.OK;
+        if (status.isOk()) {
+            insert(contact);
+        }
+        return record(ContactServiceMetrics.Operation.ADD_CONTACT, start,
+                contact == null ? null : contact.getContactId(), status);
+    }
+
+    // Build and add a new contact from raw values, or report the first rejected field
+    // Nothing is allocated unless every value is valid and the ID is free
+    public ContactStatus tryAdd(String contactId, String firstName, String lastName, String phone, String address) {
+        long start = startTimer();
+        ContactStatus status = !ContactField.CONTACT_ID.isValid(contactId) ? ContactStatus.INVALID_CONTACT_ID
+                : !ContactField.FIRST_NAME.isValid(firstName) ? ContactStatus.INVALID_FIRST_NAME
+                : !ContactField.LAST_NAME.isValid(lastName) ? ContactStatus.INVALID_LAST_NAME
+                : !ContactField.PHONE.isValid(phone) ? ContactStatus.INVALID_PHONE
+                : !ContactField.ADDRESS.isValid(address) ? ContactStatus.INVALID_ADDRESS
+                : contacts.contains(contactId) ? ContactStatus.ALREADY_EXISTS
+                : ContactStatus.OK;
+        if (status.isOk()) {
+            insert(new Contact(contactId, firstName, lastName, phone, address));
+        }
+        return record(ContactServiceMetrics.Operation.ADD_CONTACT, start, contactId, status);
+    }
+
+    // Delete a contact, or report NOT_FOUND
+    // Unlike deleteContact this is a single repository lookup
+    public ContactStatus tryDelete(String contactId) {
+        long start = startTimer();
+        Contact contact = contactId == null ? null : contacts.remove(contactId);
+        if (contact != null) {
+            removed(contact);
+        }
+        return record(ContactServiceMetrics.Operation.DELETE_CONTACT, start, contactId,
+                contact == null ? ContactStatus.NOT_FOUND : ContactStatus.OK);
+    }
+
+    // Change one field of a contact, or report the rejected value or NOT_FOUND
+    // The value is checked before the contact is looked up, like the update methods
+    // Throws error if the field is null or CONTACT_ID, which can't be changed - that is a bug in
+    // the caller, not a rejected value
+    public ContactStatus tryUpdate(String contactId, ContactField field, String value) {
+        if (field == null || field == ContactField.CONTACT_ID) {
+            throw new IllegalArgumentException("Field must be a field that can be updated.");
+        }
+        ContactServiceMetrics.Operation operation = UPDATE_OPERATIONS[field.ordinal()];
+        long start = startTimer();
+        if (!field.isValid(value)) {
+            return record(operation, start, contactId, ContactStatus.invalid(field));
+        }
+        Contact contact = contacts.get(contactId);
+        if (contact == null) {
+            return record(operation, start, contactId, ContactStatus.NOT_FOUND);
+        }
+        change(contact, field, value);
+        return record(operation, start, contactId, ContactStatus.OK);
+    }
+
+    // Compare-and-set Methods - these only make the change if nobody else changed the contact
+    // since the caller read it. Pass the getVersion() value the caller's edit was based on.
+
+    // Apply a patch only if the contact is still at the expected version
+    // Returns false, changing nothing, when the version is stale
+    // Throws error if the contact doesn't exist
+    public boolean compareAndUpdate(String contactId, long expectedVersion, ContactPatch patch) {
+        long start = startTimer();
+        try {
+            ContactPatch.check(patch);
+            Contact contact = find(contactId);
+            if (contact.getVersion() != expectedVersion) {
+                recordFailure(ContactServiceMetrics.Operation.COMPARE_AND_UPDATE, start, contactId, null);
+                return false;
+            }
+            patch(contact, patch);
+        } catch (RuntimeException e) {
+            recordFailure(ContactServiceMetrics.Operation.COMPARE_AND_UPDATE, start, contactId, e);
+            throw e;
+        }
+        recordSuccess(ContactServiceMetrics.Operation.COMPARE_AND_UPDATE, start, contactId);
+        return true;
+    }
+
+    // Delete a contact only if it is still at the expected version
+    // Returns false, deleting nothing, when the version is stale
+    // Throws error if the contact ID doesn't exist
+    public boolean compareAndDelete(String contactId, long expectedVersion) {
+        long start = startTimer();
+        try {
+            if (find(contactId).getVersion() != expectedVersion) {
+                recordFailure(ContactServiceMetrics.Operation.COMPARE_AND_DELETE, start, contactId, null);
+                return false;
+            }
+            removed(contacts.remove(contactId));
+        } catch (RuntimeException e) {
+            recordFailure(ContactServiceMetrics.Operation.COMPARE_AND_DELETE, start, contactId, e);
+            throw e;
+        }
+        recordSuccess(ContactServiceMetrics.Operation.COMPARE_AND_DELETE, start, contactId);
+        return true;
+    }
+
+    // Query Methods - these use the secondary indexes instead of looking at every contact
+    // Over a repository that doesn't hold every contact in memory there are no indexes, so they
+    // scan the repository instead, and contacts with the same phone or last name come back in
+    // the repository's order
+
+    // Find every contact with this phone number, in the order they were indexed
+    // Returns an empty list if there are none
+    public List<Contact> findByPhone(String phone) {
+        return findByPhone(PhoneNumbers.tryPack(phone));
     }
 
-    // Helper method to find a contact by their ID
+    // Find every contact with this packed phone number (see PhoneNumbers)
+    public List<Contact> findByPhone(long packedPhone) {
+        if (!indexed) {
+            return scan(contact -> contact.getPackedPhone() == packedPhone);
+        }
+        List<Contact> matches = new ArrayList<>();
+        for (int node = contactsByPhone.first(packedPhone); node >= 0; node = contactsByPhone.next(node)) {
+            matches.add(contactsByPhone.contactAt(node));
+        }
+        return matches;
+    }
+
+    // Caller-ID style lookup - the first contact added with this packed phone, or null if none
+    // Allocates nothing
+    public Contact findFirstByPhone(long packedPhone) {
+        if (!indexed) {
+            List<Contact> matches = findByPhone(packedPhone);
+            return matches.isEmpty() ? null : matches.get(0);
+        }
+        int node = contactsByPhone.first(packedPhone);
+        return node < 0 ? null : contactsByPhone.contactAt(node);
+    }
+
+    // Uniqueness check - is any contact using this phone number? Allocates nothing
+    public boolean isPhoneInUse(String phone) {
+        return isPhoneInUse(PhoneNumbers.tryPack(phone));
+    }
+
+    // Uniqueness check for a packed phone number - allocates nothing
+    public boolean isPhoneInUse(long packedPhone) {
+        return indexed ? contactsByPhone.contains(packedPhone) : countByPhone(packedPhone) > 0;
+    }
+
+    // Number of contacts using this packed phone number - allocates nothing
+    public int countByPhone(long packedPhone) {
+        return indexed ? contactsByPhone.count(packedPhone) : findByPhone(packedPhone).size();
+    }
+
+    // Find every contact with this last name, in the order they were indexed
+    // Returns an empty list if there are none
+    public List<Contact> findByLastName(String lastName) {
+        if (!indexed) {
+            return scan(contact -> contact.getLastName().equals(lastName));
+        }
+        return lookup(contactsByLastName, lastName);
+    }
+
+    // Type-ahead search - up to limit contacts whose first or last name starts with the prefix
+    // Matching ignores case and results come back in name order, each contact at most once
+    public List<Contact> searchByNamePrefix(String prefix, int limit) {
+        checkPrefixQuery(prefix, limit);
+        if (!indexed) {
+            return scanByPrefix(prefix, limit, true, true);
+        }
+        Iterator<Map.Entry<String, Contact>> firstNames = firstNamePrefixes.startingWith(prefix);
+        Iterator<Map.Entry<String, Contact>> lastNames = lastNamePrefixes.startingWith(prefix);
+        Map.Entry<String, Contact> first = firstNames.hasNext() ? firstNames.next() : null;
+        Map.Entry<String, Contact> last = lastNames.hasNext() ? lastNames.next() : null;
+
+        // Merge the two sorted streams of matches, skipping a contact that matched on both names
+        LinkedHashSet<Contact> matches = new LinkedHashSet<>();
+        while (matches.size() < limit && (first != null || last != null)) {
+            if (last == null || (first != null && first.getKey().compareTo(last.getKey()) <= 0)) {
+                matches.add(first.getValue());
+                first = firstNames.hasNext() ? firstNames.next() : null;
+            } else {
+                matches.add(last.getValue());
+                last = lastNames.hasNext() ? lastNames.next() : null;
+            }
+        }
+        return new ArrayList<>(matches);
+    }
+
+    // Type-ahead search on first names only
+    public List<Contact> searchByFirstNamePrefix(String prefix, int limit) {
+        checkPrefixQuery(prefix, limit);
+        if (!indexed) {
+            return scanByPrefix(prefix, limit, true, false);
+        }
+        return take(firstNamePrefixes.startingWith(prefix), limit);
+    }
+
+    // Type-ahead search on last names only
+    public List<Contact> searchByLastNamePrefix(String prefix, int limit) {
+        checkPrefixQuery(prefix, limit);
+        if (!indexed) {
+            return scanByPrefix(prefix, limit, false, true);
+        }
+        return take(lastNamePrefixes.startingWith(prefix), limit);
+    }
+
+    // Listing - contacts in contactId order (String.compareTo order), read one page at a time
+
+    // The first limit contacts whose ID comes after the cursor - pass null for the first page,
+    // then each page's getNextCursor() for the next one
+    // The cursor doesn't have to be a stored ID, so paging carries on after that contact is deleted
+    // Over a repository that doesn't hold every contact in memory there is no order index, and
+    // every page is a full scan of the repository
+    public ContactPage listContacts(String afterCursor, int limit) {
+        ContactPage.checkLimit(limit);
+        if (!indexed) {
+            return scanPage(afterCursor, limit);
+        }
+        return contactsInIdOrder.page(afterCursor, limit);
+    }
+
+    // Every contact in contactId order as a lazy stream, read 256 contacts at a time
+    // Nothing is copied up front, and contacts added or deleted while the stream is being read
+    // don't break it - see ContactPage
+    public Stream<Contact> streamContacts() {
+        return ContactPage.stream(this::listContacts, 256);
+    }
+
+    // Copy every contact into columns for analytics scans (see ContactColumns)
+    public ContactColumns toColumns() {
+        return ContactColumns.copyOf(contacts.size(), contacts::forEach);
+    }
+
+    // Visit every stored contact in the repository's order - used to build columns across shards
+    void forEachContact(Consumer<Contact> action) {
+        contacts.forEach(action);
+    }
+
+    // Number of contacts currently stored
+    public int size() {
+        return contacts.size();
+    }
+
+    // Find a contact by their ID
+    // Throws error if the contact doesn't exist
+    public Contact getContactById(String contactId) {
+        long start = startTimer();
+        Contact contact;
+        try {
+            contact = find(contactId);
+        } catch (RuntimeException e) {
+            recordFailure(ContactServiceMetrics.Operation.GET_CONTACT, start, contactId, e);
+            throw e;
+        }
+        recordSuccess(ContactServiceMetrics.Operation.GET_CONTACT, start, contactId);
+        return contact; // Return the found contact
+    }
+
+    // Find a contact by their ID without counting it as a GET_CONTACT call
     // This is used by all the update methods above
     // Throws error if the contact doesn't exist
-    private Contact getContactById(String contactId) {
-        Contact contact = contacts.get(contactId); // Look up contact in HashMap
+    private Contact find(String contactId) {
+        Contact contact = contacts.get(contactId); // Look up contact in the repository
         if (contact == null) {
             throw new IllegalArgumentException("Contact not found.");
         }
-        return contact; // Return the found contact
+        return contact;
+    }
+
+    // Field changes shared by the update methods and tryUpdate
+    // Each setter validates the value before changing anything
+
+    private void change(Contact contact, ContactField field, String value) {
+        switch (field) {
+            case FIRST_NAME:
+                changeFirstName(contact, value);
+                break;
+            case LAST_NAME:
+                changeLastName(contact, value);
+                break;
+            case PHONE:
+                changePhone(contact, value);
+                break;
+            default:
+                changeAddress(contact, value);
+                break;
+        }
+    }
+
+    private void changeFirstName(Contact contact, String newFirstName) {
+        ContactVersion before = copyForFeed(contact);
+        String oldFirstName = contact.getFirstName();
+        contact.setFirstName(newFirstName);          // Update their first name (validates first)
+        reshare(contact, oldFirstName, null, null);
+        contacts.update(contact);
+        if (indexed) {
+            firstNamePrefixes.remove(oldFirstName, contact);
+            firstNamePrefixes.add(newFirstName, contact);
+        }
+        publishUpdate(before, contact);
+    }
+
+    private void changeLastName(Contact contact, String newLastName) {
+        ContactVersion before = copyForFeed(contact);
+        String oldLastName = contact.getLastName();
+        contact.setLastName(newLastName);            // Update their last name (validates first)
+        reshare(contact, null, oldLastName, null);
+        contacts.update(contact);
+        if (indexed) {
+            removeFromIndex(contactsByLastName, oldLastName, contact);
+            addToIndex(contactsByLastName, contact.getLastName(), contact);
+            lastNamePrefixes.remove(oldLastName, contact);
+            lastNamePrefixes.add(newLastName, contact);
+        }
+        publishUpdate(before, contact);
+    }
+
+    private void changePhone(Contact contact, String newPhone) {
+        ContactVersion before = copyForFeed(contact);
+        long oldPhone = contact.getPackedPhone();
+        contact.setPhone(newPhone);                  // Update their phone number (validates first)
+        contacts.update(contact);
+        if (indexed) {
+            contactsByPhone.remove(oldPhone, contact);
+            contactsByPhone.add(contact.getPackedPhone(), contact);
+        }
+        publishUpdate(before, contact);
+    }
+
+    private void changeAddress(Contact contact, String newAddress) {
+        ContactVersion before = copyForFeed(contact);
+        String oldAddress = contact.getAddress();
+        contact.setAddress(newAddress);              // Update their address
+        reshare(contact, null, null, oldAddress);
+        contacts.update(contact);
+        publishUpdate(before, contact);
+    }
+
+    // Apply a validated patch to a stored contact and move it in each index whose field changed
+    private void patch(Contact contact, ContactPatch patch) {
+        if (patch.isEmpty()) {
+            return;
+        }
+        ContactVersion before = copyForFeed(contact);
+        String oldFirstName = contact.getFirstName();
+        String oldLastName = contact.getLastName();
+        String oldAddress = contact.getAddress();
+        long oldPhone = contact.getPackedPhone();
+        patch.applyTo(contact);
+        reshare(contact, patch.getFirstName() == null ? null : oldFirstName,
+                patch.getLastName() == null ? null : oldLastName, patch.getAddress() == null ? null : oldAddress);
+        contacts.update(contact);
+        if (!indexed) {
+            publishUpdate(before, contact);
+            return;
+        }
+        if (patch.getFirstName() != null) {
+            firstNamePrefixes.remove(oldFirstName, contact);
+            firstNamePrefixes.add(contact.getFirstName(), contact);
+        }
+        if (patch.getLastName() != null) {
+            removeFromIndex(contactsByLastName, oldLastName, contact);
+            addToIndex(contactsByLastName, contact.getLastName(), contact);
+            lastNamePrefixes.remove(oldLastName, contact);
+            lastNamePrefixes.add(contact.getLastName(), contact);
+        }
+        if (patch.getPhone() != null) {
+            contactsByPhone.remove(oldPhone, contact);
+            contactsByPhone.add(contact.getPackedPhone(), contact);
+        }
+        publishUpdate(before, contact);
+    }
+
+    // Add a contact that is known to be new to the repository and every index
+    private void insert(Contact contact) {
+        contact.raiseVersionTo(versionFloor);
+        if (dictionary != null) {
+            contact.useShared(dictionary.acquire(contact.getFirstName()),
+                    dictionary.acquire(contact.getLastName()), dictionary.acquire(contact.getAddress()));
+        }
+        contacts.insert(contact);
+        if (indexed) {
+            contactsByPhone.add(contact.getPackedPhone(), contact);
+            addToIndex(contactsByLastName, contact.getLastName(), contact);
+            firstNamePrefixes.add(contact.getFirstName(), contact);
+            lastNamePrefixes.add(contact.getLastName(), contact);
+            contactsInIdOrder.add(contact);
+        }
+        if (changeFeed != null) {
+            changeFeed.publish(ContactChange.Type.ADDED, null, ContactChange.copyOf(contact));
+        }
+    }
+
+    // Take a contact that was just removed from the repository out of every index
+    private void removed(Contact contact) {
+        versionFloor = Math.max(versionFloor, contact.getVersion() + 1);
+        if (indexed) {
+            contactsByPhone.remove(contact.getPackedPhone(), contact);
+            removeFromIndex(contactsByLastName, contact.getLastName(), contact);
+            firstNamePrefixes.remove(contact.getFirstName(), contact);
+            lastNamePrefixes.remove(contact.getLastName(), contact);
+            contactsInIdOrder.remove(contact);
+        }
+        release(contact);
+        if (changeFeed != null) {
+            changeFeed.publish(ContactChange.Type.DELETED, ContactChange.copyOf(contact), null);
+        }
+    }
+
+    // Dictionary helpers - they do nothing when there is no dictionary
+
+    // Drop a contact's references to its shared strings
+    private void release(Contact contact) {
+        if (dictionary != null) {
+            dictionary.release(contact.getFirstName());
+            dictionary.release(contact.getLastName());
+            dictionary.release(contact.getAddress());
+        }
+    }
+
+    // After an update, share each changed field's new value and release its old one
+    // A null old value means that field didn't change
+    private void reshare(Contact contact, String oldFirstName, String oldLastName, String oldAddress) {
+        if (dictionary == null) {
+            return;
+        }
+        String firstName = oldFirstName == null ? null : dictionary.acquire(contact.getFirstName());
+        String lastName = oldLastName == null ? null : dictionary.acquire(contact.getLastName());
+        String address = oldAddress == null ? null : dictionary.acquire(contact.getAddress());
+        dictionary.release(oldFirstName);
+        dictionary.release(oldLastName);
+        dictionary.release(oldAddress);
+        contact.useShared(firstName, lastName, address);
+    }
+
+    // Metrics helpers - they do nothing when there are no metrics
+
+    // 0 means there are no metrics, ContactServiceMetrics.NOT_TIMED that the call is only counted
+    private long startTimer() {
+        ContactServiceMetrics current = metrics;
+        return current == null ? 0 : current.startTimer();
+    }
+
+    private void recordSuccess(ContactServiceMetrics.Operation operation, long start, String contactId) {
+        ContactServiceMetrics current = metrics;
+        if (current != null && start != 0) {
+            current.recordSuccess(operation, start, contactId);
+        }
+    }
+
+    private void recordFailure(ContactServiceMetrics.Operation operation, long start, String contactId,
+            RuntimeException error) {
+        ContactServiceMetrics current = metrics;
+        if (current != null && start != 0) {
+            current.recordFailure(operation, start, contactId, error);
+        }
+    }
+
+    // Record a non-throwing call's outcome and hand the status back
+    private ContactStatus record(ContactServiceMetrics.Operation operation, long start, String contactId,
+            ContactStatus status) {
+        ContactServiceMetrics current = metrics;
+        if (current != null && start != 0) {
+            if (status.isOk()) {
+                current.recordSuccess(operation, start, contactId);
+            } else {
+                current.recordFailure(operation, start, contactId, status.getField());
+            }
+        }
+        return status;
+    }
+
+    // Change feed helpers - they do nothing when there is no feed
+
+    // Copy a contact's values before an update, for the change's before value
+    private ContactVersion copyForFeed(Contact contact) {
+        return changeFeed == null ? null : ContactChange.copyOf(contact);
+    }
+
+    private void publishUpdate(ContactVersion before, Contact contact) {
+        if (changeFeed != null) {
+            changeFeed.publish(ContactChange.Type.UPDATED, before, ContactChange.copyOf(contact));
+        }
+    }
+
+    // Scan helpers - used instead of the indexes when the repository isn't all in memory
+
+    private List<Contact> scan(Predicate<Contact> filter) {
+        List<Contact> matches = new ArrayList<>();
+        contacts.forEach(contact -> {
+            if (filter.test(contact)) {
+                matches.add(contact);
+            }
+        });
+        return matches;
+    }
+
+    // Same results as the prefix indexes - each contact sorts by the smaller of its matching
+    // NamePrefixIndex keys, and only the first limit matches are kept while scanning
+    private List<Contact> scanByPrefix(String prefix, int limit, boolean firstNames, boolean lastNames) {
+        String from = prefix.toLowerCase(Locale.ROOT);
+        TreeMap<String, Contact> matches = new TreeMap<>();
+        contacts.forEach(contact -> {
+            String key = null;
+            if (firstNames) {
+                String firstKey = NamePrefixIndex.key(contact.getFirstName(), contact.getContactId());
+                key = firstKey.startsWith(from) ? firstKey : null;
+            }
+            if (lastNames) {
+                String lastKey = NamePrefixIndex.key(contact.getLastName(), contact.getContactId());
+                if (lastKey.startsWith(from) && (key == null || lastKey.compareTo(key) < 0)) {
+                    key = lastKey;
+                }
+            }
+            if (key != null) {
+                matches.put(key, contact);
+                if (matches.size() > limit) {
+                    matches.pollLastEntry();
+                }
+            }
+        });
+        return new ArrayList<>(matches.values());
+    }
+
+    // Same page as the ID index - only the first limit IDs after the cursor are kept while scanning,
+    // plus one more to tell whether there is a next page
+    private ContactPage scanPage(String afterCursor, int limit) {
+        TreeMap<String, Contact> matches = new TreeMap<>();
+        contacts.forEach(contact -> {
+            if (afterCursor == null || contact.getContactId().compareTo(afterCursor) > 0) {
+                matches.put(contact.getContactId(), contact);
+                if (matches.size() > limit + 1) {
+                    matches.pollLastEntry();
+                }
+            }
+        });
+        boolean more = matches.size() > limit;
+        if (more) {
+            matches.pollLastEntry();
+        }
+        return new ContactPage(new ArrayList<>(matches.values()), more);
+    }
+
+    // Index helpers
+
+    private static void checkPrefixQuery(String prefix, int limit) {
+        if (prefix == null || limit < 0) {
+            throw new IllegalArgumentException("Prefix must not be null and limit must not be negative.");
+        }
+    }
+
+    private static List<Contact> take(Iterator<Map.Entry<String, Contact>> matches, int limit) {
+        List<Contact> result = new ArrayList<>();
+        while (result.size() < limit && matches.hasNext()) {
+            result.add(matches.next().getValue());
+        }
+        return result;
+    }
+
+    private static List<Contact> lookup(HashMap<String, LinkedHashSet<Contact>> index, String key) {
+        LinkedHashSet<Contact> matches = index.get(key);
+        return matches == null ? new ArrayList<>() : new ArrayList<>(matches);
+    }
+
+    private static void addToIndex(HashMap<String, LinkedHashSet<Contact>> index, String key, Contact contact) {
+        index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(contact);
+    }
+
+    // Remove the contact from the index, dropping the key once nobody has it
+    private static void removeFromIndex(HashMap<String, LinkedHashSet<Contact>> index, String key, Contact contact) {
+        LinkedHashSet<Contact> matches = index.get(key);
+        if (matches != null && matches.remove(contact) && matches.isEmpty()) {
+            index.remove(key);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,317 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.ToLongFunction;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Per-operation metrics for ContactService: call and failure counts, latency histograms,
+// validation failures by field, and store size
+// Attach with ContactService.setMetrics. A service with no metrics only pays a null check per
+// call. With metrics every call is counted, but only one call in every timing sample interval
+// (64 by default) is timed - the two System.nanoTime reads and the histogram update cost far
+// more than a lookup, so timing every call made getContactById several times slower. The
+// histograms therefore hold a sample of the calls, which is enough for their percentiles.
+// Slow calls are different: each one matters, so while a Java Flight Recorder recording has
+// SlowContactOperationEvent enabled every call is timed, and every call slower than the threshold
+// (1ms by default) is sent as an event - only the histograms stay sampled. With no such recording
+// an event couldn't be written anyway, so only the sample is timed. registerMBean publishes
+// everything over JMX.
+public class ContactServiceMetrics implements ContactServiceMetricsMXBean {
+
+    // The operations that are measured
+    public enum Operation {
+        ADD_CONTACT,
+        DELETE_CONTACT,
+        UPDATE_FIRST_NAME,
+        UPDATE_LAST_NAME,
+        UPDATE_PHONE,
+        UPDATE_ADDRESS,
+        APPLY_PATCH,
+        GET_CONTACT,
+        COMPARE_AND_UPDATE,   // A stale version counts as a failure
+        COMPARE_AND_DELETE    // A stale version counts as a failure
+    }
+
+    // Start time of a call that is counted but not timed
+    // A timed call's start time has its lowest bit set when the call is in the histogram sample
+    static final long NOT_TIMED = Long.MIN_VALUE;
+    private static final long IN_SAMPLE = 1;
+
+    private static final int DEFAULT_SAMPLE_INTERVAL = 64;
+
+    // values() copies the array on every call, so keep one copy
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final ContactField[] FIELDS = ContactField.values();
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+    private final LongAdder[] calls = new LongAdder[OPERATIONS.length];
+    private final AtomicLongArray failures = new AtomicLongArray(OPERATIONS.length);
+    private final AtomicLongArray validationFailures = new AtomicLongArray(FIELDS.length);
+    private volatile long slowThresholdNanos = 1_000_000;
+    private volatile int sampleMask = DEFAULT_SAMPLE_INTERVAL - 1;
+    private volatile long startNanos = System.nanoTime();
+    private volatile IntSupplier storeSize = () -> 0;
+    private ObjectName registeredName;
+
+    public ContactServiceMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+            calls[i] = new LongAdder();
+        }
+    }
+
+    // Recording - called by ContactService
+
+    // Start time for a call, or NOT_TIMED when the call is neither in the histogram sample nor
+    // watched for slow events
+    // The sample uses the calling thread's own random numbers, so threads don't share a counter
+    long startTimer() {
+        int mask = sampleMask;
+        boolean sampled = mask == 0 || (ThreadLocalRandom.current().nextInt() & mask) == 0;
+        // isEnabled on a new event is what JFR compiles down to a flag check, and the event is
+        // never allocated once the method is compiled
+        if (!sampled && !new SlowContactOperationEvent().isEnabled()) {
+            return NOT_TIMED;
+        }
+        return System.nanoTime() & ~IN_SAMPLE | (sampled ? IN_SAMPLE : 0);
+    }
+
+    // Record a call that returned normally
+    void recordSuccess(Operation operation, long startNanos, String contactId) {
+        calls[operation.ordinal()].increment();
+        recordTime(operation, startNanos, contactId, false);
+    }
+
+    // Record a call that threw, and which field was rejected if it was a validation failure
+    void recordFailure(Operation operation, long startNanos, String contactId, RuntimeException error) {
+        recordFailure(operation, startNanos, contactId,
+                error instanceof ContactValidationException ? ((ContactValidationException) error).getField() : null);
+    }
+
+    // Record a call that failed, and the rejected field or null when no value was rejected
+    // The non-throwing ContactService methods report failures through this directly
+    void recordFailure(Operation operation, long startNanos, String contactId, ContactField rejectedField) {
+        calls[operation.ordinal()].increment();
+        failures.incrementAndGet(operation.ordinal());
+        if (rejectedField != null) {
+            validationFailures.incrementAndGet(rejectedField.ordinal());
+        }
+        recordTime(operation, startNanos, contactId, true);
+    }
+
+    // Add a timed call to its histogram if it is in the sample, and report it if it was slow
+    private void recordTime(Operation operation, long startNanos, String contactId, boolean failed) {
+        if (startNanos == NOT_TIMED) {
+            return;
+        }
+        long duration = System.nanoTime() - (startNanos & ~IN_SAMPLE);
+        if ((startNanos & IN_SAMPLE) != 0) {
+            latencies[operation.ordinal()].record(duration);
+        }
+        if (duration >= slowThresholdNanos) {
+            emitSlowEvent(operation, contactId, duration, failed);
+        }
+    }
+
+    // Where the store size comes from - set by ContactService.setMetrics
+    void setStoreSize(IntSupplier storeSize) {
+        this.storeSize = storeSize;
+    }
+
+    // Reading
+
+    // Latency histogram for one operation, in nanoseconds - it holds only the sampled calls
+    public LatencyHistogram getLatency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    // Every call of one operation, timed or not
+    public long getOperationCount(Operation operation) {
+        return calls[operation.ordinal()].sum();
+    }
+
+    public long getFailureCount(Operation operation) {
+        return failures.get(operation.ordinal());
+    }
+
+    public long getValidationFailureCount(ContactField field) {
+        return validationFailures.get(field.ordinal());
+    }
+
+    @Override
+    public int getStoreSize() {
+        return storeSize.getAsInt();
+    }
+
+    @Override
+    public long getUptimeMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Operation operation : OPERATIONS) {
+            counts.put(operation.name(), getOperationCount(operation));
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getOperationRates() {
+        double seconds = Math.max(1e-9, (System.nanoTime() - startNanos) / 1e9);
+        Map<String, Double> rates = new LinkedHashMap<>();
+        for (Operation operation : OPERATIONS) {
+            rates.put(operation.name(), getOperationCount(operation) / seconds);
+        }
+        return rates;
+    }
+
+    @Override
+    public Map<String, Long> getFailureCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Operation operation : OPERATIONS) {
+            counts.put(operation.name(), getFailureCount(operation));
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getValidationFailures() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (ContactField field : FIELDS) {
+            counts.put(field.name(), getValidationFailureCount(field));
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getLatencyP50() {
+        return perOperation(histogram -> histogram.getValueAtPercentile(50));
+    }
+
+    @Override
+    public Map<String, Long> getLatencyP99() {
+        return perOperation(histogram -> histogram.getValueAtPercentile(99));
+    }
+
+    @Override
+    public Map<String, Long> getLatencyP999() {
+        return perOperation(histogram -> histogram.getValueAtPercentile(99.9));
+    }
+
+    @Override
+    public Map<String, Long> getLatencyMax() {
+        return perOperation(LatencyHistogram::getMax);
+    }
+
+    @Override
+    public long getSlowThresholdNanos() {
+        return slowThresholdNanos;
+    }
+
+    @Override
+    public void setSlowThresholdNanos(long nanos) {
+        if (nanos < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative.");
+        }
+        this.slowThresholdNanos = nanos;
+    }
+
+    @Override
+    public int getTimingSampleInterval() {
+        return sampleMask + 1;
+    }
+
+    // Time one call in every interval calls, rounded up to a power of two - 1 times every call
+    @Override
+    public void setTimingSampleInterval(int interval) {
+        if (interval < 1 || interval > 1 << 30) {
+            throw new IllegalArgumentException("Sample interval must be between 1 and 2^30.");
+        }
+        int size = Integer.highestOneBit(interval);
+        if (size < interval) {
+            size <<= 1;
+        }
+        this.sampleMask = size - 1;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            latencies[i].reset();
+            calls[i].reset();
+            failures.set(i, 0);
+        }
+        for (int i = 0; i < FIELDS.length; i++) {
+            validationFailures.set(i, 0);
+        }
+        startNanos = System.nanoTime();
+    }
+
+    // JMX
+
+    // Publish these metrics on the platform MBean server as ContactService:type=Metrics,name=<name>
+    public synchronized void registerMBean(String name) {
+        if (registeredName != null) {
+            throw new IllegalStateException("Metrics are already registered as " + registeredName + ".");
+        }
+        try {
+            ObjectName objectName = new ObjectName("ContactService:type=Metrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            registeredName = objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register metrics MBean.", e);
+        }
+    }
+
+    // Remove the MBean again - does nothing if it isn't registered
+    public synchronized void unregisterMBean() {
+        if (registeredName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(registeredName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister metrics MBean.", e);
+        } finally {
+            registeredName = null;
+        }
+    }
+
+    // Name the MBean is registered under, or null
+    public synchronized ObjectName getRegisteredName() {
+        return registeredName;
+    }
+
+    private Map<String, Long> perOperation(ToLongFunction<LatencyHistogram> value) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Operation operation : OPERATIONS) {
+            values.put(operation.name(), value.applyAsLong(latencies[operation.ordinal()]));
+        }
+        return values;
+    }
+
+    private static void emitSlowEvent(Operation operation, String contactId, long duration, boolean failed) {
+        SlowContactOperationEvent event = new SlowContactOperationEvent();
+        if (event.isEnabled()) {
+            event.operation = operation.name();
+            event.contactId = contactId;
+            event.elapsed = duration;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.Map;
+
+// JMX view of ContactServiceMetrics - every map is keyed by operation or field name
+// Latencies are in nanoseconds
+public interface ContactServiceMetricsMXBean {
+
+    // Number of contacts in the service
+    int getStoreSize();
+
+    // Milliseconds since the metrics were created or last reset
+    long getUptimeMillis();
+
+    // Completed calls per operation, successful or not
+    Map<String, Long> getOperationCounts();
+
+    // Average calls per second per operation since the metrics were created or last reset
+    Map<String, Double> getOperationRates();
+
+    // Calls per operation that threw
+    Map<String, Long> getFailureCounts();
+
+    // Rejected values per ContactField
+    Map<String, Long> getValidationFailures();
+
+    Map<String, Long> getLatencyP50();
+
+    Map<String, Long> getLatencyP99();
+
+    Map<String, Long> getLatencyP999();
+
+    Map<String, Long> getLatencyMax();
+
+    // Operations slower than this are also sent to Java Flight Recorder
+    long getSlowThresholdNanos();
+
+    void setSlowThresholdNanos(long nanos);
+
+    // One call in this many is timed for the latency maps - every call is still counted
+    int getTimingSampleInterval();
+
+    void setTimingSampleInterval(int interval);
+
+    // Clear every count and histogram
+    void reset();
+}
\ No newline at end of file
@@ -0,0 +1,197 @@
+// Roger Fisher 8/8/2025
+
+package ContactService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// This class tests LatencyHistogram, ContactServiceMetrics and how ContactService reports to them
+public class ContactServiceMetricsTest {
+
+    @TempDir
+    Path tempDir;   // JUnit gives every test its own empty folder
+
+    private ContactService service;         // The service being measured
+    private ContactServiceMetrics metrics;   // The metrics we're testing
+
+    @BeforeEach
+    public void setUp() {
+        service = new ContactService();
+        metrics = new ContactServiceMetrics();
+        service.setMetrics(metrics);
+    }
+
+    // Test that percentiles come back within the histogram's precision
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000, histogram.getMax());
+        long p50 = histogram.getValueAtPercentile(50);
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(p50 >= 50_000_000 && p50 <= 50_000_000 * 1.02, "p50 was " + p50);
+        assertTrue(p99 >= 99_000_000 && p99 <= 99_000_000 * 1.02, "p99 was " + p99);
+        assertEquals(100_000_000, histogram.getValueAtPercentile(100));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(101));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
+
+    // Test that every bucket holds the values it reports and nothing else
+    @Test
+    public void testHistogramBuckets() {
+        for (long value : new long[] {0, 1, 127, 128, 129, 255, 256, 1_000_000, 1L << 40}) {
+            int bucket = LatencyHistogram.bucketFor(value);
+            assertTrue(LatencyHistogram.highestValueIn(bucket) >= value);
+            assertTrue(bucket == 0 || LatencyHistogram.highestValueIn(bucket - 1) < value);
+        }
+        assertEquals(LatencyHistogram.bucketFor(Long.MAX_VALUE), LatencyHistogram.bucketFor(1L << 50));
+    }
+
+    // Test that calls, failures, validation failures and store size are counted
+    @Test
+    public void testServiceIsMeasured() {
+        metrics.setTimingSampleInterval(1);   // Time every call so the latency check below is certain
+        service.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+        service.getContactById("001");
+        service.updatePhone("001", "9999999999");
+        assertThrows(IllegalArgumentException.class, () -> service.updatePhone("001", "123"));
+        assertThrows(IllegalArgumentException.class, () -> service.updateAddress("001", null));
+        assertThrows(IllegalArgumentException.class, () -> service.getContactById("404"));
+        service.applyPatch("001", new ContactPatch().setFirstName("Janet"));
+
+        assertEquals(1, metrics.getOperationCount(ContactServiceMetrics.Operation.ADD_CONTACT));
+        assertEquals(2, metrics.getOperationCount(ContactServiceMetrics.Operation.GET_CONTACT));
+        assertEquals(1, metrics.getFailureCount(ContactServiceMetrics.Operation.GET_CONTACT));
+        assertEquals(2, metrics.getOperationCount(ContactServiceMetrics.Operation.UPDATE_PHONE));
+        assertEquals(1, metrics.getFailureCount(ContactServiceMetrics.Operation.UPDATE_PHONE));
+        assertEquals(1, metrics.getOperationCount(ContactServiceMetrics.Operation.APPLY_PATCH));
+        assertEquals(1, metrics.getValidationFailureCount(ContactField.PHONE));
+        assertEquals(1, metrics.getValidationFailureCount(ContactField.ADDRESS));
+        assertEquals(0, metrics.getValidationFailureCount(ContactField.FIRST_NAME));
+        assertEquals(1, metrics.getStoreSize());
+        assertTrue(metrics.getLatency(ContactServiceMetrics.Operation.ADD_CONTACT).getMax() > 0);
+
+        // Updates look the contact up internally, which isn't counted as a read
+        assertEquals(2, metrics.getOperationCount(ContactServiceMetrics.Operation.GET_CONTACT));
+        // Nothing is counted once the metrics are removed
+        service.setMetrics(null);
+        service.updateAddress("001", "1 Oak St");
+        assertEquals(1, metrics.getOperationCount(ContactServiceMetrics.Operation.UPDATE_ADDRESS));
+
+        metrics.reset();
+        assertEquals(0, (long) metrics.getOperationCounts().get("ADD_CONTACT"));
+    }
+
+    // Test that the metrics can be read over JMX
+    @Test
+    public void testMBean() throws Exception {
+        service.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+        metrics.registerMBean("test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = metrics.getRegisteredName();
+            assertEquals(1, server.getAttribute(name, "StoreSize"));
+            TabularData counts = (TabularData) server.getAttribute(name, "OperationCounts");
+            assertEquals(1L, counts.get(new Object[] {"ADD_CONTACT"}).get("value"));
+            assertThrows(IllegalStateException.class, () -> metrics.registerMBean("test"));
+        } finally {
+            metrics.unregisterMBean();
+        }
+        assertNull(metrics.getRegisteredName());
+        metrics.unregisterMBean();
+    }
+
+    // Test that every operation over the threshold is recorded as a JFR event, not just the
+    // sampled ones, while the histograms stay sampled
+    @Test
+    public void testSlowOperationEvent() throws Exception {
+        service.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+        Path file = tempDir.resolve("slow.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(SlowContactOperationEvent.class);
+            recording.start();
+            metrics.setSlowThresholdNanos(0); // Every call counts as slow
+            metrics.setTimingSampleInterval(1024);
+            service.updatePhone("001", "9999999999");
+            assertThrows(IllegalArgumentException.class, () -> service.deleteContact("404"));
+            for (int i = 0; i < 98; i++) {
+                service.getContactById("001");
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertEquals(100, events.size());
+        assertTrue(metrics.getLatency(ContactServiceMetrics.Operation.GET_CONTACT).getCount() < 20);
+        assertEquals("UPDATE_PHONE", events.get(0).getString("operation"));
+        assertEquals("001", events.get(0).getString("contactId"));
+        assertFalse(events.get(0).getBoolean("failed"));
+        assertTrue(events.get(1).getBoolean("failed"));
+        assertThrows(IllegalArgumentException.class, () -> metrics.setSlowThresholdNanos(-1));
+    }
+
+    // Test that every call is counted but only a sample of them is timed
+    @Test
+    public void testTimingIsSampled() {
+        service.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+        metrics.setTimingSampleInterval(10);   // Rounded up to 16
+        assertEquals(16, metrics.getTimingSampleInterval());
+        for (int i = 0; i < 16_000; i++) {
+            service.getContactById("001");
+        }
+        assertEquals(16_000, metrics.getOperationCount(ContactServiceMetrics.Operation.GET_CONTACT));
+        long timed = metrics.getLatency(ContactServiceMetrics.Operation.GET_CONTACT).getCount();
+        assertTrue(timed > 500 && timed < 1500, "timed " + timed);
+        assertThrows(IllegalArgumentException.class, () -> metrics.setTimingSampleInterval(0));
+    }
+
+    // Test that compare-and-set calls are their own operations, with stale versions as failures
+    @Test
+    public void testCompareAndSetIsMeasured() {
+        Contact contact = new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St");
+        service.addContact(contact);
+        long version = contact.getVersion();
+        assertTrue(service.compareAndUpdate("001", version, new ContactPatch().setPhone("9999999999")));
+        assertFalse(service.compareAndUpdate("001", version, new ContactPatch().setPhone("8888888888")));
+        assertFalse(service.compareAndDelete("001", version));
+        assertTrue(service.compareAndDelete("001", contact.getVersion()));
+        assertThrows(IllegalArgumentException.class, () -> service.compareAndDelete("001", 0));
+
+        assertEquals(2, metrics.getOperationCount(ContactServiceMetrics.Operation.COMPARE_AND_UPDATE));
+        assertEquals(1, metrics.getFailureCount(ContactServiceMetrics.Operation.COMPARE_AND_UPDATE));
+        assertEquals(3, metrics.getOperationCount(ContactServiceMetrics.Operation.COMPARE_AND_DELETE));
+        assertEquals(2, metrics.getFailureCount(ContactServiceMetrics.Operation.COMPARE_AND_DELETE));
+        assertEquals(0, metrics.getOperationCount(ContactServiceMetrics.Operation.DELETE_CONTACT));
+        assertEquals(0, metrics.getOperationCount(ContactServiceMetrics.Operation.APPLY_PATCH));
+    }
+
+    // Test that the JMX maps cover every operation and field
+    @Test
+    public void testMapsCoverEverything() {
+        Map<String, Long> failures = metrics.getValidationFailures();
+        assertEquals(ContactField.values().length, failures.size());
+        assertEquals(ContactServiceMetrics.Operation.values().length, metrics.getLatencyP99().size());
+        assertEquals(ContactServiceMetrics.Operation.values().length, metrics.getOperationRates().size());
+    }
+}
\ No newline at end of file
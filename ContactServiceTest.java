@@ -3,6 +3,10 @@
 package ContactService;
 
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -272,4 +276,533 @@ public class ContactServiceTest {
         service.updatePhone("001", "9999999999");   // Exactly 10 digits
         assertEquals("9999999999", contact.getPhone());
     }
+
+    // Secondary index tests - finding contacts by phone and last name
+
+    // Test that contacts can be found by phone and last name after being added
+    @Test
+    public void testFindByPhoneAndLastName() {
+        Contact contact2 = new Contact("002", "John", "Doe", "5559876543", "789 Oak Rd");
+        service.addContact(contact);
+        service.addContact(contact2);
+
+        assertEquals(1, service.findByPhone("5551234567").size());
+        assertSame(contact, service.findByPhone("5551234567").get(0));
+        assertEquals(2, service.findByLastName("Doe").size());
+        assertTrue(service.findByLastName("Smith").isEmpty());
+        assertTrue(service.findByPhone("0000000000").isEmpty());
+    }
+
+    // Test that the indexes follow phone and last name updates
+    @Test
+    public void testIndexesFollowUpdates() {
+        service.addContact(contact);
+        service.updatePhone("001", "9999999999");
+        service.updateLastName("001", "Smith");
+
+        assertTrue(service.findByPhone("5551234567").isEmpty());
+        assertSame(contact, service.findByPhone("9999999999").get(0));
+        assertTrue(service.findByLastName("Doe").isEmpty());
+        assertSame(contact, service.findByLastName("Smith").get(0));
+    }
+
+    // Test that a rejected update leaves the indexes unchanged
+    @Test
+    public void testInvalidUpdateLeavesIndexes() {
+        service.addContact(contact);
+        assertThrows(IllegalArgumentException.class, () -> service.updatePhone("001", "123"));
+        assertThrows(IllegalArgumentException.class, () -> service.updateLastName("001", null));
+        assertSame(contact, service.findByPhone("5551234567").get(0));
+        assertSame(contact, service.findByLastName("Doe").get(0));
+    }
+
+    // Test that deleted contacts are removed from the indexes
+    @Test
+    public void testDeleteRemovesFromIndexes() {
+        Contact contact2 = new Contact("002", "John", "Doe", "5551234567", "789 Oak Rd");
+        service.addContact(contact);
+        service.addContact(contact2);
+        service.deleteContact("001");
+
+        assertEquals(1, service.findByPhone("5551234567").size());
+        assertSame(contact2, service.findByLastName("Doe").get(0));
+    }
+
+    // Test that getContactById returns the stored contact or fails
+    @Test
+    public void testGetContactById() {
+        service.addContact(contact);
+        assertSame(contact, service.getContactById("001"));
+        assertThrows(IllegalArgumentException.class, () -> service.getContactById("999"));
+    }
+
+    // Prefix search tests - type-ahead on first and last names
+
+    // Test that a prefix matches first or last names, ignoring case, in name order
+    @Test
+    public void testSearchByNamePrefix() {
+        Contact john = new Contact("002", "John", "Smith", "5559876543", "789 Oak Rd");
+        Contact ann = new Contact("003", "Ann", "Jones", "5551112222", "1 Pine St");
+        service.addContact(contact);   // Jane Doe
+        service.addContact(john);
+        service.addContact(ann);
+
+        List<Contact> matches = service.searchByNamePrefix("j", 10);
+        assertEquals(3, matches.size());
+        assertSame(contact, matches.get(0));   // jane
+        assertSame(john, matches.get(1));      // john
+        assertSame(ann, matches.get(2));       // jones
+        assertEquals(1, service.searchByNamePrefix("SMI", 10).size());
+        assertTrue(service.searchByNamePrefix("x", 10).isEmpty());
+    }
+
+    // Test that the limit caps the results and a contact matching on both names appears once
+    @Test
+    public void testSearchByNamePrefixLimitAndDuplicates() {
+        service.addContact(new Contact("002", "Sam", "Sams", "5559876543", "789 Oak Rd"));
+        service.addContact(new Contact("003", "Sal", "Doe", "5551112222", "1 Pine St"));
+        assertEquals(2, service.searchByNamePrefix("sa", 10).size());
+        assertEquals(1, service.searchByNamePrefix("sa", 1).size());
+        assertEquals(0, service.searchByNamePrefix("sa", 0).size());
+        assertThrows(IllegalArgumentException.class, () -> service.searchByNamePrefix(null, 5));
+        assertThrows(IllegalArgumentException.class, () -> service.searchByNamePrefix("sa", -1));
+    }
+
+    // Test that the prefix indexes follow name updates and deletes
+    @Test
+    public void testPrefixIndexesFollowUpdatesAndDeletes() {
+        service.addContact(contact);
+        service.updateFirstName("001", "Zoe");
+        service.updateLastName("001", "Young");
+        assertTrue(service.searchByFirstNamePrefix("Ja", 10).isEmpty());
+        assertSame(contact, service.searchByFirstNamePrefix("zo", 10).get(0));
+        assertTrue(service.searchByLastNamePrefix("Do", 10).isEmpty());
+        assertSame(contact, service.searchByLastNamePrefix("Yo", 10).get(0));
+
+        service.deleteContact("001");
+        assertTrue(service.searchByNamePrefix("", 10).isEmpty());
+    }
+
+    // Packed phone index tests
+
+    // Test the allocation-free phone lookups with packed phones
+    @Test
+    public void testPackedPhoneLookups() {
+        Contact contact2 = new Contact("002", "John", "Smith", "5551234567", "789 Oak Rd");
+        service.addContact(contact);
+        service.addContact(contact2);
+        long packed = PhoneNumbers.pack("5551234567");
+
+        assertEquals(5551234567L, contact.getPackedPhone());
+        assertSame(contact, service.findFirstByPhone(packed));
+        assertEquals(2, service.countByPhone(packed));
+        assertEquals(2, service.findByPhone(packed).size());
+        assertTrue(service.isPhoneInUse("5551234567"));
+        assertTrue(service.isPhoneInUse(packed));
+        assertFalse(service.isPhoneInUse("5550000000"));
+        assertFalse(service.isPhoneInUse("not-phone"));
+        assertNull(service.findFirstByPhone(PhoneNumbers.pack("0000000001")));
+    }
+
+    // Test that packed phones follow updates and deletes
+    @Test
+    public void testPackedPhoneIndexFollowsChanges() {
+        service.addContact(contact);
+        service.updatePhone("001", "0000000042");
+        assertFalse(service.isPhoneInUse(5551234567L));
+        assertSame(contact, service.findFirstByPhone(42L));
+        service.deleteContact("001");
+        assertFalse(service.isPhoneInUse(42L));
+        assertEquals(0, service.countByPhone(42L));
+    }
+
+    // Test many contacts so the phone index grows and shifts entries on removal
+    @Test
+    public void testPackedPhoneIndexManyContacts() {
+        for (int i = 0; i < 1000; i++) {
+            service.addContact(new Contact("ID" + i, "F", "L", String.format("%010d", i * 7919L), "Road"));
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            service.deleteContact("ID" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 1, service.isPhoneInUse(i * 7919L));
+        }
+    }
+
+    // Test that a bulk import adds good records and reports every other outcome in order
+    @Test
+    public void testImportContactsReport() {
+        service.addContact(contact);
+        ContactImportReport report = service.importContacts(List.of(
+                new String[] {"002", "Ann", "Lee", "5551112222", "1 Oak St"},
+                new String[] {"003", "Bob", "Ray", "555", "2 Oak St"},
+                new String[] {"002", "Dup", "Lee", "5551112223", "3 Oak St"},
+                new String[] {"001", "Old", "Doe", "5551112224", "4 Oak St"},
+                new String[] {"004"},
+                new String[] {"005", "Cy", "Lee", "5551112225", "5 Oak St"}));
+
+        assertEquals(6, report.size());
+        assertEquals(ContactImportReport.Status.ADDED, report.getStatus(0));
+        assertEquals(ContactImportReport.Status.INVALID, report.getStatus(1));
+        assertEquals(ContactField.PHONE, report.getInvalidField(1));
+        assertEquals(ContactImportReport.Status.DUPLICATE_IN_BATCH, report.getStatus(2));
+        assertEquals(ContactImportReport.Status.ALREADY_EXISTS, report.getStatus(3));
+        assertEquals(ContactImportReport.Status.INVALID, report.getStatus(4));
+        assertNull(report.getInvalidField(4));
+        assertEquals(2, report.getAddedCount());
+
+        assertEquals("Ann", service.getContactById("002").getFirstName());
+        assertEquals("Jane", service.getContactById("001").getFirstName());
+        assertEquals(2, service.findByLastName("Lee").size());
+        assertTrue(service.isPhoneInUse("5551112225"));
+        assertEquals(1, service.searchByNamePrefix("cy", 10).size());
+    }
+
+    // Test a large import, where validation runs on several threads, matches adding one by one
+    @Test
+    public void testImportContactsLargeBatch() {
+        List<String[]> records = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            String phone = i % 10 == 0 ? "bad" : String.format("%010d", i);
+            records.add(new String[] {"ID" + (i % 15_000), "F" + i, "L", phone, "Road"});
+        }
+        ContactImportReport report = service.importContacts(records.stream());
+
+        assertEquals(20_000, report.size());
+        assertEquals(2_000, report.count(ContactImportReport.Status.INVALID));
+        // IDs 0-4999 appear twice; the earlier copy wins
+        for (int i = 15_000; i < 20_000; i++) {
+            if (i % 10 == 0) {
+                assertEquals(ContactImportReport.Status.INVALID, report.getStatus(i));
+            } else {
+                assertEquals(ContactImportReport.Status.DUPLICATE_IN_BATCH, report.getStatus(i));
+                assertEquals("F" + (i - 15_000), service.getContactById("ID" + (i - 15_000)).getFirstName());
+            }
+        }
+        assertEquals(report.getAddedCount(), service.findByLastName("L").size());
+    }
+
+    // Test that a patch changes several fields with one call and moves the indexes
+    @Test
+    public void testApplyPatch() {
+        service.addContact(contact);
+        service.applyPatch("001", new ContactPatch().setFirstName("Janet").setLastName("Smith")
+                .setPhone("9999999999"));
+
+        assertEquals("Janet", contact.getFirstName());
+        assertEquals("Smith", contact.getLastName());
+        assertEquals("9999999999", contact.getPhone());
+        assertEquals("456 Elm St", contact.getAddress());
+        assertTrue(service.findByLastName("Doe").isEmpty());
+        assertSame(contact, service.findByLastName("Smith").get(0));
+        assertFalse(service.isPhoneInUse("5551234567"));
+        assertTrue(service.isPhoneInUse("9999999999"));
+        assertEquals(1, service.searchByFirstNamePrefix("jan", 10).size());
+        assertTrue(service.searchByNamePrefix("doe", 10).isEmpty());
+    }
+
+    // Test that a bad value is rejected while the patch is built, and a missing contact changes nothing
+    @Test
+    public void testApplyPatchErrors() {
+        service.addContact(contact);
+        ContactPatch patch = new ContactPatch().setFirstName("Janet");
+        assertThrows(IllegalArgumentException.class, () -> patch.setPhone("555"));
+        assertThrows(IllegalArgumentException.class, () -> service.applyPatch("999", patch));
+        assertThrows(IllegalArgumentException.class, () -> service.applyPatch("001", null));
+        assertEquals("Jane", contact.getFirstName());
+        assertTrue(new ContactPatch().isEmpty());
+        service.applyPatch("001", new ContactPatch());
+        assertEquals("Jane", contact.getFirstName());
+    }
+
+    // Test that compare-and-set updates and deletes fail when the version is stale
+    @Test
+    public void testCompareAndSet() {
+        service.addContact(contact);
+        long version = contact.getVersion();
+        service.updatePhone("001", "9999999999"); // Someone else's edit
+
+        assertFalse(service.compareAndUpdate("001", version, new ContactPatch().setLastName("Smith")));
+        assertEquals("Doe", contact.getLastName());
+        assertFalse(service.compareAndDelete("001", version));
+
+        version = contact.getVersion();
+        assertTrue(service.compareAndUpdate("001", version, new ContactPatch().setLastName("Smith")));
+        assertSame(contact, service.findByLastName("Smith").get(0));
+        assertFalse(service.compareAndDelete("001", version));
+        assertTrue(service.compareAndDelete("001", contact.getVersion()));
+        assertThrows(IllegalArgumentException.class, () -> service.compareAndDelete("001", 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.compareAndUpdate("001", 0, new ContactPatch()));
+    }
+
+    // Test that a stale compare-and-set from before a delete can't land on a contact added again under the same ID
+    @Test
+    public void testStaleVersionAfterDeleteAndReAdd() {
+        service.addContact(contact);
+        long stale = contact.getVersion();
+        service.deleteContact("001");
+        Contact again = new Contact("001", "Ann", "Lee", "5551112222", "1 Road");
+        service.addContact(again);
+        assertTrue(again.getVersion() > stale);
+        assertFalse(service.compareAndUpdate("001", stale, new ContactPatch().setLastName("Smith")));
+        assertFalse(service.compareAndDelete("001", stale));
+        assertEquals("Lee", again.getLastName());
+        assertTrue(service.compareAndUpdate("001", again.getVersion(), new ContactPatch().setLastName("Smith")));
+    }
+
+    // Test that with a string dictionary, contacts with the same name and address share one String each
+    @Test
+    public void testStringDictionarySharesStrings() {
+        StringDictionary dictionary = new StringDictionary();
+        service.setStringDictionary(dictionary);
+        service.addContact(contact);
+        Contact other = new Contact("002", new String("Jane"), new String("Doe"), "5559876543", new String("456 Elm St"));
+        service.addContact(other);
+
+        assertSame(contact.getFirstName(), other.getFirstName());
+        assertSame(contact.getLastName(), other.getLastName());
+        assertSame(contact.getAddress(), other.getAddress());
+        assertEquals(3, dictionary.size());
+        assertEquals(2, dictionary.referenceCount("Doe"));
+        assertEquals(0, contact.getVersion()); // Sharing doesn't count as a change
+    }
+
+    // Test that dictionary entries are reclaimed when updates and deletes drop their last reference
+    @Test
+    public void testStringDictionaryReclaimsEntries() {
+        StringDictionary dictionary = new StringDictionary();
+        service.addContact(contact);
+        service.setStringDictionary(dictionary); // Contacts already stored are shared too
+        service.addContact(new Contact("002", "John", "Doe", "5559876543", "1 Oak Ave"));
+        assertEquals(5, dictionary.size());
+
+        service.updateFirstName("001", "John");
+        assertEquals(0, dictionary.referenceCount("Jane"));
+        assertEquals(2, dictionary.referenceCount("John"));
+        service.applyPatch("002", new ContactPatch().setLastName("Smith").setAddress("456 Elm St"));
+        assertEquals(1, dictionary.referenceCount("Doe"));
+        assertEquals(0, dictionary.referenceCount("1 Oak Ave"));
+        assertEquals(2, dictionary.referenceCount("456 Elm St"));
+
+        service.deleteContact("001");
+        service.updateAddress("002", "9 Pine Rd");
+        assertEquals(3, dictionary.size()); // John, Smith and 9 Pine Rd
+        service.deleteContact("002");
+        assertEquals(0, dictionary.size());
+
+        // Switching the dictionary off leaves nothing behind in it
+        service.addContact(contact);
+        service.setStringDictionary(null);
+        assertEquals(0, dictionary.size());
+        service.deleteContact("001");
+        assertEquals(0, dictionary.size());
+    }
+
+    // Test that IDs are told apart exactly, whether they pack into the primary index or not
+    @Test
+    public void testContactIdsPackedAndUnpacked() {
+        String[] ids = {"", "A", "A\u0000", "1234567890", "123456789\u00ff", "\u00e9t\u00e9", "\u4e2d\u6587", "\u4e2d"};
+        for (int i = 0; i < ids.length; i++) {
+            service.addContact(new Contact(ids[i], "Jane", "Doe", String.format("%010d", i), "456 Elm St"));
+        }
+        assertEquals(ids.length, service.size());
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(String.format("%010d", i), service.getContactById(new String(ids[i])).getPhone());
+        }
+        assertThrows(IllegalArgumentException.class, () -> service.getContactById("12345678"));
+        assertThrows(IllegalArgumentException.class, () -> service.getContactById(null));
+
+        service.deleteContact("A");
+        service.deleteContact("\u4e2d");
+        assertEquals("0000000002", service.getContactById("A\u0000").getPhone());
+        assertEquals("0000000006", service.getContactById("\u4e2d\u6587").getPhone());
+        assertThrows(IllegalArgumentException.class, () -> service.getContactById("A"));
+        assertEquals(ids.length - 2, service.size());
+    }
+
+    // Test that deletes in a large store never hide the contacts stored after them
+    @Test
+    public void testDeleteKeepsOtherContactsReachable() {
+        for (int i = 0; i < 5000; i++) {
+            service.addContact(new Contact("ID" + i, "Jane", "Doe", "5551234567", "456 Elm St"));
+        }
+        for (int i = 0; i < 5000; i += 3) {
+            service.deleteContact("ID" + i);
+        }
+        for (int i = 0; i < 5000; i++) {
+            String id = "ID" + i;
+            if (i % 3 == 0) {
+                assertThrows(IllegalArgumentException.class, () -> service.getContactById(id));
+            } else {
+                assertEquals(id, service.getContactById(id).getContactId());
+            }
+        }
+        assertEquals(3333, service.size());
+    }
+
+    // Test that the non-throwing methods report each outcome and change the same things as the throwing ones
+    @Test
+    public void testTryMethodsReturnStatus() {
+        assertEquals(ContactStatus.OK, service.tryAdd("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+        assertEquals(ContactStatus.ALREADY_EXISTS, service.tryAdd("001", "Ann", "Lee", "5550000000", "1 Main St"));
+        assertEquals(ContactStatus.INVALID_PHONE, service.tryAdd("002", "Ann", "Lee", "555", "1 Main St"));
+        assertEquals(ContactStatus.INVALID_CONTACT_ID, service.tryAdd(null, "Ann", "Lee", "5550000000", "1 Main St"));
+        assertEquals(ContactStatus.NULL_CONTACT, service.tryAdd(null));
+        assertEquals(ContactStatus.ALREADY_EXISTS,
+                service.tryAdd(new Contact("001", "Ann", "Lee", "5550000000", "1 Main St")));
+        assertEquals(1, service.size());
+
+        assertEquals(ContactStatus.OK, service.tryUpdate("001", ContactField.LAST_NAME, "Smith"));
+        assertEquals(ContactStatus.OK, service.tryUpdate("001", ContactField.PHONE, "5559876543"));
+        assertEquals(ContactStatus.INVALID_FIRST_NAME,
+                service.tryUpdate("001", ContactField.FIRST_NAME, "ThisNameIsTooLong"));
+        assertEquals(ContactField.FIRST_NAME, ContactStatus.INVALID_FIRST_NAME.getField());
+        assertEquals(ContactStatus.NOT_FOUND, service.tryUpdate("999", ContactField.ADDRESS, "1 Main St"));
+        assertThrows(IllegalArgumentException.class, () -> service.tryUpdate("001", ContactField.CONTACT_ID, "002"));
+        assertEquals("Jane", service.getContactById("001").getFirstName());
+        assertEquals(1, service.findByLastName("Smith").size());
+        assertEquals(1, service.findByPhone("5559876543").size());
+        assertTrue(service.findByPhone("5551234567").isEmpty());
+
+        assertEquals(ContactStatus.NOT_FOUND, service.tryDelete("999"));
+        assertEquals(ContactStatus.NOT_FOUND, service.tryDelete(null));
+        assertEquals(ContactStatus.OK, service.tryDelete("001"));
+        assertTrue(service.findByLastName("Smith").isEmpty());
+        assertEquals(0, service.size());
+    }
+
+    // Test that rejected non-throwing calls are counted as failures by the metrics
+    @Test
+    public void testTryMethodsRecordMetrics() {
+        ContactServiceMetrics metrics = new ContactServiceMetrics();
+        service.setMetrics(metrics);
+        service.tryAdd("001", "Jane", "Doe", "5551234567", "456 Elm St");
+        service.tryAdd("001", "Jane", "Doe", "5551234567", "456 Elm St");
+        service.tryUpdate("001", ContactField.ADDRESS, "1234567890123456789012345678901");
+        service.tryDelete("002");
+
+        assertEquals(2, metrics.getOperationCount(ContactServiceMetrics.Operation.ADD_CONTACT));
+        assertEquals(1, metrics.getFailureCount(ContactServiceMetrics.Operation.ADD_CONTACT));
+        assertEquals(1, metrics.getFailureCount(ContactServiceMetrics.Operation.UPDATE_ADDRESS));
+        assertEquals(1, metrics.getValidationFailureCount(ContactField.ADDRESS));
+        assertEquals(1, metrics.getFailureCount(ContactServiceMetrics.Operation.DELETE_CONTACT));
+    }
+
+    // Test that a batch is applied in order and can use contacts added earlier in the same batch
+    @Test
+    public void testApplyBatch() {
+        service.addContact(contact);
+        service.addContact(new Contact("002", "John", "Smith", "5559876543", "789 Oak Rd"));
+        service.applyBatch(new ContactBatch()
+                .add(new Contact("003", "Ann", "Lee", "5550000000", "1 Main St"))
+                .updatePhone("003", "5551111111")
+                .delete("002")
+                .add(new Contact("002", "Joan", "Smith", "5552222222", "2 Main St"))
+                .applyPatch("001", new ContactPatch().setLastName("Jones").setAddress("3 Main St")));
+
+        assertEquals(3, service.size());
+        assertEquals("5551111111", service.getContactById("003").getPhone());
+        assertEquals("Joan", service.getContactById("002").getFirstName());
+        assertEquals("Jones", contact.getLastName());
+        assertEquals(1, service.findByPhone("5551111111").size());
+        assertTrue(service.findByLastName("Doe").isEmpty());
+    }
+
+    // Test that a batch with one bad item changes nothing and names that item
+    @Test
+    public void testApplyBatchRollsBackOnFailure() {
+        service.addContact(contact);
+        ContactBatch batch = new ContactBatch()
+                .updateFirstName("001", "Janet")
+                .add(new Contact("002", "John", "Smith", "5559876543", "789 Oak Rd"))
+                .delete("001")
+                .updatePhone("001", "5550000000");
+        ContactBatchException e = assertThrows(ContactBatchException.class, () -> service.applyBatch(batch));
+        assertEquals(3, e.getItemIndex());
+        assertEquals(ContactStatus.NOT_FOUND, e.getStatus());
+        assertEquals("Batch item 3: Contact not found.", e.getMessage());
+        assertEquals("Jane", contact.getFirstName());
+        assertEquals(1, service.size());
+
+        // Values are checked as items are added, before the batch reaches the service
+        assertThrows(ContactValidationException.class, () -> new ContactBatch().updatePhone("001", "555"));
+        assertThrows(IllegalArgumentException.class, () -> service.applyBatch(null));
+    }
+
+    // Test that pages come back in ID order and follow on from each other through the cursor
+    @Test
+    public void testListContactsPages() {
+        for (int i = 9; i >= 0; i--) {
+            service.addContact(new Contact("ID" + i, "Jane", "Doe", "5551234567", "456 Elm St"));
+        }
+        ContactPage first = service.listContacts(null, 4);
+        assertEquals(List.of("ID0", "ID1", "ID2", "ID3"), idsOf(first.getContacts()));
+        assertEquals("ID3", first.getNextCursor());
+
+        // Deleting the cursor's contact and adding one before it doesn't change the next page
+        service.deleteContact("ID3");
+        service.addContact(new Contact("ID00", "Jane", "Doe", "5551234567", "456 Elm St"));
+        ContactPage second = service.listContacts(first.getNextCursor(), 4);
+        assertEquals(List.of("ID4", "ID5", "ID6", "ID7"), idsOf(second.getContacts()));
+        ContactPage last = service.listContacts(second.getNextCursor(), 4);
+        assertEquals(List.of("ID8", "ID9"), idsOf(last.getContacts()));
+        assertFalse(last.hasNext());
+        assertNull(last.getNextCursor());
+        assertThrows(IllegalArgumentException.class, () -> service.listContacts(null, 0));
+    }
+
+    // Test that the stream reads every contact in order, a page at a time, while contacts change
+    @Test
+    public void testStreamContacts() {
+        for (int i = 0; i < 1000; i++) {
+            service.addContact(new Contact(String.format("ID%04d", i), "Jane", "Doe", "5551234567", "456 Elm St"));
+        }
+        List<String> seen = new ArrayList<>();
+        service.streamContacts().forEach(contact -> {
+            seen.add(contact.getContactId());
+            if (contact.getContactId().equals("ID0500")) {
+                service.deleteContact("ID0999");        // Not read yet, so never seen
+                service.deleteContact("ID0001");        // Already read
+            }
+        });
+        assertEquals(999, seen.size());
+        assertEquals("ID0000", seen.get(0));
+        assertEquals("ID0998", seen.get(998));
+        assertEquals(3, service.streamContacts().skip(500).limit(3).count());
+    }
+
+    // Test that paging stays in ID order through enough adds and deletes to rebuild the order
+    // index's sorted array several times, including IDs deleted and added again
+    @Test
+    public void testListContactsThroughChurn() {
+        Random random = new Random(24);
+        TreeSet<String> expected = new TreeSet<>();
+        for (int round = 0; round < 20_000; round++) {
+            String id = "ID" + random.nextInt(3000);
+            if (expected.remove(id)) {
+                service.deleteContact(id);
+            } else {
+                service.addContact(new Contact(id, "Jane", "Doe", "5551234567", "456 Elm St"));
+                expected.add(id);
+            }
+            if (round % 2000 == 0 || round == 19_999) {
+                List<String> listed = new ArrayList<>();
+                service.streamContacts().forEach(contact -> listed.add(contact.getContactId()));
+                assertEquals(new ArrayList<>(expected), listed);
+                String cursor = expected.first();
+                List<String> after = new ArrayList<>(expected.tailSet(cursor, false));
+                assertEquals(after.subList(0, Math.min(5, after.size())), idsOf(service.listContacts(cursor, 5).getContacts()));
+            }
+        }
+    }
+
+    private static List<String> idsOf(List<Contact> contacts) {
+        List<String> ids = new ArrayList<>();
+        for (Contact c : contacts) {
+            ids.add(c.getContactId());
+        }
+        return ids;
+    }
 }
\ No newline at end of file
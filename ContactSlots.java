@@ -0,0 +1,130 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.nio.ByteBuffer;
+
+// Fixed-width binary layout for one contact
+// Contact limits every field (ID, names <= 10, address <= 30, phone = 10 digits) so each
+// contact fits in one 72 byte slot. Strings are stored one byte per character (ISO-8859-1),
+// so only contacts whose text is all Latin-1 can be stored in a slot - see fits()
+//
+// Slot layout (byte offsets):
+//   0       ID length (FREE marks an unused slot)    1-10   ID characters
+//   11      first name length                        12-21  first name characters
+//   22      last name length                         23-32  last name characters
+//   33      address length                           34-63  address characters
+//   64-71   phone packed into a long (see PhoneNumbers)
+final class ContactSlots {
+
+    static final int SLOT_SIZE = 72;
+
+    // Length byte value for a slot that holds no contact
+    static final int FREE = 0xFF;
+
+    // Offsets of each field's length byte - the characters follow right after it
+    static final int ID = 0;
+    static final int FIRST_NAME = 11;
+    static final int LAST_NAME = 22;
+    static final int ADDRESS = 33;
+    static final int PHONE = 64;
+
+    private ContactSlots() {
+    }
+
+    // Check if every String field of the contact can be stored one byte per character
+    static boolean fits(Contact contact) {
+        return isLatin1(contact.getContactId()) && isLatin1(contact.getFirstName())
+                && isLatin1(contact.getLastName()) && isLatin1(contact.getAddress());
+    }
+
+    // Check if a String only uses characters 0-255
+    static boolean isLatin1(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Write a whole contact into the slot starting at offset
+    static void write(ByteBuffer buffer, int offset, Contact contact) {
+        writeText(buffer, offset, ID, contact.getContactId());
+        writeText(buffer, offset, FIRST_NAME, contact.getFirstName());
+        writeText(buffer, offset, LAST_NAME, contact.getLastName());
+        writeText(buffer, offset, ADDRESS, contact.getAddress());
+        writePhone(buffer, offset, contact.getPhone());
+    }
+
+    // Write one text field - field is one of ID, FIRST_NAME, LAST_NAME or ADDRESS
+    static void writeText(ByteBuffer buffer, int offset, int field, String value) {
+        int start = offset + field;
+        buffer.put(start, (byte) value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer.put(start + 1 + i, (byte) value.charAt(i));
+        }
+    }
+
+    // Write the phone field
+    static void writePhone(ByteBuffer buffer, int offset, String phone) {
+        buffer.putLong(offset + PHONE, PhoneNumbers.pack(phone));
+    }
+
+    // Read one text field back into a String
+    static String readText(ByteBuffer buffer, int offset, int field) {
+        int start = offset + field;
+        int length = buffer.get(start) & 0xFF;
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (buffer.get(start + 1 + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    // Read the phone field back into its 10 digit String
+    static String readPhone(ByteBuffer buffer, int offset) {
+        return PhoneNumbers.unpack(buffer.getLong(offset + PHONE));
+    }
+
+    // Decode the slot into a new Contact object
+    static Contact read(ByteBuffer buffer, int offset) {
+        return new Contact(readText(buffer, offset, ID), readText(buffer, offset, FIRST_NAME),
+                readText(buffer, offset, LAST_NAME), readPhone(buffer, offset),
+                readText(buffer, offset, ADDRESS));
+    }
+
+    // Check if the slot is unused
+    static boolean isFree(ByteBuffer buffer, int offset) {
+        return (buffer.get(offset + ID) & 0xFF) == FREE;
+    }
+
+    // Mark the slot as unused
+    static void markFree(ByteBuffer buffer, int offset) {
+        buffer.put(offset + ID, (byte) FREE);
+    }
+
+    // Compare the stored ID with a String without decoding the slot
+    static boolean idEquals(ByteBuffer buffer, int offset, String contactId) {
+        int length = buffer.get(offset + ID) & 0xFF;
+        if (length != contactId.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if ((buffer.get(offset + ID + 1 + i) & 0xFF) != contactId.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Hash of the stored ID - always equal to contactId.hashCode() for the same ID
+    static int idHash(ByteBuffer buffer, int offset) {
+        int length = buffer.get(offset + ID) & 0xFF;
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + (buffer.get(offset + ID + 1 + i) & 0xFF);
+        }
+        return hash;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Startup time benchmark for snapshot restore
+// Compares rebuilding a store with addContact against mapping a snapshot file, with and
+// without the full checksum pass, and times the first lookup after each restore
+// Usage: java -XX:MaxDirectMemorySize=4g ContactService.ContactSnapshotBenchmark [contacts] [file]
+public class ContactSnapshotBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Path file = args.length > 1 ? Path.of(args[1]) : Files.createTempFile("contacts", ".snap");
+
+        long start = System.nanoTime();
+        OffHeapContactService store = new OffHeapContactService();
+        for (int i = 0; i < count; i++) {
+            store.addContact(ContactStoreFootprint.newContact(i));
+        }
+        report("rebuild with addContact", start);
+
+        start = System.nanoTime();
+        store.writeSnapshot(file);
+        report("write snapshot (" + Files.size(file) / (1024 * 1024) + " MB)", start);
+        store = null;
+
+        start = System.nanoTime();
+        OffHeapContactService verified = OffHeapContactService.restoreSnapshot(file, true);
+        report("restore with checksum", start);
+        start = System.nanoTime();
+        verified.getContactById("C" + (count / 2));
+        report("  first lookup", start);
+
+        start = System.nanoTime();
+        OffHeapContactService unverified = OffHeapContactService.restoreSnapshot(file, false);
+        report("restore, header check only", start);
+        start = System.nanoTime();
+        unverified.getContactById("C" + (count / 3));
+        report("  first lookup", start);
+
+        if (args.length < 2) {
+            Files.delete(file);
+        }
+    }
+
+    private static void report(String step, long startNanos) {
+        System.out.printf("%-34s %10.1f ms%n", step, (System.nanoTime() - startNanos) / 1e6);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,313 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+// Versioned binary snapshot format for OffHeapContactService
+// The file holds the store's own ID index and slots byte for byte, so restoring is just a
+// memory map - no contact is parsed or rebuilt before the first lookup.
+//
+// File layout (all numbers big-endian):
+//   header   64 bytes - see the HEADER_ offsets below
+//   table    tableCapacity * 4 bytes - the open-addressing ID index
+//   free     freeCount * 4 bytes - slots that can be reused
+//   slots    chunkCount * (72 << chunkShift) bytes - whole chunks so each can be mapped alone
+//   overflow contacts with non Latin-1 text, written with DataOutputStream.writeUTF
+// The body checksum is a CRC32C of everything after the header, and the header has its own CRC32.
+final class ContactSnapshotFile {
+
+    static final int MAGIC = 0x43534E50; // "CSNP"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    // Largest index table that fits in one mapping (4 bytes per entry)
+    private static final int MAX_TABLE_CAPACITY = 1 << 29;
+
+    // Header field offsets
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_SLOT_SIZE = 8;
+    private static final int HEADER_CHUNK_SHIFT = 12;
+    private static final int HEADER_CHUNK_COUNT = 16;
+    private static final int HEADER_HIGH_WATER = 20;
+    private static final int HEADER_FREE_COUNT = 24;
+    private static final int HEADER_TABLE_CAPACITY = 28;
+    private static final int HEADER_TABLE_SIZE = 32;
+    private static final int HEADER_OVERFLOW_COUNT = 36;
+    private static final int HEADER_OVERFLOW_BYTES = 40;
+    private static final int HEADER_BODY_CHECKSUM = 48;
+    private static final int HEADER_CHECKSUM = 56; // CRC32 of bytes 0-55
+
+    private ContactSnapshotFile() {
+    }
+
+    // Write the whole store to a temporary file, force it to disk, then move it over the target
+    // so a crash never leaves a half written snapshot behind
+    static void write(OffHeapContactService store, Path file) throws IOException {
+        byte[] overflowBytes = encodeOverflow(store);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CRC32C bodyChecksum = new CRC32C();
+            channel.position(HEADER_SIZE);
+
+            writeFully(channel, bodyChecksum, region(store.table, 0, store.tableCapacity * 4));
+            ByteBuffer free = ByteBuffer.allocate(store.freeCount * 4);
+            for (int i = 0; i < store.freeCount; i++) {
+                free.putInt(store.freeSlots[i]);
+            }
+            free.flip();
+            writeFully(channel, bodyChecksum, free);
+            for (ByteBuffer chunk : store.chunks) {
+                writeFully(channel, bodyChecksum, region(chunk, 0, chunk.capacity()));
+            }
+            writeFully(channel, bodyChecksum, ByteBuffer.wrap(overflowBytes));
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(HEADER_MAGIC, MAGIC);
+            header.putInt(HEADER_VERSION, FORMAT_VERSION);
+            header.putInt(HEADER_SLOT_SIZE, ContactSlots.SLOT_SIZE);
+            header.putInt(HEADER_CHUNK_SHIFT, store.chunkShift);
+            header.putInt(HEADER_CHUNK_COUNT, store.chunks.length);
+            header.putInt(HEADER_HIGH_WATER, store.highWater);
+            header.putInt(HEADER_FREE_COUNT, store.freeCount);
+            header.putInt(HEADER_TABLE_CAPACITY, store.tableCapacity);
+            header.putInt(HEADER_TABLE_SIZE, store.tableSize);
+            header.putInt(HEADER_OVERFLOW_COUNT, store.overflow.size());
+            header.putLong(HEADER_OVERFLOW_BYTES, overflowBytes.length);
+            header.putLong(HEADER_BODY_CHECKSUM, bodyChecksum.getValue());
+            CRC32 headerChecksum = new CRC32();
+            headerChecksum.update(header.array(), 0, HEADER_CHECKSUM);
+            header.putInt(HEADER_CHECKSUM, (int) headerChecksum.getValue());
+            channel.position(0);
+            writeFully(channel, null, header);
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(file.toAbsolutePath().getParent());
+    }
+
+    // Force the folder entry of the moved file to disk, so a crash can't bring back the old file
+    // Some platforms (Windows) can't open a folder as a channel, and there the move is all we can do
+    private static void syncDirectory(Path directory) throws IOException {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // The file itself is already on disk
+        }
+    }
+
+    // Map a snapshot file back into a store
+    // The mapping is private (copy-on-write), so later changes to the store never touch the file.
+    // Java only allows private mappings on a channel opened for writing, but nothing is written.
+    // A file that can't be opened for writing (read-only file or file system) is mapped read-only
+    // and its table and slots are copied into direct buffers instead, which costs a full read.
+    static OffHeapContactService read(Path file, boolean verifyChecksum) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return read(channel, verifyChecksum, false);
+        } catch (AccessDeniedException e) {
+            return readOnly(file, verifyChecksum);
+        } catch (FileSystemException e) {
+            if (!Files.exists(file)) {
+                throw e;
+            }
+            return readOnly(file, verifyChecksum);    // Most likely a read-only file system
+        }
+    }
+
+    private static OffHeapContactService readOnly(Path file, boolean verifyChecksum) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel, verifyChecksum, true);
+        }
+    }
+
+    // Restore from an open channel - copy is true when the channel is read-only
+    static OffHeapContactService read(FileChannel channel, boolean verifyChecksum, boolean copy) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Snapshot file is too short.");
+            }
+        }
+        checkHeader(header);
+
+        int chunkShift = header.getInt(HEADER_CHUNK_SHIFT);
+        int chunkCount = header.getInt(HEADER_CHUNK_COUNT);
+        int highWater = header.getInt(HEADER_HIGH_WATER);
+        int freeCount = header.getInt(HEADER_FREE_COUNT);
+        int tableCapacity = header.getInt(HEADER_TABLE_CAPACITY);
+        int tableSize = header.getInt(HEADER_TABLE_SIZE);
+        long overflowBytes = header.getLong(HEADER_OVERFLOW_BYTES);
+        long chunkBytes = (long) ContactSlots.SLOT_SIZE << chunkShift;
+
+        long tableStart = HEADER_SIZE;
+        long freeStart = tableStart + (long) tableCapacity * 4;
+        long slotsStart = freeStart + (long) freeCount * 4;
+        long overflowStart = slotsStart + chunkCount * chunkBytes;
+        if (channel.size() != overflowStart + overflowBytes) {
+            throw new IOException("Snapshot file size does not match its header.");
+        }
+
+        ByteBuffer table = map(channel, copy, tableStart, (long) tableCapacity * 4);
+        ByteBuffer[] chunks = new ByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[i] = map(channel, copy, slotsStart + i * chunkBytes, chunkBytes);
+        }
+        ByteBuffer free = channel.map(FileChannel.MapMode.READ_ONLY, freeStart, (long) freeCount * 4);
+        ByteBuffer overflow = channel.map(FileChannel.MapMode.READ_ONLY, overflowStart, overflowBytes);
+
+        if (verifyChecksum) {
+            CRC32C bodyChecksum = new CRC32C();
+            bodyChecksum.update(table.duplicate());
+            bodyChecksum.update(free.duplicate());
+            for (ByteBuffer chunk : chunks) {
+                bodyChecksum.update(chunk.duplicate());
+            }
+            bodyChecksum.update(overflow.duplicate());
+            if (bodyChecksum.getValue() != header.getLong(HEADER_BODY_CHECKSUM)) {
+                throw new IOException("Snapshot checksum mismatch - the file is corrupt.");
+            }
+        }
+
+        // Even without the checksum, every slot number the store will follow must be in range,
+        // and the table must have an empty entry so a probe for a missing ID stops
+        int used = 0;
+        for (int i = 0; i < tableCapacity; i++) {
+            int entry = table.getInt(i * 4);
+            if (entry != 0) {
+                if (entry < 0 || entry > highWater) {
+                    throw new IOException("Snapshot index points past the last slot - the file is corrupt.");
+                }
+                used++;
+            }
+        }
+        if (used != tableSize) {
+            throw new IOException("Snapshot index size does not match its header - the file is corrupt.");
+        }
+
+        OffHeapContactService store = new OffHeapContactService(chunkShift);
+        store.chunks = chunks;
+        store.highWater = highWater;
+        store.freeSlots = new int[Math.max(16, freeCount)];
+        for (int i = 0; i < freeCount; i++) {
+            int slot = free.getInt(i * 4);
+            if (slot < 0 || slot >= highWater) {
+                throw new IOException("Snapshot free slot is out of range - the file is corrupt.");
+            }
+            store.freeSlots[i] = slot;
+        }
+        store.freeCount = freeCount;
+        store.table = table;
+        store.tableCapacity = tableCapacity;
+        store.tableSize = tableSize;
+        decodeOverflow(overflow, header.getInt(HEADER_OVERFLOW_COUNT), store);
+        return store;
+    }
+
+    // Map part of the file copy-on-write, or copy it out of a read-only mapping
+    private static ByteBuffer map(FileChannel channel, boolean copy, long start, long length) throws IOException {
+        if (!copy) {
+            return channel.map(FileChannel.MapMode.PRIVATE, start, length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) length);
+        buffer.put(channel.map(FileChannel.MapMode.READ_ONLY, start, length));
+        return buffer.clear();
+    }
+
+    // Reject files that aren't snapshots, were written by another format version or have a damaged header
+    private static void checkHeader(ByteBuffer header) throws IOException {
+        if (header.getInt(HEADER_MAGIC) != MAGIC) {
+            throw new IOException("Not a contact snapshot file.");
+        }
+        CRC32 headerChecksum = new CRC32();
+        headerChecksum.update(header.array(), 0, HEADER_CHECKSUM);
+        if ((int) headerChecksum.getValue() != header.getInt(HEADER_CHECKSUM)) {
+            throw new IOException("Snapshot header checksum mismatch - the file is corrupt.");
+        }
+        if (header.getInt(HEADER_VERSION) != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format version " + header.getInt(HEADER_VERSION) + ".");
+        }
+        if (header.getInt(HEADER_SLOT_SIZE) != ContactSlots.SLOT_SIZE) {
+            throw new IOException("Snapshot slot size does not match this version of ContactSlots.");
+        }
+        int chunkShift = header.getInt(HEADER_CHUNK_SHIFT);
+        int chunkCount = header.getInt(HEADER_CHUNK_COUNT);
+        int highWater = header.getInt(HEADER_HIGH_WATER);
+        int freeCount = header.getInt(HEADER_FREE_COUNT);
+        int tableCapacity = header.getInt(HEADER_TABLE_CAPACITY);
+        int tableSize = header.getInt(HEADER_TABLE_SIZE);
+        if (chunkShift < 1 || chunkShift > 24 || tableCapacity < 1 || tableCapacity > MAX_TABLE_CAPACITY
+                || Integer.bitCount(tableCapacity) != 1) {
+            throw new IOException("Snapshot header has invalid sizes.");
+        }
+        // Every slot handed out must be inside a chunk, and every free slot and index entry
+        // must be one of those slots - the table also needs at least one empty entry
+        if (chunkCount < 0 || highWater < 0 || highWater > ((long) chunkCount << chunkShift)
+                || freeCount < 0 || freeCount > highWater || tableSize < 0 || tableSize >= tableCapacity
+                || header.getInt(HEADER_OVERFLOW_COUNT) < 0 || header.getLong(HEADER_OVERFLOW_BYTES) < 0) {
+            throw new IOException("Snapshot header has invalid sizes.");
+        }
+    }
+
+    // A read-only view of part of a buffer, positioned for writing to a channel
+    private static ByteBuffer region(ByteBuffer buffer, int from, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.limit(from + length).position(from);
+        return view;
+    }
+
+    private static void writeFully(FileChannel channel, CRC32C checksum, ByteBuffer data) throws IOException {
+        if (checksum != null) {
+            checksum.update(data.duplicate());
+        }
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    // Overflow contacts are rare, so they use a simple String encoding
+    private static byte[] encodeOverflow(OffHeapContactService store) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (Contact contact : store.overflow.values()) {
+                out.writeUTF(contact.getContactId());
+                out.writeUTF(contact.getFirstName());
+                out.writeUTF(contact.getLastName());
+                out.writeUTF(contact.getPhone());
+                out.writeUTF(contact.getAddress());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void decodeOverflow(ByteBuffer buffer, int count, OffHeapContactService store) throws IOException {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            for (int i = 0; i < count; i++) {
+                Contact contact = new Contact(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF());
+                store.overflow.put(contact.getContactId(), contact);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Snapshot overflow contact is invalid - the file is corrupt.", e);
+        }
+    }
+}
\ No newline at end of file
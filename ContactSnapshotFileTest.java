@@ -0,0 +1,139 @@
+// Roger Fisher 8/8/2025
+
+package ContactService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// This class tests saving and restoring OffHeapContactService snapshot files
+public class ContactSnapshotFileTest {
+
+    @TempDir
+    Path tempDir;                          // JUnit gives every test its own empty folder
+
+    private OffHeapContactService store;   // A store with a mix of slot and overflow contacts
+    private Path file;
+
+    @BeforeEach
+    public void setUp() {
+        store = new OffHeapContactService(3);
+        for (int i = 0; i < 100; i++) {
+            store.addContact(new Contact("ID" + i, "F" + i, "L" + i, String.format("%010d", i), i + " Road"));
+        }
+        store.deleteContact("ID7");   // Leaves a free slot to be saved
+        store.addContact(new Contact("\u4e2d1", "\u674e", "Wang", "5550001111", "1 Road"));
+        file = tempDir.resolve("contacts.snap");
+    }
+
+    // Test that every contact comes back after a restore
+    @Test
+    public void testRestoreMatchesOriginal() throws IOException {
+        store.writeSnapshot(file);
+        OffHeapContactService restored = OffHeapContactService.restoreSnapshot(file);
+        assertEquals(store.size(), restored.size());
+        assertEquals("F42", restored.getContactById("ID42").getFirstName());
+        assertEquals("0000000099", restored.getPhone("ID99"));
+        assertEquals("\u674e", restored.getContactById("\u4e2d1").getFirstName());
+        assertFalse(restored.containsContact("ID7"));
+    }
+
+    // Test that a restored store can still be changed, and changes don't reach the file
+    @Test
+    public void testRestoredStoreIsWritable() throws IOException {
+        store.writeSnapshot(file);
+        OffHeapContactService restored = OffHeapContactService.restoreSnapshot(file);
+        restored.updateFirstName("ID1", "Changed");
+        restored.deleteContact("ID2");
+        for (int i = 100; i < 200; i++) {   // Enough adds to grow the index and add chunks
+            restored.addContact(new Contact("ID" + i, "F", "L", "5551234567", "Road"));
+        }
+        assertEquals("Changed", restored.getContactById("ID1").getFirstName());
+        assertEquals(199, restored.size());
+
+        OffHeapContactService again = OffHeapContactService.restoreSnapshot(file);
+        assertEquals("F1", again.getContactById("ID1").getFirstName());
+        assertTrue(again.containsContact("ID2"));
+        assertEquals(100, again.size());
+    }
+
+    // Test that an empty store round trips
+    @Test
+    public void testEmptyStore() throws IOException {
+        new OffHeapContactService().writeSnapshot(file);
+        OffHeapContactService restored = OffHeapContactService.restoreSnapshot(file);
+        assertEquals(0, restored.size());
+        restored.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+        assertTrue(restored.containsContact("001"));
+    }
+
+    // Test that a flipped byte in the body is caught by the checksum
+    @Test
+    public void testCorruptBodyFails() throws IOException {
+        store.writeSnapshot(file);
+        flipByte(Files.size(file) - 200);
+        assertThrows(IOException.class, () -> OffHeapContactService.restoreSnapshot(file));
+    }
+
+    // Test that a damaged header is always caught, even when skipping the body checksum
+    @Test
+    public void testCorruptHeaderFails() throws IOException {
+        store.writeSnapshot(file);
+        flipByte(20);
+        assertThrows(IOException.class, () -> OffHeapContactService.restoreSnapshot(file, false));
+    }
+
+    // Test that a damaged index is caught without the checksum instead of looping or reading past the slots
+    @Test
+    public void testCorruptIndexFailsWithoutChecksum() throws IOException {
+        store.writeSnapshot(file);
+        for (int i = 0; i < 8; i++) {
+            flipByte(ContactSnapshotFile.HEADER_SIZE + i * 4);
+        }
+        assertThrows(IOException.class, () -> OffHeapContactService.restoreSnapshot(file, false));
+    }
+
+    // Test that a file that can only be read is copied into memory and still works
+    @Test
+    public void testRestoreFromReadOnlyChannel() throws IOException {
+        store.writeSnapshot(file);
+        byte[] before = Files.readAllBytes(file);
+        OffHeapContactService restored;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            restored = ContactSnapshotFile.read(channel, true, true);
+        }
+        assertEquals("F42", restored.getContactById("ID42").getFirstName());
+        restored.updateFirstName("ID42", "Changed");
+        restored.addContact(new Contact("ID500", "F", "L", "5551234567", "Road"));
+        assertEquals("Changed", restored.getContactById("ID42").getFirstName());
+        assertArrayEquals(before, Files.readAllBytes(file));
+    }
+
+    // Test that files that aren't snapshots are rejected
+    @Test
+    public void testNotASnapshotFails() throws IOException {
+        Files.write(file, new byte[100]);
+        assertThrows(IOException.class, () -> OffHeapContactService.restoreSnapshot(file));
+        Files.write(file, new byte[10]);
+        assertThrows(IOException.class, () -> OffHeapContactService.restoreSnapshot(file));
+    }
+
+    private void flipByte(long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, position);
+            one.put(0, (byte) (one.get(0) ^ 0x5A));
+            one.rewind();
+            channel.write(one, position);
+        }
+    }
+}
\ No newline at end of file
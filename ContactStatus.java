@@ -0,0 +1,58 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+// Outcome of ContactService's tryAdd, tryDelete and tryUpdate
+// Every outcome is a constant, so reporting one - success or failure - allocates nothing.
+// The messages are the same ones the throwing methods use.
+public enum ContactStatus {
+
+    OK(null, null),
+    NULL_CONTACT(null, "Contact is null or already exists."),
+    ALREADY_EXISTS(null, "Contact is null or already exists."),
+    NOT_FOUND(null, "Contact not found."),
+    INVALID_CONTACT_ID(ContactField.CONTACT_ID, null),
+    INVALID_FIRST_NAME(ContactField.FIRST_NAME, null),
+    INVALID_LAST_NAME(ContactField.LAST_NAME, null),
+    INVALID_PHONE(ContactField.PHONE, null),
+    INVALID_ADDRESS(ContactField.ADDRESS, null);
+
+    private final ContactField field;
+    private final String message;
+
+    ContactStatus(ContactField field, String message) {
+        this.field = field;
+        this.message = field == null ? message : field.getMessage();
+    }
+
+    // Check if the operation was carried out
+    public boolean isOk() {
+        return this == OK;
+    }
+
+    // For an INVALID_ status, the field whose value was rejected - null for every other status
+    public ContactField getField() {
+        return field;
+    }
+
+    // The error message the throwing method would have used, or null for OK
+    public String getMessage() {
+        return message;
+    }
+
+    // Status for a value that broke this field's rule
+    static ContactStatus invalid(ContactField field) {
+        switch (field) {
+            case CONTACT_ID:
+                return INVALID_CONTACT_ID;
+            case FIRST_NAME:
+                return INVALID_FIRST_NAME;
+            case LAST_NAME:
+                return INVALID_LAST_NAME;
+            case PHONE:
+                return INVALID_PHONE;
+            default:
+                return INVALID_ADDRESS;
+        }
+    }
+}
\ No newline at end of file
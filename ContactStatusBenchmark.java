@@ -0,0 +1,74 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+// Time and bytes allocated per call of the throwing ContactService methods against tryAdd,
+// tryDelete and tryUpdate, for rejected calls - a duplicate add, a delete of a missing ID and
+// an invalid phone - and for calls that succeed
+// Usage: java ContactService.ContactStatusBenchmark [contacts] [seconds]
+public class ContactStatusBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+        ContactService service = new ContactService();
+        String[] ids = new String[count];
+        String[] phones = new String[count];
+        for (int i = 0; i < count; i++) {
+            Contact contact = ContactStoreFootprint.newContact(i);
+            service.addContact(contact);
+            ids[i] = contact.getContactId();
+            phones[i] = contact.getPhone();
+        }
+        Contact[] duplicates = new Contact[count];
+        for (int i = 0; i < count; i++) {
+            duplicates[i] = ContactStoreFootprint.newContact(i);
+        }
+        String[] missing = new String[count];
+        for (int i = 0; i < count; i++) {
+            missing[i] = "M" + i;
+        }
+        ContactBenchmarkHarness harness = new ContactBenchmarkHarness(seconds, seconds);
+
+        ContactBenchmarkHarness.printHeader();
+        harness.run("addContact duplicate", 1, () -> i -> {
+            try {
+                service.addContact(duplicates[i % count]);
+            } catch (IllegalArgumentException e) {
+                ContactBenchmarkHarness.consume(e);
+            }
+        });
+        harness.run("tryAdd duplicate", 1, () -> i -> ContactBenchmarkHarness.consume(
+                service.tryAdd(duplicates[i % count])));
+        harness.run("deleteContact missing", 1, () -> i -> {
+            try {
+                service.deleteContact(missing[i % count]);
+            } catch (IllegalArgumentException e) {
+                ContactBenchmarkHarness.consume(e);
+            }
+        });
+        harness.run("tryDelete missing", 1, () -> i -> ContactBenchmarkHarness.consume(
+                service.tryDelete(missing[i % count])));
+        harness.run("updatePhone invalid", 1, () -> i -> {
+            try {
+                service.updatePhone(ids[i % count], "555-0100");
+            } catch (IllegalArgumentException e) {
+                ContactBenchmarkHarness.consume(e);
+            }
+        });
+        harness.run("tryUpdate invalid", 1, () -> i -> ContactBenchmarkHarness.consume(
+                service.tryUpdate(ids[i % count], ContactField.PHONE, "555-0100")));
+        // Write each contact's own phone back, so the phone index doesn't change shape
+        harness.run("updatePhone ok", 1, () -> i -> service.updatePhone(ids[i % count], phones[i % count]));
+        harness.run("tryUpdate ok", 1, () -> i -> ContactBenchmarkHarness.consume(
+                service.tryUpdate(ids[i % count], ContactField.PHONE, phones[i % count])));
+        harness.run("deleteContact+addContact ok", 1, () -> i -> {
+            service.deleteContact(ids[i % count]);
+            service.addContact(duplicates[i % count]);
+        });
+        harness.run("tryDelete+tryAdd ok", 1, () -> i -> {
+            ContactBenchmarkHarness.consume(service.tryDelete(ids[i % count]));
+            ContactBenchmarkHarness.consume(service.tryAdd(duplicates[i % count]));
+        });
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+// Heap footprint comparison between the HashMap based ContactService and OffHeapContactService
+// Fills each store with the same contacts and prints the heap they keep alive after a full GC
+// ContactService's figure includes every index it keeps, the contactId order index for
+// listContacts among them (about 4-9 bytes per contact, see ContactPagingBenchmark)
+// Usage: java -XX:MaxDirectMemorySize=4g ContactService.ContactStoreFootprint [contacts]
+public class ContactStoreFootprint {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long before = usedHeap();
+        ContactService heapStore = new ContactService();
+        for (int i = 0; i < count; i++) {
+            heapStore.addContact(newContact(i));
+        }
+        long heapStoreBytes = usedHeap() - before;
+        report("ContactService (HashMap)", count, heapStoreBytes, 0);
+        heapStore = null;
+
+        before = usedHeap();
+        OffHeapContactService offHeapStore = new OffHeapContactService();
+        for (int i = 0; i < count; i++) {
+            offHeapStore.addContact(newContact(i));
+        }
+        long offHeapStoreBytes = usedHeap() - before;
+        report("OffHeapContactService", count, offHeapStoreBytes, offHeapStore.offHeapBytes());
+
+        // Keep the store reachable until after it was measured
+        if (offHeapStore.size() != count) {
+            throw new IllegalStateException("Unexpected store size " + offHeapStore.size());
+        }
+    }
+
+    private static void report(String name, int count, long heapBytes, long offHeapBytes) {
+        System.out.printf("%-26s heap %,14d bytes (%6.1f per contact)   off-heap %,14d bytes (%6.1f per contact)%n",
+                name, heapBytes, heapBytes / (double) count, offHeapBytes, offHeapBytes / (double) count);
+    }
+
+    // Heap in use after the garbage collector has settled
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    // A contact with realistic field lengths - each one gets its own String objects
+    static Contact newContact(int index) {
+        return new Contact("C" + index, "First" + (index % 1000), "Last" + (index % 5000),
+                String.format("%010d", 5_550_000_000L + index), index + " Main Street");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// A point-in-time view of a VersionedContactService
+// Everything read through a snapshot reflects exactly the writes committed before it was opened,
+// no matter what is written afterwards. Reads take no locks. Use it in try-with-resources so it
+// is closed - an open snapshot keeps the old versions it can see from being pruned.
+public final class ContactStoreSnapshot implements AutoCloseable {
+
+    private final VersionedContactService service;
+    private final long sequence;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    ContactStoreSnapshot(VersionedContactService service, long sequence) {
+        this.service = service;
+        this.sequence = sequence;
+    }
+
+    // Commit sequence number this snapshot was taken at
+    public long getSequence() {
+        return sequence;
+    }
+
+    // Find a contact as it was when the snapshot was taken
+    // Throws error if the contact didn't exist then
+    public ContactVersion getContactById(String contactId) {
+        ContactVersion version = find(contactId);
+        if (version == null) {
+            throw new IllegalArgumentException("Contact not found.");
+        }
+        return version;
+    }
+
+    // Check if a contact existed when the snapshot was taken
+    public boolean containsContact(String contactId) {
+        return find(contactId) != null;
+    }
+
+    // Every contact as it was when the snapshot was taken, in no particular order
+    // The stream is lazy - contacts are read as it is consumed
+    public Stream<ContactVersion> stream() {
+        checkOpen();
+        return StreamSupport.stream(service.heads().spliterator(), false)
+                .map(head -> head.visibleAt(sequence))
+                .filter(Objects::nonNull);
+    }
+
+    // Call the action for every contact in the snapshot
+    public void forEach(Consumer<ContactVersion> action) {
+        checkOpen();
+        for (ContactVersion head : service.heads()) {
+            ContactVersion version = head.visibleAt(sequence);
+            if (version != null) {
+                action.accept(version);
+            }
+        }
+    }
+
+    // Copy every contact in the snapshot into a list
+    public List<ContactVersion> toList() {
+        List<ContactVersion> versions = new ArrayList<>();
+        forEach(versions::add);
+        return versions;
+    }
+
+    // Number of contacts in the snapshot - this walks the whole store
+    public int size() {
+        int[] count = new int[1];
+        forEach(version -> count[0]++);
+        return count[0];
+    }
+
+    // Release the snapshot - calling it again does nothing
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            service.releaseSnapshot(sequence);
+        }
+    }
+
+    private ContactVersion find(String contactId) {
+        checkOpen();
+        ContactVersion head = contactId == null ? null : service.head(contactId);
+        return head == null ? null : head.visibleAt(sequence);
+    }
+
+    private void checkOpen() {
+        if (closed.get()) {
+            throw new IllegalStateException("Snapshot is closed.");
+        }
+    }
+}
\ No newline at end of file
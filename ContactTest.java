@@ -361,4 +361,31 @@ public class ContactTest {
         assertEquals("Y", contact.getLastName());
         assertEquals("Z", contact.getAddress());
     }
+
+    // Test that the phone can be read back packed into a long, keeping leading zeros on unpack
+    @Test
+    public void testPackedPhone() {
+        Contact contact = new Contact("123", "John", "Doe", "0012345678", "123 Main St");
+        assertEquals(12345678L, contact.getPackedPhone());
+        assertEquals("0012345678", PhoneNumbers.unpack(contact.getPackedPhone()));
+        assertEquals(-1, PhoneNumbers.tryPack("12345"));
+        assertThrows(IllegalArgumentException.class, () -> PhoneNumbers.unpack(-5));
+    }
+
+    // Test that the version goes up on every successful change and not on a rejected one
+    @Test
+    public void testVersionCounter() {
+        Contact contact = new Contact("123", "John", "Doe", "1234567890", "123 Main St");
+        assertEquals(0, contact.getVersion());
+        contact.setFirstName("Jim");
+        contact.setPhone("0000000000");
+        assertEquals(2, contact.getVersion());
+        assertThrows(IllegalArgumentException.class, () -> contact.setLastName(null));
+        assertEquals(2, contact.getVersion());
+        // A patch is one change, however many fields it sets
+        new ContactPatch().setLastName("Smith").setAddress("1 Oak St").applyTo(contact);
+        assertEquals(3, contact.getVersion());
+        new ContactPatch().applyTo(contact);
+        assertEquals(3, contact.getVersion());
+    }
 }
\ No newline at end of file
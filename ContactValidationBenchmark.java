@@ -0,0 +1,42 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.lang.management.ManagementFactory;
+
+// Compares the old String.matches("\\d{10}") phone check with ContactField.PHONE
+// and prints the time and bytes allocated per check
+// Usage: java ContactService.ContactValidationBenchmark [iterations]
+public class ContactValidationBenchmark {
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        String[] phones = new String[1024];
+        for (int i = 0; i < phones.length; i++) {
+            phones[i] = String.format("%010d", i * 9_765_431L);
+        }
+
+        for (int round = 0; round < 3; round++) { // The first rounds are JIT warm-up
+            measure("String.matches", iterations, phones, true);
+            measure("ContactField.PHONE", iterations, phones, false);
+        }
+    }
+
+    private static void measure(String name, int iterations, String[] phones, boolean regex) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        int valid = 0;
+        for (int i = 0; i < iterations; i++) {
+            String phone = phones[i & (phones.length - 1)];
+            if (regex ? phone.matches("\\d{10}") : ContactField.PHONE.isValid(phone)) {
+                valid++;
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        System.out.printf("%-20s %8.1f ns/check %8.1f bytes/check (%d valid)%n",
+                name, nanos / (double) iterations, bytes / (double) iterations, valid);
+    }
+}
\ No newline at end of file
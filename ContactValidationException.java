@@ -0,0 +1,23 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+// Thrown when a Contact field breaks its rule
+// It is an IllegalArgumentException, so existing callers catching that still work,
+// and it records which field failed
+public class ContactValidationException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ContactField field;
+
+    public ContactValidationException(ContactField field) {
+        super(field.getMessage());
+        this.field = field;
+    }
+
+    // The field whose value was rejected
+    public ContactField getField() {
+        return field;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Validates raw contact records before any Contact objects are built
+// A raw record is a String[] of {contactId, firstName, lastName, phone, address} - the same
+// order as the ContactField constants. Unlike the Contact constructor, which stops at the first
+// bad field, these methods look at every field and report every failure in one pass.
+public final class ContactValidator {
+
+    // values() copies the array on every call, so keep one copy
+    private static final ContactField[] FIELDS = ContactField.values();
+
+    private static final String WRONG_SHAPE = "Record must have exactly 5 fields.";
+
+    private ContactValidator() {
+    }
+
+    // One rejected field of one record in a batch
+    public static final class Failure {
+
+        private final int recordIndex;
+        private final ContactField field;
+
+        Failure(int recordIndex, ContactField field) {
+            this.recordIndex = recordIndex;
+            this.field = field;
+        }
+
+        // Position of the record in the batch
+        public int getRecordIndex() {
+            return recordIndex;
+        }
+
+        // Field that broke its rule, or null when the record itself is null or the wrong size
+        public ContactField getField() {
+            return field;
+        }
+
+        public String getMessage() {
+            return field == null ? WRONG_SHAPE : field.getMessage();
+        }
+
+        @Override
+        public String toString() {
+            return "record " + recordIndex + ": " + getMessage();
+        }
+    }
+
+    // Check one raw record and return the first failing field, or null when it is valid
+    // Allocates nothing
+    // Throws error if the record is null or doesn't have exactly 5 fields
+    public static ContactField firstInvalidField(String[] record) {
+        if (record == null || record.length != FIELDS.length) {
+            throw new IllegalArgumentException(WRONG_SHAPE);
+        }
+        ContactField[] fields = FIELDS;
+        for (int i = 0; i < fields.length; i++) {
+            if (!fields[i].isValid(record[i])) {
+                return fields[i];
+            }
+        }
+        return null;
+    }
+
+    // Check if a raw record has the right shape and every field is valid
+    public static boolean isValid(String[] record) {
+        return record != null && record.length == FIELDS.length && firstInvalidField(record) == null;
+    }
+
+    // Validate a whole batch and report every failure of every record in one pass
+    // An empty list means the whole batch is valid
+    public static List<Failure> validateAll(List<String[]> records) {
+        List<Failure> failures = new ArrayList<>();
+        for (int index = 0; index < records.size(); index++) {
+            addFailures(index, records.get(index), failures);
+        }
+        return failures;
+    }
+
+    // Add every failure of one record to the list
+    static void addFailures(int index, String[] record, List<Failure> failures) {
+        if (record == null || record.length != FIELDS.length) {
+            failures.add(new Failure(index, null));
+            return;
+        }
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (!FIELDS[i].isValid(record[i])) {
+                failures.add(new Failure(index, FIELDS[i]));
+            }
+        }
+    }
+}
\ No newline at end of file
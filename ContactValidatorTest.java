@@ -0,0 +1,93 @@
+// Roger Fisher 8/8/2025
+
+package ContactService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+// This class tests the shared field rules in ContactField and the batch checks in ContactValidator
+public class ContactValidatorTest {
+
+    // Test each field's rule right at and just past its limits
+    @Test
+    public void testFieldRules() {
+        assertTrue(ContactField.CONTACT_ID.isValid("1234567890"));
+        assertFalse(ContactField.CONTACT_ID.isValid("12345678901"));
+        assertTrue(ContactField.FIRST_NAME.isValid(""));
+        assertFalse(ContactField.LAST_NAME.isValid(null));
+        assertTrue(ContactField.ADDRESS.isValid("123456789012345678901234567890"));
+        assertFalse(ContactField.ADDRESS.isValid("1234567890123456789012345678901"));
+    }
+
+    // Test that the phone rule accepts exactly 10 ASCII digits and nothing else
+    @Test
+    public void testPhoneRule() {
+        assertTrue(ContactField.PHONE.isValid("0123456789"));
+        assertFalse(ContactField.PHONE.isValid("123456789"));
+        assertFalse(ContactField.PHONE.isValid("12345678901"));
+        assertFalse(ContactField.PHONE.isValid("123-456-78"));
+        assertFalse(ContactField.PHONE.isValid("\u0661\u0662\u0663\u0664\u0665\u0666\u0667\u0668\u0669\u0660"));
+        assertFalse(ContactField.PHONE.isValid(null));
+    }
+
+    // Test that check returns the value or throws an exception naming the field
+    @Test
+    public void testCheckThrowsWithField() {
+        assertEquals("Jane", ContactField.FIRST_NAME.check("Jane"));
+        ContactValidationException e = assertThrows(ContactValidationException.class,
+                () -> new Contact("001", "Jane", "Doe", "555", "456 Elm St"));
+        assertEquals(ContactField.PHONE, e.getField());
+        assertEquals("Phone number must be exactly 10 digits.", e.getMessage());
+    }
+
+    // Test that setters use the same rules and messages as the constructor
+    @Test
+    public void testSettersUseSameRules() {
+        Contact contact = new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St");
+        ContactValidationException e = assertThrows(ContactValidationException.class,
+                () -> contact.setAddress("1234567890123456789012345678901"));
+        assertEquals(ContactField.ADDRESS, e.getField());
+        assertEquals("456 Elm St", contact.getAddress());
+    }
+
+    // Test that a batch reports every failure of every record in one pass
+    @Test
+    public void testValidateAllReportsEveryFailure() {
+        List<String[]> records = Arrays.asList(
+                new String[] {"001", "Jane", "Doe", "5551234567", "456 Elm St"},
+                new String[] {"002", "ThisNameIsTooLong", "Doe", "555", "456 Elm St"},
+                null,
+                new String[] {"004", "Ann"},
+                new String[] {null, "Ann", "Lee", "5551112222", null});
+
+        List<ContactValidator.Failure> failures = ContactValidator.validateAll(records);
+        assertEquals(6, failures.size());
+        assertEquals(1, failures.get(0).getRecordIndex());
+        assertEquals(ContactField.FIRST_NAME, failures.get(0).getField());
+        assertEquals(ContactField.PHONE, failures.get(1).getField());
+        assertEquals(2, failures.get(2).getRecordIndex());
+        assertNull(failures.get(2).getField());
+        assertEquals(3, failures.get(3).getRecordIndex());
+        assertEquals(ContactField.CONTACT_ID, failures.get(4).getField());
+        assertEquals(ContactField.ADDRESS, failures.get(5).getField());
+    }
+
+    // Test the single record checks
+    @Test
+    public void testSingleRecordChecks() {
+        String[] good = {"001", "Jane", "Doe", "5551234567", "456 Elm St"};
+        String[] bad = {"001", "Jane", null, "5551234567", "456 Elm St"};
+        assertTrue(ContactValidator.isValid(good));
+        assertNull(ContactValidator.firstInvalidField(good));
+        assertFalse(ContactValidator.isValid(bad));
+        assertEquals(ContactField.LAST_NAME, ContactValidator.firstInvalidField(bad));
+        assertFalse(ContactValidator.isValid(new String[] {"001"}));
+        assertFalse(ContactValidator.isValid(null));
+        assertThrows(IllegalArgumentException.class, () -> ContactValidator.firstInvalidField(new String[] {"001"}));
+        assertThrows(IllegalArgumentException.class, () -> ContactValidator.firstInvalidField(null));
+    }
+}
\ No newline at end of file
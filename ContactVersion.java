@@ -0,0 +1,120 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+// One immutable version of a contact, as stored by VersionedContactService
+// An update never changes a ContactVersion - it publishes a new one that links back to the
+// version it replaced. A reader holding a version always sees all five fields from one write.
+public final class ContactVersion {
+
+    private final String contactId;
+    private final String firstName;
+    private final String lastName;
+    private final String phone;
+    private final String address;
+
+    // Commit sequence number of the write that created this version
+    private final long commitSequence;
+
+    // Per-contact version number - 0 when added, one more for every change after that
+    // Unlike the commit sequence it only moves when this contact changes
+    private final long version;
+
+    // True when this version records a delete
+    private final boolean deleted;
+
+    // The version this one replaced, or null when it was the first or older ones were pruned
+    // Only ever cut to null once no open snapshot can reach the older versions
+    private volatile ContactVersion previous;
+
+    ContactVersion(String contactId, String firstName, String lastName, String phone, String address,
+            long commitSequence, long version, boolean deleted, ContactVersion previous) {
+        this.contactId = contactId;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.phone = phone;
+        this.address = address;
+        this.commitSequence = commitSequence;
+        this.version = version;
+        this.deleted = deleted;
+        this.previous = previous;
+    }
+
+    // Getter methods
+    public String getContactId() {
+        return contactId;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public long getCommitSequence() {
+        return commitSequence;
+    }
+
+    // Version number to pass to VersionedContactService.compareAndUpdate or compareAndDelete
+    public long getVersion() {
+        return version;
+    }
+
+    // Copy this version into a new, separate Contact
+    public Contact toContact() {
+        return new Contact(contactId, firstName, lastName, phone, address);
+    }
+
+    // Build the version that replaces this one - a null value keeps this version's field
+    ContactVersion next(String newFirstName, String newLastName, String newPhone, String newAddress,
+            long sequence) {
+        return new ContactVersion(contactId,
+                newFirstName != null ? newFirstName : firstName,
+                newLastName != null ? newLastName : lastName,
+                newPhone != null ? newPhone : phone,
+                newAddress != null ? newAddress : address,
+                sequence, version + 1, false, this);
+    }
+
+    // Build the delete marker that replaces this version
+    ContactVersion deleted(long sequence) {
+        return new ContactVersion(contactId, firstName, lastName, phone, address, sequence, version + 1, true, this);
+    }
+
+    boolean isDeleted() {
+        return deleted;
+    }
+
+    ContactVersion getPrevious() {
+        return previous;
+    }
+
+    void setPrevious(ContactVersion previous) {
+        this.previous = previous;
+    }
+
+    // Walk back to the newest version a reader at this sequence number can see
+    // Returns null when the contact didn't exist (or was deleted) at that point
+    ContactVersion visibleAt(long sequence) {
+        ContactVersion version = this;
+        while (version != null && version.commitSequence > sequence) {
+            version = version.previous;
+        }
+        return version == null || version.deleted ? null : version;
+    }
+
+    @Override
+    public String toString() {
+        return "ContactVersion[" + contactId + " v" + version + " @" + commitSequence + (deleted ? " deleted" : "") + "]";
+    }
+}
\ No newline at end of file
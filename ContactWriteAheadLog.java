@@ -0,0 +1,269 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+// Append-only log file for ContactService mutations
+// Each record is framed as [int payload length][int CRC32C of payload][payload bytes], so a
+// record torn by a crash in the middle of a write is detected and dropped during replay.
+//
+// Appending only copies the record into an in-memory buffer and returns its sequence number
+// (the log offset just after it). awaitDurable(sequence) then makes it durable according to
+// the DurabilityPolicy. With PER_BATCH, whichever waiting thread gets the flush lock first
+// writes and forces everything buffered so far, so threads that queued up behind it usually
+// find their record already durable - one fsync covers the whole group.
+//
+// If a write or fsync fails, the log can no longer tell which records reached the disk, so it
+// cuts the file back to the last durable record and fails for good: every later append and
+// awaitDurable throws, and nothing is ever reported durable that wasn't forced.
+public class ContactWriteAheadLog implements AutoCloseable {
+
+    private static final int FRAME_HEADER = 8;
+
+    private final FileChannel channel;
+    private final DurabilityPolicy policy;
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flusher;
+
+    // Guarded by this - records appended but not yet written to the channel
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long appended;              // Sequence number of the last appended record
+    private boolean closed;
+
+    private volatile long durable;      // Every record up to this sequence number is on disk
+    private volatile long syncCount;    // Number of fsyncs so far, for benchmarks and tests
+    private volatile IOException failure;   // The write or fsync that failed the log, if any
+
+    // Open the log for appending after the existing records
+    // intervalMillis is only used by TIME_BASED
+    ContactWriteAheadLog(Path file, DurabilityPolicy policy, long intervalMillis) throws IOException {
+        if (policy == null) {
+            throw new IllegalArgumentException("Durability policy must not be null.");
+        }
+        if (policy == DurabilityPolicy.TIME_BASED && intervalMillis < 1) {
+            throw new IllegalArgumentException("Flush interval must be at least 1 millisecond.");
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+        this.policy = policy;
+        this.appended = channel.size();
+        this.durable = appended;
+        channel.position(appended);
+        if (policy == DurabilityPolicy.TIME_BASED) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "contact-wal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    // Read every complete record from the start of the log and hand its payload to the handler
+    // A torn or corrupt tail (from a crash mid-write) is cut off so new records follow the last good one
+    static void replay(Path file, Consumer<ByteBuffer> handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+            long position = 0;
+            while (position + FRAME_HEADER <= size) {
+                header.clear();
+                readFully(channel, header, position);
+                int length = header.getInt(0);
+                int checksum = header.getInt(4);
+                if (length < 0 || position + FRAME_HEADER + length > size) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(channel, payload, position + FRAME_HEADER);
+                CRC32C crc = new CRC32C();
+                crc.update(payload.array());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                handler.accept(payload.rewind());
+                position += FRAME_HEADER + length;
+            }
+            if (position < size) {
+                channel.truncate(position);
+                channel.force(true);
+            }
+        }
+    }
+
+    // Add one record to the log buffer and return its sequence number
+    // The record is not durable until awaitDurable returns (or the next timed flush)
+    // Throws IllegalStateException once the log is closed, UncheckedIOException once it has failed
+    long append(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        if (policy == DurabilityPolicy.PER_OPERATION) {
+            // Holding the flush lock from buffering to fsync means each record gets an fsync of its own
+            synchronized (flushLock) {
+                long sequence = buffer(payload, (int) crc.getValue());
+                flush();
+                return sequence;
+            }
+        }
+        return buffer(payload, (int) crc.getValue());
+    }
+
+    // The closed and failed checks happen under the same lock as the buffering, so close() can't
+    // miss a record that got past them
+    private synchronized long buffer(byte[] payload, int checksum) {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed.");
+        }
+        checkNotFailed();
+        writeInt(pending, payload.length);
+        writeInt(pending, checksum);
+        pending.write(payload, 0, payload.length);
+        appended += FRAME_HEADER + payload.length;
+        return appended;
+    }
+
+    // Wait until the record with this sequence number is durable under the log's policy
+    void awaitDurable(long sequence) {
+        if (policy == DurabilityPolicy.PER_BATCH) {
+            flushTo(sequence);
+        }
+        // PER_OPERATION already flushed inside append, TIME_BASED never waits
+    }
+
+    // Write and force everything buffered so far, unless another thread already covered this sequence
+    private void flushTo(long sequence) {
+        if (durable >= sequence) {
+            return;
+        }
+        synchronized (flushLock) {
+            if (durable >= sequence) {
+                return; // The previous flusher's fsync included our record
+            }
+            flush();
+        }
+    }
+
+    // Caller must hold flushLock
+    // The records stay buffered until they are written and forced, and the file is written at
+    // the durable end, so a failed attempt never leaves a gap or moves durable past lost records
+    private void flush() {
+        checkNotFailed();
+        byte[] batch;
+        long end;
+        synchronized (this) {
+            batch = pending.toByteArray();
+            end = appended;
+        }
+        if (batch.length == 0) {
+            return;
+        }
+        long start = durable;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(batch);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, start + buffer.position());
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            fail(start, e);
+        }
+        synchronized (this) {
+            // Keep anything appended while we were writing
+            byte[] all = pending.toByteArray();
+            pending.reset();
+            pending.write(all, batch.length, all.length - batch.length);
+        }
+        syncCount++;
+        durable = end;
+    }
+
+    // Cut off a possibly torn frame so replay still reaches every durable record, then fail for good
+    private void fail(long durableEnd, IOException e) {
+        failure = e;
+        try {
+            channel.truncate(durableEnd);
+            channel.force(true);
+        } catch (IOException ignored) {
+            e.addSuppressed(ignored);
+        }
+        throw new UncheckedIOException("Could not write the contact write-ahead log.", e);
+    }
+
+    private void checkNotFailed() {
+        IOException e = failure;
+        if (e != null) {
+            throw new UncheckedIOException("The contact write-ahead log failed earlier and is not usable.", e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            synchronized (flushLock) {
+                flush();
+            }
+        } catch (UncheckedIOException e) {
+            // The log is failed now - the next append or close() reports it
+        }
+    }
+
+    // Number of fsyncs done so far
+    long syncCount() {
+        return syncCount;
+    }
+
+    // Flush anything still buffered and close the file
+    // Every append that returned before this was called is in that final flush
+    // Throws the original error if the log failed, after closing the file
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        try {
+            synchronized (flushLock) {
+                flush();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of write-ahead log.");
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+// When a ContactWriteAheadLog forces its writes to disk
+public enum DurabilityPolicy {
+
+    // Every mutation waits for its own fsync - slowest, nothing acknowledged is ever lost
+    PER_OPERATION,
+
+    // Mutations waiting at the same time share one fsync (group commit) - nothing acknowledged
+    // is ever lost, and many concurrent writers pay for far fewer fsyncs
+    PER_BATCH,
+
+    // A background thread forces the log on a fixed interval and mutations don't wait at all
+    // A crash can lose up to one interval of acknowledged mutations
+    TIME_BASED
+}
\ No newline at end of file
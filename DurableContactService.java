@@ -0,0 +1,397 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// This class is a ConcurrentContactService whose mutations survive a crash
+// Every successful add, delete and update is written to a ContactWriteAheadLog before the call
+// returns, and opening the service replays the log to rebuild exactly the same contacts.
+//
+// A mutation is validated under its contact's stripe lock, its log record is appended under that
+// same lock, and only then is it applied, so records for one contact are logged in the order they
+// were applied and a mutation whose append fails leaves the contacts unchanged.
+// Waiting for the fsync happens after the lock is released.
+public class DurableContactService extends ConcurrentContactService implements AutoCloseable {
+
+    // Log record types - the first byte of every record
+    static final byte ADD = 1;
+    static final byte DELETE = 2;
+    static final byte FIRST_NAME = 3;
+    static final byte LAST_NAME = 4;
+    static final byte PHONE = 5;
+    static final byte ADDRESS = 6;
+    static final byte PATCH = 7;
+    static final byte BATCH = 8;    // A count, then that many of the records above, each with its length
+
+    private final ContactWriteAheadLog log;
+
+    private DurableContactService(Path logFile, DurabilityPolicy policy, long intervalMillis) throws IOException {
+        ContactWriteAheadLog.replay(logFile, this::applyRecord);
+        this.log = new ContactWriteAheadLog(logFile, policy, intervalMillis);
+    }
+
+    // Open a service on a log file, replaying any existing records first
+    // Use PER_OPERATION or PER_BATCH here - TIME_BASED needs a flush interval
+    public static DurableContactService open(Path logFile, DurabilityPolicy policy) throws IOException {
+        return new DurableContactService(logFile, policy, 0);
+    }
+
+    // Open a service whose log is forced to disk every intervalMillis (TIME_BASED)
+    public static DurableContactService open(Path logFile, DurabilityPolicy policy, long intervalMillis)
+            throws IOException {
+        return new DurableContactService(logFile, policy, intervalMillis);
+    }
+
+    // Add a new contact and log it
+    // Throws error if contact is null or ID already exists
+    @Override
+    public void addContact(Contact contact) {
+        if (contact == null) {
+            throw new IllegalArgumentException("Contact is null or already exists.");
+        }
+        long sequence;
+        synchronized (lockFor(contact.getContactId())) {
+            if (containsContact(contact.getContactId())) {
+                throw new IllegalArgumentException("Contact is null or already exists.");
+            }
+            sequence = log.append(encode(ADD, contact.getContactId(), contact.getFirstName(),
+                    contact.getLastName(), contact.getPhone(), contact.getAddress()));
+            super.addContact(contact);
+        }
+        log.awaitDurable(sequence);
+    }
+
+    // Remove a contact and log it
+    // Throws error if the contact ID doesn't exist
+    @Override
+    public void deleteContact(String contactId) {
+        if (contactId == null) {
+            throw new IllegalArgumentException("Contact ID not found.");
+        }
+        long sequence;
+        synchronized (lockFor(contactId)) {
+            if (!containsContact(contactId)) {
+                throw new IllegalArgumentException("Contact ID not found.");
+            }
+            sequence = log.append(encode(DELETE, contactId));
+            super.deleteContact(contactId);
+        }
+        log.awaitDurable(sequence);
+    }
+
+    // Update a contact's first name and log it
+    @Override
+    public void updateFirstName(String contactId, String newFirstName) {
+        logUpdate(ContactField.FIRST_NAME, contactId, newFirstName);
+    }
+
+    // Update a contact's last name and log it
+    @Override
+    public void updateLastName(String contactId, String newLastName) {
+        logUpdate(ContactField.LAST_NAME, contactId, newLastName);
+    }
+
+    // Update a contact's phone number and log it
+    @Override
+    public void updatePhone(String contactId, String newPhone) {
+        logUpdate(ContactField.PHONE, contactId, newPhone);
+    }
+
+    // Update a contact's address and log it
+    @Override
+    public void updateAddress(String contactId, String newAddress) {
+        logUpdate(ContactField.ADDRESS, contactId, newAddress);
+    }
+
+    // Change several fields of a contact and write them as one log record
+    // The record holds the four fields as they are after the patch, so replay sets them all at once
+    @Override
+    public void applyPatch(String contactId, ContactPatch patch) {
+        ContactPatch.check(patch);
+        if (contactId == null) {
+            throw new IllegalArgumentException("Contact not found.");
+        }
+        long sequence;
+        synchronized (lockFor(contactId)) {
+            Contact contact = getContactById(contactId);
+            sequence = log.append(encodePatch(contactId, contact, patch));
+            patch.applyTo(contact);
+        }
+        log.awaitDurable(sequence);
+    }
+
+    // Apply a patch only if the contact is still at the expected version, and log it
+    // A stale version changes nothing and writes nothing to the log
+    @Override
+    public boolean compareAndUpdate(String contactId, long expectedVersion, ContactPatch patch) {
+        ContactPatch.check(patch);
+        if (contactId == null) {
+            throw new IllegalArgumentException("Contact not found.");
+        }
+        long sequence;
+        synchronized (lockFor(contactId)) {
+            Contact contact = getContactById(contactId);
+            if (contact.getVersion() != expectedVersion) {
+                return false;
+            }
+            // Every mutation holds this lock, so the version can't move before the change below
+            sequence = log.append(encodePatch(contactId, contact, patch));
+            super.compareAndUpdate(contactId, expectedVersion, patch);
+        }
+        log.awaitDurable(sequence);
+        return true;
+    }
+
+    // Delete a contact only if it is still at the expected version, and log it
+    @Override
+    public boolean compareAndDelete(String contactId, long expectedVersion) {
+        if (contactId == null) {
+            throw new IllegalArgumentException("Contact ID not found.");
+        }
+        long sequence;
+        synchronized (lockFor(contactId)) {
+            if (getContactById(contactId).getVersion() != expectedVersion) {
+                return false;
+            }
+            sequence = log.append(encode(DELETE, contactId));
+            super.compareAndDelete(contactId, expectedVersion);
+        }
+        log.awaitDurable(sequence);
+        return true;
+    }
+
+    // Apply a group of changes all together and write them to the log as one record
+    // (see ContactService.applyBatch). Every stripe lock the batch touches is taken in stripe order,
+    // so two batches can't deadlock, and held while the items are checked, applied and logged.
+    // Other mutations of those contacts wait for the whole batch. Reads never lock, so a reader
+    // may see a batch half applied, but replay always applies a logged batch whole.
+    // Throws ContactBatchException naming the first failing item - nothing is applied or logged
+    @Override
+    public void applyBatch(ContactBatch batch) {
+        List<ContactBatch.Item> items = ContactBatch.check(batch).items();
+        if (items.isEmpty()) {
+            return;
+        }
+        long[] sequence = new long[1];
+        withStripes(stripesOf(items), 0, () -> sequence[0] = applyLockedBatch(items));
+        log.awaitDurable(sequence[0]);
+    }
+
+    // Flush the log and close its file
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+
+    // Number of fsyncs the log has done - lets benchmarks show how well group commit batches
+    long syncCount() {
+        return log.syncCount();
+    }
+
+    // Validate one update, log it, then apply it
+    // The lookup happens under the lock too, so an update can never be logged after its contact's delete
+    private void logUpdate(ContactField field, String contactId, String value) {
+        if (contactId == null) {
+            throw new IllegalArgumentException("Contact not found.");
+        }
+        byte type = updateType(field);
+        long sequence;
+        synchronized (lockFor(contactId)) {
+            Contact contact = getContactById(contactId);
+            field.check(value);
+            sequence = log.append(encode(type, contactId, value));
+            applyUpdate(type, contact, value);
+        }
+        log.awaitDurable(sequence);
+    }
+
+    // PATCH record with the four fields as they will be once the patch is applied
+    private static byte[] encodePatch(String contactId, Contact contact, ContactPatch patch) {
+        return encode(PATCH, contactId,
+                patch.getFirstName() != null ? patch.getFirstName() : contact.getFirstName(),
+                patch.getLastName() != null ? patch.getLastName() : contact.getLastName(),
+                patch.getPhone() != null ? patch.getPhone() : contact.getPhone(),
+                patch.getAddress() != null ? patch.getAddress() : contact.getAddress());
+    }
+
+    // Check and log a batch, then apply it - the caller holds every stripe lock it touches
+    private long applyLockedBatch(List<ContactBatch.Item> items) {
+        // Each item is checked and logged against the contact as the earlier items leave it,
+        // kept here as a copy (null once deleted) so nothing real changes until the append succeeds
+        Map<String, Contact> after = new HashMap<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * items.size());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(BATCH);
+            out.writeInt(items.size());
+            for (ContactBatch.Item item : items) {
+                byte[] record = recordFor(item, after);
+                out.writeInt(record.length);
+                out.write(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Can't happen with a ByteArrayOutputStream
+        }
+        long sequence = log.append(bytes.toByteArray());
+        for (ContactBatch.Item item : items) {
+            applyItem(item);
+        }
+        return sequence;
+    }
+
+    // Check one batch item and return its log record
+    // Throws ContactBatchException when the item's contact is missing, or already there for an add
+    private byte[] recordFor(ContactBatch.Item item, Map<String, Contact> after) {
+        String contactId = item.contactId;
+        Contact contact = after.containsKey(contactId) ? after.get(contactId)
+                : containsContact(contactId) ? copyOf(getContactById(contactId)) : null;
+        if (item.type == ContactBatch.Item.ADD) {
+            if (contact != null) {
+                throw new ContactBatchException(item.index, ContactStatus.ALREADY_EXISTS);
+            }
+            Contact added = item.contact;
+            after.put(contactId, copyOf(added));
+            return encode(ADD, contactId, added.getFirstName(), added.getLastName(), added.getPhone(),
+                    added.getAddress());
+        }
+        if (contact == null) {
+            throw new ContactBatchException(item.index, ContactStatus.NOT_FOUND);
+        }
+        switch (item.type) {
+            case ContactBatch.Item.DELETE:
+                after.put(contactId, null);
+                return encode(DELETE, contactId);
+            case ContactBatch.Item.UPDATE:
+                byte type = updateType(item.field);
+                applyUpdate(type, contact, item.value);
+                after.put(contactId, contact);
+                return encode(type, contactId, item.value);
+            default:
+                byte[] record = encodePatch(contactId, contact, item.patch);
+                item.patch.applyTo(contact);
+                after.put(contactId, contact);
+                return record;
+        }
+    }
+
+    // Apply one checked and logged batch item through ConcurrentContactService
+    private void applyItem(ContactBatch.Item item) {
+        switch (item.type) {
+            case ContactBatch.Item.ADD:
+                super.addContact(item.contact);
+                break;
+            case ContactBatch.Item.DELETE:
+                super.deleteContact(item.contactId);
+                break;
+            case ContactBatch.Item.UPDATE:
+                applyUpdate(updateType(item.field), getContactById(item.contactId), item.value);
+                break;
+            default:
+                item.patch.applyTo(getContactById(item.contactId));
+                break;
+        }
+    }
+
+    private static Contact copyOf(Contact contact) {
+        return new Contact(contact.getContactId(), contact.getFirstName(), contact.getLastName(),
+                contact.getPhone(), contact.getAddress());
+    }
+
+    private static byte updateType(ContactField field) {
+        switch (field) {
+            case FIRST_NAME:
+                return FIRST_NAME;
+            case LAST_NAME:
+                return LAST_NAME;
+            case PHONE:
+                return PHONE;
+            default:
+                return ADDRESS;
+        }
+    }
+
+    private static void applyUpdate(byte type, Contact contact, String value) {
+        switch (type) {
+            case FIRST_NAME:
+                contact.setFirstName(value);
+                break;
+            case LAST_NAME:
+                contact.setLastName(value);
+                break;
+            case PHONE:
+                contact.setPhone(value);
+                break;
+            case ADDRESS:
+                contact.setAddress(value);
+                break;
+            default:
+                throw new IllegalStateException("Unknown update type " + type);
+        }
+    }
+
+    // Replay one log record - calls the ConcurrentContactService methods directly so nothing is logged again
+    private void applyRecord(ByteBuffer record) {
+        if (record.get(record.position()) == BATCH) {
+            record.get();
+            int count = record.getInt();
+            for (int i = 0; i < count; i++) {
+                int length = record.getInt();
+                applyRecord(ByteBuffer.wrap(record.array(), record.arrayOffset() + record.position(), length));
+                record.position(record.position() + length);
+            }
+            return;
+        }
+        byte type = record.get();
+        String contactId = readString(record);
+        switch (type) {
+            case ADD:
+                super.addContact(new Contact(contactId, readString(record), readString(record),
+                        readString(record), readString(record)));
+                break;
+            case DELETE:
+                super.deleteContact(contactId);
+                break;
+            case PATCH:
+                new ContactPatch().setFirstName(readString(record)).setLastName(readString(record))
+                        .setPhone(readString(record)).setAddress(readString(record))
+                        .applyTo(getContactById(contactId));
+                break;
+            default:
+                applyUpdate(type, getContactById(contactId), readString(record));
+                break;
+        }
+    }
+
+    // Record layout: type byte, then each String as an unsigned short byte count and its UTF-8 bytes
+    static byte[] encode(byte type, String... values) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            for (String value : values) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(utf8.length);
+                out.write(utf8);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Can't happen with a ByteArrayOutputStream
+        }
+        return bytes.toByteArray();
+    }
+
+    static String readString(ByteBuffer record) {
+        int length = record.getShort() & 0xFFFF;
+        String value = new String(record.array(), record.arrayOffset() + record.position(), length,
+                StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+}
\ No newline at end of file
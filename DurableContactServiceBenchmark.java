@@ -0,0 +1,53 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Write throughput benchmark for DurableContactService
+// Runs the same concurrent update workload under each DurabilityPolicy and prints
+// updates per second and how many updates each fsync covered
+// Usage: java ContactService.DurableContactServiceBenchmark [threads] [updatesPerThread]
+public class DurableContactServiceBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        System.out.printf("%-14s %14s %10s %14s%n", "policy", "updates/sec", "fsyncs", "updates/fsync");
+        for (DurabilityPolicy policy : DurabilityPolicy.values()) {
+            Path log = Files.createTempFile("contacts", ".wal");
+            try (DurableContactService service = DurableContactService.open(log, policy, 10)) {
+                for (int i = 0; i < threads; i++) {
+                    service.addContact(ConcurrentContactServiceBenchmark.newContact(i));
+                }
+                long syncsBefore = service.syncCount();
+                AtomicInteger counter = new AtomicInteger();
+                Thread[] workers = new Thread[threads];
+                long start = System.nanoTime();
+                for (int t = 0; t < threads; t++) {
+                    String id = Integer.toString(t);
+                    workers[t] = new Thread(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            service.updateAddress(id, counter.incrementAndGet() + " Main St");
+                        }
+                    });
+                    workers[t].start();
+                }
+                for (Thread worker : workers) {
+                    worker.join();
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                long syncs = service.syncCount() - syncsBefore;
+                int updates = threads * perThread;
+                System.out.printf("%-14s %14.0f %10d %14.1f%n", policy, updates / seconds, syncs,
+                        syncs == 0 ? 0.0 : updates / (double) syncs);
+            } finally {
+                Files.deleteIfExists(log);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,252 @@
+// Roger Fisher 8/8/2025
+
+package ContactService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// This class tests DurableContactService and its write-ahead log
+// Each test writes through one service, closes it, and checks a freshly opened service sees the same contacts
+public class DurableContactServiceTest {
+
+    @TempDir
+    Path tempDir;   // JUnit gives every test its own empty folder
+
+    // Test that every kind of mutation is replayed
+    @Test
+    public void testReplayRebuildsState() throws IOException {
+        Path log = tempDir.resolve("contacts.wal");
+        try (DurableContactService service = DurableContactService.open(log, DurabilityPolicy.PER_OPERATION)) {
+            service.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+            service.addContact(new Contact("002", "John", "Smith", "5559876543", "789 Oak Rd"));
+            service.updateFirstName("001", "Janet");
+            service.updateLastName("001", "Jones");
+            service.updatePhone("001", "5550000000");
+            service.updateAddress("001", "1 New Rd");
+            service.deleteContact("002");
+        }
+        try (DurableContactService service = DurableContactService.open(log, DurabilityPolicy.PER_OPERATION)) {
+            assertEquals(1, service.size());
+            Contact contact = service.getContactById("001");
+            assertEquals("Janet", contact.getFirstName());
+            assertEquals("Jones", contact.getLastName());
+            assertEquals("5550000000", contact.getPhone());
+            assertEquals("1 New Rd", contact.getAddress());
+            assertFalse(service.containsContact("002"));
+        }
+    }
+
+    // Test that failed mutations are not logged
+    @Test
+    public void testFailedMutationsAreNotLogged() throws IOException {
+        Path log = tempDir.resolve("contacts.wal");
+        try (DurableContactService service = DurableContactService.open(log, DurabilityPolicy.PER_BATCH)) {
+            service.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+            long size = Files.size(log);
+            assertThrows(IllegalArgumentException.class,
+                    () -> service.addContact(new Contact("001", "Dup", "Doe", "5551234567", "x")));
+            assertThrows(IllegalArgumentException.class, () -> service.updatePhone("001", "123"));
+            assertThrows(IllegalArgumentException.class, () -> service.deleteContact("999"));
+            assertThrows(IllegalArgumentException.class, () -> service.updateFirstName(null, "X"));
+            assertEquals(size, Files.size(log));
+        }
+    }
+
+    // Test that a record torn by a crash is dropped and new records still replay after it
+    @Test
+    public void testTornTailIsTruncated() throws IOException {
+        Path log = tempDir.resolve("contacts.wal");
+        try (DurableContactService service = DurableContactService.open(log, DurabilityPolicy.PER_OPERATION)) {
+            service.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+            service.addContact(new Contact("002", "John", "Smith", "5559876543", "789 Oak Rd"));
+        }
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);   // Cut the second record in half
+        }
+        try (DurableContactService service = DurableContactService.open(log, DurabilityPolicy.PER_OPERATION)) {
+            assertTrue(service.containsContact("001"));
+            assertFalse(service.containsContact("002"));
+            service.addContact(new Contact("003", "Ann", "Lee", "5551112222", "3 Pine St"));
+        }
+        try (DurableContactService service = DurableContactService.open(log, DurabilityPolicy.PER_OPERATION)) {
+            assertEquals(2, service.size());
+            assertTrue(service.containsContact("003"));
+        }
+    }
+
+    // Test that concurrent writers all get replayed and share fsyncs under PER_BATCH
+    @Test
+    public void testGroupCommitWithConcurrentWriters() throws Exception {
+        Path log = tempDir.resolve("contacts.wal");
+        int threads = 8;
+        int perThread = 200;
+        long syncs;
+        try (DurableContactService service = DurableContactService.open(log, DurabilityPolicy.PER_BATCH)) {
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                int base = t * perThread;
+                workers[t] = new Thread(() -> {
+                    for (int i = base; i < base + perThread; i++) {
+                        service.addContact(ConcurrentContactServiceBenchmark.newContact(i));
+                        service.updateFirstName(Integer.toString(i), "Updated");
+                    }
+                });
+                workers[t].start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            syncs = service.syncCount();
+        }
+        assertTrue(syncs <= threads * perThread * 2);
+        try (DurableContactService service = DurableContactService.open(log, DurabilityPolicy.PER_BATCH)) {
+            assertEquals(threads * perThread, service.size());
+            assertEquals("Updated", service.getContactById("1234").getFirstName());
+        }
+    }
+
+    // Test that TIME_BASED flushes everything on close
+    @Test
+    public void testTimeBasedFlushesOnClose() throws IOException {
+        Path log = tempDir.resolve("contacts.wal");
+        try (DurableContactService service = DurableContactService.open(log, DurabilityPolicy.TIME_BASED, 1000)) {
+            service.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+        }
+        try (DurableContactService service = DurableContactService.open(log, DurabilityPolicy.TIME_BASED, 1000)) {
+            assertTrue(service.containsContact("001"));
+        }
+    }
+
+    // Test that TIME_BASED needs a positive interval and a policy is required
+    @Test
+    public void testInvalidPolicySettings() {
+        Path log = tempDir.resolve("contacts.wal");
+        assertThrows(IllegalArgumentException.class, () -> DurableContactService.open(log, DurabilityPolicy.TIME_BASED));
+        assertThrows(IllegalArgumentException.class, () -> DurableContactService.open(log, null));
+    }
+
+    // Test that a patch is written as one log record and replayed in full
+    @Test
+    public void testPatchIsOneRecord() throws IOException {
+        Path log = tempDir.resolve("contacts.wal");
+        try (DurableContactService service = DurableContactService.open(log, DurabilityPolicy.PER_OPERATION)) {
+            service.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+            long syncs = service.syncCount();
+            service.applyPatch("001", new ContactPatch().setFirstName("Janet").setLastName("Jones")
+                    .setPhone("5550000000").setAddress("1 New Rd"));
+            assertEquals(syncs + 1, service.syncCount());
+            assertThrows(IllegalArgumentException.class, () -> service.applyPatch("002", new ContactPatch()));
+        }
+        try (DurableContactService service = DurableContactService.open(log, DurabilityPolicy.PER_OPERATION)) {
+            Contact contact = service.getContactById("001");
+            assertEquals("Janet", contact.getFirstName());
+            assertEquals("Jones", contact.getLastName());
+            assertEquals("5550000000", contact.getPhone());
+            assertEquals("1 New Rd", contact.getAddress());
+        }
+    }
+
+    // Test that only successful compare-and-set calls are logged, and versions match after replay
+    @Test
+    public void testCompareAndSetIsLogged() throws IOException {
+        Path log = tempDir.resolve("contacts.wal");
+        long version;
+        try (DurableContactService service = DurableContactService.open(log, DurabilityPolicy.PER_OPERATION)) {
+            service.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+            service.addContact(new Contact("002", "John", "Smith", "5559876543", "789 Oak Rd"));
+            service.updateAddress("001", "1 New Rd");
+            long syncs = service.syncCount();
+            assertFalse(service.compareAndUpdate("001", 0, new ContactPatch().setPhone("5550000000")));
+            assertFalse(service.compareAndDelete("002", 5));
+            assertEquals(syncs, service.syncCount());
+            assertTrue(service.compareAndUpdate("001", 1, new ContactPatch().setPhone("5550000000")));
+            assertTrue(service.compareAndDelete("002", 0));
+            version = service.getContactById("001").getVersion();
+        }
+        try (DurableContactService service = DurableContactService.open(log, DurabilityPolicy.PER_OPERATION)) {
+            assertEquals(1, service.size());
+            assertEquals("5550000000", service.getContactById("001").getPhone());
+            assertEquals(version, service.getContactById("001").getVersion());
+        }
+    }
+
+    // Test that a batch is logged as one record and replayed whole, and a failed batch isn't logged
+    @Test
+    public void testBatchIsOneRecord() throws IOException {
+        Path log = tempDir.resolve("contacts.wal");
+        try (DurableContactService service = DurableContactService.open(log, DurabilityPolicy.PER_OPERATION)) {
+            service.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+            long syncs = service.syncCount();
+            service.applyBatch(new ContactBatch()
+                    .add(new Contact("002", "John", "Smith", "5559876543", "789 Oak Rd"))
+                    .updatePhone("001", "5550000000")
+                    .applyPatch("002", new ContactPatch().setAddress("1 New Rd"))
+                    .delete("001"));
+            assertEquals(syncs + 1, service.syncCount());
+
+            long size = Files.size(log);
+            assertThrows(ContactBatchException.class, () -> service.applyBatch(new ContactBatch()
+                    .updateFirstName("002", "Jo")
+                    .delete("001")));
+            assertEquals(size, Files.size(log));
+            assertEquals("John", service.getContactById("002").getFirstName());
+        }
+        try (DurableContactService service = DurableContactService.open(log, DurabilityPolicy.PER_OPERATION)) {
+            assertEquals(1, service.size());
+            assertFalse(service.containsContact("001"));
+            assertEquals("1 New Rd", service.getContactById("002").getAddress());
+        }
+    }
+
+    // Test that a failed write fails the log for good and leaves later mutations unapplied
+    // An interrupt during the write closes the channel, which is a real I/O failure
+    @Test
+    public void testFailedWriteFailsTheLog() throws IOException {
+        Path log = tempDir.resolve("contacts.wal");
+        DurableContactService service = DurableContactService.open(log, DurabilityPolicy.PER_BATCH);
+        service.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(UncheckedIOException.class,
+                    () -> service.addContact(new Contact("002", "John", "Smith", "5559876543", "789 Oak Rd")));
+        } finally {
+            Thread.interrupted();
+        }
+        assertThrows(UncheckedIOException.class,
+                () -> service.addContact(new Contact("003", "Ann", "Lee", "5551112222", "1 Road")));
+        assertThrows(UncheckedIOException.class, () -> service.updateFirstName("001", "Changed"));
+        assertFalse(service.containsContact("003"));
+        assertEquals("Jane", service.getContactById("001").getFirstName());
+        assertThrows(IOException.class, service::close);
+
+        try (DurableContactService reopened = DurableContactService.open(log, DurabilityPolicy.PER_BATCH)) {
+            assertEquals(1, reopened.size());
+            assertTrue(reopened.containsContact("001"));
+        }
+    }
+
+    // Test that a mutation after close is rejected before it changes anything
+    @Test
+    public void testMutationAfterCloseChangesNothing() throws IOException {
+        Path log = tempDir.resolve("contacts.wal");
+        DurableContactService service = DurableContactService.open(log, DurabilityPolicy.PER_BATCH);
+        service.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+        service.close();
+        assertThrows(IllegalStateException.class,
+                () -> service.addContact(new Contact("002", "John", "Smith", "5559876543", "789 Oak Rd")));
+        assertThrows(IllegalStateException.class, () -> service.deleteContact("001"));
+        assertThrows(IllegalStateException.class,
+                () -> service.applyPatch("001", new ContactPatch().setFirstName("Changed")));
+        assertFalse(service.containsContact("002"));
+        assertEquals("Jane", service.getContactById("001").getFirstName());
+    }
+}
\ No newline at end of file
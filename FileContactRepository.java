@@ -0,0 +1,202 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+// Keeps contacts in a file instead of on the heap, so a ContactService can hold more contacts
+// than fit in memory. Put a CachingContactRepository in front of it to keep the contacts in use
+// on the heap. Every read decodes a new Contact from the file.
+//
+// Each contact takes one fixed 80 byte record: the 72 byte ContactSlots layout followed by the
+// contact's version, so compare-and-set still works after a contact was read back from disk.
+// Freed records are reused. Only the ID index (ContactIdIntIndex of int record numbers, no boxing)
+// is on the heap.
+// Contacts with characters above 255 in any text field can't use a record, so those few are
+// kept on the heap in a small overflow map instead, like OffHeapContactService does.
+//
+// The file is working storage, not a saved copy - it starts empty and is deleted on close.
+// Use DurableContactService for contacts that must survive a restart.
+public class FileContactRepository implements ContactRepository, AutoCloseable {
+
+    static final int RECORD_SIZE = ContactSlots.SLOT_SIZE + 8;
+    private static final int VERSION = ContactSlots.SLOT_SIZE;
+
+    // Records read at once by forEach - about 64 KB
+    private static final int SCAN_RECORDS = 819;
+
+    private final FileChannel channel;
+    private final ContactIdIntIndex records = new ContactIdIntIndex();
+    private final HashMap<String, Contact> overflow = new HashMap<>();
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private int recordCount;                // Records handed out so far (used or freed)
+    private int[] freeRecords = new int[16];
+    private int freeCount;
+
+    // Create the file, replacing any file already at that path
+    public FileContactRepository(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+    }
+
+    @Override
+    public Contact get(String contactId) {
+        int number = records.get(contactId);
+        if (number == ContactIdIntIndex.MISSING) {
+            return overflow.isEmpty() ? null : overflow.get(contactId);
+        }
+        readRecord(number);
+        return decode(record, 0);
+    }
+
+    @Override
+    public boolean contains(String contactId) {
+        return records.containsKey(contactId) || (!overflow.isEmpty() && overflow.containsKey(contactId));
+    }
+
+    @Override
+    public void insert(Contact contact) {
+        if (!ContactSlots.fits(contact)) {
+            overflow.put(contact.getContactId(), contact);
+            return;
+        }
+        int number = freeCount > 0 ? freeRecords[--freeCount] : recordCount++;
+        writeRecord(number, contact);
+        records.put(contact.getContactId(), number);
+    }
+
+    // An update can give a contact text that no longer fits a record - it moves to the overflow map
+    @Override
+    public void update(Contact contact) {
+        String contactId = contact.getContactId();
+        int number = records.get(contactId);
+        if (number == ContactIdIntIndex.MISSING) {
+            if (!overflow.containsKey(contactId)) {
+                throw new IllegalArgumentException("Contact not found.");
+            }
+            overflow.put(contactId, contact);
+        } else if (ContactSlots.fits(contact)) {
+            writeRecord(number, contact);
+        } else {
+            records.remove(contactId);
+            freeRecord(number);
+            overflow.put(contactId, contact);
+        }
+    }
+
+    @Override
+    public Contact remove(String contactId) {
+        int number = records.remove(contactId);
+        if (number == ContactIdIntIndex.MISSING) {
+            return overflow.isEmpty() ? null : overflow.remove(contactId);
+        }
+        readRecord(number);
+        Contact contact = decode(record, 0);
+        freeRecord(number);
+        return contact;
+    }
+
+    @Override
+    public int size() {
+        return records.size() + overflow.size();
+    }
+
+    // Reads the file front to back in large blocks, so a full scan costs sequential I/O
+    // The action must not change the repository
+    @Override
+    public void forEach(Consumer<Contact> action) {
+        ByteBuffer block = ByteBuffer.allocate(RECORD_SIZE * SCAN_RECORDS);
+        for (int first = 0; first < recordCount; first += SCAN_RECORDS) {
+            int count = Math.min(SCAN_RECORDS, recordCount - first);
+            block.clear().limit(count * RECORD_SIZE);
+            readFully(block, (long) first * RECORD_SIZE);
+            for (int i = 0; i < count; i++) {
+                if (!ContactSlots.isFree(block, i * RECORD_SIZE)) {
+                    action.accept(decode(block, i * RECORD_SIZE));
+                }
+            }
+        }
+        overflow.values().forEach(action);
+    }
+
+    @Override
+    public boolean holdsAllInMemory() {
+        return false;
+    }
+
+    // Size of the file in bytes
+    public long fileSize() {
+        return (long) recordCount * RECORD_SIZE;
+    }
+
+    // Close and delete the file
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Record helpers
+
+    private static Contact decode(ByteBuffer buffer, int offset) {
+        return new Contact(ContactSlots.readText(buffer, offset, ContactSlots.ID),
+                ContactSlots.readText(buffer, offset, ContactSlots.FIRST_NAME),
+                ContactSlots.readText(buffer, offset, ContactSlots.LAST_NAME),
+                ContactSlots.readPhone(buffer, offset),
+                ContactSlots.readText(buffer, offset, ContactSlots.ADDRESS),
+                buffer.getLong(offset + VERSION));
+    }
+
+    private void writeRecord(int number, Contact contact) {
+        record.clear();
+        ContactSlots.write(record, 0, contact);
+        record.putLong(VERSION, contact.getVersion());
+        writeFully(record, (long) number * RECORD_SIZE);
+    }
+
+    private void readRecord(int number) {
+        record.clear();
+        readFully(record, (long) number * RECORD_SIZE);
+    }
+
+    // Mark the record unused and keep its number for the next insert
+    private void freeRecord(int number) {
+        record.clear();
+        ContactSlots.markFree(record, 0);
+        record.limit(1);
+        writeFully(record, (long) number * RECORD_SIZE);
+        if (freeCount == freeRecords.length) {
+            freeRecords = Arrays.copyOf(freeRecords, freeCount * 2);
+        }
+        freeRecords[freeCount++] = number;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) {
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the contact file.", e);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) {
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of contact file.");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the contact file.", e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,144 @@
+// Roger Fisher 8/8/2025
+
+package ContactService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// This class tests FileContactRepository on its own
+public class FileContactRepositoryTest {
+
+    @TempDir
+    Path tempDir;                          // JUnit gives every test its own empty folder
+
+    private Path file;
+    private FileContactRepository repository;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        file = tempDir.resolve("contacts.dat");
+        repository = new FileContactRepository(file);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        repository.close();
+    }
+
+    // Test that a contact comes back from the file with every field and its version
+    @Test
+    public void testReadBackKeepsFieldsAndVersion() {
+        Contact contact = new Contact("001", "Jane", "Doe", "0051234567", "456 Elm St");
+        contact.setAddress("1 Oak Ave");
+        repository.insert(contact);
+
+        Contact read = repository.get("001");
+        assertNotSame(contact, read);
+        assertEquals("Jane", read.getFirstName());
+        assertEquals("Doe", read.getLastName());
+        assertEquals("0051234567", read.getPhone());
+        assertEquals("1 Oak Ave", read.getAddress());
+        assertEquals(1, read.getVersion());
+        assertTrue(repository.contains("001"));
+        assertNull(repository.get("002"));
+    }
+
+    // Test that updates are written to the file and removed records are reused
+    @Test
+    public void testUpdateRemoveAndReuse() {
+        repository.insert(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+        repository.insert(new Contact("002", "John", "Roe", "5559876543", "1 Oak Ave"));
+        Contact read = repository.get("002");
+        read.setPhone("5550000000");
+        repository.update(read);
+        assertEquals("5550000000", repository.get("002").getPhone());
+
+        assertEquals("Jane", repository.remove("001").getFirstName());
+        assertNull(repository.remove("001"));
+        long fileSize = repository.fileSize();
+        repository.insert(new Contact("003", "Ann", "Lee", "5551112222", "9 Pine Rd"));
+        assertEquals(fileSize, repository.fileSize());
+        assertEquals(2, repository.size());
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.update(new Contact("004", "Ann", "Lee", "5551112222", "9 Pine Rd")));
+    }
+
+    // Test that record numbers stay with their IDs while the index grows and removals shift its entries
+    @Test
+    public void testManyRecordsChurn() {
+        for (int i = 0; i < 5000; i++) {
+            repository.insert(new Contact("ID" + i, "F" + i, "L", "5551234567", "Road"));
+        }
+        for (int i = 0; i < 5000; i += 3) {
+            assertEquals("F" + i, repository.remove("ID" + i).getFirstName());
+        }
+        for (int i = 0; i < 5000; i++) {
+            Contact contact = repository.get("ID" + i);
+            if (i % 3 == 0) {
+                assertNull(contact);
+            } else {
+                assertEquals("F" + i, contact.getFirstName());
+            }
+        }
+        assertEquals(5000 - 1667, repository.size());
+        assertEquals(5000L * FileContactRepository.RECORD_SIZE, repository.fileSize());
+    }
+
+    // Test that contacts with text above Latin-1 are kept in memory, even when an update moves them there
+    @Test
+    public void testNonLatin1Overflow() {
+        Contact wide = new Contact("\u4e2d1", "\u674e", "Wang", "5550001111", "1 Road");
+        repository.insert(wide);
+        assertSame(wide, repository.get("\u4e2d1"));
+
+        repository.insert(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+        Contact read = repository.get("001");
+        read.setFirstName("\u674e");
+        repository.update(read);
+        assertSame(read, repository.get("001"));
+        assertEquals(2, repository.size());
+        assertSame(read, repository.remove("001"));
+        assertEquals(1, repository.size());
+    }
+
+    // Test that forEach visits every stored contact once, across several read blocks
+    @Test
+    public void testForEachVisitsEveryContact() {
+        for (int i = 0; i < 2000; i++) {
+            repository.insert(new Contact("ID" + i, "F" + i, "L" + i, String.format("%010d", i), i + " Road"));
+        }
+        repository.remove("ID5");
+        repository.insert(new Contact("\u4e2d1", "\u674e", "Wang", "5550001111", "1 Road"));
+
+        List<String> ids = new ArrayList<>();
+        repository.forEach(contact -> ids.add(contact.getContactId()));
+        assertEquals(2000, ids.size());
+        assertFalse(ids.contains("ID5"));
+        assertTrue(ids.contains("ID1999"));
+        assertTrue(ids.contains("\u4e2d1"));
+    }
+
+    // Test that the file starts empty and is deleted on close
+    @Test
+    public void testFileIsWorkingStorage() throws IOException {
+        repository.insert(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+        repository.close();
+        assertFalse(Files.exists(file));
+
+        Files.write(file, new byte[] {1, 2, 3});
+        repository = new FileContactRepository(file);
+        assertEquals(0, repository.size());
+        assertEquals(0, repository.fileSize());
+        assertNull(repository.get("001"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,161 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Puts a ContactIdFilter in front of another repository, so looking up an ID that doesn't exist
+// usually costs one filter check instead of a real lookup. That is the common case for
+// addContact, which checks that a new ID is free, and for deletes and reads of unknown IDs.
+// It pays off when the backing repository's lookups are expensive - a disk or remote store.
+//
+// The filter follows every insert and remove. When the repository grows past the size the
+// filter was built for, the filter is rebuilt twice as large from the backing repository, so the
+// false positive rate stays near the configured one.
+//
+// The filter isn't saved anywhere. A new FilteredContactRepository builds it with one scan of the
+// backing repository, so it can never be stale - a stale filter could answer "no" for a contact
+// that exists, the one mistake it must never make. FileContactRepository is working storage that
+// is deleted on close, so a saved filter would have nothing to be reused with.
+public class FilteredContactRepository implements ContactRepository {
+
+    private final ContactRepository backing;
+    private final double falsePositiveRate;
+    private ContactIdFilter filter;
+    private int capacity;
+
+    // Statistics - contains may run on several threads, so these are adders
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    // Build a filter over every contact already in the backing repository
+    public FilteredContactRepository(ContactRepository backing, int expectedContacts, double falsePositiveRate) {
+        if (backing == null) {
+            throw new IllegalArgumentException("Repository must not be null.");
+        }
+        this.backing = backing;
+        this.falsePositiveRate = falsePositiveRate;
+        rebuild(Math.max(expectedContacts, backing.size()));
+    }
+
+    @Override
+    public Contact get(String contactId) {
+        if (!mightContain(contactId)) {
+            return null;
+        }
+        Contact contact = backing.get(contactId);
+        if (contact == null) {
+            falsePositives.increment();
+        }
+        return contact;
+    }
+
+    @Override
+    public boolean contains(String contactId) {
+        if (!mightContain(contactId)) {
+            return false;
+        }
+        boolean found = backing.contains(contactId);
+        if (!found) {
+            falsePositives.increment();
+        }
+        return found;
+    }
+
+    @Override
+    public void insert(Contact contact) {
+        backing.insert(contact);
+        if (backing.size() > capacity) {
+            rebuild(capacity * 2);
+        } else {
+            filter.add(contact.getContactId());
+        }
+    }
+
+    @Override
+    public void update(Contact contact) {
+        backing.update(contact);
+    }
+
+    @Override
+    public Contact remove(String contactId) {
+        if (!mightContain(contactId)) {
+            return null;
+        }
+        Contact contact = backing.remove(contactId);
+        if (contact == null) {
+            falsePositives.increment();
+        } else {
+            filter.remove(contactId);
+        }
+        return contact;
+    }
+
+    @Override
+    public int size() {
+        return backing.size();
+    }
+
+    @Override
+    public void forEach(Consumer<Contact> action) {
+        backing.forEach(action);
+    }
+
+    @Override
+    public boolean holdsAllInMemory() {
+        return backing.holdsAllInMemory();
+    }
+
+    // Build a new filter for this many contacts from the backing repository
+    // Also clears any counters stuck at 15, so it can be run now and then after heavy churn
+    public void rebuild(int expectedContacts) {
+        ContactIdFilter rebuilt = new ContactIdFilter(Math.max(1, expectedContacts), falsePositiveRate);
+        backing.forEach(contact -> rebuilt.add(contact.getContactId()));
+        filter = rebuilt;
+        capacity = Math.max(1, expectedContacts);
+    }
+
+    // Statistics
+
+    // Lookups answered by the filter alone
+    public long getSkippedLookups() {
+        return skipped.sum();
+    }
+
+    // Lookups the filter let through for an ID that didn't exist
+    public long getFalsePositives() {
+        return falsePositives.sum();
+    }
+
+    // False positives as a share of all lookups of IDs that didn't exist
+    public double getObservedFalsePositiveRate() {
+        long misses = skipped.sum() + falsePositives.sum();
+        return misses == 0 ? 0 : falsePositives.sum() / (double) misses;
+    }
+
+    // Number of contacts the current filter was sized for
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getFilterBytes() {
+        return filter.sizeInBytes();
+    }
+
+    public void resetStatistics() {
+        skipped.reset();
+        falsePositives.reset();
+    }
+
+    private boolean mightContain(String contactId) {
+        if (contactId == null) {
+            return false;
+        }
+        if (filter.mightContain(contactId)) {
+            return true;
+        }
+        skipped.increment();
+        return false;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,122 @@
+// Roger Fisher 8/8/2025
+
+package ContactService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// This class tests ContactIdFilter and FilteredContactRepository in front of a FileContactRepository
+public class FilteredContactRepositoryTest {
+
+    @TempDir
+    Path tempDir;                          // JUnit gives every test its own empty folder
+
+    private FileContactRepository file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        file = new FileContactRepository(tempDir.resolve("contacts.dat"));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        file.close();
+    }
+
+    private static Contact newContact(int i) {
+        return new Contact("ID" + i, "F" + i, "L" + i, String.format("%010d", i), i + " Road");
+    }
+
+    // Test that every added ID passes the filter and about the configured share of other IDs do
+    @Test
+    public void testFilterHasNoFalseNegatives() {
+        ContactIdFilter filter = new ContactIdFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("ID" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("ID" + i));
+            if (filter.mightContain("X" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    // Test that removing an ID clears it without clearing other IDs
+    @Test
+    public void testFilterRemove() {
+        ContactIdFilter filter = new ContactIdFilter(100, 0.01);
+        filter.add("A");
+        filter.add("B");
+        filter.remove("A");
+        assertFalse(filter.mightContain("A"));
+        assertTrue(filter.mightContain("B"));
+    }
+
+    // Test that missing IDs are answered by the filter and found IDs by the backing repository
+    @Test
+    public void testSkipsLookupsOfMissingIds() {
+        FilteredContactRepository filtered = new FilteredContactRepository(file, 1000, 0.001);
+        filtered.insert(newContact(1));
+
+        assertTrue(filtered.contains("ID1"));
+        assertEquals("F1", filtered.get("ID1").getFirstName());
+        assertFalse(filtered.contains("ID2"));
+        assertNull(filtered.get("ID2"));
+        assertNull(filtered.remove("ID2"));
+        assertFalse(filtered.contains(null));
+        assertEquals(3, filtered.getSkippedLookups() + filtered.getFalsePositives());
+
+        assertNotNull(filtered.remove("ID1"));
+        assertFalse(filtered.contains("ID1"));
+        assertEquals(0, filtered.size());
+    }
+
+    // Test that a ContactService behaves the same on a filtered repository, including growth
+    @Test
+    public void testServiceOverFilteredRepository() {
+        FilteredContactRepository filtered = new FilteredContactRepository(file, 8, 0.01);
+        ContactService service = new ContactService(filtered);
+        for (int i = 0; i < 100; i++) {
+            service.addContact(newContact(i));
+        }
+        assertTrue(filtered.getCapacity() >= 100);
+        assertThrows(IllegalArgumentException.class, () -> service.addContact(newContact(5)));
+        service.deleteContact("ID5");
+        assertThrows(IllegalArgumentException.class, () -> service.deleteContact("ID5"));
+        service.updateFirstName("ID6", "Ann");
+        assertEquals("Ann", service.getContactById("ID6").getFirstName());
+        assertThrows(IllegalArgumentException.class, () -> service.getContactById("ID5"));
+        assertEquals(99, filtered.size());
+    }
+
+    // Test that a filter built over a repository that already has contacts starts with all of them,
+    // including contacts added to the repository directly
+    @Test
+    public void testBuiltFromExistingRepository() {
+        FilteredContactRepository filtered = new FilteredContactRepository(file, 1000, 0.01);
+        for (int i = 0; i < 50; i++) {
+            filtered.insert(newContact(i));
+        }
+        file.remove("ID0");                // Changed behind the first filter's back, same count
+        file.insert(newContact(99));
+
+        FilteredContactRepository rebuilt = new FilteredContactRepository(file, 1000, 0.01);
+        assertEquals(1000, rebuilt.getCapacity());
+        assertTrue(rebuilt.contains("ID99"));
+        assertNotNull(rebuilt.get("ID99"));
+        assertFalse(rebuilt.contains("ID0"));
+        for (int i = 1; i < 50; i++) {
+            assertTrue(rebuilt.contains("ID" + i));
+        }
+    }
+}
\ No newline at end of file
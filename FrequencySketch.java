@@ -0,0 +1,68 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+// Approximate access counts for the W-TinyLFU policy of CachingContactRepository
+// A count-min sketch of 4-bit counters, 16 to a long. Each key bumps one counter in each of
+// four rows and its frequency is the smallest of the four, so collisions can only make a key
+// look more popular, never less. Counts stop at 15, and once there have been ten additions per
+// cached entry every counter is halved, so keys that were popular long ago fade out.
+final class FrequencySketch {
+
+    // One odd multiplier per row, so each row spreads a key differently
+    private static final int[] SEEDS = {0x97cb3127, 0xb0f3ae27, 0x8fd52e47, 0xa83a5f35};
+    private static final long HALF_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    // Sized for a cache of this many entries
+    FrequencySketch(int maximumSize) {
+        int size = Integer.highestOneBit(Math.max(8, maximumSize) - 1) << 1;
+        table = new long[size];
+        mask = size - 1;
+        sampleSize = 10 * Math.max(1, maximumSize);
+    }
+
+    // Estimated number of recent accesses to the key with this hash, 0 to 15
+    int frequency(int hash) {
+        int frequency = 15;
+        for (int row = 0; row < 4; row++) {
+            int h = spread(hash, row);
+            frequency = Math.min(frequency, (int) (table[h >>> 4 & mask] >>> ((h & 15) << 2)) & 15);
+        }
+        return frequency;
+    }
+
+    // Count one access to the key with this hash
+    void increment(int hash) {
+        boolean added = false;
+        for (int row = 0; row < 4; row++) {
+            int h = spread(hash, row);
+            int index = h >>> 4 & mask;
+            int shift = (h & 15) << 2;
+            if ((table[index] >>> shift & 15) < 15) {
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    // Halve every counter
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = table[i] >>> 1 & HALF_MASK;
+        }
+        additions /= 2;
+    }
+
+    private static int spread(int hash, int row) {
+        int h = hash * SEEDS[row];
+        return h ^ h >>> 17;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.function.Consumer;
+
+// Keeps every contact on the heap in a ContactIdIndex - what a ContactService uses by default
+// The stored object is the one the service was given, so update has nothing to do.
+public class InMemoryContactRepository implements ContactRepository {
+
+    private final ContactIdIndex<Contact> contacts = new ContactIdIndex<>();
+
+    @Override
+    public Contact get(String contactId) {
+        return contacts.get(contactId);
+    }
+
+    @Override
+    public boolean contains(String contactId) {
+        return contacts.containsKey(contactId);
+    }
+
+    @Override
+    public void insert(Contact contact) {
+        contacts.put(contact.getContactId(), contact);
+    }
+
+    @Override
+    public void update(Contact contact) {
+        // The stored object is the one that changed
+    }
+
+    @Override
+    public Contact remove(String contactId) {
+        return contacts.remove(contactId);
+    }
+
+    @Override
+    public int size() {
+        return contacts.size();
+    }
+
+    @Override
+    public void forEach(Consumer<Contact> action) {
+        contacts.forEach(action);
+    }
+
+    @Override
+    public boolean holdsAllInMemory() {
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Sorted index of one name field for type-ahead search
+// Each entry's key is the lower-cased name, a \0 separator and the contact ID, so entries sort
+// by name and two contacts with the same name still get their own entry. All names starting
+// with a prefix sit next to each other in the TreeMap, so a prefix query is one O(log n) seek
+// followed by reading just the matches it returns.
+class NamePrefixIndex {
+
+    private static final char SEPARATOR = '\u0000';
+
+    private final TreeMap<String, Contact> entries = new TreeMap<>();
+
+    // Add a contact under the given name
+    void add(String name, Contact contact) {
+        entries.put(key(name, contact.getContactId()), contact);
+    }
+
+    // Remove a contact's entry for the given name
+    void remove(String name, Contact contact) {
+        entries.remove(key(name, contact.getContactId()));
+    }
+
+    // Walk the contacts whose name starts with the prefix (ignoring case), in name order
+    Iterator<Map.Entry<String, Contact>> startingWith(String prefix) {
+        String from = prefix.toLowerCase(Locale.ROOT);
+        return entries.subMap(from, true, from + Character.MAX_VALUE, false).entrySet().iterator();
+    }
+
+    // Number of entries in the index
+    int size() {
+        return entries.size();
+    }
+
+    // Sort key of one entry - also used to merge results from several indexes in the same order
+    static String key(String name, String contactId) {
+        return name.toLowerCase(Locale.ROOT) + SEPARATOR + contactId;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,62 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Latency benchmark for ContactService type-ahead search
+// Fills a service with generated names, then times random 1-3 letter prefix queries
+// and prints the p50, p99 and max latency
+// Usage: java ContactService.NamePrefixSearchBenchmark [contacts] [queries] [limit]
+public class NamePrefixSearchBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int limit = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        Random random = new Random(42);
+        ContactService service = new ContactService();
+        for (int i = 0; i < count; i++) {
+            service.addContact(new Contact(Integer.toString(i), randomName(random), randomName(random),
+                    String.format("%010d", i), i + " Main St"));
+        }
+
+        // Warm up so the JIT has compiled the search path before we measure
+        for (int i = 0; i < queries; i++) {
+            service.searchByNamePrefix(randomPrefix(random), limit);
+        }
+
+        long[] nanos = new long[queries];
+        long found = 0;
+        for (int i = 0; i < queries; i++) {
+            String prefix = randomPrefix(random);
+            long start = System.nanoTime();
+            found += service.searchByNamePrefix(prefix, limit).size();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%,d contacts, %,d queries, top %d, %.1f results per query%n",
+                count, queries, limit, found / (double) queries);
+        System.out.printf("p50 %8.1f us%np99 %8.1f us%nmax %8.1f us%n",
+                nanos[queries / 2] / 1e3, nanos[(int) (queries * 0.99)] / 1e3, nanos[queries - 1] / 1e3);
+    }
+
+    // A capitalized name of 3-10 letters
+    private static String randomName(Random random) {
+        char[] name = new char[3 + random.nextInt(8)];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = (char) ((i == 0 ? 'A' : 'a') + random.nextInt(26));
+        }
+        return new String(name);
+    }
+
+    private static String randomPrefix(Random random) {
+        char[] prefix = new char[1 + random.nextInt(3)];
+        for (int i = 0; i < prefix.length; i++) {
+            prefix[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(prefix);
+    }
+}
\ No newline at end of file
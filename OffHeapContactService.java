@@ -0,0 +1,327 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+
+// This class is a ContactService that keeps contacts outside the Java heap
+// Every contact is stored in a fixed 72 byte slot of a direct ByteBuffer (see ContactSlots)
+// and the ID index is an open-addressing table of slot numbers, also off-heap.
+// So millions of contacts cost the garbage collector almost nothing - no Contact, String
+// or HashMap.Node objects per contact. Contacts are decoded into a new Contact on demand.
+//
+// Contacts with characters above 255 in any text field can't use a byte-per-character slot,
+// so those few are kept on the heap in a small overflow map instead.
+public class OffHeapContactService {
+
+    // Default slots per chunk - 65536 slots is about 4.5 MB per direct buffer
+    private static final int DEFAULT_CHUNK_SHIFT = 16;
+
+    // The index table grows once it is this full
+    private static final double MAX_LOAD = 0.7;
+
+    // Slot storage - slot number s lives in chunk s >> chunkShift
+    // These fields are package-private so ContactSnapshotFile can save and restore them
+    final int chunkShift;
+    ByteBuffer[] chunks = new ByteBuffer[0];
+    int highWater;          // Slots handed out so far (used or freed)
+    int[] freeSlots = new int[16];
+    int freeCount;
+
+    // ID index - each 4 byte entry holds slot + 1, or 0 when empty
+    ByteBuffer table;
+    int tableCapacity;
+    int tableSize;
+
+    // Contacts that can't be stored in a slot (non Latin-1 text)
+    final HashMap<String, Contact> overflow = new HashMap<>();
+
+    // Create a store with the default chunk size
+    public OffHeapContactService() {
+        this(DEFAULT_CHUNK_SHIFT);
+    }
+
+    // Create a store whose chunks hold 2^chunkShift slots
+    OffHeapContactService(int chunkShift) {
+        if (chunkShift < 1 || chunkShift > 24) {
+            throw new IllegalArgumentException("Chunk shift must be between 1 and 24.");
+        }
+        this.chunkShift = chunkShift;
+        this.tableCapacity = 16;
+        this.table = ByteBuffer.allocateDirect(tableCapacity * 4);
+    }
+
+    // Add a new contact to the service
+    // Throws error if contact is null or ID already exists
+    public void addContact(Contact contact) {
+        if (contact == null || containsContact(contact.getContactId())) {
+            throw new IllegalArgumentException("Contact is null or already exists.");
+        }
+        if (!ContactSlots.fits(contact)) {
+            overflow.put(contact.getContactId(), contact);
+            return;
+        }
+        int slot = allocateSlot();
+        ContactSlots.write(chunkFor(slot), offsetFor(slot), contact);
+        insertIndex(slot, contact.getContactId().hashCode());
+    }
+
+    // Remove a contact from the service using their ID
+    // Throws error if the contact ID doesn't exist
+    public void deleteContact(String contactId) {
+        int index = findIndex(contactId);
+        if (index >= 0) {
+            int slot = table.getInt(index * 4) - 1;
+            removeIndex(index);
+            releaseSlot(slot);
+        } else if (contactId == null || overflow.remove(contactId) == null) {
+            throw new IllegalArgumentException("Contact ID not found.");
+        }
+    }
+
+    // Update Methods - each one validates the new value and rewrites just that field of the slot
+
+    // Update a contact's first name
+    public void updateFirstName(String contactId, String newFirstName) {
+        int slot = slotOrOverflow(contactId);
+        if (slot < 0) {
+            overflow.get(contactId).setFirstName(newFirstName);
+            return;
+        }
+        Contact contact = ContactSlots.read(chunkFor(slot), offsetFor(slot));
+        contact.setFirstName(newFirstName);
+        rewriteText(slot, contact, ContactSlots.FIRST_NAME, newFirstName);
+    }
+
+    // Update a contact's last name
+    public void updateLastName(String contactId, String newLastName) {
+        int slot = slotOrOverflow(contactId);
+        if (slot < 0) {
+            overflow.get(contactId).setLastName(newLastName);
+            return;
+        }
+        Contact contact = ContactSlots.read(chunkFor(slot), offsetFor(slot));
+        contact.setLastName(newLastName);
+        rewriteText(slot, contact, ContactSlots.LAST_NAME, newLastName);
+    }
+
+    // Update a contact's phone number
+    public void updatePhone(String contactId, String newPhone) {
+        int slot = slotOrOverflow(contactId);
+        if (slot < 0) {
+            overflow.get(contactId).setPhone(newPhone);
+            return;
+        }
+        ContactSlots.writePhone(chunkFor(slot), offsetFor(slot), newPhone); // pack() validates
+    }
+
+    // Update a contact's address
+    public void updateAddress(String contactId, String newAddress) {
+        int slot = slotOrOverflow(contactId);
+        if (slot < 0) {
+            overflow.get(contactId).setAddress(newAddress);
+            return;
+        }
+        Contact contact = ContactSlots.read(chunkFor(slot), offsetFor(slot));
+        contact.setAddress(newAddress);
+        rewriteText(slot, contact, ContactSlots.ADDRESS, newAddress);
+    }
+
+    // Find a contact by their ID and decode it into a new Contact object
+    // The returned Contact is a copy - use the update methods to change the stored contact
+    // Overflow contacts are copied too, so both kinds behave the same
+    // Throws error if the contact doesn't exist
+    public Contact getContactById(String contactId) {
+        int slot = slotOrOverflow(contactId);
+        if (slot < 0) {
+            Contact stored = overflow.get(contactId);
+            return new Contact(stored.getContactId(), stored.getFirstName(), stored.getLastName(),
+                    stored.getPhone(), stored.getAddress(), stored.getVersion());
+        }
+        return ContactSlots.read(chunkFor(slot), offsetFor(slot));
+    }
+
+    // Read just the phone number of a contact without decoding the other fields
+    public String getPhone(String contactId) {
+        int slot = slotOrOverflow(contactId);
+        if (slot < 0) {
+            return overflow.get(contactId).getPhone();
+        }
+        return ContactSlots.readPhone(chunkFor(slot), offsetFor(slot));
+    }
+
+    // Check if a contact with this ID is stored
+    public boolean containsContact(String contactId) {
+        return findIndex(contactId) >= 0 || (contactId != null && overflow.containsKey(contactId));
+    }
+
+    // Number of contacts currently stored
+    public int size() {
+        return tableSize + overflow.size();
+    }
+
+    // Save every contact to a snapshot file that restoreSnapshot can map straight back in
+    public void writeSnapshot(Path file) throws IOException {
+        ContactSnapshotFile.write(this, file);
+    }
+
+    // Open a snapshot file written by writeSnapshot and verify its checksum
+    // The file is memory-mapped, so lookups work right away without decoding any contacts
+    public static OffHeapContactService restoreSnapshot(Path file) throws IOException {
+        return ContactSnapshotFile.read(file, true);
+    }
+
+    // Open a snapshot file, optionally skipping the full checksum pass for the fastest startup
+    // The header and every slot number in the index are always checked
+    public static OffHeapContactService restoreSnapshot(Path file, boolean verifyChecksum) throws IOException {
+        return ContactSnapshotFile.read(file, verifyChecksum);
+    }
+
+    // Bytes of direct memory used by the slots and the ID index
+    public long offHeapBytes() {
+        return (long) chunks.length * (ContactSlots.SLOT_SIZE << chunkShift) + (long) tableCapacity * 4;
+    }
+
+    // Find the slot of a contact
+    // Returns -1 if the contact is in the overflow map, throws error if it isn't stored at all
+    private int slotOrOverflow(String contactId) {
+        int index = findIndex(contactId);
+        if (index >= 0) {
+            return table.getInt(index * 4) - 1;
+        }
+        if (contactId == null || !overflow.containsKey(contactId)) {
+            throw new IllegalArgumentException("Contact not found.");
+        }
+        return -1;
+    }
+
+    // Write a validated text field back into the slot
+    // A value with characters above 255 doesn't fit, so the contact moves to the overflow map
+    private void rewriteText(int slot, Contact contact, int field, String value) {
+        if (ContactSlots.isLatin1(value)) {
+            ContactSlots.writeText(chunkFor(slot), offsetFor(slot), field, value);
+            return;
+        }
+        removeIndex(findIndex(contact.getContactId()));
+        releaseSlot(slot);
+        overflow.put(contact.getContactId(), contact);
+    }
+
+    // Slot storage helpers
+
+    private ByteBuffer chunkFor(int slot) {
+        return chunks[slot >>> chunkShift];
+    }
+
+    private int offsetFor(int slot) {
+        return (slot & ((1 << chunkShift) - 1)) * ContactSlots.SLOT_SIZE;
+    }
+
+    // Reuse a freed slot if there is one, otherwise take the next new slot
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        int slot = highWater;
+        if ((slot >>> chunkShift) == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunks[chunks.length - 1] = ByteBuffer.allocateDirect(ContactSlots.SLOT_SIZE << chunkShift);
+        }
+        highWater++;
+        return slot;
+    }
+
+    private void releaseSlot(int slot) {
+        ContactSlots.markFree(chunkFor(slot), offsetFor(slot));
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    // ID index helpers - linear probing over table entries
+
+    // Spread the hash so IDs that differ only in their high bits still get different entries
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    // Find the table entry for an ID, or -1 if it isn't in the table
+    private int findIndex(String contactId) {
+        if (contactId == null || !ContactSlots.isLatin1(contactId)) {
+            return -1;
+        }
+        int mask = tableCapacity - 1;
+        int index = spread(contactId.hashCode()) & mask;
+        while (true) {
+            int entry = table.getInt(index * 4);
+            if (entry == 0) {
+                return -1;
+            }
+            int slot = entry - 1;
+            if (ContactSlots.idEquals(chunkFor(slot), offsetFor(slot), contactId)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void insertIndex(int slot, int hash) {
+        if (tableSize + 1 > tableCapacity * MAX_LOAD) {
+            growTable();
+        }
+        putEntry(table, tableCapacity, slot, hash);
+        tableSize++;
+    }
+
+    private static void putEntry(ByteBuffer into, int capacity, int slot, int hash) {
+        int mask = capacity - 1;
+        int index = spread(hash) & mask;
+        while (into.getInt(index * 4) != 0) {
+            index = (index + 1) & mask;
+        }
+        into.putInt(index * 4, slot + 1);
+    }
+
+    // Remove one entry and shift later entries back so no probe chain is broken
+    private void removeIndex(int index) {
+        int mask = tableCapacity - 1;
+        int hole = index;
+        int next = index;
+        while (true) {
+            next = (next + 1) & mask;
+            int entry = table.getInt(next * 4);
+            if (entry == 0) {
+                break;
+            }
+            int slot = entry - 1;
+            int home = spread(ContactSlots.idHash(chunkFor(slot), offsetFor(slot))) & mask;
+            // The entry can move into the hole unless its home lies cyclically in (hole, next]
+            boolean homeBetween = hole <= next ? (home > hole && home <= next) : (home > hole || home <= next);
+            if (!homeBetween) {
+                table.putInt(hole * 4, entry);
+                hole = next;
+            }
+        }
+        table.putInt(hole * 4, 0);
+        tableSize--;
+    }
+
+    private void growTable() {
+        int newCapacity = tableCapacity * 2;
+        ByteBuffer newTable = ByteBuffer.allocateDirect(newCapacity * 4);
+        for (int i = 0; i < tableCapacity; i++) {
+            int entry = table.getInt(i * 4);
+            if (entry != 0) {
+                int slot = entry - 1;
+                putEntry(newTable, newCapacity, slot, ContactSlots.idHash(chunkFor(slot), offsetFor(slot)));
+            }
+        }
+        table = newTable;
+        tableCapacity = newCapacity;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+// Roger Fisher 8/8/2025
+
+package ContactService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// This class tests OffHeapContactService
+// Tests cover the normal service behavior plus slot reuse, index growth and the overflow map
+public class OffHeapContactServiceTest {
+
+    private OffHeapContactService service;  // The service we're testing
+
+    // Use tiny chunks (4 slots) so the tests cross chunk boundaries
+    @BeforeEach
+    public void setUp() {
+        service = new OffHeapContactService(2);
+        service.addContact(new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St"));
+    }
+
+    // Test that a stored contact decodes back with the same values
+    @Test
+    public void testAddAndGetContact() {
+        Contact stored = service.getContactById("001");
+        assertEquals("001", stored.getContactId());
+        assertEquals("Jane", stored.getFirstName());
+        assertEquals("Doe", stored.getLastName());
+        assertEquals("5551234567", stored.getPhone());
+        assertEquals("456 Elm St", stored.getAddress());
+        assertEquals(1, service.size());
+    }
+
+    // Test that adding a null contact or a duplicate ID throws an exception
+    @Test
+    public void testAddNullOrDuplicateFails() {
+        assertThrows(IllegalArgumentException.class, () -> service.addContact(null));
+        Contact duplicateId = new Contact("001", "John", "Smith", "5559876543", "789 Oak Rd");
+        assertThrows(IllegalArgumentException.class, () -> service.addContact(duplicateId));
+    }
+
+    // Test that a deleted contact is gone and deleting again fails
+    @Test
+    public void testDeleteContact() {
+        service.deleteContact("001");
+        assertFalse(service.containsContact("001"));
+        assertEquals(0, service.size());
+        assertThrows(IllegalArgumentException.class, () -> service.deleteContact("001"));
+        assertThrows(IllegalArgumentException.class, () -> service.getContactById("001"));
+    }
+
+    // Test that each update method rewrites the stored field
+    @Test
+    public void testUpdateMethods() {
+        service.updateFirstName("001", "Janet");
+        service.updateLastName("001", "Smith");
+        service.updatePhone("001", "0000000042");
+        service.updateAddress("001", "123456789012345678901234567890");
+        Contact stored = service.getContactById("001");
+        assertEquals("Janet", stored.getFirstName());
+        assertEquals("Smith", stored.getLastName());
+        assertEquals("0000000042", stored.getPhone());  // Leading zeros survive packing
+        assertEquals("0000000042", service.getPhone("001"));
+        assertEquals("123456789012345678901234567890", stored.getAddress());
+    }
+
+    // Test that invalid updates are rejected and leave the stored contact unchanged
+    @Test
+    public void testInvalidUpdatesFail() {
+        assertThrows(IllegalArgumentException.class, () -> service.updateFirstName("001", "ThisNameIsTooLong"));
+        assertThrows(IllegalArgumentException.class, () -> service.updateLastName("001", null));
+        assertThrows(IllegalArgumentException.class, () -> service.updatePhone("001", "123-456-78"));
+        assertThrows(IllegalArgumentException.class, () -> service.updateAddress("001", null));
+        assertThrows(IllegalArgumentException.class, () -> service.updateFirstName("999", "Ghost"));
+        Contact stored = service.getContactById("001");
+        assertEquals("Jane", stored.getFirstName());
+        assertEquals("5551234567", stored.getPhone());
+    }
+
+    // Test that changing the returned copy does not change the store
+    @Test
+    public void testReturnedContactIsACopy() {
+        service.getContactById("001").setFirstName("Changed");
+        assertEquals("Jane", service.getContactById("001").getFirstName());
+    }
+
+    // Test many adds and deletes so the index grows, entries shift back and slots get reused
+    @Test
+    public void testManyContactsWithDeletes() {
+        for (int i = 0; i < 500; i++) {
+            service.addContact(new Contact("ID" + i, "F" + i, "L" + i, String.format("%010d", i), i + " Road"));
+        }
+        for (int i = 0; i < 500; i += 3) {
+            service.deleteContact("ID" + i);
+        }
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i % 3 != 0, service.containsContact("ID" + i));
+        }
+        long chunkBytes = service.offHeapBytes();
+        for (int i = 0; i < 500; i += 3) {
+            service.addContact(new Contact("ID" + i, "F" + i, "L" + i, String.format("%010d", i), i + " Road"));
+        }
+        assertEquals(chunkBytes, service.offHeapBytes());  // Freed slots were reused, no new chunks
+        assertEquals(501, service.size());
+        assertEquals("F123", service.getContactById("ID123").getFirstName());
+    }
+
+    // Test that contacts with characters above 255 are kept in the overflow map
+    @Test
+    public void testNonLatin1ContactsUseOverflow() {
+        service.addContact(new Contact("\u4e2d1", "\u674e", "Wang", "5550001111", "1 Road"));
+        assertEquals("\u674e", service.getContactById("\u4e2d1").getFirstName());
+        service.getContactById("\u4e2d1").setFirstName("Changed");
+        assertEquals("\u674e", service.getContactById("\u4e2d1").getFirstName());
+        service.updatePhone("\u4e2d1", "5550002222");
+        assertEquals("5550002222", service.getPhone("\u4e2d1"));
+        service.deleteContact("\u4e2d1");
+        assertFalse(service.containsContact("\u4e2d1"));
+    }
+
+    // Test that a slot contact moves to overflow when updated with a non Latin-1 value
+    @Test
+    public void testUpdateToNonLatin1MovesToOverflow() {
+        service.updateLastName("001", "\u738b");
+        assertEquals("\u738b", service.getContactById("001").getLastName());
+        assertEquals("Jane", service.getContactById("001").getFirstName());
+        assertEquals(1, service.size());
+    }
+}
\ No newline at end of file
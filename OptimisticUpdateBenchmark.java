@@ -0,0 +1,73 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Conflict-rate benchmark for compare-and-set updates on VersionedContactService
+// Each thread reads a contact, builds an edit from it and writes it back with compareAndUpdate,
+// retrying on a conflict. Prints attempts/sec, committed edits/sec and the share of attempts that
+// hit a stale version, as threads scale and as the set of contacts being edited shrinks.
+// Usage: java ContactService.OptimisticUpdateBenchmark [maxThreads] [seconds]
+public class OptimisticUpdateBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int[] hotSets = {100_000, 1_000, 10, 1};
+
+        System.out.printf("%-10s %-8s %15s %15s %10s%n", "contacts", "threads", "attempts/sec", "commits/sec", "conflicts");
+        for (int hotSet : hotSets) {
+            for (int threads = 1; threads <= maxThreads; threads = threads < maxThreads && threads * 2 > maxThreads ? maxThreads : threads * 2) {
+                run(hotSet, threads, seconds);
+            }
+        }
+    }
+
+    private static void run(int contactCount, int threads, int seconds) throws InterruptedException {
+        VersionedContactService service = new VersionedContactService();
+        for (int i = 0; i < contactCount; i++) {
+            service.addContact(ConcurrentContactServiceBenchmark.newContact(i));
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder attempts = new LongAdder();
+        LongAdder conflicts = new LongAdder();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long tried = 0;
+                long stale = 0;
+                while (running.get()) {
+                    String id = Integer.toString(random.nextInt(contactCount));
+                    // Retry the read-edit-write cycle until the edit lands
+                    while (true) {
+                        ContactVersion read = service.getContactById(id);
+                        ContactPatch edit = new ContactPatch().setAddress(random.nextInt(100_000) + " Main St");
+                        tried++;
+                        if (service.compareAndUpdate(id, read.getVersion(), edit)) {
+                            break;
+                        }
+                        stale++;
+                    }
+                }
+                attempts.add(tried);
+                conflicts.add(stale);
+            });
+            workers[t].start();
+        }
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        long total = attempts.sum();
+        long stale = conflicts.sum();
+        System.out.printf("%-10d %-8d %15.0f %15.0f %9.2f%%%n", contactCount, threads, total / (double) seconds,
+                (total - stale) / (double) seconds, total == 0 ? 0 : 100.0 * stale / total);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,475 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// A thread-safe contact service split into N independent ContactService shards
+// Each contactId is hashed to one shard, and each shard has its own HashMap, its own indexes and
+// its own read/write lock - so shards resize separately and threads working on different shards
+// never wait for each other. Operations on one contact go to its shard only. Queries that
+// aren't by ID (phone, last name, name prefix) run on every shard in parallel with fork/join and
+// the results are merged.
+public class PartitionedContactService {
+
+    private final ContactService[] shards;
+    private final ReadWriteLock[] locks;
+    private final ForkJoinPool pool;
+
+    // Create a service with four shards per processor
+    public PartitionedContactService() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    // Create a service with a chosen number of shards (rounded up to a power of two)
+    public PartitionedContactService(int shardCount) {
+        this(shardCount, ForkJoinPool.commonPool());
+    }
+
+    // Create a service whose fan-out queries run on the given fork/join pool
+    public PartitionedContactService(int shardCount, ForkJoinPool pool) {
+        if (shardCount < 1 || pool == null) {
+            throw new IllegalArgumentException("Shard count must be at least 1 and pool can't be null.");
+        }
+        int size = Integer.highestOneBit(shardCount);
+        if (size < shardCount) {
+            size <<= 1;
+        }
+        shards = new ContactService[size];
+        locks = new ReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new ContactService();
+            locks[i] = new ReentrantReadWriteLock();
+        }
+        this.pool = pool;
+    }
+
+    // Point Operations - each one locks only the shard that owns the contact
+
+    // Add a new contact to the service
+    // Throws error if contact is null or ID already exists
+    public void addContact(Contact contact) {
+        if (contact == null) {
+            throw new IllegalArgumentException("Contact is null or already exists.");
+        }
+        int shard = shardFor(contact.getContactId());
+        write(shard, () -> {
+            shards[shard].addContact(contact);
+            return null;
+        });
+    }
+
+    // Remove a contact from the service using their ID
+    // Throws error if the contact ID doesn't exist
+    public void deleteContact(String contactId) {
+        if (contactId == null) {
+            throw new IllegalArgumentException("Contact ID not found.");
+        }
+        int shard = shardFor(contactId);
+        write(shard, () -> {
+            shards[shard].deleteContact(contactId);
+            return null;
+        });
+    }
+
+    // Update a contact's first name
+    public void updateFirstName(String contactId, String newFirstName) {
+        int shard = shardFor(checkId(contactId));
+        write(shard, () -> {
+            shards[shard].updateFirstName(contactId, newFirstName);
+            return null;
+        });
+    }
+
+    // Update a contact's last name
+    public void updateLastName(String contactId, String newLastName) {
+        int shard = shardFor(checkId(contactId));
+        write(shard, () -> {
+            shards[shard].updateLastName(contactId, newLastName);
+            return null;
+        });
+    }
+
+    // Update a contact's phone number
+    public void updatePhone(String contactId, String newPhone) {
+        int shard = shardFor(checkId(contactId));
+        write(shard, () -> {
+            shards[shard].updatePhone(contactId, newPhone);
+            return null;
+        });
+    }
+
+    // Update a contact's address
+    public void updateAddress(String contactId, String newAddress) {
+        int shard = shardFor(checkId(contactId));
+        write(shard, () -> {
+            shards[shard].updateAddress(contactId, newAddress);
+            return null;
+        });
+    }
+
+    // Change several fields of a contact with one lookup (see ContactService.applyPatch)
+    public void applyPatch(String contactId, ContactPatch patch) {
+        int shard = shardFor(checkId(contactId));
+        write(shard, () -> {
+            shards[shard].applyPatch(contactId, patch);
+            return null;
+        });
+    }
+
+    // Apply a patch only if the contact is still at the expected version
+    public boolean compareAndUpdate(String contactId, long expectedVersion, ContactPatch patch) {
+        int shard = shardFor(checkId(contactId));
+        return write(shard, () -> shards[shard].compareAndUpdate(contactId, expectedVersion, patch));
+    }
+
+    // Delete a contact only if it is still at the expected version
+    public boolean compareAndDelete(String contactId, long expectedVersion) {
+        if (contactId == null) {
+            throw new IllegalArgumentException("Contact ID not found.");
+        }
+        int shard = shardFor(contactId);
+        return write(shard, () -> shards[shard].compareAndDelete(contactId, expectedVersion));
+    }
+
+    // Apply a group of changes all together (see ContactService.applyBatch)
+    // The items are split by shard, keeping their order. Every touched shard's write lock is taken
+    // once, in shard order so two batches can't deadlock, and held while every shard checks its
+    // items and then applies them, so other threads see all of the batch or none of it.
+    // Throws ContactBatchException naming the first failing item of the whole batch
+    public void applyBatch(ContactBatch batch) {
+        List<ContactBatch.Item> items = ContactBatch.check(batch).items();
+        List<List<ContactBatch.Item>> byShard = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            byShard.add(null);
+        }
+        for (ContactBatch.Item item : items) {
+            int shard = shardFor(item.contactId);
+            if (byShard.get(shard) == null) {
+                byShard.set(shard, new ArrayList<>());
+            }
+            byShard.get(shard).add(item);
+        }
+        int locked = 0;
+        try {
+            for (; locked < shards.length; locked++) {
+                if (byShard.get(locked) != null) {
+                    locks[locked].writeLock().lock();
+                }
+            }
+            ContactBatchException failure = null;
+            for (int shard = 0; shard < shards.length; shard++) {
+                ContactBatchException shardFailure = byShard.get(shard) == null ? null
+                        : shards[shard].checkBatch(byShard.get(shard));
+                if (shardFailure != null && (failure == null || shardFailure.getItemIndex() < failure.getItemIndex())) {
+                    failure = shardFailure;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            for (int shard = 0; shard < shards.length; shard++) {
+                if (byShard.get(shard) != null) {
+                    shards[shard].applyCheckedBatch(byShard.get(shard));
+                }
+            }
+        } finally {
+            for (int shard = 0; shard < locked; shard++) {
+                if (byShard.get(shard) != null) {
+                    locks[shard].writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    // Find a contact by their ID
+    // Throws error if the contact doesn't exist
+    public Contact getContactById(String contactId) {
+        int shard = shardFor(checkId(contactId));
+        return read(shard, () -> shards[shard].getContactById(contactId));
+    }
+
+    // Bulk import (see ContactService.importContacts)
+    // Records are split by shard and every shard imports its share in parallel. A repeated ID
+    // always lands in one shard, so the first copy in the batch still wins.
+    public ContactImportReport importContacts(Collection<String[]> records) {
+        String[][] rows = records.toArray(new String[0][]);
+        List<List<Integer>> positions = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            positions.add(new ArrayList<>());
+        }
+        ContactImportReport.Status[] statuses = new ContactImportReport.Status[rows.length];
+        ContactField[] invalidFields = new ContactField[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            String[] row = rows[i];
+            if (row == null || row.length != 5 || row[0] == null) {
+                statuses[i] = ContactImportReport.Status.INVALID;
+                invalidFields[i] = row == null || row.length != 5 ? null : ContactField.CONTACT_ID;
+            } else {
+                positions.get(shardFor(row[0])).add(i);
+            }
+        }
+        fanOut(shard -> {
+            List<Integer> mine = positions.get(shard);
+            if (mine.isEmpty()) {
+                return null;
+            }
+            List<String[]> batch = new ArrayList<>(mine.size());
+            for (int position : mine) {
+                batch.add(rows[position]);
+            }
+            ContactImportReport report = write(shard, () -> shards[shard].importContacts(batch));
+            // Each shard writes only its own positions, and join() makes them visible to us
+            for (int i = 0; i < mine.size(); i++) {
+                statuses[mine.get(i)] = report.getStatus(i);
+                invalidFields[mine.get(i)] = report.getInvalidField(i);
+            }
+            return null;
+        }, (a, b) -> null);
+        return new ContactImportReport(statuses, invalidFields);
+    }
+
+    // Fan-out Queries - these run on every shard in parallel and merge the results
+
+    // Find every contact with this phone number
+    public List<Contact> findByPhone(String phone) {
+        return concat(shard -> shards[shard].findByPhone(phone));
+    }
+
+    public List<Contact> findByPhone(long packedPhone) {
+        return concat(shard -> shards[shard].findByPhone(packedPhone));
+    }
+
+    // Check if any contact has this phone number
+    public boolean isPhoneInUse(long packedPhone) {
+        return fanOut(shard -> read(shard, () -> shards[shard].isPhoneInUse(packedPhone)), Boolean::logicalOr);
+    }
+
+    // Number of contacts with this phone number
+    public int countByPhone(long packedPhone) {
+        return fanOut(shard -> read(shard, () -> shards[shard].countByPhone(packedPhone)), Integer::sum);
+    }
+
+    // Find every contact with this last name
+    public List<Contact> findByLastName(String lastName) {
+        return concat(shard -> shards[shard].findByLastName(lastName));
+    }
+
+    // Type-ahead search over first and last names (see ContactService.searchByNamePrefix)
+    // Each shard returns its own best matches and they are merged back into name order
+    public List<Contact> searchByNamePrefix(String prefix, int limit) {
+        String lower = prefix == null ? null : prefix.toLowerCase(Locale.ROOT);
+        return mergeSorted(concat(shard -> shards[shard].searchByNamePrefix(prefix, limit)), limit,
+                contact -> {
+                    String first = contact.getFirstName().toLowerCase(Locale.ROOT);
+                    String last = contact.getLastName().toLowerCase(Locale.ROOT);
+                    // A contact is listed under the smaller of its names that matched
+                    String name = !first.startsWith(lower) || last.startsWith(lower) && last.compareTo(first) < 0
+                            ? last : first;
+                    return NamePrefixIndex.key(name, contact.getContactId());
+                });
+    }
+
+    public List<Contact> searchByFirstNamePrefix(String prefix, int limit) {
+        return mergeSorted(concat(shard -> shards[shard].searchByFirstNamePrefix(prefix, limit)), limit,
+                contact -> NamePrefixIndex.key(contact.getFirstName(), contact.getContactId()));
+    }
+
+    public List<Contact> searchByLastNamePrefix(String prefix, int limit) {
+        return mergeSorted(concat(shard -> shards[shard].searchByLastNamePrefix(prefix, limit)), limit,
+                contact -> NamePrefixIndex.key(contact.getLastName(), contact.getContactId()));
+    }
+
+    // Listing in contactId order (see ContactService.listContacts)
+    // Every shard returns up to limit + 1 contacts after the cursor under its read lock, and the
+    // smallest IDs are kept - so one extra contact from any shard shows there is a next page
+    public ContactPage listContacts(String afterCursor, int limit) {
+        ContactPage.checkLimit(limit);
+        int perShard = limit == Integer.MAX_VALUE ? limit : limit + 1;
+        List<Contact> merged = mergeSorted(concat(shard -> shards[shard].listContacts(afterCursor, perShard)
+                .getContacts()), perShard, Contact::getContactId);
+        boolean more = merged.size() > limit;
+        return new ContactPage(more ? new ArrayList<>(merged.subList(0, limit)) : merged, more);
+    }
+
+    // Every contact in contactId order as a lazy stream, read one page at a time
+    public Stream<Contact> streamContacts() {
+        return ContactPage.stream(this::listContacts, 256);
+    }
+
+    // Copy every contact of every shard into one set of columns (see ContactColumns)
+    // All shards are read-locked while they are copied, so the columns are one consistent point in time
+    public ContactColumns toColumns() {
+        for (ReadWriteLock lock : locks) {
+            lock.readLock().lock();
+        }
+        try {
+            int count = 0;
+            for (ContactService shard : shards) {
+                count += shard.size();
+            }
+            return ContactColumns.copyOf(count, action -> {
+                for (ContactService shard : shards) {
+                    shard.forEachContact(action);
+                }
+            });
+        } finally {
+            for (ReadWriteLock lock : locks) {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    // Number of contacts stored in all shards
+    public int size() {
+        int size = 0;
+        for (int shard = 0; shard < shards.length; shard++) {
+            int index = shard;
+            size += read(shard, () -> shards[index].size());
+        }
+        return size;
+    }
+
+    // Publish every change in every shard to one feed (see ContactService.setChangeFeed)
+    public void setChangeFeed(ContactChangeFeed changeFeed) {
+        for (int shard = 0; shard < shards.length; shard++) {
+            int index = shard;
+            write(shard, () -> {
+                shards[index].setChangeFeed(changeFeed);
+                return null;
+            });
+        }
+    }
+
+    // Share name and address strings across every shard through one dictionary
+    // (see ContactService.setStringDictionary) - the dictionary is thread-safe
+    public void setStringDictionary(StringDictionary dictionary) {
+        for (int shard = 0; shard < shards.length; shard++) {
+            int index = shard;
+            write(shard, () -> {
+                shards[index].setStringDictionary(dictionary);
+                return null;
+            });
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    // Pick the shard for a contact ID
+    // The hash is spread so IDs that differ only in their high bits still land on different shards
+    int shardFor(String contactId) {
+        int h = contactId.hashCode();
+        h ^= (h >>> 16);
+        return h & (shards.length - 1);
+    }
+
+    // Lock helpers
+
+    private <T> T read(int shard, Supplier<T> action) {
+        locks[shard].readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            locks[shard].readLock().unlock();
+        }
+    }
+
+    private <T> T write(int shard, Supplier<T> action) {
+        locks[shard].writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            locks[shard].writeLock().unlock();
+        }
+    }
+
+    // Run a batch of work on one shard under a single acquisition of its lock - the read lock
+    // when the batch only reads. Used by AsyncContactService.
+    void runOnShard(int shard, boolean readOnly, Consumer<ContactService> batch) {
+        Lock lock = readOnly ? locks[shard].readLock() : locks[shard].writeLock();
+        lock.lock();
+        try {
+            batch.accept(shards[shard]);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Routing needs an ID, so a null one fails the same way as an unknown one
+    private static String checkId(String contactId) {
+        if (contactId == null) {
+            throw new IllegalArgumentException("Contact not found.");
+        }
+        return contactId;
+    }
+
+    // Fan-out helpers
+
+    // Run a list query on every shard under its read lock and join the lists in shard order
+    private List<Contact> concat(Function<Integer, List<Contact>> query) {
+        return fanOut(shard -> read(shard, () -> query.apply(shard)), (left, right) -> {
+            List<Contact> joined = new ArrayList<>(left.size() + right.size());
+            joined.addAll(left);
+            joined.addAll(right);
+            return joined;
+        });
+    }
+
+    // Run a query on every shard with fork/join and combine the results
+    // The query must do its own locking
+    private <T> T fanOut(Function<Integer, T> query, BinaryOperator<T> combine) {
+        return pool.invoke(new ShardTask<>(query, combine, 0, shards.length));
+    }
+
+    // Sort merged per-shard results by the key their indexes use and keep the first limit
+    private static List<Contact> mergeSorted(List<Contact> matches, int limit, Function<Contact, String> key) {
+        matches.sort(Comparator.comparing(key));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    // Splits a range of shards in half until each task has one shard
+    private static final class ShardTask<T> extends RecursiveTask<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Function<Integer, T> query;
+        private final transient BinaryOperator<T> combine;
+        private final int from;
+        private final int to;
+
+        ShardTask(Function<Integer, T> query, BinaryOperator<T> combine, int from, int to) {
+            this.query = query;
+            this.combine = combine;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from == 1) {
+                return query.apply(from);
+            }
+            int middle = (from + to) >>> 1;
+            ShardTask<T> right = new ShardTask<>(query, combine, middle, to);
+            right.fork();
+            T left = new ShardTask<>(query, combine, from, middle).compute();
+            return combine.apply(left, right.join());
+        }
+    }
+}
\ No newline at end of file
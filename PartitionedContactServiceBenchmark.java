@@ -0,0 +1,67 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+
+// Thread-scaling benchmark for PartitionedContactService against one lock around a ContactService
+// Point workload: 80% reads by ID, 20% phone updates, on random contacts
+// Also times a fan-out last-name query on its own
+// Usage: java ContactService.PartitionedContactServiceBenchmark [maxThreads] [contacts] [seconds]
+public class PartitionedContactServiceBenchmark {
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int contactCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 2;
+
+        ContactService single = new ContactService();
+        PartitionedContactService partitioned = new PartitionedContactService();
+        String[] ids = new String[contactCount];
+        String[] phones = new String[contactCount];
+        for (int i = 0; i < contactCount; i++) {
+            Contact contact = ConcurrentContactServiceBenchmark.newContact(i);
+            ids[i] = contact.getContactId();
+            phones[i] = contact.getPhone();
+            single.addContact(contact);
+            partitioned.addContact(ConcurrentContactServiceBenchmark.newContact(i));
+        }
+
+        ContactBenchmarkHarness harness = new ContactBenchmarkHarness(seconds, seconds);
+        ContactBenchmarkHarness.printHeader();
+        for (int threads = 1; threads <= maxThreads; threads = threads < maxThreads && threads * 2 > maxThreads ? maxThreads : threads * 2) {
+            harness.run("single lock", threads, () -> operation(ids, phones, (id, phone, read) -> {
+                synchronized (single) {
+                    if (read) {
+                        ContactBenchmarkHarness.consume(single.getContactById(id));
+                    } else {
+                        single.updatePhone(id, phone);
+                    }
+                }
+            }));
+            harness.run("partitioned(" + partitioned.getShardCount() + ")", threads,
+                    () -> operation(ids, phones, (id, phone, read) -> {
+                        if (read) {
+                            ContactBenchmarkHarness.consume(partitioned.getContactById(id));
+                        } else {
+                            partitioned.updatePhone(id, phone);
+                        }
+                    }));
+        }
+        harness.run("single findByLastName", 1, () -> i -> ContactBenchmarkHarness.consume(single.findByLastName("Last")));
+        harness.run("partitioned findByLastName", 1,
+                () -> i -> ContactBenchmarkHarness.consume(partitioned.findByLastName("Last")));
+    }
+
+    private interface PointOperation {
+        void run(String id, String phone, boolean read);
+    }
+
+    private static IntConsumer operation(String[] ids, String[] phones, PointOperation operation) {
+        return i -> {
+            int k = ThreadLocalRandom.current().nextInt(ids.length);
+            operation.run(ids[k], phones[k], i % 5 != 0);
+        };
+    }
+}
\ No newline at end of file
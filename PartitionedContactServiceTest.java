@@ -0,0 +1,187 @@
+// Roger Fisher 8/8/2025
+
+package ContactService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// This class tests PartitionedContactService
+// It repeats the main ContactService checks and checks that fan-out queries merge every shard
+public class PartitionedContactServiceTest {
+
+    private PartitionedContactService service;  // The service we're testing
+    private Contact contact;                    // A sample contact for testing
+
+    @BeforeEach
+    public void setUp() {
+        service = new PartitionedContactService(8);
+        contact = new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St");
+    }
+
+    // Test the point operations and their errors
+    @Test
+    public void testPointOperations() {
+        service.addContact(contact);
+        assertSame(contact, service.getContactById("001"));
+        assertThrows(IllegalArgumentException.class, () -> service.addContact(contact));
+        assertThrows(IllegalArgumentException.class, () -> service.addContact(null));
+
+        service.updateFirstName("001", "Janet");
+        service.updateLastName("001", "Smith");
+        service.updatePhone("001", "9999999999");
+        service.updateAddress("001", "789 Oak Rd");
+        service.applyPatch("001", new ContactPatch().setFirstName("Jan"));
+        assertEquals("Jan", contact.getFirstName());
+        assertEquals("789 Oak Rd", contact.getAddress());
+        assertFalse(service.compareAndUpdate("001", 0, new ContactPatch().setLastName("Lee")));
+        assertTrue(service.compareAndDelete("001", contact.getVersion()));
+
+        assertThrows(IllegalArgumentException.class, () -> service.getContactById("001"));
+        assertThrows(IllegalArgumentException.class, () -> service.deleteContact("001"));
+        assertThrows(IllegalArgumentException.class, () -> service.updatePhone(null, "9999999999"));
+        assertEquals(0, service.size());
+    }
+
+    // Test that the shard count is rounded up to a power of two and must be positive
+    @Test
+    public void testShardCount() {
+        assertEquals(8, new PartitionedContactService(5).getShardCount());
+        assertThrows(IllegalArgumentException.class, () -> new PartitionedContactService(0));
+    }
+
+    // Test that queries find matches in every shard
+    @Test
+    public void testFanOutQueries() {
+        for (int i = 0; i < 200; i++) {
+            String lastName = i % 2 == 0 ? "Even" : "Odd";
+            String phone = i % 10 == 0 ? "5550000000" : String.format("%010d", i);
+            service.addContact(new Contact("ID" + i, "Name" + i, lastName, phone, "Road"));
+        }
+        assertEquals(200, service.size());
+        assertEquals(100, service.findByLastName("Even").size());
+        assertEquals(20, service.findByPhone("5550000000").size());
+        assertEquals(20, service.countByPhone(5_550_000_000L));
+        assertTrue(service.isPhoneInUse(7L));
+        assertFalse(service.isPhoneInUse(10L));
+        assertEquals(1, service.findByPhone(7L).size());
+    }
+
+    // Test that prefix results from all shards come back in the same order as one ContactService
+    @Test
+    public void testPrefixSearchMatchesSingleService() {
+        ContactService single = new ContactService();
+        for (int i = 0; i < 300; i++) {
+            String first = "Al" + (char) ('a' + i % 26) + i;
+            String last = i % 3 == 0 ? "Alder" : "Zed";
+            service.addContact(new Contact("ID" + i, first, last, "5550000000", "Road"));
+            single.addContact(new Contact("ID" + i, first, last, "5550000000", "Road"));
+        }
+        assertEquals(ids(single.searchByNamePrefix("al", 40)), ids(service.searchByNamePrefix("al", 40)));
+        assertEquals(ids(single.searchByNamePrefix("ALD", 500)), ids(service.searchByNamePrefix("ALD", 500)));
+        assertEquals(ids(single.searchByFirstNamePrefix("alb", 5)), ids(service.searchByFirstNamePrefix("alb", 5)));
+        assertEquals(ids(single.searchByLastNamePrefix("z", 7)), ids(service.searchByLastNamePrefix("z", 7)));
+        assertThrows(IllegalArgumentException.class, () -> service.searchByNamePrefix(null, 5));
+    }
+
+    // Test that a bulk import reports each record in input order across shards
+    @Test
+    public void testImportContacts() {
+        service.addContact(contact);
+        List<String[]> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            records.add(new String[] {"ID" + i, "F", "L", "5550000000", "Road"});
+        }
+        records.add(new String[] {"ID5", "F", "L", "5550000000", "Road"});
+        records.add(new String[] {"001", "F", "L", "5550000000", "Road"});
+        records.add(new String[] {null, "F", "L", "5550000000", "Road"});
+        records.add(new String[] {"X"});
+
+        ContactImportReport report = service.importContacts(records);
+        assertEquals(100, report.getAddedCount());
+        assertEquals(ContactImportReport.Status.DUPLICATE_IN_BATCH, report.getStatus(100));
+        assertEquals(ContactImportReport.Status.ALREADY_EXISTS, report.getStatus(101));
+        assertEquals(ContactField.CONTACT_ID, report.getInvalidField(102));
+        assertEquals(ContactImportReport.Status.INVALID, report.getStatus(103));
+        assertEquals(101, service.size());
+    }
+
+    // Test many threads adding and deleting across shards at once
+    @Test
+    public void testConcurrentWriters() throws InterruptedException {
+        int threads = 8;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int offset = t * 1000;
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    service.addContact(new Contact("ID" + (offset + i), "F", "L", "5550000000", "Road"));
+                }
+                for (int i = 0; i < 1000; i += 2) {
+                    service.deleteContact("ID" + (offset + i));
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(threads * 500, service.size());
+        assertEquals(threads * 500, service.countByPhone(5_550_000_000L));
+    }
+
+    private static List<String> ids(List<Contact> contacts) {
+        List<String> ids = new ArrayList<>();
+        for (Contact c : contacts) {
+            ids.add(c.getContactId());
+        }
+        return ids;
+    }
+
+    // Test that a batch spanning shards reports the first failing item and changes no shard
+    @Test
+    public void testApplyBatchAcrossShards() {
+        ContactBatch good = new ContactBatch();
+        for (int i = 0; i < 50; i++) {
+            good.add(new Contact("ID" + i, "F", "L", "5550000000", "Road"));
+        }
+        service.applyBatch(good);
+        assertEquals(50, service.size());
+
+        ContactBatch bad = new ContactBatch();
+        for (int i = 0; i < 50; i++) {
+            bad.updatePhone("ID" + i, "5551111111");
+        }
+        bad.delete("ID7").delete("ID7").delete("ID3").delete("ID3");
+        ContactBatchException e = assertThrows(ContactBatchException.class, () -> service.applyBatch(bad));
+        assertEquals(51, e.getItemIndex());
+        assertEquals(0, service.countByPhone(5_551_111_111L));
+        assertEquals(50, service.size());
+    }
+
+    // Test that pages merge every shard in ID order
+    @Test
+    public void testListContactsAcrossShards() {
+        for (int i = 0; i < 100; i++) {
+            service.addContact(new Contact(String.format("ID%03d", i), "F", "L", "5550000000", "Road"));
+        }
+        List<String> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            ContactPage page = service.listContacts(cursor, 7);
+            all.addAll(ids(page.getContacts()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(100, all.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(String.format("ID%03d", i), all.get(i));
+        }
+        assertEquals(100, service.streamContacts().count());
+        assertEquals(1, service.listContacts("ID098", 1).getContacts().size());
+        assertFalse(service.listContacts("ID098", 1).hasNext());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,213 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.Arrays;
+
+// Reverse-lookup index from packed phone number (see PhoneNumbers) to the contacts that have it
+// It is an open-addressing hash table of primitive longs, so lookups never box a key, never
+// hash a String and never allocate. Each table entry points at the first node of a small
+// linked list, because several contacts may share one phone number.
+//
+// Nodes live in parallel arrays and are recycled through a free list:
+//   int node = index.first(phone);
+//   while (node >= 0) { Contact c = index.contactAt(node); node = index.next(node); }
+final class PhoneIndex {
+
+    private static final long EMPTY = -1L;   // Packed phones are never negative
+    private static final double MAX_LOAD = 0.6;
+
+    // Hash table - keys[i] is a packed phone, heads[i] its first node
+    private long[] keys;
+    private int[] heads;
+    private int size;
+
+    // Node pool - nodeContacts[n] and nodeNext[n] describe node n
+    private Contact[] nodeContacts;
+    private int[] nodeNext;
+    private int nodeCount;      // Nodes handed out so far
+    private int freeNode = -1;  // First recycled node, linked through nodeNext
+
+    PhoneIndex() {
+        keys = new long[16];
+        Arrays.fill(keys, EMPTY);
+        heads = new int[16];
+        nodeContacts = new Contact[16];
+        nodeNext = new int[16];
+    }
+
+    // Add a contact under a packed phone
+    void add(long phone, Contact contact) {
+        int slot = find(phone);
+        if (slot < 0) {
+            if (size + 1 > keys.length * MAX_LOAD) {
+                grow();
+            }
+            slot = insertKey(keys, phone);
+            heads[slot] = -1;
+            size++;
+        }
+        // Append at the end so contacts come back in the order they were added
+        int node = newNode(contact);
+        nodeNext[node] = -1;
+        if (heads[slot] < 0) {
+            heads[slot] = node;
+        } else {
+            int last = heads[slot];
+            while (nodeNext[last] >= 0) {
+                last = nodeNext[last];
+            }
+            nodeNext[last] = node;
+        }
+    }
+
+    // Remove a contact from a packed phone, dropping the phone once no contact has it
+    void remove(long phone, Contact contact) {
+        int slot = find(phone);
+        if (slot < 0) {
+            return;
+        }
+        int previous = -1;
+        for (int node = heads[slot]; node >= 0; previous = node, node = nodeNext[node]) {
+            if (nodeContacts[node] == contact) {
+                if (previous < 0) {
+                    heads[slot] = nodeNext[node];
+                } else {
+                    nodeNext[previous] = nodeNext[node];
+                }
+                freeNode(node);
+                break;
+            }
+        }
+        if (heads[slot] < 0) {
+            removeKey(slot);
+        }
+    }
+
+    // First node for a packed phone, or -1 if no contact has it
+    int first(long phone) {
+        int slot = find(phone);
+        return slot < 0 ? -1 : heads[slot];
+    }
+
+    // Node after this one for the same phone, or -1 at the end
+    int next(int node) {
+        return nodeNext[node];
+    }
+
+    Contact contactAt(int node) {
+        return nodeContacts[node];
+    }
+
+    // Check if any contact has this packed phone
+    boolean contains(long phone) {
+        return find(phone) >= 0;
+    }
+
+    // Number of contacts with this packed phone
+    int count(long phone) {
+        int count = 0;
+        for (int node = first(phone); node >= 0; node = nodeNext[node]) {
+            count++;
+        }
+        return count;
+    }
+
+    // Number of distinct phones in the index
+    int size() {
+        return size;
+    }
+
+    // Mix all 64 bits so nearby phone numbers spread across the table (the murmur3 finalizer)
+    private static int hash(long phone) {
+        long h = phone;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private int find(long phone) {
+        if (phone < 0) {
+            return -1;
+        }
+        int mask = keys.length - 1;
+        int slot = hash(phone) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == phone) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int insertKey(long[] table, long phone) {
+        int mask = table.length - 1;
+        int slot = hash(phone) & mask;
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = phone;
+        return slot;
+    }
+
+    // Empty one table slot and shift later keys back so no probe chain is broken
+    private void removeKey(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (keys[next] == EMPTY) {
+                break;
+            }
+            int home = hash(keys[next]) & mask;
+            boolean homeBetween = hole <= next ? (home > hole && home <= next) : (home > hole || home <= next);
+            if (!homeBetween) {
+                keys[hole] = keys[next];
+                heads[hole] = heads[next];
+                hole = next;
+            }
+        }
+        keys[hole] = EMPTY;
+        size--;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        heads = new int[keys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                heads[insertKey(keys, oldKeys[i])] = oldHeads[i];
+            }
+        }
+    }
+
+    private int newNode(Contact contact) {
+        int node;
+        if (freeNode >= 0) {
+            node = freeNode;
+            freeNode = nodeNext[node];
+        } else {
+            if (nodeCount == nodeContacts.length) {
+                nodeContacts = Arrays.copyOf(nodeContacts, nodeCount * 2);
+                nodeNext = Arrays.copyOf(nodeNext, nodeCount * 2);
+            }
+            node = nodeCount++;
+        }
+        nodeContacts[node] = contact;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        nodeContacts[node] = null;   // Don't keep a deleted contact reachable
+        nodeNext[node] = freeNode;
+        freeNode = node;
+    }
+}
\ No newline at end of file
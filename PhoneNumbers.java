@@ -0,0 +1,52 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+// Helper methods for phone numbers
+// A valid phone is always exactly 10 digits, so it fits in a long instead of a String.
+// Callers that do many phone lookups can keep phones packed and skip String handling entirely.
+public final class PhoneNumbers {
+
+    private PhoneNumbers() {
+    }
+
+    // Turn a 10 digit phone String into a long - "0001234567" becomes 1234567
+    // Throws error if the phone is not exactly 10 digits
+    public static long pack(String phone) {
+        long packed = tryPack(phone);
+        if (packed < 0) {
+            throw new ContactValidationException(ContactField.PHONE);
+        }
+        return packed;
+    }
+
+    // Same as pack, but returns -1 instead of throwing when the phone isn't exactly 10 digits
+    public static long tryPack(String phone) {
+        if (phone == null || phone.length() != 10) {
+            return -1;
+        }
+        long packed = 0;
+        for (int i = 0; i < 10; i++) {
+            char c = phone.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            packed = packed * 10 + (c - '0');
+        }
+        return packed;
+    }
+
+    // Turn a packed phone back into its 10 digit String, putting back any leading zeros
+    // Throws error if the value can't be a packed phone
+    public static String unpack(long packed) {
+        if (packed < 0 || packed > 9_999_999_999L) {
+            throw new IllegalArgumentException("Packed phone must be between 0 and 9999999999.");
+        }
+        char[] digits = new char[10];
+        for (int i = 9; i >= 0; i--) {
+            digits[i] = (char) ('0' + (packed % 10));
+            packed /= 10;
+        }
+        return new String(digits);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// Java Flight Recorder event for a ContactService operation slower than the metrics threshold
+// Only filled in and committed when an operation is slow, so it costs nothing on normal calls.
+// Record with: java -XX:StartFlightRecording:filename=contacts.jfr ...
+@Name("ContactService.SlowOperation")
+@Label("Slow Contact Operation")
+@Category("ContactService")
+@Description("A ContactService operation that took longer than the configured threshold")
+class SlowContactOperationEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Contact ID")
+    String contactId;
+
+    // Not called duration - every JFR event already has a field with that name, which would
+    // need begin() to be called on every operation just in case it turns out slow
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+
+    @Label("Failed")
+    boolean failed;
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Shared, reference-counted copies of repeated strings, such as common names and addresses
+// acquire returns the one shared String equal to the value and counts a reference to it;
+// release drops a reference, and the entry is removed when its last reference goes, so the
+// dictionary never holds strings nobody uses. Safe to share between threads and services.
+public final class StringDictionary {
+
+    // One shared string and how many fields point at it
+    // refs is only changed inside ConcurrentHashMap.compute, which locks the entry
+    private static final class Entry {
+        final String value;
+        int refs;
+
+        Entry(String value) {
+            this.value = value;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Count a reference to the value and return the shared copy of it
+    public String acquire(String value) {
+        if (value == null) {
+            return null;
+        }
+        Entry entry = entries.compute(value, (key, current) -> {
+            Entry result = current == null ? new Entry(key) : current;
+            result.refs++;
+            return result;
+        });
+        return entry.value;
+    }
+
+    // Drop one reference to the value - the entry goes away with its last reference
+    // Values the dictionary doesn't hold are ignored
+    public void release(String value) {
+        if (value != null) {
+            entries.computeIfPresent(value, (key, current) -> --current.refs == 0 ? null : current);
+        }
+    }
+
+    // Number of references to the value, or 0 when it isn't held
+    public int referenceCount(String value) {
+        Entry entry = value == null ? null : entries.get(value);
+        return entry == null ? 0 : entry.refs;
+    }
+
+    // Number of distinct strings held
+    public int size() {
+        return entries.size();
+    }
+}
\ No newline at end of file
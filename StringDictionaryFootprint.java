@@ -0,0 +1,82 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Heap saved by sharing name and address strings through a StringDictionary
+// Fills a ContactService with the same synthetic contacts with and without a dictionary and prints
+// the heap each keeps alive after a full GC. The data repeats the way real contact lists do:
+// first names come from 200 common ones, last names from 1000 with a Zipf-like skew (a few very
+// common names, a long tail of rare ones), and on average three contacts share each address.
+// Every contact is built with its own String objects, as if parsed from a file or a request.
+// Usage: java ContactService.StringDictionaryFootprint [contacts]
+public class StringDictionaryFootprint {
+
+    private static final int FIRST_NAMES = 200;
+    private static final int LAST_NAMES = 1000;
+    private static final int CONTACTS_PER_ADDRESS = 3;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int[][] picks = pickValues(count);
+
+        long before = ContactStoreFootprint.usedHeap();
+        ContactService plain = fill(count, picks, null);
+        long plainBytes = ContactStoreFootprint.usedHeap() - before;
+        report("No dictionary", count, plainBytes);
+        keep(plain, count);
+        plain = null;
+
+        StringDictionary dictionary = new StringDictionary();
+        before = ContactStoreFootprint.usedHeap();
+        ContactService shared = fill(count, picks, dictionary);
+        long sharedBytes = ContactStoreFootprint.usedHeap() - before;
+        report("StringDictionary", count, sharedBytes);
+        System.out.printf("%-26s %,d distinct strings, %,d bytes saved (%.1f%%)%n", "",
+                dictionary.size(), plainBytes - sharedBytes, 100.0 * (plainBytes - sharedBytes) / plainBytes);
+        keep(shared, count);
+    }
+
+    // Which first name, last name and address each contact gets - the same for both runs
+    private static int[][] pickValues(int count) {
+        Random random = new Random(42);
+        double[] lastNameWeights = new double[LAST_NAMES];
+        double total = 0;
+        for (int i = 0; i < LAST_NAMES; i++) {
+            total += 1.0 / (i + 1);
+            lastNameWeights[i] = total;
+        }
+        int addresses = Math.max(1, count / CONTACTS_PER_ADDRESS);
+        int[][] picks = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int lastName = Arrays.binarySearch(lastNameWeights, random.nextDouble() * total);
+            picks[i] = new int[] {random.nextInt(FIRST_NAMES), lastName < 0 ? -lastName - 1 : lastName,
+                    random.nextInt(addresses)};
+        }
+        return picks;
+    }
+
+    private static ContactService fill(int count, int[][] picks, StringDictionary dictionary) {
+        ContactService service = new ContactService();
+        service.setStringDictionary(dictionary);
+        for (int i = 0; i < count; i++) {
+            int[] pick = picks[i];
+            service.addContact(new Contact("C" + i, "First" + pick[0], "Last" + pick[1],
+                    String.format("%010d", 5_550_000_000L + i), pick[2] + " Main Street"));
+        }
+        return service;
+    }
+
+    private static void report(String name, int count, long heapBytes) {
+        System.out.printf("%-26s heap %,14d bytes (%6.1f per contact)%n", name, heapBytes, heapBytes / (double) count);
+    }
+
+    // Keep the store reachable until after it was measured
+    private static void keep(ContactService service, int count) {
+        if (service.size() != count) {
+            throw new IllegalStateException("Unexpected store size " + service.size());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,297 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// A thread-safe contact service where updates never change a contact in place
+// Every add, update and delete publishes a new immutable ContactVersion stamped with a commit
+// sequence number, linked to the version it replaced. Readers never take a lock: a single read
+// always sees one whole version, and openSnapshot gives a point-in-time view of the whole store
+// that stays the same however much is written while it is open.
+public class VersionedContactService {
+
+    // Results of write() that aren't a commit sequence number
+    private static final long NOT_WRITTEN = 0;
+    private static final long STALE = -1;
+
+    // Expected version that matches any version - used by the plain update methods
+    private static final long ANY_VERSION = -1;
+
+    // Newest version of every contact ID, including delete markers that may still be needed
+    private final ConcurrentHashMap<String, ContactVersion> heads = new ConcurrentHashMap<>();
+
+    // Last commit sequence number handed to a writer
+    private final AtomicLong lastSequence = new AtomicLong();
+
+    // Every write at or below this number is in place, so a snapshot taken here is complete
+    // Writers move it forward strictly in sequence order
+    private volatile long visibleSequence;
+
+    // Sequence numbers of the open snapshots, with how many are open at each one
+    private final ConcurrentSkipListMap<Long, Integer> openSnapshots = new ConcurrentSkipListMap<>();
+
+    // Above every version of a delete marker that pruning dropped - a contact added under an ID
+    // with no marker left starts here, so its versions still carry on past the deleted contact's
+    private final AtomicLong versionFloor = new AtomicLong();
+
+    // Versions older than the newest one at or below this number are never needed again
+    private final AtomicLong pruneHorizon = new AtomicLong();
+
+    // Builds the next version of a contact while its map entry is locked
+    // Must not throw - the sequence number it is given has already been handed out
+    private interface VersionBuilder {
+        ContactVersion build(ContactVersion current, long sequence);
+    }
+
+    // Add a new contact to the service - the service keeps its own immutable copy
+    // Throws error if contact is null or ID already exists
+    public void addContact(Contact contact) {
+        if (contact == null) {
+            throw new IllegalArgumentException("Contact is null or already exists.");
+        }
+        String id = contact.getContactId();
+        String firstName = contact.getFirstName();
+        String lastName = contact.getLastName();
+        String phone = contact.getPhone();
+        String address = contact.getAddress();
+        // An ID used again after a delete carries on from the old version number (or from the
+        // floor once the delete marker is pruned), so a stale compare-and-set against the
+        // deleted contact can't succeed on the new one
+        long written = write(id, true, ANY_VERSION, (current, sequence) -> new ContactVersion(id, firstName,
+                lastName, phone, address, sequence,
+                current == null ? versionFloor.get() : current.getVersion() + 1, false, current));
+        if (written == NOT_WRITTEN) {
+            throw new IllegalArgumentException("Contact is null or already exists.");
+        }
+    }
+
+    // Remove a contact from the service using their ID
+    // Open snapshots still see the contact
+    // Throws error if the contact ID doesn't exist
+    public void deleteContact(String contactId) {
+        if (contactId == null || write(contactId, false, ANY_VERSION, ContactVersion::deleted) == NOT_WRITTEN) {
+            throw new IllegalArgumentException("Contact ID not found.");
+        }
+    }
+
+    // Update Methods - each one validates the new value, then publishes a new version
+
+    // Update a contact's first name
+    public void updateFirstName(String contactId, String newFirstName) {
+        ContactField.FIRST_NAME.check(newFirstName);
+        update(contactId, ANY_VERSION, (current, sequence) -> current.next(newFirstName, null, null, null, sequence));
+    }
+
+    // Update a contact's last name
+    public void updateLastName(String contactId, String newLastName) {
+        ContactField.LAST_NAME.check(newLastName);
+        update(contactId, ANY_VERSION, (current, sequence) -> current.next(null, newLastName, null, null, sequence));
+    }
+
+    // Update a contact's phone number
+    public void updatePhone(String contactId, String newPhone) {
+        ContactField.PHONE.check(newPhone);
+        update(contactId, ANY_VERSION, (current, sequence) -> current.next(null, null, newPhone, null, sequence));
+    }
+
+    // Update a contact's address
+    public void updateAddress(String contactId, String newAddress) {
+        ContactField.ADDRESS.check(newAddress);
+        update(contactId, ANY_VERSION, (current, sequence) -> current.next(null, null, null, newAddress, sequence));
+    }
+
+    // Change several fields of a contact in one new version
+    // Readers see either none of the changes or all of them
+    public void applyPatch(String contactId, ContactPatch patch) {
+        update(contactId, ANY_VERSION, patchBuilder(patch));
+    }
+
+    // Compare-and-set Methods - these only make the change if nobody else changed the contact
+    // since the caller read it. Pass the getVersion() of the ContactVersion the edit was based on.
+    // Nothing is locked while the caller edits; the version check and the write happen together
+    // in one ConcurrentHashMap.compute call, so a stale edit fails straight away.
+
+    // Apply a patch only if the contact is still at the expected version
+    // Returns false, changing nothing, when the version is stale
+    // Throws error if the contact doesn't exist
+    public boolean compareAndUpdate(String contactId, long expectedVersion, ContactPatch patch) {
+        return update(contactId, expectedVersion, patchBuilder(patch)) != STALE;
+    }
+
+    // Delete a contact only if it is still at the expected version
+    // Returns false, deleting nothing, when the version is stale
+    // Throws error if the contact ID doesn't exist
+    public boolean compareAndDelete(String contactId, long expectedVersion) {
+        long written = contactId == null ? NOT_WRITTEN
+                : write(contactId, false, expectedVersion, ContactVersion::deleted);
+        if (written == NOT_WRITTEN) {
+            throw new IllegalArgumentException("Contact ID not found.");
+        }
+        return written != STALE;
+    }
+
+    // Find the newest version of a contact - never takes a lock
+    // Throws error if the contact doesn't exist
+    public ContactVersion getContactById(String contactId) {
+        ContactVersion version = contactId == null ? null : heads.get(contactId);
+        if (version == null || version.isDeleted()) {
+            throw new IllegalArgumentException("Contact not found.");
+        }
+        return version;
+    }
+
+    // Check if a contact with this ID is stored - also lock free
+    public boolean containsContact(String contactId) {
+        ContactVersion version = contactId == null ? null : heads.get(contactId);
+        return version != null && !version.isDeleted();
+    }
+
+    // Open a point-in-time view of every contact
+    // Reads through the snapshot take no locks and never block writers. Close it when done so
+    // the versions only it can see can be pruned.
+    public ContactStoreSnapshot openSnapshot() {
+        while (true) {
+            long sequence = visibleSequence;
+            openSnapshots.merge(sequence, 1, Integer::sum);
+            // A writer may have pruned past this point before we registered - if so, try again
+            if (pruneHorizon.get() <= sequence) {
+                return new ContactStoreSnapshot(this, sequence);
+            }
+            releaseSnapshot(sequence);
+        }
+    }
+
+    // Drop every version no open snapshot can see, and forget deleted contacts
+    // Writes already prune the contact they touch, so this is only needed for contacts that
+    // haven't been written since the snapshots that held their old versions were closed
+    public void pruneVersions() {
+        long horizon = advancePruneHorizon();
+        for (String contactId : heads.keySet()) {
+            heads.computeIfPresent(contactId, (id, head) -> {
+                if (head.isDeleted() && head.getCommitSequence() <= horizon) {
+                    // Still holding the entry, so an add of this ID can't see the old floor
+                    versionFloor.accumulateAndGet(head.getVersion() + 1, Math::max);
+                    return null;
+                }
+                prune(head, horizon);
+                return head;
+            });
+        }
+    }
+
+    // Number of versions held for all contacts, including delete markers - used by tests
+    int versionCount() {
+        int count = 0;
+        for (ContactVersion version : heads.values()) {
+            for (; version != null; version = version.getPrevious()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Snapshot support - used by ContactStoreSnapshot
+
+    Iterable<ContactVersion> heads() {
+        return heads.values();
+    }
+
+    ContactVersion head(String contactId) {
+        return heads.get(contactId);
+    }
+
+    void releaseSnapshot(long sequence) {
+        openSnapshots.computeIfPresent(sequence, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    // Update helper - throws the usual error when the contact doesn't exist
+    private long update(String contactId, long expectedVersion, VersionBuilder builder) {
+        long written = contactId == null ? NOT_WRITTEN : write(contactId, false, expectedVersion, builder);
+        if (written == NOT_WRITTEN) {
+            throw new IllegalArgumentException("Contact not found.");
+        }
+        return written;
+    }
+
+    // Builds the next version from a patch
+    private static VersionBuilder patchBuilder(ContactPatch patch) {
+        ContactPatch.check(patch);
+        // Copy the values out first - the patch could be changed by its owner while we write
+        String firstName = patch.getFirstName();
+        String lastName = patch.getLastName();
+        String phone = patch.getPhone();
+        String address = patch.getAddress();
+        return (current, sequence) -> current.next(firstName, lastName, phone, address, sequence);
+    }
+
+    // Publish the next version of one contact and return its commit sequence number
+    // compute holds the map entry's lock, so writes to the same contact get their sequence
+    // numbers in the same order they are linked. Nothing is written, and no sequence number is
+    // used, when adding finds the contact already there or changing finds it missing
+    // (NOT_WRITTEN), or when the contact isn't at the expected version (STALE).
+    private long write(String contactId, boolean adding, long expectedVersion, VersionBuilder builder) {
+        long horizon = advancePruneHorizon();
+        long[] result = new long[1];
+        heads.compute(contactId, (id, current) -> {
+            boolean exists = current != null && !current.isDeleted();
+            if (exists == adding) {
+                return current;
+            }
+            if (expectedVersion != ANY_VERSION && current.getVersion() != expectedVersion) {
+                result[0] = STALE;
+                return current;
+            }
+            result[0] = lastSequence.incrementAndGet();
+            ContactVersion next = builder.build(current, result[0]);
+            prune(next, horizon);
+            return next;
+        });
+        if (result[0] > 0) {
+            publish(result[0]);
+        }
+        return result[0];
+    }
+
+    // Move the visible sequence number past this write once every earlier write is in place
+    // The wait is only ever for writers that already have their number and are finishing up
+    private void publish(long sequence) {
+        for (int spins = 0; visibleSequence != sequence - 1; spins++) {
+            if (spins < 64) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        visibleSequence = sequence;
+    }
+
+    // Work out how far back versions are still needed: the oldest open snapshot, or the
+    // current visible point when none are open
+    // The horizon is published before the open snapshots are checked a second time. A snapshot
+    // registering at the same moment either sees the new horizon and retries, or is seen here.
+    private long advancePruneHorizon() {
+        long horizon = visibleSequence;
+        Map.Entry<Long, Integer> oldest = openSnapshots.firstEntry();
+        if (oldest != null && oldest.getKey() < horizon) {
+            horizon = oldest.getKey();
+        }
+        pruneHorizon.accumulateAndGet(horizon, Math::max);
+        oldest = openSnapshots.firstEntry();
+        return oldest != null && oldest.getKey() < horizon ? oldest.getKey() : horizon;
+    }
+
+    // Cut a contact's version chain below the newest version at or before the horizon
+    private static void prune(ContactVersion head, long horizon) {
+        ContactVersion version = head;
+        while (version != null && version.getCommitSequence() > horizon) {
+            version = version.getPrevious();
+        }
+        if (version != null && version.getPrevious() != null) {
+            version.setPrevious(null);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+//Roger Fisher 8/8/2025
+
+package ContactService;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Measures update throughput on VersionedContactService with and without a full export running
+// through a snapshot at the same time, and how long each export takes
+// Usage: java ContactService.VersionedContactServiceBenchmark [writers] [contacts] [seconds]
+public class VersionedContactServiceBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        int contactCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        VersionedContactService service = new VersionedContactService();
+        for (int i = 0; i < contactCount; i++) {
+            service.addContact(ConcurrentContactServiceBenchmark.newContact(i));
+        }
+
+        for (int round = 0; round < 2; round++) { // The first round is JIT warm-up
+            run(service, writers, contactCount, seconds, false);
+            run(service, writers, contactCount, seconds, true);
+        }
+    }
+
+    private static void run(VersionedContactService service, int writers, int contactCount, int seconds,
+            boolean exporting) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder updates = new LongAdder();
+        Thread[] threads = new Thread[writers];
+        for (int t = 0; t < writers; t++) {
+            threads[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long done = 0;
+                while (running.get()) {
+                    service.updatePhone(Integer.toString(random.nextInt(contactCount)),
+                            String.format("%010d", random.nextInt(1_000_000_000)));
+                    done++;
+                }
+                updates.add(done);
+            });
+            threads[t].start();
+        }
+
+        int exports = 0;
+        long exportNanos = 0;
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        if (exporting) {
+            while (System.nanoTime() < deadline) {
+                long start = System.nanoTime();
+                try (ContactStoreSnapshot snapshot = service.openSnapshot()) {
+                    // A stand-in for a real export: touch every field of every contact
+                    long checksum = snapshot.stream()
+                            .mapToLong(v -> v.getPhone().hashCode() + v.getAddress().hashCode()).sum();
+                    ContactBenchmarkHarness.consume(checksum);
+                }
+                exportNanos += System.nanoTime() - start;
+                exports++;
+            }
+        } else {
+            Thread.sleep(seconds * 1000L);
+        }
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        service.pruneVersions();
+
+        System.out.printf("%-16s %12.0f updates/sec %s%n", exporting ? "with export" : "updates only",
+                updates.sum() / (double) seconds,
+                exporting ? String.format("%d exports, %.1f ms each", exports, exportNanos / 1e6 / exports) : "");
+    }
+}
\ No newline at end of file
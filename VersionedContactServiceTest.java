@@ -0,0 +1,212 @@
+// Roger Fisher 8/8/2025
+
+package ContactService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// This class tests VersionedContactService and its snapshots
+public class VersionedContactServiceTest {
+
+    private VersionedContactService service;  // The service we're testing
+    private Contact contact;                  // A sample contact for testing
+
+    @BeforeEach
+    public void setUp() {
+        service = new VersionedContactService();
+        contact = new Contact("001", "Jane", "Doe", "5551234567", "456 Elm St");
+    }
+
+    // Test that updates publish new versions and leave old ones untouched
+    @Test
+    public void testUpdatesPublishNewVersions() {
+        service.addContact(contact);
+        ContactVersion first = service.getContactById("001");
+        service.updatePhone("001", "9999999999");
+        ContactVersion second = service.getContactById("001");
+
+        assertEquals("5551234567", first.getPhone());
+        assertEquals("9999999999", second.getPhone());
+        assertEquals("456 Elm St", second.getAddress());
+        assertTrue(second.getCommitSequence() > first.getCommitSequence());
+        // The caller's Contact is a separate object and isn't changed
+        assertEquals("5551234567", contact.getPhone());
+        assertEquals("9999999999", second.toContact().getPhone());
+    }
+
+    // Test the same errors as the other services
+    @Test
+    public void testErrors() {
+        assertThrows(IllegalArgumentException.class, () -> service.addContact(null));
+        service.addContact(contact);
+        assertThrows(IllegalArgumentException.class, () -> service.addContact(contact));
+        assertThrows(IllegalArgumentException.class, () -> service.updateFirstName("002", "Ann"));
+        assertThrows(IllegalArgumentException.class, () -> service.updateAddress("001", null));
+        assertThrows(IllegalArgumentException.class, () -> service.getContactById(null));
+        service.deleteContact("001");
+        assertFalse(service.containsContact("001"));
+        assertThrows(IllegalArgumentException.class, () -> service.deleteContact("001"));
+        assertThrows(IllegalArgumentException.class, () -> service.getContactById("001"));
+        // An ID can be used again after its contact is deleted
+        service.addContact(contact);
+        assertEquals("Jane", service.getContactById("001").getFirstName());
+    }
+
+    // Test that a snapshot doesn't see anything written after it was opened
+    @Test
+    public void testSnapshotIsolation() {
+        service.addContact(contact);
+        service.addContact(new Contact("002", "Ann", "Lee", "5551112222", "1 Oak St"));
+        try (ContactStoreSnapshot snapshot = service.openSnapshot()) {
+            service.updateFirstName("001", "Janet");
+            service.deleteContact("002");
+            service.addContact(new Contact("003", "Bob", "Ray", "5553334444", "2 Oak St"));
+
+            assertEquals("Jane", snapshot.getContactById("001").getFirstName());
+            assertTrue(snapshot.containsContact("002"));
+            assertFalse(snapshot.containsContact("003"));
+            assertEquals(2, snapshot.size());
+            assertEquals(2, snapshot.stream().count());
+        }
+        try (ContactStoreSnapshot snapshot = service.openSnapshot()) {
+            assertEquals("Janet", snapshot.getContactById("001").getFirstName());
+            assertFalse(snapshot.containsContact("002"));
+            assertEquals(2, snapshot.toList().size());
+        }
+    }
+
+    // Test that a closed snapshot can't be used and closing twice is harmless
+    @Test
+    public void testClosedSnapshot() {
+        ContactStoreSnapshot snapshot = service.openSnapshot();
+        snapshot.close();
+        snapshot.close();
+        assertThrows(IllegalStateException.class, () -> snapshot.containsContact("001"));
+    }
+
+    // Test that old versions are dropped once no open snapshot can see them
+    @Test
+    public void testPruning() {
+        service.addContact(contact);
+        ContactStoreSnapshot snapshot = service.openSnapshot();
+        for (int i = 0; i < 10; i++) {
+            service.updatePhone("001", "000000000" + i);
+        }
+        service.deleteContact("001");
+        assertEquals("5551234567", snapshot.getContactById("001").getPhone());
+        assertTrue(service.versionCount() > 2);
+
+        snapshot.close();
+        service.pruneVersions();
+        assertEquals(0, service.versionCount());
+
+        // With no snapshot open, each write keeps only its own version and the one it replaced
+        service.addContact(contact);
+        service.updatePhone("001", "0000000001");
+        service.updatePhone("001", "0000000002");
+        assertEquals(2, service.versionCount());
+        service.pruneVersions();
+        assertEquals(1, service.versionCount());
+    }
+
+    // Test that snapshots stay consistent while another thread writes
+    // The writer sets every phone to the same round number in ID order, so a consistent
+    // snapshot sees rounds that never go up as the IDs go up, and differ by at most one
+    @Test
+    public void testSnapshotsUnderConcurrentWrites() throws InterruptedException {
+        int count = 200;
+        for (int i = 0; i < count; i++) {
+            service.addContact(new Contact(Integer.toString(i), "F", "L", "0000000000", "Road"));
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int round = 1; running.get(); round++) {
+                String phone = String.format("%010d", round);
+                for (int i = 0; i < count; i++) {
+                    service.updatePhone(Integer.toString(i), phone);
+                }
+            }
+        });
+        writer.start();
+        try {
+            for (int check = 0; check < 200; check++) {
+                try (ContactStoreSnapshot snapshot = service.openSnapshot()) {
+                    long firstRound = Long.parseLong(snapshot.getContactById("0").getPhone());
+                    long previous = firstRound;
+                    for (int i = 1; i < count; i++) {
+                        long round = Long.parseLong(snapshot.getContactById(Integer.toString(i)).getPhone());
+                        assertTrue(round <= previous);
+                        previous = round;
+                    }
+                    assertTrue(firstRound - previous <= 1);
+                }
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+        service.pruneVersions();
+        assertEquals(count, service.versionCount());
+    }
+
+    // Test that a patch publishes one version holding every change
+    @Test
+    public void testApplyPatch() {
+        service.addContact(contact);
+        long before = service.getContactById("001").getCommitSequence();
+        try (ContactStoreSnapshot snapshot = service.openSnapshot()) {
+            service.applyPatch("001", new ContactPatch().setLastName("Smith").setAddress("1 Oak St"));
+            ContactVersion patched = service.getContactById("001");
+            assertEquals(before + 1, patched.getCommitSequence());
+            assertEquals("Smith", patched.getLastName());
+            assertEquals("1 Oak St", patched.getAddress());
+            assertEquals("Jane", patched.getFirstName());
+            assertEquals("Doe", snapshot.getContactById("001").getLastName());
+        }
+        assertThrows(IllegalArgumentException.class, () -> service.applyPatch("002", new ContactPatch()));
+    }
+
+    // Test compare-and-set updates and deletes against version numbers
+    @Test
+    public void testCompareAndSet() {
+        service.addContact(contact);
+        ContactVersion read = service.getContactById("001");
+        assertEquals(0, read.getVersion());
+        service.updateFirstName("001", "Janet"); // Someone else's edit
+
+        assertFalse(service.compareAndUpdate("001", read.getVersion(), new ContactPatch().setPhone("9999999999")));
+        assertFalse(service.compareAndDelete("001", read.getVersion()));
+        assertEquals("5551234567", service.getContactById("001").getPhone());
+
+        long current = service.getContactById("001").getVersion();
+        assertTrue(service.compareAndUpdate("001", current, new ContactPatch().setPhone("9999999999")));
+        assertEquals(current + 1, service.getContactById("001").getVersion());
+        assertTrue(service.compareAndDelete("001", current + 1));
+        assertThrows(IllegalArgumentException.class, () -> service.compareAndDelete("001", current + 1));
+
+        // A contact added again under the same ID doesn't reuse old version numbers
+        service.addContact(contact);
+        assertTrue(service.getContactById("001").getVersion() > current + 1);
+        assertFalse(service.compareAndDelete("001", 0));
+    }
+
+    // Test that pruning the delete marker doesn't let a re-added contact reuse old version numbers
+    @Test
+    public void testStaleVersionAfterPrunedDelete() {
+        service.addContact(contact);
+        long stale = service.getContactById("001").getVersion();
+        service.deleteContact("001");
+        service.pruneVersions();
+        assertEquals(0, service.versionCount());
+
+        service.addContact(contact);
+        assertTrue(service.getContactById("001").getVersion() > stale);
+        assertFalse(service.compareAndUpdate("001", stale, new ContactPatch().setPhone("9999999999")));
+        assertFalse(service.compareAndDelete("001", stale));
+        assertEquals("5551234567", service.getContactById("001").getPhone());
+    }
+}
\ No newline at end of file